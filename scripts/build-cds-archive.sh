@@ -0,0 +1,33 @@
+#!/bin/sh
+# Builds an AppCDS archive of the classes the application loads while starting up, so later
+# launches map them from the archive instead of loading and verifying them again.
+#
+# The training run starts the application, waits for the database and the preloaded views,
+# and exits (-Dbanking.startup.exitWhenReady=true). It needs a display and uses banking.db in
+# the working directory, seeding it if it is empty, just like a normal launch.
+#
+# Usage: scripts/build-cds-archive.sh <classpath> [archive file, default banking.jsa]
+#
+# JAVA_OPTS is passed to the JVM, e.g. for the JavaFX modules:
+#   JAVA_OPTS="--module-path /path/to/javafx/lib --add-modules javafx.controls,javafx.fxml"
+#
+# Launch with the archive using the same classpath and options. The application issues
+# account numbers as node 0 unless -Dbanking.node.id gives another:
+#   java -XX:SharedArchiveFile=banking.jsa $JAVA_OPTS -cp <classpath> banking.Main
+#
+# Compare cold starts with and without it:
+#   java -cp <classpath> banking.loadtest.StartupBenchmark 10 -XX:SharedArchiveFile=banking.jsa
+set -e
+
+if [ $# -lt 1 ]; then
+    echo "Usage: $0 <classpath> [archive file]" >&2
+    exit 2
+fi
+
+CLASSPATH_ARG=$1
+ARCHIVE=${2:-banking.jsa}
+
+java -XX:ArchiveClassesAtExit="$ARCHIVE" -Dbanking.startup.exitWhenReady=true $JAVA_OPTS \
+    -cp "$CLASSPATH_ARG" banking.Main
+
+echo "Wrote $ARCHIVE"
@@ -0,0 +1,117 @@
+package banking.benchmarks;
+
+import main.java.banking.model.ChequeAccount;
+import main.java.banking.model.CompanyCustomer;
+import main.java.banking.model.IndividualCustomer;
+import main.java.banking.model.InvestmentAccount;
+import main.java.banking.model.Money;
+import main.java.banking.model.SavingsAccount;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Balance changes and interest calculation on the account classes.
+ *
+ * Each operation is measured on an account owned by the calling thread and on one account
+ * shared by four threads, since every balance change takes the account's lock. Withdrawals
+ * start from a balance large enough never to run out during a run.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class AccountBenchmarks {
+
+    private static final Money ONE_THEBE = Money.ofThebe(1);
+    private static final Money LARGE_BALANCE = Money.ofThebe(Long.MAX_VALUE / 4);
+
+    @State(Scope.Thread)
+    public static class Owned {
+        ChequeAccount cheque;
+        InvestmentAccount investment;
+        SavingsAccount individualSavings;
+        SavingsAccount companySavings;
+
+        @Setup
+        public void setUp() {
+            IndividualCustomer person = new IndividualCustomer("Plot 1, Gaborone", "Neo", "Molefe", new Date());
+            person.setEmployer("Debswana");
+            CompanyCustomer company = new CompanyCustomer("Plot 2, Francistown", "Kgalagadi Traders", "BW0001");
+
+            cheque = new ChequeAccount("ACC-CHQ", person, "Main");
+            cheque.restoreBalance(LARGE_BALANCE);
+            investment = new InvestmentAccount("ACC-INV", person, "Main", LARGE_BALANCE);
+            individualSavings = new SavingsAccount("ACC-SAV-1", person, "Main");
+            individualSavings.restoreBalance(Money.of(25_000));
+            companySavings = new SavingsAccount("ACC-SAV-2", company, "Main");
+            companySavings.restoreBalance(Money.of(25_000));
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class Shared extends Owned {
+    }
+
+    @Benchmark
+    public void deposit(Owned state) {
+        state.individualSavings.deposit(ONE_THEBE);
+    }
+
+    @Benchmark
+    public void chequeWithdraw(Owned state) {
+        state.cheque.withdraw(ONE_THEBE);
+    }
+
+    @Benchmark
+    public void investmentWithdraw(Owned state) {
+        state.investment.withdraw(ONE_THEBE);
+    }
+
+    // The two owner types take different sides of the rate branch
+    @Benchmark
+    public Money savingsInterestIndividual(Owned state) {
+        return state.individualSavings.calculateMonthlyInterest();
+    }
+
+    @Benchmark
+    public Money savingsInterestCompany(Owned state) {
+        return state.companySavings.calculateMonthlyInterest();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void depositShared(Shared state) {
+        state.individualSavings.deposit(ONE_THEBE);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void chequeWithdrawShared(Shared state) {
+        state.cheque.withdraw(ONE_THEBE);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void investmentWithdrawShared(Shared state) {
+        state.investment.withdraw(ONE_THEBE);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public Money savingsInterestShared(Shared state) {
+        return state.individualSavings.calculateMonthlyInterest();
+    }
+}
@@ -0,0 +1,71 @@
+package banking.benchmarks;
+
+import banking.service.numbering.Luhn;
+import banking.service.numbering.SnowflakeAccountNumberGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Account number generation: the raw Snowflake id, the full number with its check digit, and
+ * the check digit alone, on one thread and with four threads sharing one generator.
+ *
+ * Past 4096 ids per millisecond the generator borrows from later milliseconds rather than
+ * waiting, so the scores measure the CAS loop and formatting, not the clock.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class AccountNumberGeneratorBenchmarks {
+
+    @State(Scope.Benchmark)
+    public static class Shared {
+        SnowflakeAccountNumberGenerator generator;
+        String digits;
+
+        @Setup
+        public void setUp() {
+            generator = new SnowflakeAccountNumberGenerator(0);
+            digits = Long.toString(generator.nextId());
+        }
+    }
+
+    @Benchmark
+    public long nextId(Shared state) {
+        return state.generator.nextId();
+    }
+
+    @Benchmark
+    public String next(Shared state) {
+        return state.generator.next("Main");
+    }
+
+    @Benchmark
+    public int checkDigit(Shared state) {
+        return Luhn.checkDigit(state.digits);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public long nextIdFourThreads(Shared state) {
+        return state.generator.nextId();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public String nextFourThreads(Shared state) {
+        return state.generator.next("Main");
+    }
+}
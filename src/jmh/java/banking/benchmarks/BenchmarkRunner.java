@@ -0,0 +1,34 @@
+package banking.benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the banking benchmarks with the GC profiler and writes the results as JSON, so a
+ * release build can be compared against the previous one.
+ *
+ * Usage: BenchmarkRunner [results file] [benchmark regex]. The results file defaults to
+ * jmh-results.json and the regex to every class in this package. The same benchmarks can
+ * also be run from the JMH uber-jar with {@code -prof gc -rf json -rff <file>}.
+ */
+public final class BenchmarkRunner {
+
+    private BenchmarkRunner() { }
+
+    public static void main(String[] args) throws RunnerException {
+        String resultsFile = args.length > 0 ? args[0] : "jmh-results.json";
+        String include = args.length > 1 ? args[1] : BenchmarkRunner.class.getPackage().getName() + "\\..*Benchmarks";
+
+        Options options = new OptionsBuilder()
+            .include(include)
+            .addProfiler(GCProfiler.class)
+            .resultFormat(ResultFormatType.JSON)
+            .result(resultsFile)
+            .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,142 @@
+package banking.benchmarks;
+
+import main.java.banking.model.Account;
+import main.java.banking.model.CompanyCustomer;
+import main.java.banking.model.Customer;
+import main.java.banking.model.IndividualCustomer;
+import main.java.banking.model.SavingsAccount;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Customer.openAccount against customers that already hold many accounts, and the
+ * getAccountInfo/getCustomerInfo strings shown on the dashboards.
+ *
+ * Opening new accounts is measured in batches: each measurement iteration starts from a
+ * customer holding {@code existingAccounts} accounts and opens {@link #BATCH} more.
+ * Re-opening an account the customer already holds is timed
+ * directly since it leaves the customer unchanged.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class CustomerBenchmarks {
+
+    static final int BATCH = 1_000;
+
+    @State(Scope.Thread)
+    public static class Holdings {
+        @Param({"1", "100", "10000"})
+        int existingAccounts;
+
+        Customer customer;
+        Account held;
+        Account[] fresh;
+        int next;
+
+        @Setup(Level.Iteration)
+        public void setUp() {
+            customer = new CompanyCustomer("Plot 2, Francistown", "Kgalagadi Traders", "BW0001");
+            for (int i = 0; i < existingAccounts; i++) {
+                held = new SavingsAccount("ACC-" + i, customer, "Main");
+            }
+            // Created without an owner so they are not opened yet
+            fresh = new Account[BATCH];
+            for (int i = 0; i < BATCH; i++) {
+                fresh[i] = new SavingsAccount("NEW-" + i, null, "Main");
+            }
+            next = 0;
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class SharedHoldings extends Holdings {
+    }
+
+    @State(Scope.Thread)
+    public static class Profiles {
+        IndividualCustomer employed;
+        IndividualCustomer unemployed;
+        CompanyCustomer company;
+        Account account;
+
+        @Setup
+        public void setUp() {
+            employed = new IndividualCustomer("Plot 1, Gaborone", "Neo", "Molefe", new Date());
+            employed.setEmployer("Debswana");
+            unemployed = new IndividualCustomer("Plot 3, Maun", "Kabo", "Seretse", new Date());
+            company = new CompanyCustomer("Plot 2, Francistown", "Kgalagadi Traders", "BW0001");
+            account = new SavingsAccount("ACC-SAV-1", employed, "Main");
+            account.deposit(12_345.67);
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class SharedProfiles extends Profiles {
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @Warmup(iterations = 10, batchSize = BATCH)
+    @Measurement(iterations = 20, batchSize = BATCH)
+    public Customer openAccount(Holdings state) {
+        // batchSize makes JMH call this BATCH times per iteration
+        state.customer.openAccount(state.fresh[state.next++]);
+        return state.customer;
+    }
+
+    @Benchmark
+    public Customer openAccountAlreadyHeld(Holdings state) {
+        state.customer.openAccount(state.held);
+        return state.customer;
+    }
+
+    @Benchmark
+    @Threads(4)
+    public Customer openAccountAlreadyHeldShared(SharedHoldings state) {
+        state.customer.openAccount(state.held);
+        return state.customer;
+    }
+
+    @Benchmark
+    public String accountInfo(Profiles state) {
+        return state.account.getAccountInfo();
+    }
+
+    @Benchmark
+    public String customerInfoEmployed(Profiles state) {
+        return state.employed.getCustomerInfo();
+    }
+
+    @Benchmark
+    public String customerInfoUnemployed(Profiles state) {
+        return state.unemployed.getCustomerInfo();
+    }
+
+    @Benchmark
+    public String customerInfoCompany(Profiles state) {
+        return state.company.getCustomerInfo();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public String accountInfoShared(SharedProfiles state) {
+        return state.account.getAccountInfo();
+    }
+}
@@ -0,0 +1,93 @@
+package banking.benchmarks;
+
+import banking.audit.JsonLinesEventSink;
+import main.java.banking.model.AccountEventSink;
+import main.java.banking.model.AccountEvents;
+import main.java.banking.model.CompanyCustomer;
+import main.java.banking.model.Money;
+import main.java.banking.model.SavingsAccount;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Deposit throughput with no audit sink installed and with the JSON-lines sink writing to a
+ * writer that discards its output, so the score is the cost of publishing and formatting
+ * rather than of the disk.
+ *
+ * Each thread deposits into its own account, so the threaded runs contend on the sink's ring
+ * and not on an account lock. When the writer thread falls behind, the sink drops events
+ * instead of slowing deposits; the dropped count is printed at the end of each trial.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class EventSinkBenchmarks {
+
+    private static final Money ONE_THEBE = Money.ofThebe(1);
+
+    @State(Scope.Benchmark)
+    public static class Sink {
+        @Param({"none", "jsonLines"})
+        String sink;
+
+        JsonLinesEventSink jsonLines;
+
+        @Setup
+        public void install() {
+            if ("jsonLines".equals(sink)) {
+                jsonLines = new JsonLinesEventSink(Writer.nullWriter(), JsonLinesEventSink.DEFAULT_CAPACITY);
+                AccountEvents.install(jsonLines);
+            } else {
+                AccountEvents.install(AccountEventSink.NO_OP);
+            }
+        }
+
+        @TearDown
+        public void uninstall() throws IOException {
+            AccountEvents.install(AccountEventSink.NO_OP);
+            if (jsonLines != null) {
+                jsonLines.close();
+                System.out.printf("%n%,d events dropped%n", jsonLines.getDroppedCount());
+            }
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Owned {
+        SavingsAccount account;
+
+        @Setup
+        public void setUp() {
+            CompanyCustomer company = new CompanyCustomer("Plot 2, Francistown", "Kgalagadi Traders", "BW0001");
+            account = new SavingsAccount("ACC-SAV", company, "Main");
+        }
+    }
+
+    @Benchmark
+    public void deposit(Sink sink, Owned state) {
+        state.account.deposit(ONE_THEBE);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void depositFourThreads(Sink sink, Owned state) {
+        state.account.deposit(ONE_THEBE);
+    }
+}
@@ -0,0 +1,111 @@
+package banking.benchmarks;
+
+import main.java.banking.model.Money;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Money against BigDecimal and double for the two loops accounts run: a stream of deposits
+ * added to a balance, and a year of monthly interest at the 2.5% savings rate compounded
+ * onto it.
+ *
+ * Each invocation runs the whole loop and the scores are per step. The BigDecimal and Money
+ * versions round each interest posting to a whole thebe half-even, as SavingsAccount does;
+ * the double version rounds nothing, which is the drift Money was introduced to remove.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Thread)
+public class MoneyBenchmarks {
+
+    private static final int DEPOSITS = 1_000;
+    private static final int MONTHS = 12;
+
+    private static final long RATE_PER_MILLE = 25;
+    private static final BigDecimal RATE = new BigDecimal("0.025");
+    private static final double DOUBLE_RATE = 0.025;
+
+    // Fields rather than constants, so the JIT cannot fold the loops away
+    private Money moneyDeposit = Money.ofThebe(12_34);
+    private BigDecimal decimalDeposit = new BigDecimal("12.34");
+    private double doubleDeposit = 12.34;
+
+    private Money moneyOpening = Money.ofThebe(25_000_00);
+    private BigDecimal decimalOpening = new BigDecimal("25000.00");
+    private double doubleOpening = 25_000.00;
+
+    @Benchmark
+    @OperationsPerInvocation(DEPOSITS)
+    public Money depositsMoney() {
+        Money balance = Money.ZERO;
+        for (int i = 0; i < DEPOSITS; i++) {
+            balance = balance.plus(moneyDeposit);
+        }
+        return balance;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(DEPOSITS)
+    public BigDecimal depositsBigDecimal() {
+        BigDecimal balance = BigDecimal.ZERO;
+        for (int i = 0; i < DEPOSITS; i++) {
+            balance = balance.add(decimalDeposit);
+        }
+        return balance;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(DEPOSITS)
+    public double depositsDouble() {
+        double balance = 0;
+        for (int i = 0; i < DEPOSITS; i++) {
+            balance += doubleDeposit;
+        }
+        return balance;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(MONTHS)
+    public Money interestMoney() {
+        Money balance = moneyOpening;
+        for (int i = 0; i < MONTHS; i++) {
+            balance = balance.plus(balance.multiply(RATE_PER_MILLE, 1000, RoundingMode.HALF_EVEN));
+        }
+        return balance;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(MONTHS)
+    public BigDecimal interestBigDecimal() {
+        BigDecimal balance = decimalOpening;
+        for (int i = 0; i < MONTHS; i++) {
+            balance = balance.add(balance.multiply(RATE).setScale(2, RoundingMode.HALF_EVEN));
+        }
+        return balance;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(MONTHS)
+    public double interestDouble() {
+        double balance = doubleOpening;
+        for (int i = 0; i < MONTHS; i++) {
+            balance += balance * DOUBLE_RATE;
+        }
+        return balance;
+    }
+}
@@ -1,35 +1,93 @@
 package banking;
 
+import banking.audit.JsonLinesEventSink;
+import banking.database.AsyncDataAccess;
+import banking.database.ConnectionPool;
+import banking.database.DailyBalanceSnapshots;
+import banking.database.DepositBatcher;
 import banking.database.DatabaseConnection;
+import banking.ledger.TransactionLedger;
+import banking.metrics.Metrics;
+import banking.service.BankStatistics;
+import banking.service.numbering.SnowflakeAccountNumberGenerator;
+import banking.startup.StartupPipeline;
+import banking.views.ViewManager;
 import javafx.application.Application;
-import javafx.fxml.FXMLLoader;
-import javafx.scene.Parent;
+import javafx.application.Platform;
 import javafx.scene.Scene;
 import javafx.stage.Stage;
 
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+
 public class Main extends Application {
     
     private static Stage primaryStage;
+    private static ViewManager views;
+    private static JsonLinesEventSink auditSink;
     
     @Override
     public void start(Stage primaryStage) throws Exception {
         Main.primaryStage = primaryStage;
         
-        // Initialize database with tables and sample data
-        DatabaseConnection.initializeDatabase();
+        // Off unless -Dbanking.metrics=on or =jfr is given
+        Metrics.configureFromSystemProperties();
+        
+        // Off unless -Dbanking.audit.file names a JSON-lines file to append account events to
+        auditSink = JsonLinesEventSink.installFromSystemProperties();
+        
+        // The desktop application runs as a single process, so it is node 0 unless -Dbanking.node.id says otherwise
+        SnowflakeAccountNumberGenerator.initializeFromSystemProperties(0);
+        
+        // Open the pool, seed an empty database, migrate, audit query plans and start the
+        // database services in the background; DAO calls wait until all of that is done
+        StartupPipeline startup = StartupPipeline.start(ConnectionPool.DEFAULT_URL,
+            TransactionLedger.DEFAULT_DIRECTORY, pool -> DatabaseConnection.initializeDatabase());
+        AsyncDataAccess.holdUntil(startup.ready());
         
         // Set up main stage properties
         primaryStage.setMinWidth(800);
         primaryStage.setMinHeight(600);
         
+        views = new ViewManager(Main.class, primaryStage);
         showLoginView();
+        System.out.println("Login shown " + ManagementFactory.getRuntimeMXBean().getUptime() + " ms after JVM start");
+        
+        startup.ready().whenComplete((pool, error) -> {
+            if (error != null) {
+                System.err.println("Failed to start the database: " + error.getMessage());
+                error.printStackTrace();
+                Platform.runLater(() -> {
+                    showErrorDialog("Database Error", "The database could not be started. " + error.getMessage());
+                    Platform.exit();
+                });
+                return;
+            }
+            System.out.println("Database ready " + ManagementFactory.getRuntimeMXBean().getUptime()
+                + " ms after JVM start" + (startup.wasSeeded() ? " (seeded)" : "")
+                + ", stage times (ms): " + startup.getStageTimesMillis());
+            
+            // The other screens need the database services, so they are parsed once those are up,
+            // while the user is still logging in; switching to them is then a scene swap
+            views.preload("customerDashboardUI.fxml", "bankClerkDashboardUI.fxml",
+                    "transactionHistoryUI.fxml", "accountOpeningUI.fxml")
+                .whenComplete((done, preloadError) -> {
+                    if (preloadError != null) {
+                        System.err.println("Failed to preload views: " + preloadError.getMessage());
+                    }
+                    System.out.println("View load times (ms): " + views.getLoadTimesMillis());
+                    
+                    // Training run for the class data sharing archive (scripts/build-cds-archive.sh)
+                    if (Boolean.getBoolean("banking.startup.exitWhenReady")) {
+                        Platform.runLater(Platform::exit);
+                    }
+                });
+        });
     }
     
     public static void showLoginView() {
         try {
-            FXMLLoader loader = new FXMLLoader(Main.class.getResource("loginUI.fxml"));
-            Parent root = loader.load();
-            Scene scene = new Scene(root, 800, 600);
+            Scene scene = views.show("loginUI.fxml").getScene(800, 600);
             primaryStage.setTitle("First Financial Bank - Login");
             primaryStage.setScene(scene);
             primaryStage.centerOnScreen();
@@ -43,9 +101,7 @@ public class Main extends Application {
     
     public static void showCustomerDashboard() {
         try {
-            FXMLLoader loader = new FXMLLoader(Main.class.getResource("customerDashboardUI.fxml"));
-            Parent root = loader.load();
-            Scene scene = new Scene(root, 1200, 800);
+            Scene scene = views.show("customerDashboardUI.fxml").getScene(1200, 800);
             primaryStage.setTitle("First Financial Bank - Customer Dashboard");
             primaryStage.setScene(scene);
             primaryStage.centerOnScreen();
@@ -60,9 +116,7 @@ public class Main extends Application {
     
     public static void showBankClerkDashboard() {
         try {
-            FXMLLoader loader = new FXMLLoader(Main.class.getResource("bankClerkDashboardUI.fxml"));
-            Parent root = loader.load();
-            Scene scene = new Scene(root, 1200, 800);
+            Scene scene = views.show("bankClerkDashboardUI.fxml").getScene(1200, 800);
             primaryStage.setTitle("First Financial Bank - Bank Clerk Dashboard");
             primaryStage.setScene(scene);
             primaryStage.centerOnScreen();
@@ -77,13 +131,8 @@ public class Main extends Application {
     
     public static void showAccountOpeningView() {
         try {
-            FXMLLoader loader = new FXMLLoader(Main.class.getResource("accountOpeningUI.fxml"));
-            Parent root = loader.load();
-            Stage stage = new Stage();
-            stage.setTitle("Open New Account - First Financial Bank");
-            stage.setScene(new Scene(root, 700, 550));
+            Stage stage = views.show("accountOpeningUI.fxml").getDialog(primaryStage, "Open New Account - First Financial Bank", 700, 550);
             stage.setResizable(false);
-            stage.initOwner(primaryStage);
             stage.showAndWait();
         } catch (Exception e) {
             System.err.println("Failed to load account opening view: " + e.getMessage());
@@ -94,15 +143,12 @@ public class Main extends Application {
     
     public static void showTransactionHistoryView() {
         try {
-            FXMLLoader loader = new FXMLLoader(Main.class.getResource("transactionHistoryUI.fxml"));
-            Parent root = loader.load();
-            Stage stage = new Stage();
-            stage.setTitle("Transaction History - First Financial Bank");
-            stage.setScene(new Scene(root, 1100, 750));
+            Stage stage = views.show("transactionHistoryUI.fxml")
+                .getDialog(primaryStage, "Transaction History - First Financial Bank", 1100, 750);
             stage.setMinWidth(1000);
             stage.setMinHeight(700);
-            stage.initOwner(primaryStage);
             stage.show();
+            stage.toFront();
         } catch (Exception e) {
             System.err.println("Failed to load transaction history view: " + e.getMessage());
             e.printStackTrace();
@@ -112,13 +158,8 @@ public class Main extends Application {
     
     public static void showNewCustomerRegistrationView() {
         try {
-            FXMLLoader loader = new FXMLLoader(Main.class.getResource("newCustomerUI.fxml"));
-            Parent root = loader.load();
-            Stage stage = new Stage();
-            stage.setTitle("Register New Customer - First Financial Bank");
-            stage.setScene(new Scene(root, 600, 500));
+            Stage stage = views.show("newCustomerUI.fxml").getDialog(primaryStage, "Register New Customer - First Financial Bank", 600, 500);
             stage.setResizable(false);
-            stage.initOwner(primaryStage);
             stage.showAndWait();
         } catch (Exception e) {
             System.err.println("Failed to load new customer registration view: " + e.getMessage());
@@ -129,13 +170,8 @@ public class Main extends Application {
     
     public static void showDepositView() {
         try {
-            FXMLLoader loader = new FXMLLoader(Main.class.getResource("depositUI.fxml"));
-            Parent root = loader.load();
-            Stage stage = new Stage();
-            stage.setTitle("Make a Deposit - First Financial Bank");
-            stage.setScene(new Scene(root, 500, 400));
+            Stage stage = views.show("depositUI.fxml").getDialog(primaryStage, "Make a Deposit - First Financial Bank", 500, 400);
             stage.setResizable(false);
-            stage.initOwner(primaryStage);
             stage.showAndWait();
         } catch (Exception e) {
             System.err.println("Failed to load deposit view: " + e.getMessage());
@@ -146,13 +182,8 @@ public class Main extends Application {
     
     public static void showTransferView() {
         try {
-            FXMLLoader loader = new FXMLLoader(Main.class.getResource("transferUI.fxml"));
-            Parent root = loader.load();
-            Stage stage = new Stage();
-            stage.setTitle("Transfer Funds - First Financial Bank");
-            stage.setScene(new Scene(root, 500, 400));
+            Stage stage = views.show("transferUI.fxml").getDialog(primaryStage, "Transfer Funds - First Financial Bank", 500, 400);
             stage.setResizable(false);
-            stage.initOwner(primaryStage);
             stage.showAndWait();
         } catch (Exception e) {
             System.err.println("Failed to load transfer view: " + e.getMessage());
@@ -171,6 +202,49 @@ public class Main extends Application {
         }
     }
     
+    @Override
+    public void stop() {
+        try {
+            // Commit any queued deposits before the pool goes away
+            DepositBatcher.getInstance().close();
+        } catch (IllegalStateException e) {
+            // Batcher was never initialized
+        }
+        try {
+            // After the batcher, so every deposit it posted is forced to disk
+            TransactionLedger.getInstance().close();
+        } catch (IllegalStateException e) {
+            // Ledger was never opened
+        } catch (IOException e) {
+            System.err.println("Failed to close the ledger: " + e.getMessage());
+        }
+        try {
+            DailyBalanceSnapshots.getInstance().close();
+        } catch (IllegalStateException e) {
+            // Snapshots were never initialized
+        }
+        try {
+            ConnectionPool pool = ConnectionPool.getInstance();
+            System.out.println("Database pool: " + pool.getStatistics());
+            pool.close();
+        } catch (IllegalStateException e) {
+            // Pool was never initialized
+        }
+        if (views != null) {
+            views.close();
+        }
+        BankStatistics.getInstance().stopConsistencyChecks();
+        if (auditSink != null) {
+            try {
+                // Writes out whatever is still in the ring
+                auditSink.close();
+            } catch (IOException e) {
+                System.err.println("Failed to close the audit log: " + e.getMessage());
+            }
+        }
+        Metrics.shutdown();
+    }
+    
     private static void showErrorDialog(String title, String message) {
         javafx.scene.control.Alert alert = new javafx.scene.control.Alert(
             javafx.scene.control.Alert.AlertType.ERROR
@@ -183,19 +257,8 @@ public class Main extends Application {
     
     public static void main(String[] args) {
         try {
-            // Check if database driver is available
-            Class.forName("org.sqlite.JDBC");
-            System.out.println("SQLite JDBC driver loaded successfully.");
-            
-            // Launch the JavaFX application
+            // Launch the JavaFX application; the database driver is loaded in the background by StartupPipeline
             launch(args);
-        } catch (ClassNotFoundException e) {
-            System.err.println("SQLite JDBC driver not found. Please ensure the driver is in the classpath.");
-            e.printStackTrace();
-            javafx.application.Platform.runLater(() -> {
-                showErrorDialog("Database Error", 
-                    "SQLite JDBC driver not found. Please ensure the application is properly configured.");
-            });
         } catch (Exception e) {
             System.err.println("Failed to launch application: " + e.getMessage());
             e.printStackTrace();
@@ -0,0 +1,163 @@
+package banking.audit;
+
+import main.java.banking.model.AccountEvent;
+import main.java.banking.model.AccountEventSink;
+import main.java.banking.model.AccountEvents;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Asynchronous audit sink that writes one JSON object per line.
+ *
+ * Publishers claim a slot in a bounded lock-free ring with a single CAS and return
+ * immediately; one background thread drains the ring and writes to the file. When the ring
+ * is full the event is dropped and counted rather than blocking the account that published it.
+ *
+ * Off by default; {@link #installFromSystemProperties} adds it to {@link AccountEvents} when
+ * banking.audit.file names the file to append to.
+ */
+public class JsonLinesEventSink implements AccountEventSink, Closeable {
+
+    public static final int DEFAULT_CAPACITY = 1 << 14;
+    public static final String FILE_PROPERTY = "banking.audit.file";
+
+    private final AtomicReferenceArray<AccountEvent> ring;
+    private final int mask;
+    private final AtomicLong tail = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private volatile long head;
+    private volatile boolean running = true;
+
+    private final Writer out;
+    private final Thread writerThread;
+
+    public JsonLinesEventSink(Path file) throws IOException {
+        this(Files.newBufferedWriter(file, StandardCharsets.UTF_8,
+            StandardOpenOption.CREATE, StandardOpenOption.APPEND), DEFAULT_CAPACITY);
+    }
+
+    public JsonLinesEventSink(Writer out, int capacity) {
+        if (Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Capacity must be a power of two");
+        }
+        this.ring = new AtomicReferenceArray<>(capacity);
+        this.mask = capacity - 1;
+        this.out = out instanceof BufferedWriter ? out : new BufferedWriter(out);
+        this.writerThread = new Thread(this::drainLoop, "audit-writer");
+        this.writerThread.setDaemon(true);
+        this.writerThread.start();
+    }
+
+    // Returns the installed sink, or null when banking.audit.file is not set
+    public static JsonLinesEventSink installFromSystemProperties() throws IOException {
+        String file = System.getProperty(FILE_PROPERTY, "").trim();
+        if (file.isEmpty()) {
+            return null;
+        }
+        JsonLinesEventSink sink = new JsonLinesEventSink(Paths.get(file));
+        AccountEvents.addSink(sink);
+        return sink;
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return running;
+    }
+
+    @Override
+    public void publish(AccountEvent event) {
+        while (true) {
+            long slot = tail.get();
+            if (slot - head >= ring.length()) {
+                dropped.incrementAndGet();
+                return;
+            }
+            if (tail.compareAndSet(slot, slot + 1)) {
+                ring.set((int) (slot & mask), event);
+                return;
+            }
+        }
+    }
+
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    @Override
+    public void close() throws IOException {
+        running = false;
+        LockSupport.unpark(writerThread);
+        try {
+            writerThread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        out.close();
+    }
+
+    private void drainLoop() {
+        StringBuilder line = new StringBuilder(256);
+        try {
+            while (running || head < tail.get()) {
+                int index = (int) (head & mask);
+                AccountEvent event = ring.get(index);
+                if (event == null) {
+                    // Either the ring is empty or a publisher has claimed the slot but not filled it yet
+                    out.flush();
+                    LockSupport.parkNanos(100_000);
+                    continue;
+                }
+                ring.lazySet(index, null);
+                head = head + 1;
+
+                line.setLength(0);
+                appendJson(line, event);
+                out.write(line.toString());
+            }
+            out.flush();
+        } catch (IOException e) {
+            running = false;
+            System.err.println("Audit sink stopped: " + e.getMessage());
+        }
+    }
+
+    private static void appendJson(StringBuilder line, AccountEvent event) {
+        line.append("{\"ts\":").append(event.getTimestamp())
+            .append(",\"type\":\"").append(event.getType()).append('"')
+            .append(",\"account\":");
+        appendString(line, event.getAccountNumber());
+        line.append(",\"amountThebe\":").append(event.getAmount().getThebe())
+            .append(",\"balanceThebe\":").append(event.getBalanceAfter().getThebe());
+        if (event.getDescription() != null) {
+            line.append(",\"description\":");
+            appendString(line, event.getDescription());
+        }
+        line.append("}\n");
+    }
+
+    private static void appendString(StringBuilder line, String value) {
+        line.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                line.append('\\').append(c);
+            } else if (c < 0x20) {
+                line.append(String.format("\\u%04x", (int) c));
+            } else {
+                line.append(c);
+            }
+        }
+        line.append('"');
+    }
+}
@@ -7,14 +7,27 @@ import javafx.scene.control.Button;
 import javafx.scene.control.ComboBox;
 import javafx.scene.control.TextField;
 import javafx.scene.layout.VBox;
-import bankingsystem.bankingsystem.*;
+import javafx.util.StringConverter;
 import bankingsystem.bankingsystem.database.AccountDAO;
-import bankingsystem.bankingsystem.database.CustomerDAO;
+import banking.database.AsyncDataAccess;
+import banking.service.BankRegistry;
+import banking.service.BankStatistics;
+import banking.service.numbering.SnowflakeAccountNumberGenerator;
+import banking.views.ViewManager;
+import main.java.banking.model.Account;
+import main.java.banking.model.ChequeAccount;
+import main.java.banking.model.CompanyCustomer;
+import main.java.banking.model.Customer;
+import main.java.banking.model.IndividualCustomer;
+import main.java.banking.model.InvestmentAccount;
+import main.java.banking.model.Money;
+import main.java.banking.model.SavingsAccount;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 
-public class AccountOpeningController {
+public class AccountOpeningController implements ViewManager.Resettable {
 
     @FXML private ComboBox<String> customerComboBox;
     @FXML private ComboBox<String> accountTypeComboBox;
@@ -24,47 +37,62 @@ public class AccountOpeningController {
     @FXML private TextField companyAddressField;
     @FXML private VBox employmentInfoBox;
 
-    private CustomerDAO customerDAO = new CustomerDAO();
     private AccountDAO accountDAO = new AccountDAO();
-    private Map<String, Customer> customerMap = new HashMap<>();
+    private final AsyncDataAccess.Scope async = AsyncDataAccess.newScope();
 
     @FXML
     public void initialize() {
+        async.bindTo(branchField);
         setupAccountTypeComboBox();
-        loadCustomers();
+        setupCustomerComboBox();
         
         accountTypeComboBox.getSelectionModel().selectedItemProperty().addListener(
             (observable, oldValue, newValue) -> handleAccountTypeChange(newValue)
         );
     }
 
+    @Override
+    public void reset() {
+        async.reopen();
+        resetForm();
+        loadCustomers();
+    }
+
     private void setupAccountTypeComboBox() {
         accountTypeComboBox.setItems(FXCollections.observableArrayList(
             "Savings", "Investment", "Cheque"
         ));
     }
 
-    private void loadCustomers() {
-        try {
-            var customers = customerDAO.getAllCustomers();
-            customerComboBox.getItems().clear();
-            customerMap.clear();
-            
-            for (Customer customer : customers) {
-                String displayName;
-                if (customer instanceof IndividualCustomer) {
-                    IndividualCustomer ind = (IndividualCustomer) customer;
-                    displayName = ind.getFullName() + " (Individual)";
-                } else {
-                    CompanyCustomer comp = (CompanyCustomer) customer;
-                    displayName = comp.getCompanyName() + " (Company)";
-                }
-                customerComboBox.getItems().add(displayName);
-                customerMap.put(displayName, customer);
+    // The combo box holds customer ids and shows each customer's name
+    private void setupCustomerComboBox() {
+        customerComboBox.setConverter(new StringConverter<String>() {
+            @Override
+            public String toString(String customerId) {
+                return customerId == null ? null : displayName(BankRegistry.getInstance().findCustomer(customerId));
             }
-        } catch (Exception e) {
-            showAlert(Alert.AlertType.ERROR, "Error", "Failed to load customers: " + e.getMessage());
+
+            @Override
+            public String fromString(String text) {
+                return text;
+            }
+        });
+    }
+
+    // Customers are held in the registry, so no database call is needed
+    private void loadCustomers() {
+        List<String> customerIds = new ArrayList<>(BankRegistry.getInstance().getCustomerIds());
+        Collections.sort(customerIds);
+        customerComboBox.getItems().setAll(customerIds);
+    }
+
+    private static String displayName(Customer customer) {
+        if (customer instanceof IndividualCustomer) {
+            return ((IndividualCustomer) customer).getFullName() + " (Individual)";
+        } else if (customer instanceof CompanyCustomer) {
+            return ((CompanyCustomer) customer).getCompanyName() + " (Company)";
         }
+        return "Unknown customer";
     }
 
     @FXML
@@ -114,15 +142,15 @@ public class AccountOpeningController {
         // Validate initial deposit
         String accountType = accountTypeComboBox.getValue();
         try {
-            double initialDeposit = Double.parseDouble(initialDepositField.getText());
+            Money initialDeposit = Money.parse(initialDepositField.getText());
             
-            if (initialDeposit <= 0) {
+            if (!initialDeposit.isPositive()) {
                 showAlert(Alert.AlertType.ERROR, "Error", "Initial deposit must be positive");
                 return false;
             }
             
-            if ("Investment".equals(accountType) && initialDeposit < 500.0) {
-                showAlert(Alert.AlertType.ERROR, "Error", "Investment account requires minimum opening balance of BWP 500.00");
+            if ("Investment".equals(accountType) && initialDeposit.isLessThan(InvestmentAccount.MIN_OPENING_BALANCE)) {
+                showAlert(Alert.AlertType.ERROR, "Error", "Investment account requires minimum opening balance of " + InvestmentAccount.MIN_OPENING_BALANCE);
                 return false;
             }
         } catch (NumberFormatException e) {
@@ -132,7 +160,7 @@ public class AccountOpeningController {
 
         // Validate employment info for cheque accounts
         if ("Cheque".equals(accountType)) {
-            Customer customer = customerMap.get(customerComboBox.getValue());
+            Customer customer = BankRegistry.getInstance().findCustomer(customerComboBox.getValue());
             if (customer instanceof IndividualCustomer) {
                 IndividualCustomer indCustomer = (IndividualCustomer) customer;
                 if (!indCustomer.isEmployed()) {
@@ -149,13 +177,13 @@ public class AccountOpeningController {
 
     private void createAccount() {
         try {
-            String customerDisplayName = customerComboBox.getValue();
+            String customerId = customerComboBox.getValue();
             String accountType = accountTypeComboBox.getValue();
             String branch = branchField.getText().trim();
-            double initialDeposit = Double.parseDouble(initialDepositField.getText());
+            Money initialDeposit = Money.parse(initialDepositField.getText());
             
-            Customer customer = customerMap.get(customerDisplayName);
-            String accountNumber = generateAccountNumber();
+            Customer customer = BankRegistry.getInstance().findCustomer(customerId);
+            String accountNumber = generateAccountNumber(branch);
             
             Account account = createAccountInstance(accountType, accountNumber, customer, branch, initialDeposit);
             
@@ -164,16 +192,21 @@ public class AccountOpeningController {
                 account.deposit(initialDeposit, "Initial deposit");
                 
                 // Save to database
-                if (accountDAO.saveAccount(account)) {
-                    showAlert(Alert.AlertType.INFORMATION, "Success", 
-                        String.format("Account opened successfully!\n\nAccount Number: %s\nAccount Type: %s\nBranch: %s\nInitial Deposit: BWP %,.2f",
-                        accountNumber, accountType, branch, initialDeposit));
-                    
-                    // Clear form for next account
-                    resetForm();
-                } else {
-                    showAlert(Alert.AlertType.ERROR, "Error", "Failed to save account to database");
-                }
+                async.run(() -> accountDAO.saveAccount(account), saved -> {
+                    if (saved) {
+                        BankRegistry.getInstance().registerAccount(account);
+                        BankStatistics.getInstance().accountOpened(account);
+                        
+                        showAlert(Alert.AlertType.INFORMATION, "Success", 
+                            String.format("Account opened successfully!\n\nAccount Number: %s\nAccount Type: %s\nBranch: %s\nInitial Deposit: %s",
+                            accountNumber, accountType, branch, initialDeposit));
+                        
+                        // Clear form for next account
+                        resetForm();
+                    } else {
+                        showAlert(Alert.AlertType.ERROR, "Error", "Failed to save account to database");
+                    }
+                }, e -> showAlert(Alert.AlertType.ERROR, "Error", "Failed to save account: " + e.getMessage()));
             }
             
         } catch (Exception e) {
@@ -183,7 +216,7 @@ public class AccountOpeningController {
     }
 
     private Account createAccountInstance(String accountType, String accountNumber, 
-                                        Customer customer, String branch, double initialDeposit) {
+                                        Customer customer, String branch, Money initialDeposit) {
         try {
             switch (accountType) {
                 case "Savings":
@@ -213,8 +246,9 @@ public class AccountOpeningController {
         }
     }
 
-    private String generateAccountNumber() {
-        return "ACC" + System.currentTimeMillis();
+    private String generateAccountNumber(String branch) {
+        // Configured with this process's node id when the application starts
+        return SnowflakeAccountNumberGenerator.getInstance().next(branch);
     }
 
     private void resetForm() {
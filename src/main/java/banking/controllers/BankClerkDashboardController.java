@@ -16,17 +16,30 @@ import javafx.scene.control.DatePicker;
 import javafx.scene.layout.VBox;
 import javafx.scene.layout.HBox;
 import javafx.beans.property.SimpleStringProperty;
+import javafx.stage.Window;
 import bankingsystem.model.Main;
 import bankingsystem.database.CustomerDAO;
 import bankingsystem.database.AccountDAO;
 import bankingsystem.database.TransactionDAO;
-import bankingsystem.models.UserSession;
 import bankingsystem.models.CustomerDTO;
-
+import banking.database.AsyncDataAccess;
+import banking.database.ConnectionPool;
+import banking.database.JdbcInterestWriter;
+import banking.database.RegistryLoader;
+import banking.ledger.TransactionLedger;
+import banking.reports.ReportEngine;
+import banking.service.BankRegistry;
+import banking.service.BankStatistics;
+import banking.service.MonthEndInterestRun;
+import banking.security.SessionHandle;
+import banking.views.ViewManager;
+
+import java.nio.file.Paths;
+import java.time.YearMonth;
 import java.util.List;
 import java.util.Optional;
 
-public class BankClerkDashboardController {
+public class BankClerkDashboardController implements ViewManager.Resettable, ViewManager.WindowBound {
 
     @FXML private Label totalCustomersLabel;
     @FXML private Label accountsOpenedLabel;
@@ -41,11 +54,26 @@ public class BankClerkDashboardController {
     private CustomerDAO customerDAO = new CustomerDAO();
     private AccountDAO accountDAO = new AccountDAO();
     private TransactionDAO transactionDAO = new TransactionDAO();
-    private UserSession session = UserSession.getInstance();
+    private SessionHandle session;
+    private final AsyncDataAccess.Scope async = AsyncDataAccess.newScope();
+
+    // Key for the customer list query, so repeated refreshes share one database call
+    private static final String ALL_CUSTOMERS = "customers.all";
 
     @FXML
     public void initialize() {
+        async.bindTo(customersTable);
         setupTableColumns();
+    }
+
+    @Override
+    public void attach(Window window) {
+        session = SessionHandle.forWindow(window);
+    }
+
+    @Override
+    public void reset() {
+        async.reopen();
         loadDashboardStats();
         loadCustomers();
     }
@@ -106,33 +134,33 @@ public class BankClerkDashboardController {
         showReportDialog();
     }
 
-    private void loadDashboardStats() {
-        try {
-            // Get total customers count
-            List<CustomerDTO> allCustomers = customerDAO.getAllCustomerDTOs();
-            totalCustomersLabel.setText(String.valueOf(allCustomers.size()));
-
-            // Get total accounts count
-            int totalAccounts = allCustomers.stream()
-                .mapToInt(CustomerDTO::getAccountCount)
-                .sum();
-            accountsOpenedLabel.setText(String.valueOf(totalAccounts));
+    @FXML
+    private void handleMonthEndInterest() {
+        // Posts interest for the month that just ended; accounts that already have it are skipped, so running it again is safe
+        YearMonth period = YearMonth.now().minusMonths(1);
+        MonthEndInterestRun run = new MonthEndInterestRun(TransactionLedger.getInstance(),
+            new JdbcInterestWriter(ConnectionPool.getInstance()));
+        async.run(() -> run.run(period, BankRegistry.getInstance().getAccounts()), result ->
+            showAlert(Alert.AlertType.INFORMATION, "Month-End Interest",
+                String.format("Interest for %s posted to %,d accounts (%s in total); %,d already had it.",
+                    period, result.getAccountsPosted(), result.getTotalInterest(), result.getAlreadyPosted())),
+            e -> showAlert(Alert.AlertType.ERROR, "Error", "Failed to post month-end interest: " + e.getMessage()));
+    }
 
-            // Pending actions
-            pendingActionsLabel.setText("3");
+    // The totals are seeded at startup and kept current, so this never waits on the database
+    private void loadDashboardStats() {
+        BankStatistics stats = BankStatistics.getInstance();
+        totalCustomersLabel.setText(String.valueOf(stats.getCustomerCount()));
+        accountsOpenedLabel.setText(String.valueOf(stats.getAccountCount()));
 
-        } catch (Exception e) {
-            showAlert(Alert.AlertType.ERROR, "Error", "Failed to load dashboard statistics: " + e.getMessage());
-        }
+        // Pending actions
+        pendingActionsLabel.setText("3");
     }
 
     private void loadCustomers() {
-        try {
-            List<CustomerDTO> customers = customerDAO.getAllCustomerDTOs();
-            customersTable.setItems(FXCollections.observableArrayList(customers));
-        } catch (Exception e) {
-            showAlert(Alert.AlertType.ERROR, "Error", "Failed to load customers: " + e.getMessage());
-        }
+        async.runShared(ALL_CUSTOMERS, customerDAO::getAllCustomerDTOs,
+            customers -> customersTable.setItems(FXCollections.observableArrayList(customers)),
+            e -> showAlert(Alert.AlertType.ERROR, "Error", "Failed to load customers: " + e.getMessage()));
     }
 
     private void showNewCustomerDialog() {
@@ -275,14 +303,26 @@ public class BankClerkDashboardController {
                 );
             }
 
-            // Save to database
-            if (customerDAO.saveCustomer(customer)) {
-                showAlert(Alert.AlertType.INFORMATION, "Success", "Customer registered successfully!");
-                loadDashboardStats();
-                loadCustomers();
-            } else {
-                showAlert(Alert.AlertType.ERROR, "Error", "Failed to save customer to database");
-            }
+            // Save to database; the DAO assigns the customer id, so the registry picks the new row up from the table
+            async.run(() -> {
+                boolean saved = customerDAO.saveCustomer(customer);
+                if (saved) {
+                    RegistryLoader.getInstance().loadNew();
+                }
+                return saved;
+            }, saved -> {
+                if (saved) {
+                    BankStatistics.getInstance().customerRegistered();
+                    showAlert(Alert.AlertType.INFORMATION, "Success", "Customer registered successfully!");
+                    loadDashboardStats();
+                    loadCustomers();
+                } else {
+                    showAlert(Alert.AlertType.ERROR, "Error", "Failed to save customer to database");
+                }
+            }, e -> {
+                showAlert(Alert.AlertType.ERROR, "Error", "Failed to register customer: " + e.getMessage());
+                e.printStackTrace();
+            });
 
         } catch (Exception e) {
             showAlert(Alert.AlertType.ERROR, "Error", "Failed to register customer: " + e.getMessage());
@@ -296,10 +336,20 @@ public class BankClerkDashboardController {
             return;
         }
 
-        //generate and display the report
-        showAlert(Alert.AlertType.INFORMATION, "Report Generated", 
-            String.format("%s report for period %s to %s has been generated.", 
-                         reportType, fromDate, toDate));
+        if (fromDate != null && toDate != null && fromDate.isAfter(toDate)) {
+            showAlert(Alert.AlertType.ERROR, "Error", "The from date must not be after the to date");
+            return;
+        }
+
+        // Streams the report to a CSV file in the background
+        ReportEngine.ReportType type = ReportEngine.ReportType.fromDisplayName(reportType);
+        ReportEngine engine = new ReportEngine(ConnectionPool.getInstance(), Paths.get("reports"));
+        async.run(() -> engine.generate(type, fromDate, toDate), report ->
+            showAlert(Alert.AlertType.INFORMATION, "Report Generated",
+                String.format("%s report for period %s to %s has been generated (%,d rows in %.1f s).%nSaved to %s",
+                    reportType, fromDate != null ? fromDate : "start", toDate != null ? toDate : "today",
+                    report.getRows(), report.getElapsedSeconds(), report.getFile().toAbsolutePath())),
+            e -> showAlert(Alert.AlertType.ERROR, "Error", "Failed to generate report: " + e.getMessage()));
     }
 
     private void showAlert(Alert.AlertType alertType, String title, String message) {
@@ -12,16 +12,27 @@ import javafx.scene.control.Dialog;
 import javafx.scene.control.ButtonType;
 import javafx.scene.layout.VBox;
 import javafx.scene.layout.HBox;
+import javafx.stage.Window;
 import bankingsystem.model.Main;
-import bankingsystem.database.AccountDAO;
-import bankingsystem.database.TransactionDAO;
-import bankingsystem.models.UserSession;
-import bankingsystem.models.TransactionDTO;
+import main.java.banking.model.Account;
+import main.java.banking.model.Money;
+import banking.database.AccountBalanceCache;
+import banking.database.AsyncDataAccess;
+import banking.database.ConnectionPool;
+import banking.database.DepositBatcher;
+import banking.database.JdbcTransferWriter;
+import banking.database.TransactionHistoryQuery;
+import banking.database.TransactionRecord;
+import banking.ledger.TransactionLedger;
+import banking.security.SessionHandle;
+import banking.service.BankRegistry;
+import banking.service.TransferEngine;
+import banking.views.ViewManager;
 
 import java.util.List;
 import java.util.Optional;
 
-public class CustomerDashboardController {
+public class CustomerDashboardController implements ViewManager.Resettable, ViewManager.WindowBound {
 
     @FXML private Label checkingBalance;
     @FXML private Label savingsBalance;
@@ -32,12 +43,27 @@ public class CustomerDashboardController {
     @FXML private Button viewHistoryButton;
     @FXML private Button transferFundsButton;
 
-    private AccountDAO accountDAO = new AccountDAO();
-    private TransactionDAO transactionDAO = new TransactionDAO();
-    private UserSession session = UserSession.getInstance();
+    private TransactionHistoryQuery historyQuery = new TransactionHistoryQuery(ConnectionPool.getInstance());
+    private SessionHandle session;
+    private final AsyncDataAccess.Scope async = AsyncDataAccess.newScope();
+    // The logged-in customer's accounts as last loaded; null until the first load completes
+    private AccountBalanceCache.Balances customerAccounts;
 
     @FXML
     public void initialize() {
+        async.bindTo(welcomeLabel);
+    }
+
+    @Override
+    public void attach(Window window) {
+        session = SessionHandle.forWindow(window);
+    }
+
+    // The view is cached, so everything that depends on who is logged in is loaded here
+    @Override
+    public void reset() {
+        async.reopen();
+        customerAccounts = null;
         updateWelcomeMessage();
         loadAccountBalances();
         loadRecentTransactions();
@@ -76,6 +102,7 @@ public class CustomerDashboardController {
 
     @FXML
     private void handleLogout() {
+        AccountBalanceCache.release(session.getCustomerId());
         session.clearSession();
         Main.showLoginView();
     }
@@ -96,33 +123,35 @@ public class CustomerDashboardController {
     }
 
     private void loadAccountBalances() {
-        // In a real implementation, you would fetch these from the database
-        // For now, using demo data that would come from AccountDAO
         String customerId = session.getCustomerId();
         if (customerId != null) {
-            // This will be replaced with actual database calls
-            // List<Account> accounts = accountDAO.getAccountsByCustomerId(customerId);
-            
-            // Demo balances - to be replaced with actual data
-            checkingBalance.setText("BWP 1,176.01");
-            savingsBalance.setText("BWP 2,423.25");
-            investmentBalance.setText("BWP 6,712.27");
+            // One query for the customer's account numbers, cached for the session; the balances
+            // come from the in-memory accounts, which deposits and transfers update first
+            AccountBalanceCache balances = AccountBalanceCache.forCustomer(customerId);
+            async.run(balances::get, accounts -> {
+                customerAccounts = accounts;
+                checkingBalance.setText(total(accounts, "Cheque").toString());
+                savingsBalance.setText(total(accounts, "Savings").toString());
+                investmentBalance.setText(total(accounts, "Investment").toString());
+            }, e -> showAlert(Alert.AlertType.ERROR, "Error", "Failed to load account balances: " + e.getMessage()));
         }
     }
 
     private void loadRecentTransactions() {
         String customerId = session.getCustomerId();
         if (customerId != null) {
-            List<TransactionDTO> recentTransactions = transactionDAO.getRecentTransactions(customerId, 10);
-            transactionsList.getItems().clear();
-            
-            for (TransactionDTO transaction : recentTransactions) {
-                String transactionText = String.format("%s: BWP %,.2f - %s", 
-                    transaction.getDescription(), 
-                    transaction.getAmount(), 
-                    transaction.getTransactionDate());
-                transactionsList.getItems().add(transactionText);
-            }
+            async.run(() -> historyQuery.fetchRecent(customerId, 10), recentTransactions -> {
+                transactionsList.getItems().clear();
+                
+                for (TransactionRecord transaction : recentTransactions) {
+                    // Money prints as "BWP 1,234.56"
+                    String transactionText = String.format("%s: %s - %s", 
+                        transaction.getDescription(), 
+                        transaction.getAmount(), 
+                        transaction.getFormattedDate());
+                    transactionsList.getItems().add(transactionText);
+                }
+            }, e -> showAlert(Alert.AlertType.ERROR, "Error", "Failed to load recent transactions: " + e.getMessage()));
         } else {
             // Demo transactions
             transactionsList.getItems().addAll(
@@ -206,21 +235,27 @@ public class CustomerDashboardController {
         }
 
         try {
-            double amount = Double.parseDouble(amountStr);
-            if (amount <= 0) {
+            Money amount = Money.parse(amountStr);
+            if (!amount.isPositive()) {
                 showAlert(Alert.AlertType.ERROR, "Error", "Amount must be positive");
                 return;
             }
 
-            // save to database via AccountDAO and TransactionDAO
-            if (transactionDAO.recordDeposit(session.getCustomerId(), accountType, amount, description)) {
+            // Posted to the ledger now; completes once the next group commit has written it
+            String customerId = session.getCustomerId();
+            Account account = findAccount(storedType(accountType));
+            if (account == null) {
+                showAlert(Alert.AlertType.ERROR, "Error", "You do not have a " + accountType + " account");
+                return;
+            }
+            async.run(() -> DepositBatcher.getInstance()
+                    .submit(account, amount, description).join(), balanceAfter -> {
+                AccountBalanceCache.forCustomer(customerId).invalidate();
                 showAlert(Alert.AlertType.INFORMATION, "Success", 
-                    String.format("Deposited BWP %,.2f to %s account", amount, accountType));
+                    String.format("Deposited %s to %s account. New balance: %s", amount, accountType, balanceAfter));
                 loadAccountBalances();
                 loadRecentTransactions();
-            } else {
-                showAlert(Alert.AlertType.ERROR, "Error", "Failed to process deposit");
-            }
+            }, e -> showAlert(Alert.AlertType.ERROR, "Error", "Failed to process deposit: " + e.getMessage()));
 
         } catch (NumberFormatException e) {
             showAlert(Alert.AlertType.ERROR, "Error", "Please enter a valid amount");
@@ -239,27 +274,62 @@ public class CustomerDashboardController {
         }
 
         try {
-            double amount = Double.parseDouble(amountStr);
-            if (amount <= 0) {
+            Money amount = Money.parse(amountStr);
+            if (!amount.isPositive()) {
                 showAlert(Alert.AlertType.ERROR, "Error", "Amount must be positive");
                 return;
             }
 
-            //process transfer via TransactionDAO
-            if (transactionDAO.processTransfer(session.getCustomerId(), fromAccount, toAccount, amount)) {
+            String customerId = session.getCustomerId();
+            Account from = findAccount(storedType(fromAccount));
+            Account to = findAccount(storedType(toAccount));
+            if (from == null || to == null) {
+                showAlert(Alert.AlertType.ERROR, "Error", "You do not have a " + (from == null ? fromAccount : toAccount) + " account");
+                return;
+            }
+            // Insufficient funds comes back as an error with the engine's message
+            async.run(() -> {
+                new TransferEngine(TransactionLedger.getInstance(), new JdbcTransferWriter(ConnectionPool.getInstance()))
+                    .transfer(from, to, amount, "Transfer from " + from.getAccountNumber());
+                return null;
+            }, transferred -> {
+                AccountBalanceCache.forCustomer(customerId).invalidate();
                 showAlert(Alert.AlertType.INFORMATION, "Success", 
-                    String.format("Transferred BWP %,.2f from %s to %s", amount, fromAccount, toAccount));
+                    String.format("Transferred %s from %s to %s", amount, fromAccount, toAccount));
                 loadAccountBalances();
                 loadRecentTransactions();
-            } else {
-                showAlert(Alert.AlertType.ERROR, "Error", "Transfer failed - insufficient funds or system error");
-            }
+            }, e -> showAlert(Alert.AlertType.ERROR, "Error", "Transfer failed: " + e.getMessage()));
 
         } catch (NumberFormatException e) {
             showAlert(Alert.AlertType.ERROR, "Error", "Please enter a valid amount");
         }
     }
 
+    // The form says "Checking"; cheque accounts are stored as "Cheque"
+    private static String storedType(String accountType) {
+        return "Checking".equals(accountType) ? "Cheque" : accountType;
+    }
+
+    // The customer's first account of a type ("Cheque", "Savings" or "Investment") by account number, or null
+    private Account findAccount(String accountType) {
+        AccountBalanceCache.Balances accounts = customerAccounts;
+        AccountBalanceCache.AccountBalance first = accounts == null ? null : accounts.getFirst(accountType);
+        return first == null ? null : BankRegistry.getInstance().findAccount(first.getAccountNumber());
+    }
+
+    // Sum of the in-memory balances of the customer's accounts of a type
+    private static Money total(AccountBalanceCache.Balances accounts, String accountType) {
+        Money total = Money.ZERO;
+        for (AccountBalanceCache.AccountBalance stored : accounts.getAccounts()) {
+            if (accountType.equalsIgnoreCase(stored.getAccountType())) {
+                Account account = BankRegistry.getInstance().findAccount(stored.getAccountNumber());
+                // An account the registry has not loaded yet has had no postings in this process
+                total = total.plus(account == null ? stored.getBalance() : account.getBalance());
+            }
+        }
+        return total;
+    }
+
     private void showAlert(Alert.AlertType alertType, String title, String message) {
         Alert alert = new Alert(alertType);
         alert.setTitle(title);
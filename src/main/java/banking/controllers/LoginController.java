@@ -5,18 +5,43 @@ import javafx.scene.control.Alert;
 import javafx.scene.control.Button;
 import javafx.scene.control.PasswordField;
 import javafx.scene.control.TextField;
+import javafx.stage.Window;
 import bankingsystem.model.Main;
-import bankingsystem.database.UserDAO;
-import bankingsystem.models.UserSession;
+import banking.database.AsyncDataAccess;
+import banking.security.CredentialService;
+import banking.security.SessionHandle;
+import banking.views.ViewManager;
 
-public class LoginController {
+public class LoginController implements ViewManager.Resettable, ViewManager.WindowBound {
 
     @FXML private TextField userIdField;
     @FXML private PasswordField passwordField;
     @FXML private Button loginButton;
     @FXML private Button clerkLoginButton;
 
-    private UserDAO userDAO = new UserDAO();
+    // Rate limits are per user and per source; a desktop client is a single source
+    private static final String LOCAL_SOURCE = "local";
+
+    private final AsyncDataAccess.Scope async = AsyncDataAccess.newScope();
+    private SessionHandle session;
+
+    @FXML
+    public void initialize() {
+        async.bindTo(loginButton);
+    }
+
+    @Override
+    public void attach(Window window) {
+        session = SessionHandle.forWindow(window);
+    }
+
+    @Override
+    public void reset() {
+        async.reopen();
+        userIdField.clear();
+        passwordField.clear();
+        setLoginEnabled(true);
+    }
 
     @FXML
     private void handleLogin() {
@@ -28,9 +53,14 @@ public class LoginController {
             return;
         }
 
-        try {
-            if (userDAO.authenticateUser(userId, password)) {
-                UserSession session = UserSession.getInstance();
+        setLoginEnabled(false);
+        // Looked up when used, since the service starts after this screen is shown
+        async.run(() -> CredentialService.getInstance().authenticate(userId, password.toCharArray(), LOCAL_SOURCE).join(), result -> {
+            setLoginEnabled(true);
+            if (result.getStatus() == CredentialService.AuthResult.Status.THROTTLED) {
+                showAlert(Alert.AlertType.ERROR, "Error", "Too many login attempts. Please wait a minute and try again.");
+            } else if (result.isSuccess()) {
+                session.login(result.getUser());
                 
                 if (session.isCustomer()) {
                     Main.showCustomerDashboard();
@@ -42,10 +72,16 @@ public class LoginController {
             } else {
                 showAlert(Alert.AlertType.ERROR, "Error", "Invalid User ID or Password");
             }
-        } catch (Exception e) {
+        }, e -> {
+            setLoginEnabled(true);
             showAlert(Alert.AlertType.ERROR, "Error", "System error: " + e.getMessage());
             e.printStackTrace();
-        }
+        });
+    }
+
+    private void setLoginEnabled(boolean enabled) {
+        loginButton.setDisable(!enabled);
+        clerkLoginButton.setDisable(!enabled);
     }
 
     @FXML
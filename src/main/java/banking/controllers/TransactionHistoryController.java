@@ -2,44 +2,70 @@ package bankingsystem.controllers;
 
 import javafx.collections.FXCollections;
 import javafx.fxml.FXML;
+import javafx.geometry.Orientation;
+import javafx.scene.Node;
 import javafx.scene.control.Alert;
 import javafx.scene.control.Button;
 import javafx.scene.control.ComboBox;
 import javafx.scene.control.DatePicker;
 import javafx.scene.control.Label;
+import javafx.scene.control.ScrollBar;
 import javafx.scene.control.TableView;
 import javafx.scene.control.TableColumn;
 import javafx.scene.control.cell.PropertyValueFactory;
-import bankingsystem.database.TransactionDAO;
-import bankingsystem.models.UserSession;
-import bankingsystem.models.TransactionDTO;
+import javafx.stage.Window;
+import banking.database.AsyncDataAccess;
+import banking.database.ConnectionPool;
+import banking.database.DailyBalanceSnapshots;
+import banking.database.TransactionHistoryQuery;
+import banking.database.TransactionRecord;
+import banking.security.SessionHandle;
+import banking.views.ViewManager;
 
 import java.time.LocalDate;
-import java.util.List;
 
-public class TransactionHistoryController {
+public class TransactionHistoryController implements ViewManager.Resettable, ViewManager.WindowBound {
 
     @FXML private ComboBox<String> accountFilterComboBox;
     @FXML private DatePicker dateFromPicker;
     @FXML private DatePicker dateToPicker;
     @FXML private ComboBox<String> typeFilterComboBox;
-    @FXML private TableView<TransactionDTO> transactionsTable;
-    @FXML private TableColumn<TransactionDTO, String> dateColumn;
-    @FXML private TableColumn<TransactionDTO, String> descriptionColumn;
-    @FXML private TableColumn<TransactionDTO, String> accountColumn;
-    @FXML private TableColumn<TransactionDTO, String> typeColumn;
-    @FXML private TableColumn<TransactionDTO, String> amountColumn;
-    @FXML private TableColumn<TransactionDTO, String> balanceColumn;
+    @FXML private TableView<TransactionRecord> transactionsTable;
+    @FXML private TableColumn<TransactionRecord, String> dateColumn;
+    @FXML private TableColumn<TransactionRecord, String> descriptionColumn;
+    @FXML private TableColumn<TransactionRecord, String> accountColumn;
+    @FXML private TableColumn<TransactionRecord, String> typeColumn;
+    @FXML private TableColumn<TransactionRecord, String> amountColumn;
+    @FXML private TableColumn<TransactionRecord, String> balanceColumn;
     @FXML private Label totalDepositsLabel;
     @FXML private Label totalWithdrawalsLabel;
     @FXML private Label netChangeLabel;
 
-    private TransactionDAO transactionDAO = new TransactionDAO();
-    private UserSession session = UserSession.getInstance();
+    private TransactionHistoryQuery historyQuery = new TransactionHistoryQuery(ConnectionPool.getInstance(),
+        DailyBalanceSnapshots.getInstance());
+    private SessionHandle session;
+    private final AsyncDataAccess.Scope async = AsyncDataAccess.newScope();
+
+    private TransactionHistoryQuery.Filter currentFilter;
+    private TransactionHistoryQuery.Cursor nextCursor;
+    private boolean loadingPage;
+    private int generation; // bumped on every filter change so late results from old filters are ignored
 
     @FXML
     public void initialize() {
+        async.bindTo(transactionsTable);
         setupTableColumns();
+        setupLazyLoading();
+    }
+
+    @Override
+    public void attach(Window window) {
+        session = SessionHandle.forWindow(window);
+    }
+
+    @Override
+    public void reset() {
+        async.reopen();
         loadAccountFilters();
         loadTypeFilters();
         setupDateDefaults();
@@ -55,6 +81,22 @@ public class TransactionHistoryController {
         balanceColumn.setCellValueFactory(new PropertyValueFactory<>("formattedBalance"));
     }
 
+    private void setupLazyLoading() {
+        // The scroll bar only exists once the table skin is created
+        transactionsTable.skinProperty().addListener((obs, oldSkin, newSkin) -> {
+            for (Node node : transactionsTable.lookupAll(".scroll-bar")) {
+                if (node instanceof ScrollBar && ((ScrollBar) node).getOrientation() == Orientation.VERTICAL) {
+                    ScrollBar scrollBar = (ScrollBar) node;
+                    scrollBar.valueProperty().addListener((o, oldValue, newValue) -> {
+                        if (newValue.doubleValue() >= scrollBar.getMax() * 0.9) {
+                            loadNextPage();
+                        }
+                    });
+                }
+            }
+        });
+    }
+
     private void setupDateDefaults() {
         // Set default date range to last 30 days
         dateToPicker.setValue(LocalDate.now());
@@ -85,53 +127,67 @@ public class TransactionHistoryController {
 
     private void loadTypeFilters() {
         typeFilterComboBox.setItems(FXCollections.observableArrayList(
-            "All Types", "Deposit", "Withdrawal", "Transfer", "Interest"
+            "All Types", "Deposit", "Withdrawal", "Transfer In", "Transfer Out", "Interest"
         ));
         typeFilterComboBox.setValue("All Types");
     }
 
     private void loadTransactions() {
-        try {
-            String customerId = session.getCustomerId();
-            String accountFilter = accountFilterComboBox.getValue();
-            LocalDate fromDate = dateFromPicker.getValue();
-            LocalDate toDate = dateToPicker.getValue();
-            String typeFilter = typeFilterComboBox.getValue();
-
-            // Remove "All Accounts" and "All Types" for database query
-            String accountNumber = "All Accounts".equals(accountFilter) ? null : accountFilter;
-            String transactionType = "All Types".equals(typeFilter) ? null : typeFilter;
-
-            List<TransactionDTO> transactions = transactionDAO.getTransactionsByFilters(
-                customerId, accountNumber, fromDate, toDate, transactionType);
-
-            transactionsTable.setItems(FXCollections.observableArrayList(transactions));
-            calculateSummary(transactions);
-
-        } catch (Exception e) {
-            showAlert(Alert.AlertType.ERROR, "Error", "Failed to load transactions: " + e.getMessage());
-            e.printStackTrace();
-        }
+        String customerId = session.getCustomerId();
+        String accountFilter = accountFilterComboBox.getValue();
+        String typeFilter = typeFilterComboBox.getValue();
+
+        // Remove "All Accounts" and "All Types" for database query
+        String accountNumber = "All Accounts".equals(accountFilter) ? null : accountFilter;
+        String transactionType = "All Types".equals(typeFilter) ? null : typeFilter;
+
+        currentFilter = new TransactionHistoryQuery.Filter(
+            customerId, accountNumber, dateFromPicker.getValue(), dateToPicker.getValue(), transactionType);
+        generation++;
+        nextCursor = TransactionHistoryQuery.Cursor.START;
+        loadingPage = false;
+        transactionsTable.setItems(FXCollections.observableArrayList());
+
+        loadNextPage();
+        loadSummary();
     }
 
-    private void calculateSummary(List<TransactionDTO> transactions) {
-        double totalDeposits = 0;
-        double totalWithdrawals = 0;
+    private void loadNextPage() {
+        if (loadingPage || nextCursor == null) {
+            return;
+        }
+        loadingPage = true;
+        int requestGeneration = generation;
+        TransactionHistoryQuery.Filter filter = currentFilter;
+        TransactionHistoryQuery.Cursor cursor = nextCursor;
+
+        async.run(() -> historyQuery.fetchPage(filter, cursor, TransactionHistoryQuery.DEFAULT_PAGE_SIZE),
+            page -> {
+                if (requestGeneration != generation) {
+                    return;
+                }
+                transactionsTable.getItems().addAll(page.getRows());
+                nextCursor = page.getNext();
+                loadingPage = false;
+            }, e -> {
+                loadingPage = false;
+                showAlert(Alert.AlertType.ERROR, "Error", "Failed to load transactions: " + e.getMessage());
+                e.printStackTrace();
+            });
+    }
 
-        for (TransactionDTO transaction : transactions) {
-            String type = transaction.getTransactionType();
-            double amount = transaction.getAmount();
+    private void loadSummary() {
+        int requestGeneration = generation;
+        TransactionHistoryQuery.Filter filter = currentFilter;
 
-            if ("Deposit".equals(type) || "Interest".equals(type)) {
-                totalDeposits += amount;
-            } else if ("Withdrawal".equals(type)) {
-                totalWithdrawals += amount;
+        async.run(() -> historyQuery.summarize(filter), summary -> {
+            if (requestGeneration != generation) {
+                return;
             }
-        }
-
-        totalDepositsLabel.setText(String.format("BWP %,.2f", totalDeposits));
-        totalWithdrawalsLabel.setText(String.format("BWP %,.2f", totalWithdrawals));
-        netChangeLabel.setText(String.format("BWP %,.2f", totalDeposits - totalWithdrawals));
+            totalDepositsLabel.setText(summary.getTotalDeposits().toString());
+            totalWithdrawalsLabel.setText(summary.getTotalWithdrawals().toString());
+            netChangeLabel.setText(summary.getNetChange().toString());
+        }, e -> showAlert(Alert.AlertType.ERROR, "Error", "Failed to load transaction summary: " + e.getMessage()));
     }
 
     private void showAlert(Alert.AlertType alertType, String title, String message) {
@@ -0,0 +1,142 @@
+package banking.database;
+
+import banking.metrics.Metrics;
+import main.java.banking.model.Money;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Per-session cache of one customer's account balances.
+ *
+ * All of the customer's accounts are loaded with a single query. Each read first fetches
+ * the newest transaction id for the customer, a single index lookup, and reloads only if it
+ * moved. Postings made from another session or another process are therefore picked up on
+ * the next read. Callers that have just committed a posting call {@link #invalidate()} to
+ * force a reload.
+ *
+ * Stored balances trail the in-memory accounts while postings wait for their group commit,
+ * so screens in this process take the balance from the account in BankRegistry and use this
+ * cache for the customer's account numbers and types.
+ */
+public class AccountBalanceCache {
+
+    private static final Metrics.Timer GET_TIMER =
+        Metrics.timer("dao", "AccountBalanceCache.get");
+
+    private static final Map<String, AccountBalanceCache> SESSIONS = new ConcurrentHashMap<>();
+
+    static final String LAST_TRANSACTION =
+        "SELECT COALESCE(MAX(transaction_id), 0) FROM transactions WHERE customer_id = ?";
+    static final String ACCOUNTS =
+        "SELECT account_number, account_type, balance_thebe FROM accounts " +
+        "WHERE customer_id = ? ORDER BY account_number";
+
+    private final String customerId;
+    private final ConnectionPool pool;
+    private volatile Balances cached;
+
+    public AccountBalanceCache(String customerId, ConnectionPool pool) {
+        this.customerId = customerId;
+        this.pool = pool;
+    }
+
+    public static AccountBalanceCache forCustomer(String customerId) {
+        return SESSIONS.computeIfAbsent(customerId, id -> new AccountBalanceCache(id, ConnectionPool.getInstance()));
+    }
+
+    // Drops the customer's cache, e.g. on logout
+    public static void release(String customerId) {
+        if (customerId != null) {
+            SESSIONS.remove(customerId);
+        }
+    }
+
+    public synchronized Balances get() throws SQLException {
+        long start = GET_TIMER.start();
+        try {
+            try (ConnectionPool.PooledConnection connection = pool.acquireReader()) {
+                // Read the marker before the balances, so a commit in between causes a reload next time
+                long marker = lastTransactionId(connection);
+                Balances current = cached;
+                if (current != null && current.marker == marker) {
+                    return current;
+                }
+                current = load(connection, marker);
+                cached = current;
+                return current;
+            }
+        } finally {
+            GET_TIMER.stop(start);
+        }
+    }
+
+    public void invalidate() {
+        cached = null;
+    }
+
+    private long lastTransactionId(ConnectionPool.PooledConnection connection) throws SQLException {
+        PreparedStatement statement = connection.prepare(LAST_TRANSACTION);
+        statement.setString(1, customerId);
+        try (ResultSet rs = statement.executeQuery()) {
+            return rs.next() ? rs.getLong(1) : 0;
+        }
+    }
+
+    private Balances load(ConnectionPool.PooledConnection connection, long marker) throws SQLException {
+        PreparedStatement statement = connection.prepare(ACCOUNTS);
+        statement.setString(1, customerId);
+        List<AccountBalance> accounts = new ArrayList<>();
+        try (ResultSet rs = statement.executeQuery()) {
+            while (rs.next()) {
+                accounts.add(new AccountBalance(rs.getString("account_number"), rs.getString("account_type"),
+                    Money.ofThebe(rs.getLong("balance_thebe"))));
+            }
+        }
+        return new Balances(marker, accounts);
+    }
+
+    public static final class AccountBalance {
+        private final String accountNumber;
+        private final String accountType;
+        private final Money balance;
+
+        AccountBalance(String accountNumber, String accountType, Money balance) {
+            this.accountNumber = accountNumber;
+            this.accountType = accountType;
+            this.balance = balance;
+        }
+
+        public String getAccountNumber() { return accountNumber; }
+        public String getAccountType() { return accountType; }
+        public Money getBalance() { return balance; }
+    }
+
+    public static final class Balances {
+        private final long marker;
+        private final List<AccountBalance> accounts;
+
+        Balances(long marker, List<AccountBalance> accounts) {
+            this.marker = marker;
+            this.accounts = Collections.unmodifiableList(accounts);
+        }
+
+        public List<AccountBalance> getAccounts() { return accounts; }
+
+        // The customer's first account of a type, by account number, or null if there is none
+        public AccountBalance getFirst(String accountType) {
+            for (AccountBalance account : accounts) {
+                if (accountType.equalsIgnoreCase(account.accountType)) {
+                    return account;
+                }
+            }
+            return null;
+        }
+    }
+}
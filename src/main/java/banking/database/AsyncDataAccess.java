@@ -0,0 +1,190 @@
+package banking.database;
+
+import javafx.application.Platform;
+import javafx.scene.Node;
+import javafx.scene.Scene;
+import javafx.stage.Window;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+
+/**
+ * Runs DAO calls off the JavaFX application thread.
+ *
+ * Every call gets its own virtual thread, so a slow query never holds up the UI or other
+ * queries. Calls made through {@link #supplyShared} with the same key while one is still
+ * running share its result instead of hitting the database again. Controllers normally use
+ * a {@link Scope}: its callbacks run on the FX thread, and closing it (automatically when the
+ * controller's window closes or its scene is replaced) cancels whatever is still pending. A
+ * cached view reopens its scope when it is shown again. Calls made while the database is still
+ * starting are queued until it is ready (see {@link #holdUntil}).
+ */
+public final class AsyncDataAccess {
+
+    private static final ExecutorService EXECUTOR = Executors.newVirtualThreadPerTaskExecutor();
+    private static final Map<String, CompletableFuture<?>> IN_FLIGHT = new ConcurrentHashMap<>();
+
+    private static volatile CompletableFuture<?> ready = CompletableFuture.completedFuture(null);
+
+    private AsyncDataAccess() { }
+
+    // Holds every call until the database has started; calls made before then wait, and fail if startup fails
+    public static void holdUntil(CompletableFuture<?> ready) {
+        AsyncDataAccess.ready = ready;
+    }
+
+    public static <T> CompletableFuture<T> supply(Callable<T> work) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        ready.whenComplete((ignored, error) -> {
+            if (error != null) {
+                result.completeExceptionally(error);
+            } else if (!result.isDone()) {
+                submit(work, result);
+            }
+        });
+        return result;
+    }
+
+    private static <T> void submit(Callable<T> work, CompletableFuture<T> result) {
+        Future<?> task = EXECUTOR.submit(() -> {
+            try {
+                result.complete(work.call());
+            } catch (Throwable e) {
+                result.completeExceptionally(e);
+            }
+        });
+        // Cancelling the future interrupts the worker, which aborts a blocked JDBC call
+        result.whenComplete((value, error) -> {
+            if (result.isCancelled()) {
+                task.cancel(true);
+            }
+        });
+    }
+
+    // Joins an identical request already in flight, or starts one
+    @SuppressWarnings("unchecked")
+    public static <T> CompletableFuture<T> supplyShared(String key, Callable<T> work) {
+        CompletableFuture<T> created = new CompletableFuture<>();
+        CompletableFuture<T> existing = (CompletableFuture<T>) IN_FLIGHT.putIfAbsent(key, created);
+        if (existing != null) {
+            return existing;
+        }
+        supply(work).whenComplete((value, error) -> {
+            IN_FLIGHT.remove(key, created);
+            if (error != null) {
+                created.completeExceptionally(error);
+            } else {
+                created.complete(value);
+            }
+        });
+        return created;
+    }
+
+    public static Scope newScope() {
+        return new Scope();
+    }
+
+    /**
+     * Requests belonging to one window. Callbacks are delivered on the FX thread and are
+     * dropped once the scope is closed.
+     */
+    public static final class Scope {
+        private final Set<CompletableFuture<?>> pending = ConcurrentHashMap.newKeySet();
+        private final Set<Object> watched = ConcurrentHashMap.newKeySet();
+        private volatile boolean closed;
+
+        public <T> void run(Callable<T> work, Consumer<T> onSuccess, Consumer<Throwable> onError) {
+            track(supply(work), onSuccess, onError);
+        }
+
+        public <T> void runShared(String key, Callable<T> work, Consumer<T> onSuccess, Consumer<Throwable> onError) {
+            // A dependent copy, so cancelling this scope does not cancel other windows sharing the call
+            track(supplyShared(key, work).thenApply(value -> value), onSuccess, onError);
+        }
+
+        // Closes the scope when the node's window is hidden or its scene is swapped out
+        public void bindTo(Node node) {
+            node.sceneProperty().addListener((obs, oldScene, newScene) -> watch(newScene));
+            watch(node.getScene());
+        }
+
+        public void close() {
+            closed = true;
+            for (CompletableFuture<?> future : pending) {
+                future.cancel(true);
+            }
+            pending.clear();
+        }
+
+        // Accepts requests again after close(), for a view that is being shown again
+        public void reopen() {
+            closed = false;
+        }
+
+        public boolean isClosed() {
+            return closed;
+        }
+
+        private <T> void track(CompletableFuture<T> future, Consumer<T> onSuccess, Consumer<Throwable> onError) {
+            if (closed) {
+                future.cancel(true);
+                return;
+            }
+            pending.add(future);
+            future.whenComplete((value, error) -> {
+                pending.remove(future);
+                Throwable cause = unwrap(error);
+                if (closed || cause instanceof CancellationException) {
+                    return;
+                }
+                Platform.runLater(() -> {
+                    if (closed) {
+                        return;
+                    }
+                    if (cause != null) {
+                        onError.accept(cause);
+                    } else {
+                        onSuccess.accept(value);
+                    }
+                });
+            });
+        }
+
+        private void watch(Scene scene) {
+            // A cached view's scene comes and goes; listen to each scene and window only once
+            if (scene == null || !watched.add(scene)) {
+                return;
+            }
+            scene.windowProperty().addListener((obs, oldWindow, newWindow) -> {
+                if (oldWindow != null && newWindow == null) {
+                    close();
+                }
+                watch(newWindow);
+            });
+            watch(scene.getWindow());
+        }
+
+        private void watch(Window window) {
+            if (window != null && watched.add(window)) {
+                window.showingProperty().addListener((obs, wasShowing, showing) -> {
+                    if (!showing) {
+                        close();
+                    }
+                });
+            }
+        }
+
+        private static Throwable unwrap(Throwable error) {
+            return error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        }
+    }
+}
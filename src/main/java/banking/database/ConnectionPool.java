@@ -0,0 +1,259 @@
+package banking.database;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Shared SQLite connections for the DAOs.
+ *
+ * SQLite allows one writer at a time, so the pool holds a single writer connection and a
+ * small set of read-only connections; with WAL journaling readers never block the writer.
+ * Each connection keeps an LRU cache of prepared statements, so DAOs can ask for the same
+ * SQL repeatedly without re-preparing it. Borrow a connection with try-with-resources:
+ *
+ * <pre>
+ * try (ConnectionPool.PooledConnection c = ConnectionPool.getInstance().acquireReader()) {
+ *     PreparedStatement ps = c.prepare("SELECT ...");
+ *     ...
+ * }
+ * </pre>
+ */
+public final class ConnectionPool implements AutoCloseable {
+
+    public static final String DEFAULT_URL = "jdbc:sqlite:banking.db";
+    public static final int DEFAULT_READERS = 4;
+    public static final int STATEMENT_CACHE_SIZE = 64;
+    private static final long ACQUIRE_TIMEOUT_SECONDS = 30;
+
+    private static ConnectionPool instance;
+
+    private final BlockingQueue<PooledConnection> writer = new ArrayBlockingQueue<>(1);
+    private final BlockingQueue<PooledConnection> readers;
+    private final List<PooledConnection> all = new ArrayList<>();
+
+    // Metrics
+    private final LongAdder acquisitions = new LongAdder();
+    private final LongAdder waitNanos = new LongAdder();
+    private final LongAdder cacheHits = new LongAdder();
+    private final LongAdder cacheMisses = new LongAdder();
+
+    public ConnectionPool(String url, int readerCount) throws SQLException {
+        this.readers = new ArrayBlockingQueue<>(readerCount);
+        try {
+            PooledConnection writeConnection = open(url, false);
+            writer.add(writeConnection);
+            for (int i = 0; i < readerCount; i++) {
+                readers.add(open(url, true));
+            }
+        } catch (SQLException e) {
+            close();
+            throw e;
+        }
+    }
+
+    public static synchronized ConnectionPool initialize(String url) throws SQLException {
+        if (instance == null) {
+            instance = new ConnectionPool(url, DEFAULT_READERS);
+        }
+        return instance;
+    }
+
+    public static synchronized ConnectionPool getInstance() {
+        if (instance == null) {
+            throw new IllegalStateException("Connection pool has not been initialized");
+        }
+        return instance;
+    }
+
+    public PooledConnection acquireReader() throws SQLException {
+        return acquire(readers);
+    }
+
+    public PooledConnection acquireWriter() throws SQLException {
+        return acquire(writer);
+    }
+
+    // Runs work on the writer connection in one transaction
+    public <T> T inTransaction(SqlWork<T> work) throws SQLException {
+        try (PooledConnection connection = acquireWriter()) {
+            Connection raw = connection.getConnection();
+            raw.setAutoCommit(false);
+            try {
+                T result = work.execute(connection);
+                raw.commit();
+                return result;
+            } catch (SQLException | RuntimeException e) {
+                raw.rollback();
+                throw e;
+            } finally {
+                raw.setAutoCommit(true);
+            }
+        }
+    }
+
+    // Metrics getters
+    public long getAcquisitions() { return acquisitions.sum(); }
+    public long getCacheHits() { return cacheHits.sum(); }
+    public long getCacheMisses() { return cacheMisses.sum(); }
+
+    public double getAverageWaitMillis() {
+        long count = acquisitions.sum();
+        return count == 0 ? 0 : waitNanos.sum() / 1_000_000.0 / count;
+    }
+
+    public double getCacheHitRatio() {
+        long hits = cacheHits.sum();
+        long total = hits + cacheMisses.sum();
+        return total == 0 ? 0 : (double) hits / total;
+    }
+
+    public String getStatistics() {
+        return String.format("acquisitions=%d avgWait=%.3fms statementCacheHits=%d misses=%d hitRatio=%.2f",
+            getAcquisitions(), getAverageWaitMillis(), getCacheHits(), getCacheMisses(), getCacheHitRatio());
+    }
+
+    @Override
+    public synchronized void close() {
+        for (PooledConnection connection : all) {
+            connection.closePhysical();
+        }
+        all.clear();
+        writer.clear();
+        readers.clear();
+        synchronized (ConnectionPool.class) {
+            if (instance == this) {
+                instance = null;
+            }
+        }
+    }
+
+    private PooledConnection acquire(BlockingQueue<PooledConnection> queue) throws SQLException {
+        long start = System.nanoTime();
+        PooledConnection connection;
+        try {
+            connection = queue.poll(ACQUIRE_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a database connection", e);
+        }
+        waitNanos.add(System.nanoTime() - start);
+        acquisitions.increment();
+        if (connection == null) {
+            throw new SQLException("Timed out waiting for a database connection");
+        }
+        connection.home = queue;
+        return connection;
+    }
+
+    private PooledConnection open(String url, boolean readOnly) throws SQLException {
+        Connection connection = DriverManager.getConnection(url);
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("PRAGMA journal_mode=WAL");
+            // Survives an application crash, but a power failure can drop the last commits; postings
+            // get their durability from the transaction ledger, which LedgerRecovery replays
+            statement.execute("PRAGMA synchronous=NORMAL");
+            statement.execute("PRAGMA busy_timeout=5000");
+            statement.execute("PRAGMA foreign_keys=ON");
+            if (readOnly) {
+                statement.execute("PRAGMA query_only=ON");
+            }
+        } catch (SQLException | RuntimeException e) {
+            // Not in the pool yet, so close() would not reach it
+            try {
+                connection.close();
+            } catch (SQLException suppressed) {
+                e.addSuppressed(suppressed);
+            }
+            throw e;
+        }
+        PooledConnection pooled = new PooledConnection(connection);
+        all.add(pooled);
+        return pooled;
+    }
+
+    @FunctionalInterface
+    public interface SqlWork<T> {
+        T execute(PooledConnection connection) throws SQLException;
+    }
+
+    /**
+     * A borrowed connection. Closing it returns it to the pool; statements from
+     * {@link #prepare(String)} belong to the cache and must not be closed by callers.
+     */
+    public final class PooledConnection implements AutoCloseable {
+        private final Connection connection;
+        private final Map<String, PreparedStatement> statements;
+        private BlockingQueue<PooledConnection> home;
+
+        private PooledConnection(Connection connection) {
+            this.connection = connection;
+            this.statements = new LinkedHashMap<String, PreparedStatement>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, PreparedStatement> eldest) {
+                    if (size() > STATEMENT_CACHE_SIZE) {
+                        closeQuietly(eldest.getValue());
+                        return true;
+                    }
+                    return false;
+                }
+            };
+        }
+
+        public Connection getConnection() {
+            return connection;
+        }
+
+        public PreparedStatement prepare(String sql) throws SQLException {
+            PreparedStatement statement = statements.get(sql);
+            if (statement != null) {
+                cacheHits.increment();
+                statement.clearParameters();
+                return statement;
+            }
+            cacheMisses.increment();
+            statement = connection.prepareStatement(sql);
+            statements.put(sql, statement);
+            return statement;
+        }
+
+        @Override
+        public void close() {
+            BlockingQueue<PooledConnection> queue = home;
+            home = null;
+            if (queue != null) {
+                queue.offer(this);
+            }
+        }
+
+        private void closePhysical() {
+            for (PreparedStatement statement : statements.values()) {
+                closeQuietly(statement);
+            }
+            statements.clear();
+            try {
+                connection.close();
+            } catch (SQLException e) {
+                System.err.println("Failed to close database connection: " + e.getMessage());
+            }
+        }
+    }
+
+    private static void closeQuietly(PreparedStatement statement) {
+        try {
+            statement.close();
+        } catch (SQLException ignored) {
+            // Already unusable; nothing to recover
+        }
+    }
+}
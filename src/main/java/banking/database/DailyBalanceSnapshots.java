@@ -0,0 +1,259 @@
+package banking.database;
+
+import banking.metrics.Metrics;
+import main.java.banking.model.Money;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-account, per-day totals of the transactions table, kept in daily_balances.
+ *
+ * A background compaction job folds new transactions into the table in batches and records
+ * the last transaction id it has folded (the watermark) in snapshot_state. Range summaries and
+ * balance-as-of-date lookups read the snapshot rows plus the short tail of transactions above
+ * the watermark. Each lookup is one SQL statement, so it always sees the snapshots and the
+ * watermark from the same commit and its cost grows with the number of days, not the number
+ * of transactions.
+ */
+public class DailyBalanceSnapshots implements AutoCloseable {
+
+    public static final int DEFAULT_BATCH_SIZE = 10_000;
+    public static final long DEFAULT_INTERVAL_SECONDS = 30;
+
+    private static final Metrics.Timer COMPACT_TIMER =
+        Metrics.timer("job", "DailyBalanceSnapshots.compact");
+    private static final Metrics.Counter ROWS =
+        Metrics.counter("job_rows", "DailyBalanceSnapshots.compact");
+
+    private static DailyBalanceSnapshots instance;
+
+    private static final String WATERMARK =
+        "(SELECT last_transaction_id FROM snapshot_state WHERE name = 'daily_balances')";
+
+    // Orders a transaction by (date, id) as text, so MAX() over it picks the day's last row
+    private static final String ORDER_KEY = "transaction_date || '#' || printf('%019d', transaction_id)";
+
+    private static final String CREDIT =
+        "CASE WHEN transaction_type IN ('Deposit', 'Interest', 'Transfer In') THEN amount_thebe ELSE 0 END";
+    private static final String DEBIT =
+        "CASE WHEN transaction_type IN ('Withdrawal', 'Transfer Out') THEN amount_thebe ELSE 0 END";
+
+    private static final String NEXT_BATCH_END =
+        "SELECT MAX(transaction_id) FROM (SELECT transaction_id FROM transactions " +
+        "WHERE transaction_id > " + WATERMARK + " ORDER BY transaction_id LIMIT ?)";
+
+    // With a single MAX() aggregate SQLite takes the bare balance_after_thebe from that same row
+    private static final String FOLD_BATCH =
+        "INSERT INTO daily_balances (account_number, balance_date, customer_id, credits_thebe, debits_thebe, " +
+        "transaction_count, closing_balance_thebe, last_key) " +
+        "SELECT account_number, substr(transaction_date, 1, 10), customer_id, SUM(" + CREDIT + "), " +
+        "SUM(" + DEBIT + "), COUNT(*), balance_after_thebe, MAX(" + ORDER_KEY + ") " +
+        "FROM transactions WHERE transaction_id > " + WATERMARK + " AND transaction_id <= ? " +
+        "GROUP BY account_number, substr(transaction_date, 1, 10) " +
+        "ON CONFLICT (account_number, balance_date) DO UPDATE SET " +
+        "credits_thebe = credits_thebe + excluded.credits_thebe, " +
+        "debits_thebe = debits_thebe + excluded.debits_thebe, " +
+        "transaction_count = transaction_count + excluded.transaction_count, " +
+        "closing_balance_thebe = CASE WHEN excluded.last_key > last_key " +
+        "THEN excluded.closing_balance_thebe ELSE closing_balance_thebe END, " +
+        "last_key = MAX(last_key, excluded.last_key)";
+
+    private static final String ADVANCE_WATERMARK =
+        "UPDATE snapshot_state SET last_transaction_id = ? WHERE name = 'daily_balances'";
+
+    static final String BALANCE_AS_OF =
+        "SELECT balance FROM (" +
+        "SELECT * FROM (SELECT closing_balance_thebe AS balance, last_key AS order_key FROM daily_balances " +
+        "WHERE account_number = ? AND balance_date <= ? ORDER BY balance_date DESC LIMIT 1) " +
+        "UNION ALL SELECT * FROM (SELECT balance_after_thebe, " + ORDER_KEY + " FROM transactions " +
+        "WHERE transaction_id > " + WATERMARK + " AND account_number = ? AND transaction_date < ? " +
+        "ORDER BY transaction_date DESC, transaction_id DESC LIMIT 1)) " +
+        "ORDER BY order_key DESC LIMIT 1";
+
+    private final ConnectionPool pool;
+    private final int batchSize;
+    private ScheduledExecutorService scheduler;
+
+    public DailyBalanceSnapshots(ConnectionPool pool, int batchSize) {
+        this.pool = pool;
+        this.batchSize = batchSize;
+    }
+
+    // Starts compacting in the background; the tables come from SchemaMigrations
+    public static synchronized DailyBalanceSnapshots initialize(ConnectionPool pool) {
+        if (instance == null) {
+            DailyBalanceSnapshots snapshots = new DailyBalanceSnapshots(pool, DEFAULT_BATCH_SIZE);
+            snapshots.start(DEFAULT_INTERVAL_SECONDS);
+            instance = snapshots;
+        }
+        return instance;
+    }
+
+    public static synchronized DailyBalanceSnapshots getInstance() {
+        if (instance == null) {
+            throw new IllegalStateException("Daily balance snapshots have not been initialized");
+        }
+        return instance;
+    }
+
+    public synchronized void start(long intervalSeconds) {
+        if (scheduler != null) {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "daily-balance-compaction");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                compact();
+            } catch (SQLException e) {
+                System.err.println("Daily balance compaction failed: " + e.getMessage());
+            }
+        }, 0, intervalSeconds, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Folds every transaction above the watermark into the snapshots, one batch per
+     * transaction so the writer is never held for long. Returns the number of batches.
+     */
+    public int compact() throws SQLException {
+        long start = COMPACT_TIMER.start();
+        try {
+            int batches = 0;
+            int rows;
+            while ((rows = compactBatch()) >= 0) {
+                ROWS.add(rows);
+                batches++;
+            }
+            return batches;
+        } finally {
+            COMPACT_TIMER.stop(start);
+        }
+    }
+
+    // The number of snapshot rows written, or -1 if there was nothing to fold
+    private int compactBatch() throws SQLException {
+        return pool.inTransaction(connection -> {
+            PreparedStatement next = connection.prepare(NEXT_BATCH_END);
+            next.setInt(1, batchSize);
+            long end;
+            try (ResultSet rs = next.executeQuery()) {
+                rs.next();
+                end = rs.getLong(1);
+                if (rs.wasNull()) {
+                    return -1;
+                }
+            }
+            PreparedStatement fold = connection.prepare(FOLD_BATCH);
+            fold.setLong(1, end);
+            int rows = fold.executeUpdate();
+
+            PreparedStatement advance = connection.prepare(ADVANCE_WATERMARK);
+            advance.setLong(1, end);
+            advance.executeUpdate();
+            return rows;
+        });
+    }
+
+    /**
+     * Credits, debits and transaction count for a customer over an inclusive date range,
+     * optionally for one account. Null dates leave that end open. As in
+     * {@link TransactionHistoryQuery#summarize}, incoming transfers are credits and outgoing
+     * ones debits.
+     */
+    public TransactionHistoryQuery.Summary summarize(String customerId, String accountNumber,
+                                                     LocalDate from, LocalDate to) throws SQLException {
+        List<Object> params = new ArrayList<>();
+        String sql = summarySql(customerId, accountNumber, from, to, params);
+
+        try (ConnectionPool.PooledConnection connection = pool.acquireReader()) {
+            PreparedStatement statement = connection.prepare(sql);
+            for (int i = 0; i < params.size(); i++) {
+                statement.setObject(i + 1, params.get(i));
+            }
+            try (ResultSet rs = statement.executeQuery()) {
+                rs.next();
+                return new TransactionHistoryQuery.Summary(Money.ofThebe(rs.getLong(1)), Money.ofThebe(rs.getLong(2)),
+                    rs.getLong(3));
+            }
+        }
+    }
+
+    // Builds the summary query and fills in its parameters; also used by QueryPlanAudit
+    static String summarySql(String customerId, String accountNumber, LocalDate from, LocalDate to,
+                             List<Object> params) {
+        StringBuilder snapshotWhere = new StringBuilder(" WHERE customer_id = ?");
+        StringBuilder tailWhere = new StringBuilder(" WHERE transaction_id > " + WATERMARK + " AND customer_id = ?");
+        List<Object> snapshotParams = new ArrayList<>();
+        List<Object> tailParams = new ArrayList<>();
+        snapshotParams.add(customerId);
+        tailParams.add(customerId);
+        if (accountNumber != null) {
+            snapshotWhere.append(" AND account_number = ?");
+            tailWhere.append(" AND account_number = ?");
+            snapshotParams.add(accountNumber);
+            tailParams.add(accountNumber);
+        }
+        if (from != null) {
+            snapshotWhere.append(" AND balance_date >= ?");
+            tailWhere.append(" AND transaction_date >= ?");
+            snapshotParams.add(from.toString());
+            tailParams.add(from.toString());
+        }
+        if (to != null) {
+            snapshotWhere.append(" AND balance_date <= ?");
+            tailWhere.append(" AND transaction_date < ?");
+            snapshotParams.add(to.toString());
+            tailParams.add(to.plusDays(1).toString());
+        }
+
+        String sql = "SELECT COALESCE(SUM(credits), 0), COALESCE(SUM(debits), 0), COALESCE(SUM(row_count), 0) FROM (" +
+            "SELECT credits_thebe AS credits, debits_thebe AS debits, transaction_count AS row_count " +
+            "FROM daily_balances" + snapshotWhere +
+            " UNION ALL SELECT " + CREDIT + ", " + DEBIT + ", 1 FROM transactions" + tailWhere + ")";
+        params.addAll(snapshotParams);
+        params.addAll(tailParams);
+        return sql;
+    }
+
+    // Balance at the end of the given day: the latest closing balance plus the un-compacted tail
+    public Money getBalanceAsOf(String accountNumber, LocalDate date) throws SQLException {
+        try (ConnectionPool.PooledConnection connection = pool.acquireReader()) {
+            PreparedStatement statement = connection.prepare(BALANCE_AS_OF);
+            statement.setString(1, accountNumber);
+            statement.setString(2, date.toString());
+            statement.setString(3, accountNumber);
+            statement.setString(4, date.plusDays(1).toString());
+            try (ResultSet rs = statement.executeQuery()) {
+                if (!rs.next()) {
+                    return Money.ZERO;
+                }
+                long balance = rs.getLong(1);
+                return rs.wasNull() ? Money.ZERO : Money.ofThebe(balance);
+            }
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+        synchronized (DailyBalanceSnapshots.class) {
+            if (instance == this) {
+                instance = null;
+            }
+        }
+    }
+}
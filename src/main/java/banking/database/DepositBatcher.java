@@ -0,0 +1,305 @@
+package banking.database;
+
+import banking.ledger.Posting;
+import banking.ledger.PostingType;
+import banking.ledger.TransactionLedger;
+import banking.metrics.Metrics;
+import main.java.banking.model.Account;
+import main.java.banking.model.Money;
+
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Write-behind queue that records deposits in group commits.
+ *
+ * A submitted deposit is appended to the {@link TransactionLedger}, applied to the account in
+ * memory and queued straight away, under the account's lock only, so deposits to different
+ * accounts never wait for each other. A single writer thread takes the first
+ * waiting deposit, gathers more until the batch is full or the delay since the first one has
+ * passed, waits once for the ledger to make the whole batch durable, and then writes it to the
+ * database in one transaction, so at peak many deposits share each fsync and each commit.
+ * Callers get a future that completes with the account's new balance once that is done.
+ *
+ * When too many deposits are waiting, {@link #submit} blocks for up to the submit timeout and
+ * then fails, so callers slow down instead of queueing without bound. A deposit is never
+ * refused after it is in the ledger: if the database write fails it is logged, and
+ * {@link LedgerRecovery} writes it at the next start. If the ledger is closed before a batch
+ * is durable, its futures fail instead; the writer thread carries on either way.
+ *
+ * A completed future means the deposit survives a power failure because the ledger holds
+ * it, not because the database commit does. The pool runs SQLite with synchronous=NORMAL, so
+ * a power failure can lose the last few database commits; LedgerRecovery writes those
+ * deposits back from the ledger at the next start.
+ */
+public class DepositBatcher implements AutoCloseable {
+
+    public static final int DEFAULT_QUEUE_CAPACITY = 10_000;
+    public static final int DEFAULT_MAX_BATCH = 500;
+    public static final long DEFAULT_MAX_DELAY_MILLIS = 5;
+    private static final long SUBMIT_TIMEOUT_SECONDS = 10;
+
+    private static final Metrics.Timer COMMIT_TIMER =
+        Metrics.timer("job", "DepositBatcher.commit");
+    private static final Metrics.Distribution BATCH_SIZE =
+        Metrics.distribution("batch_size", "DepositBatcher.commit");
+    private static final Metrics.Counter ROWS =
+        Metrics.counter("job_rows", "DepositBatcher.commit");
+
+    private static DepositBatcher instance;
+
+    private final BatchWriter batchWriter;
+    private final TransactionLedger ledger;
+    private final BlockingQueue<PendingDeposit> queue;
+    // Held from submit until the deposit is written, so at most the queue capacity are in flight
+    private final Semaphore capacity;
+    private final int maxBatch;
+    private final long maxDelayNanos;
+    private final Thread writer;
+    // Shared by submitters across the ledger append and the queue handoff; close() takes it exclusively
+    private final ReadWriteLock handoff = new ReentrantReadWriteLock();
+    private volatile boolean closed;
+
+    // Metrics
+    private final LongAdder deposits = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder failedWrites = new LongAdder();
+
+    public DepositBatcher(ConnectionPool pool, TransactionLedger ledger, int queueCapacity, int maxBatch,
+                          long maxDelayMillis) {
+        this(batch -> writeRows(pool, batch), ledger, queueCapacity, maxBatch, maxDelayMillis);
+    }
+
+    DepositBatcher(BatchWriter batchWriter, TransactionLedger ledger, int queueCapacity, int maxBatch,
+                   long maxDelayMillis) {
+        this.batchWriter = batchWriter;
+        this.ledger = ledger;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.capacity = new Semaphore(queueCapacity);
+        this.maxBatch = maxBatch;
+        this.maxDelayNanos = TimeUnit.MILLISECONDS.toNanos(maxDelayMillis);
+        this.writer = new Thread(this::run, "deposit-batcher");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    public static synchronized DepositBatcher initialize(ConnectionPool pool, TransactionLedger ledger) {
+        if (instance == null) {
+            instance = new DepositBatcher(pool, ledger, DEFAULT_QUEUE_CAPACITY, DEFAULT_MAX_BATCH,
+                DEFAULT_MAX_DELAY_MILLIS);
+        }
+        return instance;
+    }
+
+    public static synchronized DepositBatcher getInstance() {
+        if (instance == null) {
+            throw new IllegalStateException("Deposit batcher has not been initialized");
+        }
+        return instance;
+    }
+
+    // Posts a deposit; the future completes with the balance after it once it is durable and written
+    public CompletableFuture<Money> submit(Account account, Money amount, String description)
+            throws IOException, InterruptedException {
+        if (!amount.isPositive()) {
+            throw new IllegalArgumentException("Deposit amount must be positive");
+        }
+        if (closed) {
+            throw new RejectedExecutionException("Deposit batcher is closed");
+        }
+        if (!capacity.tryAcquire(SUBMIT_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+            throw new RejectedExecutionException("Too many deposits waiting to be recorded; try again shortly");
+        }
+        // close() must not slip in between the append and the handoff, or the writer could stop first
+        handoff.readLock().lock();
+        try {
+            if (closed) {
+                throw new RejectedExecutionException("Deposit batcher is closed");
+            }
+            // Queued under the account's lock, so one account's deposits are written in ledger order.
+            // The permit guarantees the queue has room.
+            synchronized (account) {
+                Posting posting = ledger.append(account, PostingType.DEPOSIT, amount, 0);
+                account.deposit(amount, description);
+                PendingDeposit deposit = new PendingDeposit(posting, description, account.getBalance());
+                queue.add(deposit);
+                return deposit.result;
+            }
+        } catch (IOException | RuntimeException e) {
+            capacity.release();
+            throw e;
+        } finally {
+            handoff.readLock().unlock();
+        }
+    }
+
+    // Metrics getters
+    public long getDepositsRecorded() { return deposits.sum(); }
+    public long getBatchesCommitted() { return batches.sum(); }
+    public long getFailedWrites() { return failedWrites.sum(); }
+    public int getQueueDepth() { return queue.size(); }
+
+    public double getAverageBatchSize() {
+        long count = batches.sum();
+        return count == 0 ? 0 : (double) deposits.sum() / count;
+    }
+
+    // Stops accepting deposits and waits until everything already queued is written
+    @Override
+    public void close() {
+        handoff.writeLock().lock();
+        try {
+            closed = true;
+        } finally {
+            handoff.writeLock().unlock();
+        }
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        synchronized (DepositBatcher.class) {
+            if (instance == this) {
+                instance = null;
+            }
+        }
+    }
+
+    private void run() {
+        List<PendingDeposit> batch = new ArrayList<>(maxBatch);
+        while (!closed || !queue.isEmpty()) {
+            try {
+                PendingDeposit first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                long deadline = System.nanoTime() + maxDelayNanos;
+                while (batch.size() < maxBatch) {
+                    long remaining = deadline - System.nanoTime();
+                    PendingDeposit next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : queue.poll();
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+            } catch (InterruptedException e) {
+                // Shutdown uses the closed flag, but treat an interrupt the same way: drain and stop
+                closed = true;
+            }
+            if (!batch.isEmpty()) {
+                long start = COMMIT_TIMER.start();
+                try {
+                    commit(batch);
+                } catch (RuntimeException e) {
+                    // Not expected, but the writer must outlive it or every later submit would block
+                    System.err.println("Deposit batch failed: " + e);
+                    fail(batch, e);
+                } finally {
+                    COMMIT_TIMER.stop(start);
+                    BATCH_SIZE.record(batch.size());
+                    capacity.release(batch.size());
+                    batch.clear();
+                }
+            }
+        }
+    }
+
+    private void commit(List<PendingDeposit> batch) {
+        // Accounts queue independently, so the batch is durable once its highest sequence is
+        long last = 0;
+        for (PendingDeposit deposit : batch) {
+            last = Math.max(last, deposit.posting.getSequence());
+        }
+        boolean interrupted = false;
+        try {
+            while (true) {
+                try {
+                    ledger.awaitDurable(last);
+                    break;
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+        } catch (IllegalStateException e) {
+            // The ledger closed first, so these deposits may not survive a restart
+            System.err.println("Could not record " + batch.size() + " deposits: " + e.getMessage());
+            fail(batch, e);
+            return;
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        int unwritten;
+        try {
+            unwritten = batchWriter.write(batch);
+            batches.increment();
+        } catch (SQLException | RuntimeException e) {
+            unwritten = batch.size();
+            System.err.println("Could not write " + batch.size() + " deposits to the database; "
+                + "they are in the ledger and will be written at the next start: " + e.getMessage());
+        }
+        failedWrites.add(unwritten);
+        ROWS.add(batch.size() - unwritten);
+
+        // Every deposit is durable in the ledger by now, so none of them has failed
+        for (PendingDeposit deposit : batch) {
+            deposits.increment();
+            deposit.result.complete(deposit.balanceAfter);
+        }
+    }
+
+    private static void fail(List<PendingDeposit> batch, Throwable cause) {
+        for (PendingDeposit deposit : batch) {
+            deposit.result.completeExceptionally(cause);
+        }
+    }
+
+    private static int writeRows(ConnectionPool pool, List<PendingDeposit> batch) throws SQLException {
+        return pool.inTransaction(connection -> {
+            int unknown = 0;
+            for (PendingDeposit deposit : batch) {
+                if (!LedgerRows.write(connection, deposit.posting, deposit.description, deposit.balanceAfter)) {
+                    // Only this deposit is left out; the rest of the batch still commits
+                    System.err.println("Deposit " + deposit.posting + " is for an account the database does not have");
+                    unknown++;
+                }
+            }
+            return unknown;
+        });
+    }
+
+    // Writes a batch in one database transaction; returns how many deposits had no account row
+    interface BatchWriter {
+        int write(List<PendingDeposit> batch) throws SQLException;
+    }
+
+    static final class PendingDeposit {
+        private final Posting posting;
+        private final String description;
+        private final Money balanceAfter;
+        private final CompletableFuture<Money> result = new CompletableFuture<>();
+
+        PendingDeposit(Posting posting, String description, Money balanceAfter) {
+            this.posting = posting;
+            this.description = description;
+            this.balanceAfter = balanceAfter;
+        }
+
+        Posting getPosting() { return posting; }
+        Money getBalanceAfter() { return balanceAfter; }
+    }
+}
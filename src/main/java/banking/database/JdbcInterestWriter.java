@@ -0,0 +1,32 @@
+package banking.database;
+
+import banking.service.MonthEndInterestRun;
+
+import java.sql.SQLException;
+import java.util.List;
+
+/**
+ * Writes month-end interest postings to the accounts and transactions tables, one partition
+ * per database transaction. Each row carries its ledger sequence, so a posting that startup
+ * recovery has already written is never written twice.
+ */
+public class JdbcInterestWriter implements MonthEndInterestRun.PostingWriter {
+
+    private final ConnectionPool pool;
+
+    public JdbcInterestWriter(ConnectionPool pool) {
+        this.pool = pool;
+    }
+
+    @Override
+    public void writeBatch(List<MonthEndInterestRun.InterestPosting> postings) throws SQLException {
+        pool.inTransaction(connection -> {
+            for (MonthEndInterestRun.InterestPosting posting : postings) {
+                if (!LedgerRows.write(connection, posting.getPosting(), "Monthly interest", posting.getBalanceAfter())) {
+                    System.err.println("Interest " + posting.getPosting() + " is for an account the database does not have");
+                }
+            }
+            return null;
+        });
+    }
+}
@@ -0,0 +1,67 @@
+package banking.database;
+
+import banking.ledger.Posting;
+import banking.service.TransferEngine;
+import main.java.banking.model.Account;
+import main.java.banking.model.Money;
+
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes transfers to the accounts and transactions tables in one database transaction.
+ *
+ * Each leg moves both stored balances and adds a "Transfer Out" and a "Transfer In" row,
+ * carrying the ledger sequence of its posting and the account's balance just after it, the
+ * same running balance {@link LedgerRecovery} writes when it replays those postings. The customer id of each row comes from the account's own
+ * row in the database; a leg naming an account the database does not have fails the whole
+ * write.
+ */
+public class JdbcTransferWriter implements TransferEngine.TransferWriter {
+
+    private final ConnectionPool pool;
+
+    public JdbcTransferWriter(ConnectionPool pool) {
+        this.pool = pool;
+    }
+
+    @Override
+    public void writeTransfer(List<TransferEngine.Leg> legs, List<Posting> postings, Map<String, Money> balancesAfter)
+            throws SQLException {
+        List<Money> running = runningBalances(postings, balancesAfter);
+        pool.inTransaction(connection -> {
+            for (int i = 0; i < legs.size(); i++) {
+                TransferEngine.Leg leg = legs.get(i);
+                write(connection, postings.get(2 * i), running.get(2 * i), leg.getFrom(),
+                    "Transfer to " + leg.getTo().getAccountNumber());
+                write(connection, postings.get(2 * i + 1), running.get(2 * i + 1), leg.getTo(),
+                    "Transfer from " + leg.getFrom().getAccountNumber());
+            }
+            return null;
+        });
+    }
+
+    // All legs are applied before anything is written, so walk back from the final balances
+    static List<Money> runningBalances(List<Posting> postings, Map<String, Money> balancesAfter) {
+        Map<String, Long> balances = new HashMap<>();
+        balancesAfter.forEach((account, balance) -> balances.put(account, balance.getThebe()));
+        Money[] running = new Money[postings.size()];
+        for (int i = postings.size() - 1; i >= 0; i--) {
+            Posting posting = postings.get(i);
+            long after = balances.get(posting.getAccountNumber());
+            running[i] = Money.ofThebe(after);
+            balances.put(posting.getAccountNumber(), after - posting.getSignedThebe());
+        }
+        return Arrays.asList(running);
+    }
+
+    private static void write(ConnectionPool.PooledConnection connection, Posting posting, Money balanceAfter,
+                              Account account, String description) throws SQLException {
+        if (!LedgerRows.write(connection, posting, description, balanceAfter)) {
+            throw new SQLException("Unknown account " + account.getAccountNumber());
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package banking.database;
+
+import banking.ledger.Posting;
+import banking.ledger.PostingType;
+import banking.ledger.TransactionLedger;
+import main.java.banking.model.Money;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Brings the database up to date with the {@link TransactionLedger} at startup.
+ *
+ * Postings are made durable in the ledger before they are written to the database, so a
+ * crash in between leaves postings that only the ledger has. {@link #recover} replays the
+ * ledger past the sequence recorded in ledger_state, writes every posting that has no
+ * transactions row yet, and then moves ledger_state to the end of the ledger, all in one
+ * transaction. Run it before anything new is posted. Once that has committed, the ledger is
+ * checkpointed up to the same point, so the next start replays only what came after.
+ */
+public final class LedgerRecovery {
+
+    static final String APPLIED =
+        "SELECT applied_sequence FROM ledger_state WHERE name = 'database'";
+    static final String WRITTEN =
+        "SELECT ledger_sequence FROM transactions WHERE ledger_sequence > ?";
+    static final String ADVANCE =
+        "UPDATE ledger_state SET applied_sequence = ? WHERE name = 'database'";
+
+    private LedgerRecovery() { }
+
+    // Returns how many postings were written to the database
+    public static int recover(ConnectionPool pool, TransactionLedger ledger) throws SQLException, IOException {
+        long last = ledger.getDurableSequence();
+        int recovered;
+        try {
+            recovered = pool.inTransaction(connection -> recoverIn(connection, ledger, last));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        if (recovered > 0) {
+            System.out.println("Recovered " + recovered + " ledger postings into the database");
+        }
+        ledger.checkpoint(last);
+        return recovered;
+    }
+
+    private static int recoverIn(ConnectionPool.PooledConnection connection, TransactionLedger ledger, long last)
+            throws SQLException {
+        long applied;
+        try (ResultSet rs = connection.prepare(APPLIED).executeQuery()) {
+            applied = rs.next() ? rs.getLong(1) : 0;
+        }
+        Set<Long> written = new HashSet<>();
+        PreparedStatement existing = connection.prepare(WRITTEN);
+        existing.setLong(1, applied);
+        try (ResultSet rs = existing.executeQuery()) {
+            while (rs.next()) {
+                written.add(rs.getLong(1));
+            }
+        }
+
+        List<Posting> missing = new ArrayList<>();
+        List<Money> balancesAfter = new ArrayList<>();
+        try {
+            ledger.replay((posting, balanceAfter) -> {
+                if (posting.getSequence() > applied && posting.getType() != PostingType.OPENING
+                        && !written.contains(posting.getSequence())) {
+                    missing.add(posting);
+                    balancesAfter.add(balanceAfter);
+                }
+            });
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        int recovered = 0;
+        for (int i = 0; i < missing.size(); i++) {
+            Posting posting = missing.get(i);
+            if (LedgerRows.write(connection, posting, "Recovered from ledger", balancesAfter.get(i))) {
+                recovered++;
+            } else {
+                System.err.println("Skipping ledger posting " + posting + ": the database has no such account");
+            }
+        }
+        PreparedStatement advance = connection.prepare(ADVANCE);
+        advance.setLong(1, last);
+        advance.executeUpdate();
+        return recovered;
+    }
+}
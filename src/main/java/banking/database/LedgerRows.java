@@ -0,0 +1,73 @@
+package banking.database;
+
+import banking.ledger.Posting;
+import main.java.banking.model.Money;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Writes ledger postings to the accounts and transactions tables inside the caller's
+ * transaction. Each posting moves the stored balance by its signed amount and adds a
+ * transactions row stamped with the posting's time and ledger sequence. Amounts are bound as
+ * whole thebe; the REAL columns are derived from them in SQL. The customer id is copied from
+ * the account's own row rather than trusted from the caller.
+ */
+final class LedgerRows {
+
+    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    static final String APPLY =
+        "UPDATE accounts SET balance_thebe = balance_thebe + ?1, balance = (balance_thebe + ?1) / 100.0 " +
+        "WHERE account_number = ?2";
+    static final String INSERT_TRANSACTION =
+        "INSERT INTO transactions (transaction_date, account_number, customer_id, transaction_type, " +
+        "description, amount_thebe, balance_after_thebe, amount, balance_after, ledger_sequence) " +
+        "SELECT ?1, account_number, customer_id, ?2, ?3, ?4, ?5, ?4 / 100.0, ?5 / 100.0, ?6 " +
+        "FROM accounts WHERE account_number = ?7";
+
+    private LedgerRows() { }
+
+    // Returns false, writing nothing, when the account has no row
+    static boolean write(ConnectionPool.PooledConnection connection, Posting posting, String description,
+                         Money balanceAfter) throws SQLException {
+        PreparedStatement apply = connection.prepare(APPLY);
+        apply.setLong(1, posting.getSignedThebe());
+        apply.setString(2, posting.getAccountNumber());
+        if (apply.executeUpdate() != 1) {
+            return false;
+        }
+        PreparedStatement insert = connection.prepare(INSERT_TRANSACTION);
+        insert.setString(1, LocalDateTime.ofInstant(Instant.ofEpochMilli(posting.getTimestamp()),
+            ZoneId.systemDefault()).format(DATE_FORMAT));
+        insert.setString(2, transactionType(posting));
+        insert.setString(3, description);
+        insert.setLong(4, posting.getAmount().getThebe());
+        insert.setLong(5, balanceAfter.getThebe());
+        insert.setLong(6, posting.getSequence());
+        insert.setString(7, posting.getAccountNumber());
+        insert.executeUpdate();
+        return true;
+    }
+
+    static String transactionType(Posting posting) {
+        switch (posting.getType()) {
+            case DEPOSIT:
+                return "Deposit";
+            case WITHDRAWAL:
+                return "Withdrawal";
+            case INTEREST:
+                return "Interest";
+            case TRANSFER_IN:
+                return "Transfer In";
+            case TRANSFER_OUT:
+                return "Transfer Out";
+            default:
+                throw new IllegalArgumentException(posting.getType() + " postings are not written to the database");
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package banking.database;
+
+import banking.reports.ReportEngine;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Startup check that every query the application issues is served by an index.
+ *
+ * Each query is run through EXPLAIN QUERY PLAN, including every combination of the optional
+ * history filters. A plan step that scans a whole table fails the check, unless that table is
+ * expected to be read in full (the reports over all customers or accounts). A missing or
+ * dropped index therefore stops the application at startup instead of slowing it down later.
+ */
+public final class QueryPlanAudit {
+
+    private QueryPlanAudit() { }
+
+    // Throws IllegalStateException listing every query that would scan a table
+    public static void verify(ConnectionPool pool) throws SQLException {
+        List<String> problems = findFullScans(pool);
+        if (!problems.isEmpty()) {
+            throw new IllegalStateException("Query plan audit failed:\n  " + String.join("\n  ", problems));
+        }
+    }
+
+    public static List<String> findFullScans(ConnectionPool pool) throws SQLException {
+        List<String> problems = new ArrayList<>();
+        try (ConnectionPool.PooledConnection connection = pool.acquireReader()) {
+            for (Check check : checks()) {
+                List<String> plan = explain(connection, check.sql, check.params);
+                for (String step : plan) {
+                    String scanned = scannedTable(step);
+                    if (scanned != null && !check.allowedScans.contains(scanned)) {
+                        problems.add(check.name + ": " + step + " (plan: " + String.join(" | ", plan) + ")");
+                    }
+                }
+            }
+        }
+        return problems;
+    }
+
+    private static List<Check> checks() {
+        List<Check> checks = new ArrayList<>();
+        LocalDate day = LocalDate.now();
+
+        // The dashboard's recent transactions, exactly as fetchRecent issues them
+        List<Object> recent = new ArrayList<>();
+        checks.add(new Check("recent transactions", TransactionHistoryQuery.pageSql(
+            TransactionHistoryQuery.recentFilter(""), TransactionHistoryQuery.Cursor.START, 10, recent), recent));
+
+        // Every combination of the optional history filters, first and later pages
+        for (int mask = 0; mask < 16; mask++) {
+            String account = (mask & 1) != 0 ? "" : null;
+            LocalDate from = (mask & 2) != 0 ? day : null;
+            LocalDate to = (mask & 4) != 0 ? day : null;
+            String type = (mask & 8) != 0 ? "Deposit" : null;
+            TransactionHistoryQuery.Filter filter = new TransactionHistoryQuery.Filter("", account, from, to, type);
+            String label = "filter " + Integer.toBinaryString(16 | mask).substring(1);
+
+            List<Object> params = new ArrayList<>();
+            checks.add(new Check("history first page, " + label,
+                TransactionHistoryQuery.pageSql(filter, TransactionHistoryQuery.Cursor.START, 1, params), params));
+            params = new ArrayList<>();
+            checks.add(new Check("history next page, " + label,
+                TransactionHistoryQuery.pageSql(filter, new TransactionHistoryQuery.Cursor("", 0), 1, params), params));
+            params = new ArrayList<>();
+            checks.add(new Check("history summary, " + label,
+                TransactionHistoryQuery.summarySql(filter, params), params));
+            if (type == null) {
+                params = new ArrayList<>();
+                checks.add(new Check("snapshot summary, " + label,
+                    DailyBalanceSnapshots.summarySql("", account, from, to, params), params));
+            }
+        }
+
+        checks.add(new Check("balance as of date", DailyBalanceSnapshots.BALANCE_AS_OF, params(4)));
+        checks.add(new Check("balance cache marker", AccountBalanceCache.LAST_TRANSACTION, params(1)));
+        checks.add(new Check("balance cache accounts", AccountBalanceCache.ACCOUNTS, params(1)));
+        checks.add(new Check("ledger posting balance", LedgerRows.APPLY, params(2)));
+        checks.add(new Check("ledger posting row", LedgerRows.INSERT_TRANSACTION, params(7)));
+        checks.add(new Check("ledger recovery rows", LedgerRecovery.WRITTEN, params(1)));
+
+        // The startup aggregate for the dashboard counts every customer and account by design
+        checks.add(new Check("dashboard statistics", StatisticsLoader.TOTALS, params(0),
+            "customers", "accounts", "c", "a"));
+
+        // Reports walk every customer (c) or account (a) by design, but nothing else
+        checks.add(new Check("customer summary report",
+            ReportEngine.sqlFor(ReportEngine.ReportType.CUSTOMER_SUMMARY), params(2), "c"));
+        checks.add(new Check("account activity report",
+            ReportEngine.sqlFor(ReportEngine.ReportType.ACCOUNT_ACTIVITY), params(2), "a"));
+        checks.add(new Check("transaction history report",
+            ReportEngine.sqlFor(ReportEngine.ReportType.TRANSACTION_HISTORY), params(2)));
+        checks.add(new Check("financial summary report",
+            ReportEngine.sqlFor(ReportEngine.ReportType.FINANCIAL_SUMMARY), params(2)));
+        return checks;
+    }
+
+    private static List<String> explain(ConnectionPool.PooledConnection connection, String sql, List<Object> params)
+            throws SQLException {
+        List<String> plan = new ArrayList<>();
+        try (PreparedStatement statement = connection.getConnection().prepareStatement("EXPLAIN QUERY PLAN " + sql)) {
+            for (int i = 0; i < params.size(); i++) {
+                statement.setObject(i + 1, params.get(i));
+            }
+            try (ResultSet rs = statement.executeQuery()) {
+                while (rs.next()) {
+                    plan.add(rs.getString("detail"));
+                }
+            }
+        }
+        return plan;
+    }
+
+    // "SCAN transactions" or "SCAN a USING INDEX ..." name a table; subqueries and constants do not
+    private static String scannedTable(String step) {
+        if (!step.startsWith("SCAN ")) {
+            return null;
+        }
+        String[] words = step.substring(5).split(" ");
+        // SQLite before 3.36 writes "SCAN TABLE transactions"
+        String target = words[0].equals("TABLE") && words.length > 1 ? words[1] : words[0];
+        if (target.startsWith("(") || target.equals("CONSTANT")) {
+            return null;
+        }
+        return target;
+    }
+
+    private static List<Object> params(int count) {
+        return new ArrayList<>(Collections.nCopies(count, ""));
+    }
+
+    private static final class Check {
+        private final String name;
+        private final String sql;
+        private final List<Object> params;
+        private final Set<String> allowedScans;
+
+        Check(String name, String sql, List<Object> params, String... allowedScans) {
+            this.name = name;
+            this.sql = sql;
+            this.params = params;
+            this.allowedScans = new HashSet<>(Arrays.asList(allowedScans));
+        }
+    }
+}
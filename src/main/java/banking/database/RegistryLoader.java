@@ -0,0 +1,146 @@
+package banking.database;
+
+import banking.service.BankRegistry;
+import main.java.banking.model.Account;
+import main.java.banking.model.ChequeAccount;
+import main.java.banking.model.CompanyCustomer;
+import main.java.banking.model.Customer;
+import main.java.banking.model.IndividualCustomer;
+import main.java.banking.model.InvestmentAccount;
+import main.java.banking.model.Money;
+import main.java.banking.model.SavingsAccount;
+
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Fills the {@link BankRegistry} from the customers and accounts tables.
+ *
+ * {@link #initialize} reads both tables once at startup. Rows are read in rowid order and the
+ * highest rowid seen is kept, so {@link #loadNew} later picks up only the customers and
+ * accounts added since, e.g. by a clerk or a bulk import, without rereading everything.
+ * Accounts that are already registered keep their in-memory object and balance.
+ */
+public class RegistryLoader {
+
+    static final String CUSTOMERS =
+        "SELECT rowid, customer_id, customer_type, first_name, last_name, company_name, registration_number, " +
+        "date_of_birth, address, employer FROM customers WHERE rowid > ? ORDER BY rowid";
+    static final String ACCOUNTS =
+        "SELECT rowid, account_number, customer_id, account_type, branch, balance_thebe " +
+        "FROM accounts WHERE rowid > ? ORDER BY rowid";
+
+    private static RegistryLoader instance;
+
+    private final ConnectionPool pool;
+    private final BankRegistry registry;
+    private long lastCustomerRow;
+    private long lastAccountRow;
+
+    public RegistryLoader(ConnectionPool pool, BankRegistry registry) {
+        this.pool = pool;
+        this.registry = registry;
+    }
+
+    public static synchronized RegistryLoader initialize(ConnectionPool pool) throws SQLException {
+        if (instance == null) {
+            RegistryLoader loader = new RegistryLoader(pool, BankRegistry.getInstance());
+            loader.loadNew();
+            instance = loader;
+        }
+        return instance;
+    }
+
+    public static synchronized RegistryLoader getInstance() {
+        if (instance == null) {
+            throw new IllegalStateException("Registry loader has not been initialized");
+        }
+        return instance;
+    }
+
+    // Registers every customer and account added since the last call; returns how many rows were registered
+    public synchronized int loadNew() throws SQLException {
+        int loaded = 0;
+        try (ConnectionPool.PooledConnection connection = pool.acquireReader()) {
+            PreparedStatement customers = connection.prepare(CUSTOMERS);
+            customers.setLong(1, lastCustomerRow);
+            try (ResultSet rs = customers.executeQuery()) {
+                while (rs.next()) {
+                    lastCustomerRow = rs.getLong("rowid");
+                    registry.registerCustomer(rs.getString("customer_id"), toCustomer(rs));
+                    loaded++;
+                }
+            }
+
+            PreparedStatement accounts = connection.prepare(ACCOUNTS);
+            accounts.setLong(1, lastAccountRow);
+            try (ResultSet rs = accounts.executeQuery()) {
+                while (rs.next()) {
+                    lastAccountRow = rs.getLong("rowid");
+                    if (registerAccount(rs)) {
+                        loaded++;
+                    }
+                }
+            }
+        }
+        return loaded;
+    }
+
+    private boolean registerAccount(ResultSet rs) throws SQLException {
+        String accountNumber = rs.getString("account_number");
+        if (registry.findAccount(accountNumber) != null) {
+            return false;
+        }
+        Customer owner = registry.findCustomer(rs.getString("customer_id"));
+        if (owner == null) {
+            System.err.println("Skipping account " + accountNumber + ": unknown customer " + rs.getString("customer_id"));
+            return false;
+        }
+        try {
+            Account account = toAccount(rs.getString("account_type"), accountNumber, owner, rs.getString("branch"),
+                Money.ofThebe(rs.getLong("balance_thebe")));
+            registry.registerAccount(account);
+            return true;
+        } catch (IllegalArgumentException e) {
+            System.err.println("Skipping account " + accountNumber + ": " + e.getMessage());
+            return false;
+        }
+    }
+
+    static Customer toCustomer(ResultSet rs) throws SQLException {
+        if ("Company".equals(rs.getString("customer_type"))) {
+            return new CompanyCustomer(rs.getString("address"), rs.getString("company_name"),
+                rs.getString("registration_number"));
+        }
+        IndividualCustomer customer = new IndividualCustomer(rs.getString("address"), rs.getString("first_name"),
+            rs.getString("last_name"), parseDate(rs.getString("date_of_birth")));
+        customer.setEmployer(rs.getString("employer"));
+        return customer;
+    }
+
+    // Stored accounts already passed the opening rules when they were opened, so they are restored without them
+    static Account toAccount(String accountType, String accountNumber, Customer owner, String branch, Money balance) {
+        switch (accountType == null ? "" : accountType) {
+            case "Savings":
+                SavingsAccount savings = new SavingsAccount(accountNumber, owner, branch);
+                savings.restoreBalance(balance);
+                return savings;
+            case "Investment":
+                return InvestmentAccount.restore(accountNumber, owner, branch, balance);
+            case "Cheque":
+                return ChequeAccount.restore(accountNumber, owner, branch, balance);
+            default:
+                throw new IllegalArgumentException("Unknown account type " + accountType);
+        }
+    }
+
+    private static Date parseDate(String text) {
+        try {
+            return text == null ? null : Date.valueOf(text.trim());
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,217 @@
+package banking.database;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Versioned schema changes applied on top of the base tables.
+ *
+ * Applied versions are recorded in schema_version. {@link #migrate} runs every newer
+ * migration in order, each in its own transaction, so a failed migration leaves the database
+ * at the previous version. Migrations are append-only: never edit one that has shipped, add
+ * a new version instead.
+ */
+public final class SchemaMigrations {
+
+    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    // The tables the migrations build on, for a database that has not been set up yet
+    private static final String[] BASE_SCHEMA = {
+        "CREATE TABLE IF NOT EXISTS customers (customer_id TEXT PRIMARY KEY, customer_type TEXT NOT NULL, " +
+        "first_name TEXT, last_name TEXT, company_name TEXT, registration_number TEXT, date_of_birth TEXT, " +
+        "address TEXT, employer TEXT)",
+        "CREATE TABLE IF NOT EXISTS accounts (account_number TEXT PRIMARY KEY, customer_id TEXT NOT NULL, " +
+        "account_type TEXT NOT NULL, branch TEXT, balance REAL NOT NULL DEFAULT 0)",
+        "CREATE TABLE IF NOT EXISTS transactions (transaction_id INTEGER PRIMARY KEY AUTOINCREMENT, " +
+        "transaction_date TEXT NOT NULL, account_number TEXT NOT NULL, customer_id TEXT, " +
+        "transaction_type TEXT NOT NULL, description TEXT, amount REAL NOT NULL, balance_after REAL)",
+        "CREATE TABLE IF NOT EXISTS users (user_id TEXT PRIMARY KEY, password TEXT NOT NULL, " +
+        "role TEXT NOT NULL, customer_id TEXT)"
+    };
+
+    private static final List<Migration> MIGRATIONS = Collections.unmodifiableList(Arrays.asList(
+        new Migration(1, "Daily balance snapshots",
+            "CREATE TABLE IF NOT EXISTS daily_balances (" +
+            "account_number TEXT NOT NULL, balance_date TEXT NOT NULL, customer_id TEXT, " +
+            "credits REAL NOT NULL DEFAULT 0, debits REAL NOT NULL DEFAULT 0, " +
+            "transaction_count INTEGER NOT NULL DEFAULT 0, closing_balance REAL, last_key TEXT NOT NULL, " +
+            "PRIMARY KEY (account_number, balance_date)) WITHOUT ROWID",
+            "CREATE INDEX IF NOT EXISTS idx_daily_balances_customer ON daily_balances (customer_id, balance_date)",
+            "CREATE TABLE IF NOT EXISTS snapshot_state (name TEXT PRIMARY KEY, last_transaction_id INTEGER NOT NULL)",
+            "INSERT OR IGNORE INTO snapshot_state (name, last_transaction_id) VALUES ('daily_balances', 0)"),
+
+        // History pages and type summaries per customer or per account, newest first; the
+        // trailing type and amount columns let summaries run from the index alone
+        new Migration(2, "Covering indexes for transaction history, balances and reports",
+            "CREATE INDEX IF NOT EXISTS idx_transactions_customer_date " +
+            "ON transactions (customer_id, transaction_date, transaction_id, transaction_type, amount)",
+            "CREATE INDEX IF NOT EXISTS idx_transactions_account_date " +
+            "ON transactions (account_number, transaction_date, transaction_id, transaction_type, amount)",
+            "CREATE INDEX IF NOT EXISTS idx_transactions_date " +
+            "ON transactions (transaction_date, transaction_id, transaction_type, amount)",
+            "CREATE INDEX IF NOT EXISTS idx_transactions_customer_id ON transactions (customer_id, transaction_id)",
+            "CREATE INDEX IF NOT EXISTS idx_accounts_customer ON accounts (customer_id, account_number)"),
+
+        // Ties each transaction row to its ledger posting, so startup can write the postings a
+        // crash kept out of the database, and never writes one twice
+        new Migration(3, "Ledger sequence on transactions",
+            "ALTER TABLE transactions ADD COLUMN ledger_sequence INTEGER",
+            "CREATE UNIQUE INDEX IF NOT EXISTS idx_transactions_ledger_sequence " +
+            "ON transactions (ledger_sequence) WHERE ledger_sequence IS NOT NULL",
+            "CREATE TABLE IF NOT EXISTS ledger_state (name TEXT PRIMARY KEY, applied_sequence INTEGER NOT NULL)",
+            "INSERT OR IGNORE INTO ledger_state (name, applied_sequence) VALUES ('database', 0)"),
+
+        // The last input line each bulk import committed, so a failed import resumes after it
+        // instead of importing the committed rows a second time
+        new Migration(4, "Bulk import checkpoints",
+            "CREATE TABLE IF NOT EXISTS import_progress (source TEXT PRIMARY KEY, " +
+            "last_line INTEGER NOT NULL, updated_at TEXT NOT NULL)"),
+
+        // Transfer rows record their direction so summaries can count them as credits or debits.
+        // Older rows are told apart by the description the transfer writer gave them; the daily
+        // snapshots are then refolded from scratch with the new credit and debit rules
+        new Migration(5, "Transfer direction on transactions",
+            "UPDATE transactions SET transaction_type = 'Transfer Out' " +
+            "WHERE transaction_type = 'Transfer' AND description LIKE 'Transfer to %'",
+            "UPDATE transactions SET transaction_type = 'Transfer In' " +
+            "WHERE transaction_type = 'Transfer' AND description LIKE 'Transfer from %'",
+            "DELETE FROM daily_balances",
+            "UPDATE snapshot_state SET last_transaction_id = 0 WHERE name = 'daily_balances'"),
+
+        // Money is stored as whole thebe so that no stored balance or SQL SUM() goes through a
+        // double. The REAL columns stay as a read-only copy for code that still reads them; the
+        // triggers fill in the thebe columns for rows written by code that only knows the REAL
+        // ones. The snapshots and the covering indexes are rebuilt on the new columns
+        new Migration(6, "Money in integer thebe",
+            "ALTER TABLE accounts ADD COLUMN balance_thebe INTEGER",
+            "UPDATE accounts SET balance_thebe = CAST(ROUND(balance * 100) AS INTEGER)",
+            "ALTER TABLE transactions ADD COLUMN amount_thebe INTEGER",
+            "ALTER TABLE transactions ADD COLUMN balance_after_thebe INTEGER",
+            "UPDATE transactions SET amount_thebe = CAST(ROUND(amount * 100) AS INTEGER), " +
+            "balance_after_thebe = CAST(ROUND(balance_after * 100) AS INTEGER)",
+            "CREATE TRIGGER IF NOT EXISTS accounts_balance_thebe_on_insert AFTER INSERT ON accounts " +
+            "WHEN NEW.balance_thebe IS NULL BEGIN UPDATE accounts SET balance_thebe = " +
+            "CAST(ROUND(NEW.balance * 100) AS INTEGER) WHERE account_number = NEW.account_number; END",
+            "CREATE TRIGGER IF NOT EXISTS accounts_balance_thebe_on_update AFTER UPDATE OF balance ON accounts " +
+            "WHEN NEW.balance_thebe IS OLD.balance_thebe AND NEW.balance IS NOT OLD.balance BEGIN " +
+            "UPDATE accounts SET balance_thebe = CAST(ROUND(NEW.balance * 100) AS INTEGER) " +
+            "WHERE account_number = NEW.account_number; END",
+            "CREATE TRIGGER IF NOT EXISTS transactions_amount_thebe_on_insert AFTER INSERT ON transactions " +
+            "WHEN NEW.amount_thebe IS NULL BEGIN UPDATE transactions SET " +
+            "amount_thebe = CAST(ROUND(NEW.amount * 100) AS INTEGER), " +
+            "balance_after_thebe = CAST(ROUND(NEW.balance_after * 100) AS INTEGER) " +
+            "WHERE transaction_id = NEW.transaction_id; END",
+            "DROP INDEX IF EXISTS idx_transactions_customer_date",
+            "DROP INDEX IF EXISTS idx_transactions_account_date",
+            "DROP INDEX IF EXISTS idx_transactions_date",
+            "CREATE INDEX IF NOT EXISTS idx_transactions_customer_date " +
+            "ON transactions (customer_id, transaction_date, transaction_id, transaction_type, amount_thebe)",
+            "CREATE INDEX IF NOT EXISTS idx_transactions_account_date " +
+            "ON transactions (account_number, transaction_date, transaction_id, transaction_type, amount_thebe)",
+            "CREATE INDEX IF NOT EXISTS idx_transactions_date " +
+            "ON transactions (transaction_date, transaction_id, transaction_type, amount_thebe)",
+            "DROP TABLE daily_balances",
+            "CREATE TABLE daily_balances (" +
+            "account_number TEXT NOT NULL, balance_date TEXT NOT NULL, customer_id TEXT, " +
+            "credits_thebe INTEGER NOT NULL DEFAULT 0, debits_thebe INTEGER NOT NULL DEFAULT 0, " +
+            "transaction_count INTEGER NOT NULL DEFAULT 0, closing_balance_thebe INTEGER, last_key TEXT NOT NULL, " +
+            "PRIMARY KEY (account_number, balance_date)) WITHOUT ROWID",
+            "CREATE INDEX IF NOT EXISTS idx_daily_balances_customer ON daily_balances (customer_id, balance_date)",
+            "UPDATE snapshot_state SET last_transaction_id = 0 WHERE name = 'daily_balances'")
+    ));
+
+    private SchemaMigrations() { }
+
+    // Creates any base table that does not exist yet; existing tables are left alone
+    public static void createBaseTables(ConnectionPool pool) throws SQLException {
+        pool.inTransaction(connection -> {
+            try (Statement statement = connection.getConnection().createStatement()) {
+                for (String sql : BASE_SCHEMA) {
+                    statement.execute(sql);
+                }
+            }
+            return null;
+        });
+    }
+
+    // Brings the database up to the latest version; returns how many migrations ran
+    public static int migrate(ConnectionPool pool) throws SQLException {
+        pool.inTransaction(connection -> {
+            try (Statement statement = connection.getConnection().createStatement()) {
+                statement.execute("CREATE TABLE IF NOT EXISTS schema_version (" +
+                    "version INTEGER PRIMARY KEY, description TEXT NOT NULL, applied_at TEXT NOT NULL)");
+            }
+            return null;
+        });
+
+        int current = getVersion(pool);
+        int applied = 0;
+        for (Migration migration : MIGRATIONS) {
+            if (migration.version > current) {
+                apply(pool, migration);
+                applied++;
+            }
+        }
+        if (applied > 0) {
+            // Refresh planner statistics for the new indexes; cheap when nothing changed
+            pool.inTransaction(connection -> {
+                try (Statement statement = connection.getConnection().createStatement()) {
+                    statement.execute("PRAGMA optimize");
+                }
+                return null;
+            });
+        }
+        return applied;
+    }
+
+    public static int getVersion(ConnectionPool pool) throws SQLException {
+        try (ConnectionPool.PooledConnection connection = pool.acquireWriter();
+             Statement statement = connection.getConnection().createStatement();
+             ResultSet rs = statement.executeQuery("SELECT COALESCE(MAX(version), 0) FROM schema_version")) {
+            return rs.next() ? rs.getInt(1) : 0;
+        }
+    }
+
+    public static int getLatestVersion() {
+        return MIGRATIONS.get(MIGRATIONS.size() - 1).version;
+    }
+
+    private static void apply(ConnectionPool pool, Migration migration) throws SQLException {
+        long start = System.nanoTime();
+        pool.inTransaction(connection -> {
+            try (Statement statement = connection.getConnection().createStatement()) {
+                for (String sql : migration.statements) {
+                    statement.execute(sql);
+                }
+            }
+            PreparedStatement record = connection.prepare(
+                "INSERT INTO schema_version (version, description, applied_at) VALUES (?, ?, ?)");
+            record.setInt(1, migration.version);
+            record.setString(2, migration.description);
+            record.setString(3, LocalDateTime.now().format(DATE_FORMAT));
+            record.executeUpdate();
+            return null;
+        });
+        System.out.printf("Applied schema migration %d (%s) in %.1f ms%n", migration.version,
+            migration.description, (System.nanoTime() - start) / 1_000_000.0);
+    }
+
+    private static final class Migration {
+        private final int version;
+        private final String description;
+        private final String[] statements;
+
+        Migration(int version, String description, String... statements) {
+            this.version = version;
+            this.description = description;
+            this.statements = statements;
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package banking.database;
+
+import banking.service.BankRegistry;
+import banking.service.BankStatistics;
+import main.java.banking.model.Account;
+import main.java.banking.model.Money;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Seeds {@link BankStatistics} from the database at startup.
+ *
+ * One aggregate query returns the customer count and the account count and balance for every
+ * branch and account type, so the dashboard starts with all of its totals without reading
+ * individual rows. Run it after the ledger has caught the database up, and before postings
+ * start, so the stored balances are the ones the accounts hold.
+ */
+public final class StatisticsLoader {
+
+    // The customer count comes back on every row, and on a single row of nulls when there are no accounts
+    static final String TOTALS =
+        "SELECT c.customers, a.branch, a.account_type, a.accounts, a.balance " +
+        "FROM (SELECT COUNT(*) AS customers FROM customers) c " +
+        "LEFT JOIN (SELECT branch, account_type, COUNT(*) AS accounts, SUM(balance_thebe) AS balance " +
+        "FROM accounts GROUP BY branch, account_type) a ON 1";
+
+    private StatisticsLoader() { }
+
+    // Returns the number of accounts counted
+    public static long seed(ConnectionPool pool, BankStatistics statistics, BankRegistry registry) throws SQLException {
+        long customers = 0;
+        long accounts = 0;
+        List<BankStatistics.Totals> totals = new ArrayList<>();
+        try (ConnectionPool.PooledConnection connection = pool.acquireReader()) {
+            PreparedStatement statement = connection.prepare(TOTALS);
+            try (ResultSet rs = statement.executeQuery()) {
+                while (rs.next()) {
+                    customers = rs.getLong(1);
+                    if (rs.getString(3) == null) {
+                        continue;
+                    }
+                    long count = rs.getLong(4);
+                    totals.add(new BankStatistics.Totals(rs.getString(2), className(rs.getString(3)), count,
+                        Money.ofThebe(rs.getLong(5))));
+                    accounts += count;
+                }
+            }
+        }
+        List<String> accountNumbers = registry.getAccounts().stream()
+            .map(Account::getAccountNumber)
+            .collect(Collectors.toList());
+        statistics.seed(customers, totals, accountNumbers);
+        return accounts;
+    }
+
+    // Stored as "Savings", "Cheque" or "Investment"; the statistics key on the class simple name
+    private static String className(String accountType) {
+        return accountType + "Account";
+    }
+}
@@ -0,0 +1,236 @@
+package banking.database;
+
+import banking.metrics.Metrics;
+import main.java.banking.model.Money;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Keyset-paginated reads of the transactions table, newest first.
+ *
+ * Each page continues from the (transaction_date, transaction_id) of the last row of the
+ * previous page, so fetching page n costs the same as fetching page 1 no matter how much
+ * history an account has. Totals for the filter are computed by one aggregate query instead
+ * of summing rows on the client, or from the daily snapshots when they are available.
+ *
+ * Dates are stored as ISO text ("yyyy-MM-dd HH:mm:ss"), which sorts chronologically.
+ */
+public class TransactionHistoryQuery {
+
+    public static final int DEFAULT_PAGE_SIZE = 100;
+
+    private static final String COLUMNS =
+        "transaction_id, transaction_date, account_number, transaction_type, description, " +
+        "amount_thebe, balance_after_thebe";
+
+    private static final Metrics.Timer FETCH_PAGE_TIMER =
+        Metrics.timer("dao", "TransactionHistoryQuery.fetchPage");
+    private static final Metrics.Timer SUMMARIZE_TIMER =
+        Metrics.timer("dao", "TransactionHistoryQuery.summarize");
+
+    private final ConnectionPool pool;
+    private final DailyBalanceSnapshots snapshots;
+
+    public TransactionHistoryQuery(ConnectionPool pool) {
+        this(pool, null);
+    }
+
+    public TransactionHistoryQuery(ConnectionPool pool, DailyBalanceSnapshots snapshots) {
+        this.pool = pool;
+        this.snapshots = snapshots;
+    }
+
+    // Returns up to pageSize rows after the cursor; pass Cursor.START for the first page
+    public Page fetchPage(Filter filter, Cursor after, int pageSize) throws SQLException {
+        long start = FETCH_PAGE_TIMER.start();
+        try {
+            List<Object> params = new ArrayList<>();
+            String sql = pageSql(filter, after, pageSize, params);
+
+            List<TransactionRecord> rows = new ArrayList<>(pageSize);
+            Cursor next = Cursor.START;
+            try (ConnectionPool.PooledConnection connection = pool.acquireReader()) {
+                PreparedStatement statement = connection.prepare(sql);
+                bind(statement, params);
+                try (ResultSet rs = statement.executeQuery()) {
+                    while (rs.next()) {
+                        String date = rs.getString("transaction_date");
+                        long id = rs.getLong("transaction_id");
+                        long balance = rs.getLong("balance_after_thebe");
+                        Money balanceAfter = rs.wasNull() ? null : Money.ofThebe(balance);
+                        rows.add(new TransactionRecord(id, parseDate(date), rs.getString("account_number"),
+                            rs.getString("transaction_type"), rs.getString("description"),
+                            Money.ofThebe(rs.getLong("amount_thebe")), balanceAfter));
+                        next = new Cursor(date, id);
+                    }
+                }
+            }
+            return new Page(rows, rows.size() == pageSize ? next : null);
+        } finally {
+            FETCH_PAGE_TIMER.stop(start);
+        }
+    }
+
+    // The customer's newest transactions across all accounts, for the dashboard
+    public List<TransactionRecord> fetchRecent(String customerId, int limit) throws SQLException {
+        return fetchPage(recentFilter(customerId), Cursor.START, limit).getRows();
+    }
+
+    public Summary summarize(Filter filter) throws SQLException {
+        long start = SUMMARIZE_TIMER.start();
+        try {
+            // Snapshots are per account and day, so they cannot answer a filter on transaction type
+            if (snapshots != null && filter.transactionType == null) {
+                return snapshots.summarize(filter.customerId, filter.accountNumber, filter.from, filter.to);
+            }
+            List<Object> params = new ArrayList<>();
+            String sql = summarySql(filter, params);
+
+            try (ConnectionPool.PooledConnection connection = pool.acquireReader()) {
+                PreparedStatement statement = connection.prepare(sql);
+                bind(statement, params);
+                try (ResultSet rs = statement.executeQuery()) {
+                    rs.next();
+                    return new Summary(Money.ofThebe(rs.getLong("credits")), Money.ofThebe(rs.getLong("debits")),
+                        rs.getLong("row_count"));
+                }
+            }
+        } finally {
+            SUMMARIZE_TIMER.stop(start);
+        }
+    }
+
+    // The filter fetchRecent pages with; QueryPlanAudit checks the same one
+    static Filter recentFilter(String customerId) {
+        return new Filter(customerId, null, null, null, null);
+    }
+
+    // The SQL builders fill in the parameters as they go; QueryPlanAudit uses them too
+    static String pageSql(Filter filter, Cursor after, int pageSize, List<Object> params) {
+        StringBuilder sql = new StringBuilder("SELECT ").append(COLUMNS).append(" FROM transactions");
+        appendWhere(sql, params, filter);
+        if (after != Cursor.START) {
+            sql.append(" AND (transaction_date < ? OR (transaction_date = ? AND transaction_id < ?))");
+            params.add(after.date);
+            params.add(after.date);
+            params.add(after.transactionId);
+        }
+        sql.append(" ORDER BY transaction_date DESC, transaction_id DESC LIMIT ?");
+        params.add(pageSize);
+        return sql.toString();
+    }
+
+    static String summarySql(Filter filter, List<Object> params) {
+        StringBuilder sql = new StringBuilder(
+            "SELECT COALESCE(SUM(CASE WHEN transaction_type IN ('Deposit', 'Interest', 'Transfer In') " +
+            "THEN amount_thebe END), 0) AS credits, " +
+            "COALESCE(SUM(CASE WHEN transaction_type IN ('Withdrawal', 'Transfer Out') " +
+            "THEN amount_thebe END), 0) AS debits, " +
+            "COUNT(*) AS row_count FROM transactions");
+        appendWhere(sql, params, filter);
+        return sql.toString();
+    }
+
+    private static void appendWhere(StringBuilder sql, List<Object> params, Filter filter) {
+        sql.append(" WHERE customer_id = ?");
+        params.add(filter.customerId);
+        if (filter.accountNumber != null) {
+            sql.append(" AND account_number = ?");
+            params.add(filter.accountNumber);
+        }
+        if (filter.transactionType != null) {
+            sql.append(" AND transaction_type = ?");
+            params.add(filter.transactionType);
+        }
+        if (filter.from != null) {
+            sql.append(" AND transaction_date >= ?");
+            params.add(filter.from.toString());
+        }
+        if (filter.to != null) {
+            // Inclusive end date: everything before the start of the following day
+            sql.append(" AND transaction_date < ?");
+            params.add(filter.to.plusDays(1).toString());
+        }
+    }
+
+    private static void bind(PreparedStatement statement, List<Object> params) throws SQLException {
+        for (int i = 0; i < params.size(); i++) {
+            statement.setObject(i + 1, params.get(i));
+        }
+    }
+
+    static LocalDateTime parseDate(String value) {
+        if (value.length() == 10) {
+            return LocalDate.parse(value).atStartOfDay();
+        }
+        return LocalDateTime.parse(value.replace(' ', 'T'));
+    }
+
+    public static final class Filter {
+        private final String customerId;
+        private final String accountNumber;
+        private final LocalDate from;
+        private final LocalDate to;
+        private final String transactionType;
+
+        // Null arguments other than customerId mean "no restriction"
+        public Filter(String customerId, String accountNumber, LocalDate from, LocalDate to, String transactionType) {
+            this.customerId = customerId;
+            this.accountNumber = accountNumber;
+            this.from = from;
+            this.to = to;
+            this.transactionType = transactionType;
+        }
+    }
+
+    public static final class Cursor {
+        public static final Cursor START = new Cursor(null, 0);
+
+        private final String date;
+        private final long transactionId;
+
+        Cursor(String date, long transactionId) {
+            this.date = date;
+            this.transactionId = transactionId;
+        }
+    }
+
+    public static final class Page {
+        private final List<TransactionRecord> rows;
+        private final Cursor next;
+
+        Page(List<TransactionRecord> rows, Cursor next) {
+            this.rows = rows;
+            this.next = next;
+        }
+
+        public List<TransactionRecord> getRows() { return rows; }
+
+        // Cursor for the following page, or null when this was the last one
+        public Cursor getNext() { return next; }
+        public boolean hasMore() { return next != null; }
+    }
+
+    public static final class Summary {
+        private final Money totalDeposits;
+        private final Money totalWithdrawals;
+        private final long transactionCount;
+
+        Summary(Money totalDeposits, Money totalWithdrawals, long transactionCount) {
+            this.totalDeposits = totalDeposits;
+            this.totalWithdrawals = totalWithdrawals;
+            this.transactionCount = transactionCount;
+        }
+
+        public Money getTotalDeposits() { return totalDeposits; }
+        public Money getTotalWithdrawals() { return totalWithdrawals; }
+        public Money getNetChange() { return totalDeposits.minus(totalWithdrawals); }
+        public long getTransactionCount() { return transactionCount; }
+    }
+}
@@ -0,0 +1,46 @@
+package banking.database;
+
+import main.java.banking.model.Money;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * One row of the transactions table, with the formatted getters the history table binds to.
+ */
+public final class TransactionRecord {
+
+    private static final DateTimeFormatter DISPLAY_FORMAT = DateTimeFormatter.ofPattern("dd MMM yyyy HH:mm");
+
+    private final long transactionId;
+    private final LocalDateTime transactionDate;
+    private final String accountNumber;
+    private final String transactionType;
+    private final String description;
+    private final Money amount;
+    private final Money balanceAfter;
+
+    public TransactionRecord(long transactionId, LocalDateTime transactionDate, String accountNumber,
+                             String transactionType, String description, Money amount, Money balanceAfter) {
+        this.transactionId = transactionId;
+        this.transactionDate = transactionDate;
+        this.accountNumber = accountNumber;
+        this.transactionType = transactionType;
+        this.description = description;
+        this.amount = amount;
+        this.balanceAfter = balanceAfter;
+    }
+
+    // Getters
+    public long getTransactionId() { return transactionId; }
+    public LocalDateTime getTransactionDate() { return transactionDate; }
+    public String getAccountNumber() { return accountNumber; }
+    public String getTransactionType() { return transactionType; }
+    public String getDescription() { return description; }
+    public Money getAmount() { return amount; }
+    public Money getBalanceAfter() { return balanceAfter; }
+
+    public String getFormattedDate() { return transactionDate.format(DISPLAY_FORMAT); }
+    public String getFormattedAmount() { return amount.toString(); }
+    public String getFormattedBalance() { return balanceAfter == null ? "" : balanceAfter.toString(); }
+}
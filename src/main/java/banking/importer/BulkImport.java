@@ -0,0 +1,493 @@
+package banking.importer;
+
+import banking.database.ConnectionPool;
+import banking.database.SchemaMigrations;
+import banking.service.numbering.AccountNumberGenerator;
+import banking.service.numbering.SnowflakeAccountNumberGenerator;
+import main.java.banking.model.Account;
+import main.java.banking.model.ChequeAccount;
+import main.java.banking.model.CompanyCustomer;
+import main.java.banking.model.Customer;
+import main.java.banking.model.IndividualCustomer;
+import main.java.banking.model.InvestmentAccount;
+import main.java.banking.model.Money;
+import main.java.banking.model.SavingsAccount;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Headless bulk onboarding of customers and accounts from a CSV file.
+ *
+ * The file is read in chunks. Each chunk is validated in parallel by building the real model
+ * objects, so the rules are exactly those of the account constructors (employment for
+ * cheque accounts, minimum balance for investment accounts). Valid rows are written with
+ * JDBC batches, committing every {@link #COMMIT_EVERY} rows. Rejected rows go to an error
+ * report with their line number and reason. A row whose customer id already exists with
+ * different details is rejected; one that matches adds an account to that customer. Each
+ * initial deposit is also written as an "Opening deposit" transaction.
+ *
+ * Every commit records the last input line it covers in import_progress, keyed by the input
+ * file's absolute path. Running the same file again after a failure skips the committed lines
+ * and carries on from there, adding to the error report the earlier run left; running it
+ * again after it finished imports nothing.
+ *
+ * Expected header (any column order):
+ * customer_id, customer_type, first_name, last_name, company_name, registration_number,
+ * date_of_birth, address, employer, account_type, branch, initial_deposit
+ *
+ * Usage: java -Dbanking.node.id=N banking.importer.BulkImport input.csv bank.db [errors.csv]
+ * where N is a node id no running application process uses, so account numbers cannot clash.
+ */
+public class BulkImport {
+
+    public static final int CHUNK_SIZE = 5_000;
+    public static final int COMMIT_EVERY = 50_000;
+
+    private static final String[] COLUMNS = {
+        "customer_id", "customer_type", "first_name", "last_name", "company_name", "registration_number",
+        "date_of_birth", "address", "employer", "account_type", "branch", "initial_deposit"
+    };
+
+    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    private static final String FIND_CUSTOMER =
+        "SELECT customer_type, first_name, last_name, company_name, registration_number, date_of_birth, " +
+        "address, employer FROM customers WHERE customer_id = ?";
+    private static final String INSERT_CUSTOMER =
+        "INSERT INTO customers (customer_id, customer_type, first_name, last_name, company_name, " +
+        "registration_number, date_of_birth, address, employer) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String INSERT_ACCOUNT =
+        "INSERT INTO accounts (account_number, customer_id, account_type, branch, balance_thebe, balance) " +
+        "VALUES (?1, ?2, ?3, ?4, ?5, ?5 / 100.0)";
+    private static final String INSERT_OPENING_DEPOSIT =
+        "INSERT INTO transactions (transaction_date, account_number, customer_id, transaction_type, description, " +
+        "amount_thebe, balance_after_thebe, amount, balance_after) " +
+        "VALUES (?1, ?2, ?3, 'Deposit', 'Opening deposit', ?4, ?4, ?4 / 100.0, ?4 / 100.0)";
+    private static final String LAST_LINE = "SELECT last_line FROM import_progress WHERE source = ?";
+    private static final String SAVE_LAST_LINE =
+        "INSERT OR REPLACE INTO import_progress (source, last_line, updated_at) VALUES (?, ?, ?)";
+
+    private final Connection connection;
+    private final AccountNumberGenerator accountNumbers;
+
+    public BulkImport(Connection connection, AccountNumberGenerator accountNumbers) {
+        this.connection = connection;
+        this.accountNumbers = accountNumbers;
+    }
+
+    public static void main(String[] args) {
+        if (args.length < 2) {
+            System.err.println("Usage: java -D" + SnowflakeAccountNumberGenerator.NODE_ID_PROPERTY
+                + "=<node id> banking.importer.BulkImport <input.csv> <database file> [errors.csv]");
+            System.exit(2);
+        }
+        Path input = Paths.get(args[0]);
+        Path errors = args.length > 2 ? Paths.get(args[2]) : Paths.get(args[0] + ".errors.csv");
+
+        int status;
+        try (ConnectionPool pool = new ConnectionPool("jdbc:sqlite:" + args[1], 1)) {
+            // The checkpoint table comes with the migrations, so bring the file up to date first
+            SchemaMigrations.createBaseTables(pool);
+            SchemaMigrations.migrate(pool);
+            AccountNumberGenerator accountNumbers = SnowflakeAccountNumberGenerator.fromSystemProperties();
+            Summary summary;
+            try (ConnectionPool.PooledConnection connection = pool.acquireWriter()) {
+                summary = new BulkImport(connection.getConnection(), accountNumbers).run(input, errors);
+            }
+            System.out.println("Import finished: " + summary);
+            long rejected = summary.rejected + summary.rejectedEarlier;
+            if (rejected > 0) {
+                System.out.println("Rejected rows written to " + errors);
+            }
+            status = rejected == 0 ? 0 : 1;
+        } catch (Exception e) {
+            System.err.println("Import failed: " + e.getMessage());
+            e.printStackTrace();
+            status = 3;
+        }
+        System.exit(status);
+    }
+
+    public Summary run(Path input, Path errorReport) throws IOException, SQLException {
+        Summary summary = new Summary();
+        long start = System.nanoTime();
+        String source = input.toAbsolutePath().normalize().toString();
+        summary.resumedAfterLine = lastCommittedLine(source);
+        // A resumed run adds to the report of the runs before it, keeping what they committed
+        boolean appendReport = summary.resumedAfterLine > 0 && Files.exists(errorReport);
+        if (appendReport) {
+            summary.rejectedEarlier = keepRejectionsThrough(errorReport, summary.resumedAfterLine);
+        }
+        boolean autoCommit = connection.getAutoCommit();
+        connection.setAutoCommit(false);
+
+        try (CsvReader reader = new CsvReader(Files.newBufferedReader(input, StandardCharsets.UTF_8));
+             BufferedWriter errors = appendReport
+                 ? Files.newBufferedWriter(errorReport, StandardCharsets.UTF_8, StandardOpenOption.APPEND)
+                 : Files.newBufferedWriter(errorReport, StandardCharsets.UTF_8);
+             PreparedStatement customerFind = connection.prepareStatement(FIND_CUSTOMER);
+             PreparedStatement customerInsert = connection.prepareStatement(INSERT_CUSTOMER);
+             PreparedStatement accountInsert = connection.prepareStatement(INSERT_ACCOUNT);
+             PreparedStatement depositInsert = connection.prepareStatement(INSERT_OPENING_DEPOSIT)) {
+
+            Map<String, Integer> header = readHeader(reader);
+            if (!appendReport) {
+                errors.write("line,reason");
+                errors.newLine();
+            }
+
+            long uncommitted = 0;
+            List<Row> chunk = new ArrayList<>(CHUNK_SIZE);
+            // Customers batched in this chunk, which a lookup cannot see until the batch runs
+            Map<String, String[]> chunkCustomers = new HashMap<>();
+            String[] fields;
+            do {
+                fields = reader.next();
+                if (fields != null && reader.getLineNumber() <= summary.resumedAfterLine) {
+                    // Committed by an earlier run of this file
+                    continue;
+                }
+                if (fields != null) {
+                    chunk.add(new Row(reader.getLineNumber(), fields));
+                }
+                if (chunk.size() == CHUNK_SIZE || (fields == null && !chunk.isEmpty())) {
+                    List<Row> validated = chunk.parallelStream()
+                        .map(row -> validate(row, header))
+                        .collect(Collectors.toList());
+
+                    String date = LocalDateTime.now().format(DATE_FORMAT);
+                    for (Row row : validated) {
+                        if (row.error == null) {
+                            row.error = addBatch(row, date, chunkCustomers, customerFind, customerInsert,
+                                accountInsert, depositInsert);
+                        }
+                        if (row.error != null) {
+                            errors.write(row.line + "," + quote(row.error));
+                            errors.newLine();
+                            summary.rejected++;
+                        } else {
+                            summary.imported++;
+                            uncommitted++;
+                        }
+                    }
+                    customerInsert.executeBatch();
+                    accountInsert.executeBatch();
+                    depositInsert.executeBatch();
+                    chunkCustomers.clear();
+                    if (uncommitted >= COMMIT_EVERY || fields == null) {
+                        commitThrough(source, chunk.get(chunk.size() - 1).line);
+                        uncommitted = 0;
+                    }
+
+                    chunk.clear();
+                    printProgress(summary, start);
+                }
+            } while (fields != null);
+        } catch (IOException | SQLException | RuntimeException e) {
+            connection.rollback();
+            throw e;
+        } finally {
+            connection.setAutoCommit(autoCommit);
+        }
+
+        summary.elapsedNanos = System.nanoTime() - start;
+        return summary;
+    }
+
+    /**
+     * Rewrites an earlier run's error report to its header and the rejections of lines up to
+     * the given one. Lines after it were rolled back, so this run reads and reports them again.
+     * Returns the number of rejections kept.
+     */
+    static long keepRejectionsThrough(Path report, long line) throws IOException {
+        List<String> rows = Files.readAllLines(report, StandardCharsets.UTF_8);
+        List<String> kept = new ArrayList<>();
+        long rejections = 0;
+        for (int i = 0; i < rows.size(); i++) {
+            String row = rows.get(i);
+            int comma = row.indexOf(',');
+            if (i == 0) {
+                kept.add(row);
+            } else if (comma > 0 && isLineAtMost(row.substring(0, comma), line)) {
+                kept.add(row);
+                rejections++;
+            }
+        }
+        Files.write(report, kept, StandardCharsets.UTF_8);
+        return rejections;
+    }
+
+    private static boolean isLineAtMost(String number, long line) {
+        try {
+            return Long.parseLong(number) <= line;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    private long lastCommittedLine(String source) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(LAST_LINE)) {
+            statement.setString(1, source);
+            try (ResultSet rs = statement.executeQuery()) {
+                return rs.next() ? rs.getLong(1) : 0;
+            }
+        }
+    }
+
+    // The checkpoint commits with the rows, so it never covers a line that was rolled back
+    private void commitThrough(String source, long line) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(SAVE_LAST_LINE)) {
+            statement.setString(1, source);
+            statement.setLong(2, line);
+            statement.setString(3, LocalDateTime.now().format(DATE_FORMAT));
+            statement.executeUpdate();
+        }
+        connection.commit();
+    }
+
+    private Map<String, Integer> readHeader(CsvReader reader) throws IOException {
+        String[] names = reader.next();
+        if (names == null) {
+            throw new IOException("Input file is empty");
+        }
+        Map<String, Integer> header = new HashMap<>();
+        for (int i = 0; i < names.length; i++) {
+            header.put(names[i].toLowerCase(), i);
+        }
+        for (String column : COLUMNS) {
+            if (!header.containsKey(column)) {
+                throw new IOException("Missing column: " + column);
+            }
+        }
+        return header;
+    }
+
+    // Runs on pool threads; only touches the row itself
+    private Row validate(Row row, Map<String, Integer> header) {
+        try {
+            String customerId = field(row, header, "customer_id");
+            String customerType = field(row, header, "customer_type");
+            String address = field(row, header, "address");
+            if (customerId.isEmpty() || address.isEmpty()) {
+                return row.reject("Customer id and address are required");
+            }
+
+            Customer customer;
+            if ("Individual".equalsIgnoreCase(customerType)) {
+                String firstName = field(row, header, "first_name");
+                String lastName = field(row, header, "last_name");
+                if (firstName.isEmpty() || lastName.isEmpty()) {
+                    return row.reject("First name and last name are required for individual customers");
+                }
+                String dob = field(row, header, "date_of_birth");
+                IndividualCustomer individual = new IndividualCustomer(address, firstName, lastName,
+                    dob.isEmpty() ? null : java.sql.Date.valueOf(LocalDate.parse(dob)));
+                individual.setEmployer(field(row, header, "employer"));
+                customer = individual;
+            } else if ("Company".equalsIgnoreCase(customerType)) {
+                if (field(row, header, "company_name").isEmpty()) {
+                    return row.reject("Company name is required for company customers");
+                }
+                customer = new CompanyCustomer(address, field(row, header, "company_name"),
+                    field(row, header, "registration_number"));
+            } else {
+                return row.reject("Unknown customer type: " + customerType);
+            }
+
+            String depositText = field(row, header, "initial_deposit");
+            Money deposit = depositText.isEmpty() ? Money.ZERO : Money.parse(depositText);
+            if (deposit.isNegative()) {
+                return row.reject("Initial deposit cannot be negative");
+            }
+            String branch = field(row, header, "branch");
+            if (branch.isEmpty()) {
+                return row.reject("Branch is required");
+            }
+
+            String accountNumber = accountNumbers.next(branch);
+            String accountType = field(row, header, "account_type");
+            Account account;
+            switch (accountType) {
+                case "Savings":
+                    account = new SavingsAccount(accountNumber, customer, branch);
+                    account.deposit(deposit);
+                    break;
+                case "Investment":
+                    account = new InvestmentAccount(accountNumber, customer, branch, deposit);
+                    break;
+                case "Cheque":
+                    account = new ChequeAccount(accountNumber, customer, branch);
+                    account.deposit(deposit);
+                    break;
+                default:
+                    return row.reject("Unknown account type: " + accountType);
+            }
+
+            row.customerId = customerId;
+            row.customerColumns = customerColumns(customer);
+            row.accountType = accountType;
+            row.account = account;
+            return row;
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            // Model constructors and Money.parse report rule violations this way
+            return row.reject(e.getMessage());
+        }
+    }
+
+    // Returns why the row cannot be written, or null once it is batched
+    private String addBatch(Row row, String date, Map<String, String[]> chunkCustomers,
+                            PreparedStatement customerFind, PreparedStatement customerInsert,
+                            PreparedStatement accountInsert, PreparedStatement depositInsert) throws SQLException {
+        String[] existing = chunkCustomers.get(row.customerId);
+        if (existing == null) {
+            existing = findCustomer(customerFind, row.customerId);
+        }
+        if (existing == null) {
+            customerInsert.setString(1, row.customerId);
+            for (int i = 0; i < row.customerColumns.length; i++) {
+                customerInsert.setString(i + 2, row.customerColumns[i]);
+            }
+            customerInsert.addBatch();
+            chunkCustomers.put(row.customerId, row.customerColumns);
+        } else if (!sameCustomer(existing, row.customerColumns)) {
+            return "Customer " + row.customerId + " already exists with different details";
+        }
+
+        Money balance = row.account.getBalance();
+        accountInsert.setString(1, row.account.getAccountNumber());
+        accountInsert.setString(2, row.customerId);
+        accountInsert.setString(3, row.accountType);
+        accountInsert.setString(4, row.account.getBranch());
+        accountInsert.setLong(5, balance.getThebe());
+        accountInsert.addBatch();
+
+        if (balance.isPositive()) {
+            depositInsert.setString(1, date);
+            depositInsert.setString(2, row.account.getAccountNumber());
+            depositInsert.setString(3, row.customerId);
+            depositInsert.setLong(4, balance.getThebe());
+            depositInsert.addBatch();
+        }
+        return null;
+    }
+
+    private static String[] findCustomer(PreparedStatement customerFind, String customerId) throws SQLException {
+        customerFind.setString(1, customerId);
+        try (ResultSet rs = customerFind.executeQuery()) {
+            if (!rs.next()) {
+                return null;
+            }
+            String[] columns = new String[8];
+            for (int i = 0; i < columns.length; i++) {
+                columns[i] = rs.getString(i + 1);
+            }
+            return columns;
+        }
+    }
+
+    // The customers columns after customer_id, in INSERT_CUSTOMER order
+    private static String[] customerColumns(Customer customer) {
+        if (customer instanceof IndividualCustomer) {
+            IndividualCustomer individual = (IndividualCustomer) customer;
+            return new String[] {"Individual", individual.getFirstName(), individual.getLastName(), null, null,
+                individual.getDateOfBirth() == null ? null : individual.getDateOfBirth().toString(),
+                customer.getAddress(), individual.getEmployer()};
+        }
+        CompanyCustomer company = (CompanyCustomer) customer;
+        return new String[] {"Company", null, null, company.getCompanyName(), company.getRegistrationNumber(), null,
+            customer.getAddress(), null};
+    }
+
+    // Null and empty are the same value, since rows written elsewhere may use either
+    private static boolean sameCustomer(String[] existing, String[] incoming) {
+        for (int i = 0; i < existing.length; i++) {
+            String a = existing[i] == null ? "" : existing[i];
+            String b = incoming[i] == null ? "" : incoming[i];
+            if (!a.equals(b)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String field(Row row, Map<String, Integer> header, String column) {
+        int index = header.get(column);
+        return index < row.fields.length ? row.fields[index] : "";
+    }
+
+    private static String quote(String value) {
+        return "\"" + String.valueOf(value).replace("\"", "\"\"") + "\"";
+    }
+
+    private static void printProgress(Summary summary, long start) {
+        double seconds = (System.nanoTime() - start) / 1_000_000_000.0;
+        long rows = summary.imported + summary.rejected;
+        System.out.printf("Processed %,d rows (%,d imported, %,d rejected) - %,.0f rows/s%n",
+            rows, summary.imported, summary.rejected, seconds == 0 ? 0 : rows / seconds);
+    }
+
+    private static final class Row {
+        final long line;
+        final String[] fields;
+        String error;
+        String customerId;
+        String[] customerColumns;
+        String accountType;
+        Account account;
+
+        Row(long line, String[] fields) {
+            this.line = line;
+            this.fields = fields;
+        }
+
+        Row reject(String reason) {
+            this.error = reason;
+            return this;
+        }
+    }
+
+    public static final class Summary {
+        private long imported;
+        private long rejected;
+        private long rejectedEarlier;
+        private long resumedAfterLine;
+        private long elapsedNanos;
+
+        public long getImported() { return imported; }
+        public long getRejected() { return rejected; }
+        // Rejections by earlier runs of the same file, still in the error report
+        public long getRejectedEarlier() { return rejectedEarlier; }
+        public long getResumedAfterLine() { return resumedAfterLine; }
+
+        public double getRowsPerSecond() {
+            return elapsedNanos == 0 ? 0 : (imported + rejected) * 1_000_000_000.0 / elapsedNanos;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%,d imported, %,d rejected in %,d ms (%,.0f rows/s)",
+                imported, rejected, elapsedNanos / 1_000_000, getRowsPerSecond())
+                + (resumedAfterLine > 0 ? String.format(", resumed after line %,d", resumedAfterLine) : "")
+                + (rejectedEarlier > 0 ? String.format(", %,d rejected by earlier runs", rejectedEarlier) : "");
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package banking.ledger;
+
+import main.java.banking.model.Money;
+
+/**
+ * One entry in the transaction ledger. Amounts are always positive; the type decides
+ * whether the posting credits or debits the account. The reference is an optional key
+ * stored with the posting, such as the period of an interest posting, and zero when unused.
+ */
+public final class Posting {
+    private final long sequence;
+    private final long timestamp;
+    private final String accountNumber;
+    private final PostingType type;
+    private final Money amount;
+    private final int reference;
+
+    public Posting(long sequence, long timestamp, String accountNumber, PostingType type, Money amount, int reference) {
+        this.sequence = sequence;
+        this.timestamp = timestamp;
+        this.accountNumber = accountNumber;
+        this.type = type;
+        this.amount = amount;
+        this.reference = reference;
+    }
+
+    // Getters
+    public long getSequence() { return sequence; }
+    public long getTimestamp() { return timestamp; }
+    public String getAccountNumber() { return accountNumber; }
+    public PostingType getType() { return type; }
+    public Money getAmount() { return amount; }
+    public int getReference() { return reference; }
+
+    // Signed effect of this posting on the account balance, in thebe
+    public long getSignedThebe() {
+        return type.isDebit() ? -amount.getThebe() : amount.getThebe();
+    }
+
+    @Override
+    public String toString() {
+        return "#" + sequence + " " + type + " " + amount + " " + accountNumber;
+    }
+}
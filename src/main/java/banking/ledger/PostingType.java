@@ -0,0 +1,16 @@
+package banking.ledger;
+
+public enum PostingType {
+    DEPOSIT,
+    WITHDRAWAL,
+    INTEREST,
+    TRANSFER_IN,
+    TRANSFER_OUT,
+    // Balance an account already had when the ledger first saw it
+    OPENING;
+
+    // Whether postings of this type reduce the balance
+    public boolean isDebit() {
+        return this == WITHDRAWAL || this == TRANSFER_OUT;
+    }
+}
@@ -0,0 +1,649 @@
+package banking.ledger;
+
+import main.java.banking.model.Account;
+import main.java.banking.model.Money;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
+import java.util.zip.CRC32;
+
+/**
+ * Durable, append-only ledger of postings stored as fixed-size binary records in
+ * memory-mapped segment files.
+ *
+ * The ledger is the record of truth for balances. Posting paths append to it while holding
+ * the account's lock, before the change is applied in memory, and write to the database only
+ * once the posting is durable; {@link #restoreBalances} puts the replayed balances back into
+ * the loaded accounts at startup. The first posting for an account the ledger has not seen
+ * yet is preceded by an OPENING posting carrying the balance the account already had.
+ *
+ * Appends only copy records into the mapped segment. A background flusher forces dirty
+ * segments to disk in groups, so many concurrent postings share one fsync. Callers that need
+ * durability wait on {@link #awaitDurable(long)}. Postings appended
+ * together with {@link #appendAll} are replayed together or not at all.
+ *
+ * On open, the balances are read from the last checkpoint and every segment after it is
+ * replayed. Replay stops at the first record whose checksum or sequence number does not
+ * match, dropping any torn write at the tail along with the rest of its group. Everything
+ * after that point is then zeroed, so records left over from before the crash can never be
+ * replayed after new ones.
+ *
+ * Once the postings are also in the database, {@link #checkpoint} writes the balances and
+ * references as of the last whole segment before that point and deletes the segments it
+ * covers, so startup time and mapped memory grow with the postings since the last checkpoint
+ * rather than with the ledger's whole history. The checkpoint keeps one balance per account
+ * and every reference (one per interest posting), which stay in memory.
+ *
+ * A directory is used by one ledger at a time: opening takes an exclusive lock on its
+ * ledger.lock file, and fails if another process or another ledger in this one holds it.
+ *
+ * Record layout (64 bytes): sequence, timestamp, amount in thebe (8 bytes each),
+ * type ordinal (1), flags (1), account number length (1), account number (28), padding (1),
+ * reference (4), CRC32 (4).
+ */
+public class TransactionLedger implements Closeable {
+
+    public static final Path DEFAULT_DIRECTORY = Paths.get("ledger");
+    public static final int RECORD_SIZE = 64;
+    public static final int RECORDS_PER_SEGMENT = 1 << 16;
+    public static final int MAX_ACCOUNT_NUMBER_LENGTH = 28;
+
+    private static final long SEGMENT_SIZE = (long) RECORD_SIZE * RECORDS_PER_SEGMENT;
+    private static final int TYPE_OFFSET = 24;
+    private static final int FLAGS_OFFSET = 25;
+    private static final int LENGTH_OFFSET = 26;
+    private static final int ACCOUNT_OFFSET = 27;
+    private static final int REFERENCE_OFFSET = 56;
+    private static final int CHECKSUM_OFFSET = 60;
+    // Set on every record of a group but the last
+    private static final byte MORE_IN_GROUP = 1;
+    private static final long DEFAULT_GROUP_COMMIT_MILLIS = 0;
+    private static final String LOCK_FILE = "ledger.lock";
+    private static final String CHECKPOINT_FILE = "ledger.checkpoint";
+    private static final int CHECKPOINT_VERSION = 1;
+
+    private static TransactionLedger instance;
+
+    private final Path directory;
+    private final long groupCommitMillis;
+    private final FileChannel lockChannel;
+    // Mapped segments from firstSegment on; earlier ones were retired by a checkpoint
+    private final List<MappedByteBuffer> segments = new ArrayList<>();
+    private final Map<String, Long> balances = new ConcurrentHashMap<>();
+    private final Set<String> references = ConcurrentHashMap.newKeySet();
+    private final CRC32 crc = new CRC32();
+    private final Object flushMonitor = new Object();
+    private final Thread flusher;
+
+    private int firstSegment;
+    private long checkpointSequence;
+    private Map<String, Long> checkpointBalances = Collections.emptyMap();
+    private Set<String> checkpointReferences = Collections.emptySet();
+    private long nextSequence = 1;
+    private volatile long writtenSequence;
+    private volatile long durableSequence;
+    // Closing stops new appends; closed is set once the final flush has made everything durable
+    private volatile boolean closing;
+    private volatile boolean closed;
+
+    private TransactionLedger(Path directory, long groupCommitMillis, FileChannel lockChannel) {
+        this.directory = directory;
+        this.groupCommitMillis = groupCommitMillis;
+        this.lockChannel = lockChannel;
+        this.flusher = new Thread(this::flushLoop, "ledger-flusher");
+        this.flusher.setDaemon(true);
+    }
+
+    public static TransactionLedger open(Path directory) throws IOException {
+        return open(directory, DEFAULT_GROUP_COMMIT_MILLIS);
+    }
+
+    public static TransactionLedger open(Path directory, long groupCommitMillis) throws IOException {
+        Files.createDirectories(directory);
+        FileChannel lockChannel = FileChannel.open(directory.resolve(LOCK_FILE),
+            StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        try {
+            FileLock lock;
+            try {
+                lock = lockChannel.tryLock();
+            } catch (OverlappingFileLockException e) {
+                lock = null;
+            }
+            if (lock == null) {
+                throw new IOException("Ledger " + directory.toAbsolutePath() + " is already open in another process");
+            }
+            TransactionLedger ledger = new TransactionLedger(directory, groupCommitMillis, lockChannel);
+            ledger.recover();
+            ledger.flusher.start();
+            return ledger;
+        } catch (IOException | RuntimeException e) {
+            // Closing the channel releases the lock
+            lockChannel.close();
+            throw e;
+        }
+    }
+
+    public static synchronized TransactionLedger initialize(Path directory) throws IOException {
+        if (instance == null) {
+            instance = open(directory);
+        }
+        return instance;
+    }
+
+    public static synchronized TransactionLedger getInstance() {
+        if (instance == null) {
+            throw new IllegalStateException("Transaction ledger has not been initialized");
+        }
+        return instance;
+    }
+
+    // Appends one posting for an account whose lock the caller holds; see appendAll
+    public Posting append(Account account, PostingType type, Money amount, int reference) throws IOException {
+        return appendAll(Collections.singletonList(new Entry(account, type, amount, reference))).get(0);
+    }
+
+    /**
+     * Appends postings as one group, without waiting for them to reach disk, and returns them
+     * in the order given. The caller must hold the lock of every account involved and append
+     * before applying the postings in memory: an account the ledger has not seen gets an
+     * OPENING posting with its current balance in the same group.
+     */
+    public List<Posting> appendAll(List<Entry> entries) throws IOException {
+        List<Entry> records = new ArrayList<>(entries.size() + 2);
+        List<Integer> requested = new ArrayList<>(entries.size());
+        synchronized (this) {
+            Set<String> opened = new HashSet<>();
+            for (Entry entry : entries) {
+                if (!Thread.holdsLock(entry.account)) {
+                    throw new IllegalStateException("Lock account " + entry.accountNumber + " before posting to it");
+                }
+                if (!balances.containsKey(entry.accountNumber) && opened.add(entry.accountNumber)) {
+                    records.add(new Entry(entry.accountNumber, null, PostingType.OPENING, entry.account.getBalance(), 0));
+                }
+                requested.add(records.size());
+                records.add(entry);
+            }
+            List<Posting> written = appendRecords(records);
+            List<Posting> postings = new ArrayList<>(entries.size());
+            for (int index : requested) {
+                postings.add(written.get(index));
+            }
+            return postings;
+        }
+    }
+
+    // Writes the records as one group; nothing is written if any of them is invalid
+    private synchronized List<Posting> appendRecords(List<Entry> records) throws IOException {
+        if (closing) {
+            throw new IllegalStateException("Ledger is closed");
+        }
+        List<byte[]> accounts = new ArrayList<>(records.size());
+        for (Entry record : records) {
+            boolean allowed = record.type == PostingType.OPENING ? !record.amount.isNegative() : record.amount.isPositive();
+            if (!allowed) {
+                throw new IllegalArgumentException("Invalid " + record.type + " amount " + record.amount);
+            }
+            byte[] account = record.accountNumber.getBytes(StandardCharsets.US_ASCII);
+            if (account.length > MAX_ACCOUNT_NUMBER_LENGTH) {
+                throw new IllegalArgumentException("Account number too long for ledger: " + record.accountNumber);
+            }
+            accounts.add(account);
+        }
+
+        long now = System.currentTimeMillis();
+        List<Posting> postings = new ArrayList<>(records.size());
+        for (int i = 0; i < records.size(); i++) {
+            Entry entry = records.get(i);
+            long sequence = nextSequence + i;
+            byte[] account = accounts.get(i);
+            ByteBuffer record = slot(sequence);
+            record.putLong(0, sequence);
+            record.putLong(8, now);
+            record.putLong(16, entry.amount.getThebe());
+            record.put(TYPE_OFFSET, (byte) entry.type.ordinal());
+            record.put(FLAGS_OFFSET, i < records.size() - 1 ? MORE_IN_GROUP : 0);
+            record.put(LENGTH_OFFSET, (byte) account.length);
+            for (int b = 0; b < MAX_ACCOUNT_NUMBER_LENGTH; b++) {
+                record.put(ACCOUNT_OFFSET + b, b < account.length ? account[b] : 0);
+            }
+            record.put(REFERENCE_OFFSET - 1, (byte) 0);
+            record.putInt(REFERENCE_OFFSET, entry.reference);
+            record.putInt(CHECKSUM_OFFSET, checksum(record));
+            postings.add(new Posting(sequence, now, entry.accountNumber, entry.type, entry.amount, entry.reference));
+        }
+
+        nextSequence += records.size();
+        for (Posting posting : postings) {
+            track(posting);
+        }
+        writtenSequence = nextSequence - 1;
+        synchronized (flushMonitor) {
+            flushMonitor.notifyAll();
+        }
+        return postings;
+    }
+
+    public void awaitDurable(long sequence) throws InterruptedException {
+        synchronized (flushMonitor) {
+            while (durableSequence < sequence) {
+                if (closed) {
+                    throw new IllegalStateException("Ledger closed before posting " + sequence + " was committed");
+                }
+                flushMonitor.wait();
+            }
+        }
+    }
+
+    public Money getBalance(String accountNumber) {
+        return Money.ofThebe(balances.getOrDefault(accountNumber, 0L));
+    }
+
+    // Whether the ledger holds any posting for the account
+    public boolean hasAccount(String accountNumber) {
+        return balances.containsKey(accountNumber);
+    }
+
+    // Whether the account has a posting of the type with this reference, e.g. interest for a period
+    public boolean hasReference(String accountNumber, PostingType type, int reference) {
+        return references.contains(referenceKey(accountNumber, type, reference));
+    }
+
+    /**
+     * Overwrites the in-memory balance of each account the ledger knows with the balance
+     * replayed from it; accounts it has never seen keep theirs. Returns how many were restored.
+     */
+    public int restoreBalances(Collection<? extends Account> accounts) {
+        int restored = 0;
+        for (Account account : accounts) {
+            Long thebe = balances.get(account.getAccountNumber());
+            if (thebe != null) {
+                account.restoreBalance(Money.ofThebe(thebe));
+                restored++;
+            }
+        }
+        return restored;
+    }
+
+    public long getLastSequence() { return writtenSequence; }
+    public long getDurableSequence() { return durableSequence; }
+    public synchronized long getCheckpointSequence() { return checkpointSequence; }
+
+    /**
+     * Reads every durable posting after the last checkpoint in sequence order, each with the
+     * balance of its account once it was applied.
+     */
+    public synchronized void replay(BiConsumer<Posting, Money> consumer) throws IOException {
+        Map<String, Long> running = new HashMap<>(checkpointBalances);
+        long last = durableSequence;
+        for (long sequence = checkpointSequence + 1; sequence <= last; sequence++) {
+            Posting posting = readValid(sequence);
+            long balance = running.merge(posting.getAccountNumber(), posting.getSignedThebe(), Long::sum);
+            consumer.accept(posting, Money.ofThebe(balance));
+        }
+    }
+
+    /**
+     * Checkpoints the ledger up to the last whole segment at or before the given sequence and
+     * deletes the segments it covers. Every posting up to that sequence must already be
+     * recorded somewhere else, e.g. in the database, as they can no longer be replayed.
+     * Returns the sequence the ledger now starts after.
+     */
+    public synchronized long checkpoint(long confirmedSequence) throws IOException {
+        long upTo = Math.min(confirmedSequence, durableSequence) / RECORDS_PER_SEGMENT * RECORDS_PER_SEGMENT;
+        if (upTo <= checkpointSequence) {
+            return checkpointSequence;
+        }
+        Map<String, Long> newBalances = new HashMap<>(checkpointBalances);
+        Set<String> newReferences = new HashSet<>(checkpointReferences);
+        for (long sequence = checkpointSequence + 1; sequence <= upTo; sequence++) {
+            Posting posting = readValid(sequence);
+            newBalances.merge(posting.getAccountNumber(), posting.getSignedThebe(), Long::sum);
+            if (posting.getReference() != 0) {
+                newReferences.add(referenceKey(posting.getAccountNumber(), posting.getType(), posting.getReference()));
+            }
+        }
+        writeCheckpoint(upTo, newBalances, newReferences);
+        checkpointSequence = upTo;
+        checkpointBalances = newBalances;
+        checkpointReferences = newReferences;
+
+        // The dropped buffers are unmapped once they are garbage collected
+        int retired = segmentIndex(upTo + 1) - firstSegment;
+        segments.subList(0, retired).clear();
+        firstSegment += retired;
+        deleteRetiredSegments();
+        return upTo;
+    }
+
+    @Override
+    public void close() throws IOException {
+        synchronized (this) {
+            if (closing) {
+                return;
+            }
+            closing = true;
+        }
+        // Cuts short any group commit delay; the flush below does its work
+        flusher.interrupt();
+        try {
+            flusher.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        // Waiters are released by this flush, so a posting appended before close never looks lost
+        flush();
+        synchronized (flushMonitor) {
+            closed = true;
+            flushMonitor.notifyAll();
+        }
+        synchronized (TransactionLedger.class) {
+            if (instance == this) {
+                instance = null;
+            }
+        }
+        lockChannel.close();
+    }
+
+    // Replays every complete group and clears whatever follows it
+    private synchronized void recover() throws IOException {
+        readCheckpoint();
+        balances.putAll(checkpointBalances);
+        references.addAll(checkpointReferences);
+        firstSegment = segmentIndex(checkpointSequence + 1);
+        // Left behind if the process stopped between writing a checkpoint and deleting them
+        deleteRetiredSegments();
+
+        List<Posting> group = new ArrayList<>();
+        long sequence = checkpointSequence + 1;
+        long end = sequence;
+        while (Files.exists(segmentFile(segmentIndex(sequence)))) {
+            ByteBuffer record = slot(sequence);
+            if (!isValid(record, sequence)) {
+                break;
+            }
+            group.add(read(record, sequence));
+            sequence++;
+            if ((record.get(FLAGS_OFFSET) & MORE_IN_GROUP) == 0) {
+                for (Posting posting : group) {
+                    track(posting);
+                }
+                group.clear();
+                end = sequence;
+            }
+        }
+        clearFrom(end);
+        nextSequence = end;
+        writtenSequence = end - 1;
+        durableSequence = end - 1;
+    }
+
+    // Zeroes every record from the sequence to the end of its segment and deletes later segments
+    private void clearFrom(long sequence) throws IOException {
+        int index = segmentIndex(sequence);
+        if (Files.exists(segmentFile(index))) {
+            boolean dirty = false;
+            long segmentEnd = (long) (index + 1) * RECORDS_PER_SEGMENT;
+            for (long s = sequence; s <= segmentEnd; s++) {
+                ByteBuffer record = slot(s);
+                for (int offset = 0; offset < RECORD_SIZE; offset += 8) {
+                    if (record.getLong(offset) != 0) {
+                        for (int zero = 0; zero < RECORD_SIZE; zero += 8) {
+                            record.putLong(zero, 0);
+                        }
+                        dirty = true;
+                        break;
+                    }
+                }
+            }
+            if (dirty) {
+                segments.get(index - firstSegment).force();
+            }
+        }
+        for (int later = index + 1; Files.exists(segmentFile(later)); later++) {
+            Files.delete(segmentFile(later));
+        }
+    }
+
+    private void deleteRetiredSegments() throws IOException {
+        for (int index = firstSegment - 1; index >= 0 && Files.exists(segmentFile(index)); index--) {
+            Files.delete(segmentFile(index));
+        }
+    }
+
+    // Written to a temporary file and moved into place, so a crash leaves either checkpoint whole
+    private void writeCheckpoint(long sequence, Map<String, Long> balances, Set<String> references)
+            throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(CHECKPOINT_VERSION);
+            out.writeLong(sequence);
+            out.writeInt(balances.size());
+            for (Map.Entry<String, Long> balance : balances.entrySet()) {
+                out.writeUTF(balance.getKey());
+                out.writeLong(balance.getValue());
+            }
+            out.writeInt(references.size());
+            for (String reference : references) {
+                out.writeUTF(reference);
+            }
+        }
+        CRC32 checksum = new CRC32();
+        checksum.update(bytes.toByteArray());
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeLong(checksum.getValue());
+        }
+
+        Path temporary = directory.resolve(CHECKPOINT_FILE + ".tmp");
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ByteBuffer buffer = ByteBuffer.wrap(bytes.toByteArray());
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(true);
+        }
+        Files.move(temporary, directory.resolve(CHECKPOINT_FILE), StandardCopyOption.ATOMIC_MOVE,
+            StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private void readCheckpoint() throws IOException {
+        Path file = directory.resolve(CHECKPOINT_FILE);
+        if (!Files.exists(file)) {
+            return;
+        }
+        // The segments it covers are gone, so a damaged checkpoint cannot be recovered from here
+        byte[] bytes = Files.readAllBytes(file);
+        if (bytes.length < 8) {
+            throw new IOException("Ledger checkpoint " + file + " is corrupt");
+        }
+        CRC32 checksum = new CRC32();
+        checksum.update(bytes, 0, bytes.length - 8);
+        if (ByteBuffer.wrap(bytes, bytes.length - 8, 8).getLong() != checksum.getValue()) {
+            throw new IOException("Ledger checkpoint " + file + " is corrupt");
+        }
+        try (DataInputStream in = new DataInputStream(
+                new ByteArrayInputStream(Arrays.copyOf(bytes, bytes.length - 8)))) {
+            if (in.readInt() != CHECKPOINT_VERSION) {
+                throw new IOException("Ledger checkpoint " + file + " has an unknown version");
+            }
+            long sequence = in.readLong();
+            Map<String, Long> balances = new HashMap<>();
+            for (int count = in.readInt(); count > 0; count--) {
+                balances.put(in.readUTF(), in.readLong());
+            }
+            Set<String> references = new HashSet<>();
+            for (int count = in.readInt(); count > 0; count--) {
+                references.add(in.readUTF());
+            }
+            checkpointSequence = sequence;
+            checkpointBalances = balances;
+            checkpointReferences = references;
+        }
+    }
+
+    private void track(Posting posting) {
+        balances.merge(posting.getAccountNumber(), posting.getSignedThebe(), Long::sum);
+        if (posting.getReference() != 0) {
+            references.add(referenceKey(posting.getAccountNumber(), posting.getType(), posting.getReference()));
+        }
+    }
+
+    private void flushLoop() {
+        while (!closing) {
+            try {
+                synchronized (flushMonitor) {
+                    while (writtenSequence == durableSequence && !closing) {
+                        flushMonitor.wait();
+                    }
+                }
+                // Writers that arrive while a force is running are committed together by the next one;
+                // an extra delay trades latency for larger groups
+                if (groupCommitMillis > 0) {
+                    Thread.sleep(groupCommitMillis);
+                }
+                flush();
+            } catch (InterruptedException e) {
+                return;
+            }
+        }
+    }
+
+    private void flush() {
+        long target = writtenSequence;
+        if (target == durableSequence) {
+            return;
+        }
+        List<MappedByteBuffer> dirty;
+        synchronized (this) {
+            int first = segmentIndex(durableSequence + 1) - firstSegment;
+            int last = segmentIndex(target) - firstSegment;
+            dirty = new ArrayList<>(segments.subList(first, last + 1));
+        }
+        for (MappedByteBuffer segment : dirty) {
+            segment.force();
+        }
+        synchronized (flushMonitor) {
+            durableSequence = target;
+            flushMonitor.notifyAll();
+        }
+    }
+
+    private boolean isValid(ByteBuffer record, long sequence) {
+        int length = record.get(LENGTH_OFFSET);
+        int type = record.get(TYPE_OFFSET);
+        return record.getLong(0) == sequence && record.getInt(CHECKSUM_OFFSET) == checksum(record)
+            && length >= 0 && length <= MAX_ACCOUNT_NUMBER_LENGTH && type >= 0 && type < PostingType.values().length;
+    }
+
+    private Posting readValid(long sequence) throws IOException {
+        ByteBuffer record = slot(sequence);
+        if (!isValid(record, sequence)) {
+            throw new IOException("Ledger record " + sequence + " is corrupt");
+        }
+        return read(record, sequence);
+    }
+
+    private static Posting read(ByteBuffer record, long sequence) {
+        byte[] account = new byte[record.get(LENGTH_OFFSET)];
+        for (int i = 0; i < account.length; i++) {
+            account[i] = record.get(ACCOUNT_OFFSET + i);
+        }
+        return new Posting(sequence, record.getLong(8), new String(account, StandardCharsets.US_ASCII),
+            PostingType.values()[record.get(TYPE_OFFSET)], Money.ofThebe(record.getLong(16)),
+            record.getInt(REFERENCE_OFFSET));
+    }
+
+    private ByteBuffer slot(long sequence) throws IOException {
+        int index = segmentIndex(sequence) - firstSegment;
+        if (index < 0) {
+            throw new IllegalStateException("Ledger record " + sequence + " is before the checkpoint");
+        }
+        while (segments.size() <= index) {
+            segments.add(mapSegment(firstSegment + segments.size()));
+        }
+        int offset = (int) ((sequence - 1) % RECORDS_PER_SEGMENT) * RECORD_SIZE;
+        ByteBuffer record = segments.get(index).duplicate();
+        record.position(offset).limit(offset + RECORD_SIZE);
+        return record.slice();
+    }
+
+    private MappedByteBuffer mapSegment(int index) throws IOException {
+        try (RandomAccessFile file = new RandomAccessFile(segmentFile(index).toFile(), "rw")) {
+            if (file.length() < SEGMENT_SIZE) {
+                file.setLength(SEGMENT_SIZE);
+            }
+            return file.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, SEGMENT_SIZE);
+        }
+    }
+
+    private Path segmentFile(int index) {
+        return directory.resolve(String.format("ledger-%08d.seg", index));
+    }
+
+    private static int segmentIndex(long sequence) {
+        return (int) ((sequence - 1) / RECORDS_PER_SEGMENT);
+    }
+
+    private static String referenceKey(String accountNumber, PostingType type, int reference) {
+        return type.ordinal() + ":" + reference + ":" + accountNumber;
+    }
+
+    private int checksum(ByteBuffer record) {
+        ByteBuffer body = record.duplicate();
+        body.position(0).limit(CHECKSUM_OFFSET);
+        crc.reset();
+        crc.update(body);
+        return (int) crc.getValue();
+    }
+
+    /**
+     * A posting to append. Reference is an optional key stored with the posting, e.g. the
+     * period of an interest posting; zero means none.
+     */
+    public static final class Entry {
+        private final String accountNumber;
+        private final Account account;
+        private final PostingType type;
+        private final Money amount;
+        private final int reference;
+
+        public Entry(Account account, PostingType type, Money amount, int reference) {
+            this(account.getAccountNumber(), account, type, amount, reference);
+        }
+
+        private Entry(String accountNumber, Account account, PostingType type, Money amount, int reference) {
+            this.accountNumber = accountNumber;
+            this.account = account;
+            this.type = type;
+            this.amount = amount;
+            this.reference = reference;
+        }
+    }
+}
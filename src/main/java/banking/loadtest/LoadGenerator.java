@@ -0,0 +1,400 @@
+package banking.loadtest;
+
+import banking.database.ConnectionPool;
+import banking.database.DepositBatcher;
+import banking.database.JdbcTransferWriter;
+import banking.database.LedgerRecovery;
+import banking.database.RegistryLoader;
+import banking.database.SchemaMigrations;
+import banking.database.TransactionHistoryQuery;
+import banking.ledger.TransactionLedger;
+import banking.metrics.Histogram;
+import banking.security.CredentialService;
+import banking.security.PasswordHasher;
+import banking.service.BankRegistry;
+import banking.service.TransferEngine;
+import banking.service.numbering.AccountNumberGenerator;
+import banking.service.numbering.SnowflakeAccountNumberGenerator;
+import main.java.banking.model.Account;
+import main.java.banking.model.ChequeAccount;
+import main.java.banking.model.Customer;
+import main.java.banking.model.Money;
+import main.java.banking.model.SavingsAccount;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Headless workload driver that replays branch traffic against the data access layer.
+ *
+ * Requests arrive open-loop: arrival times follow a Poisson process at the target rate and
+ * are fixed in advance, whether or not earlier requests have finished. Latency is measured
+ * from the intended arrival time, so time spent queueing behind a slow request is counted
+ * rather than hidden. The database is seeded with load-test customers (ids starting with
+ * "LT") on first use; later runs reuse them. Postings go to a ledger kept next to the
+ * database file, in a directory named after it with ".ledger" appended.
+ *
+ * The mix is a comma-separated list of operation=weight, using the operations login,
+ * deposit, transfer, history and open, e.g. "login=10,deposit=40,transfer=25,history=20,open=5".
+ *
+ * Usage: java banking.loadtest.LoadGenerator database.db [ops per second] [seconds] [mix]
+ */
+public class LoadGenerator {
+
+    public static final int SEED_CUSTOMERS = 2_000;
+    public static final int WORKER_THREADS = 32;
+    public static final String DEFAULT_MIX = "login=10,deposit=40,transfer=25,history=20,open=5";
+
+    private static final String PASSWORD = "load-test";
+    private static final String BRANCH = "Load Test";
+    private static final int LOGIN_SOURCES = 50;
+
+    private static final String INSERT_CUSTOMER =
+        "INSERT INTO customers (customer_id, customer_type, first_name, last_name, company_name, " +
+        "registration_number, address, employer) VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String INSERT_ACCOUNT =
+        "INSERT INTO accounts (account_number, customer_id, account_type, branch, balance_thebe, balance) " +
+        "VALUES (?1, ?2, ?3, ?4, ?5, ?5 / 100.0)";
+    private static final String INSERT_USER =
+        "INSERT INTO users (user_id, password, role, customer_id) VALUES (?, ?, 'Customer', ?)";
+
+    public enum Operation { LOGIN, DEPOSIT, TRANSFER, HISTORY, OPEN }
+
+    private final ConnectionPool pool;
+    private final TransactionLedger ledger;
+    private final CredentialService credentials;
+    private final DepositBatcher deposits;
+    private final TransferEngine transfers;
+    private final TransactionHistoryQuery history;
+    // The node id reserved for load tests, so seeded accounts never clash with the application's
+    private final AccountNumberGenerator accountNumbers = new SnowflakeAccountNumberGenerator(SnowflakeAccountNumberGenerator.MAX_NODE_ID);
+
+    private final List<String> customerIds = new ArrayList<>();
+    private final List<Account> accounts = new ArrayList<>();
+    private final List<Account> chequeAccounts = new ArrayList<>();
+    private final Map<Operation, Stats> stats = new EnumMap<>(Operation.class);
+
+    public LoadGenerator(ConnectionPool pool, TransactionLedger ledger) {
+        this.pool = pool;
+        this.ledger = ledger;
+        this.credentials = CredentialService.initialize(pool);
+        this.deposits = DepositBatcher.initialize(pool, ledger);
+        this.transfers = new TransferEngine(ledger, new JdbcTransferWriter(pool));
+        this.history = new TransactionHistoryQuery(pool);
+        for (Operation operation : Operation.values()) {
+            stats.put(operation, new Stats());
+        }
+    }
+
+    public static void main(String[] args) {
+        if (args.length < 1) {
+            System.err.println("Usage: java banking.loadtest.LoadGenerator <database file> [ops per second] [seconds] [mix]");
+            System.exit(2);
+        }
+        int status;
+        try {
+            double rate = args.length > 1 ? Double.parseDouble(args[1]) : 200;
+            int seconds = args.length > 2 ? Integer.parseInt(args[2]) : 60;
+            Map<Operation, Integer> mix = parseMix(args.length > 3 ? args[3] : DEFAULT_MIX);
+
+            ConnectionPool pool = ConnectionPool.initialize("jdbc:sqlite:" + args[0]);
+            TransactionLedger ledger = TransactionLedger.initialize(Paths.get(args[0] + ".ledger"));
+            try {
+                LoadGenerator generator = new LoadGenerator(pool, ledger);
+                generator.prepare();
+                generator.run(rate, seconds, mix);
+                generator.printReport(seconds);
+            } finally {
+                DepositBatcher.getInstance().close();
+                ledger.close();
+                CredentialService.getInstance().close();
+                pool.close();
+            }
+            status = 0;
+        } catch (Exception e) {
+            System.err.println("Load test failed: " + e.getMessage());
+            e.printStackTrace();
+            status = 3;
+        }
+        System.exit(status);
+    }
+
+    static Map<Operation, Integer> parseMix(String text) {
+        Map<Operation, Integer> mix = new EnumMap<>(Operation.class);
+        for (String part : text.split(",")) {
+            String[] pair = part.trim().split("=");
+            if (pair.length != 2) {
+                throw new IllegalArgumentException("Expected operation=weight but got \"" + part + "\"");
+            }
+            int weight = Integer.parseInt(pair[1].trim());
+            if (weight < 0) {
+                throw new IllegalArgumentException("Weights cannot be negative");
+            }
+            mix.put(Operation.valueOf(pair[0].trim().toUpperCase()), weight);
+        }
+        if (mix.values().stream().mapToInt(Integer::intValue).sum() == 0) {
+            throw new IllegalArgumentException("The mix needs at least one operation with a positive weight");
+        }
+        return mix;
+    }
+
+    // Creates the tables and load-test customers if needed, then loads them into memory with their ledger balances
+    public void prepare() throws SQLException, IOException {
+        SchemaMigrations.createBaseTables(pool);
+        SchemaMigrations.migrate(pool);
+        if (countSeededCustomers() == 0) {
+            long start = System.nanoTime();
+            seed();
+            System.out.printf("Seeded %,d customers in %.1f s%n", SEED_CUSTOMERS, (System.nanoTime() - start) / 1e9);
+        }
+        loadAccounts();
+        LedgerRecovery.recover(pool, ledger);
+        ledger.restoreBalances(BankRegistry.getInstance().getAccounts());
+        System.out.printf("Loaded %,d customers with %,d accounts%n", customerIds.size(), accounts.size());
+    }
+
+    public void run(double ratePerSecond, int seconds, Map<Operation, Integer> mix) throws InterruptedException {
+        Operation[] weighted = expand(mix);
+        ExecutorService workers = Executors.newFixedThreadPool(WORKER_THREADS, runnable -> {
+            Thread thread = new Thread(runnable, "load-worker");
+            thread.setDaemon(true);
+            return thread;
+        });
+        double meanGapNanos = TimeUnit.SECONDS.toNanos(1) / ratePerSecond;
+        long start = System.nanoTime();
+        long end = start + TimeUnit.SECONDS.toNanos(seconds);
+        double next = start;
+
+        System.out.printf("Running %.0f ops/s for %d s with mix %s%n", ratePerSecond, seconds, mix);
+        while (next < end) {
+            long intended = (long) next;
+            long wait = intended - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            Operation operation = weighted[ThreadLocalRandom.current().nextInt(weighted.length)];
+            workers.execute(() -> execute(operation, intended));
+            // Exponential gaps give Poisson arrivals
+            next += -Math.log(1 - ThreadLocalRandom.current().nextDouble()) * meanGapNanos;
+        }
+        workers.shutdown();
+        if (!workers.awaitTermination(2, TimeUnit.MINUTES)) {
+            System.err.println("Some requests were still running after two minutes");
+            workers.shutdownNow();
+        }
+    }
+
+    public void printReport(int seconds) {
+        System.out.println();
+        System.out.printf("%-9s %9s %8s %8s %9s %9s %9s %9s %9s %9s%n", "operation", "count", "rejected",
+            "failed", "ops/s", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms");
+        for (Map.Entry<Operation, Stats> entry : stats.entrySet()) {
+            Stats s = entry.getValue();
+            Histogram latency = s.latency;
+            if (latency.getCount() == 0) {
+                continue;
+            }
+            System.out.printf("%-9s %,9d %,8d %,8d %9.1f %9.2f %9.2f %9.2f %9.2f %9.2f%n",
+                entry.getKey().name().toLowerCase(), latency.getCount(), s.rejected.sum(), s.failed.sum(),
+                latency.getCount() / (double) seconds, millis(latency.getPercentile(50)),
+                millis(latency.getPercentile(90)), millis(latency.getPercentile(99)),
+                millis(latency.getPercentile(99.9)), millis(latency.getMax()));
+        }
+        System.out.println("Database pool: " + pool.getStatistics());
+        System.out.printf("Deposit batches: %,d, average size %.1f%n", deposits.getBatchesCommitted(),
+            deposits.getAverageBatchSize());
+    }
+
+    private void execute(Operation operation, long intendedStart) {
+        Stats s = stats.get(operation);
+        try {
+            if (!perform(operation)) {
+                s.rejected.increment();
+            }
+        } catch (Exception e) {
+            if (s.failed.sum() == 0) {
+                System.err.println(operation + " failed: " + e);
+            }
+            s.failed.increment();
+        } finally {
+            s.latency.record(System.nanoTime() - intendedStart);
+        }
+    }
+
+    // Returns false when the request was refused by a business rule or limit rather than failing
+    private boolean perform(Operation operation) throws Exception {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        switch (operation) {
+            case LOGIN: {
+                int customer = random.nextInt(customerIds.size());
+                CredentialService.AuthResult result = credentials.authenticate(userIdFor(customer),
+                    PASSWORD.toCharArray(), "branch-" + random.nextInt(LOGIN_SOURCES)).join();
+                if (result.getStatus() == CredentialService.AuthResult.Status.INVALID) {
+                    throw new IllegalStateException("Seeded credentials were rejected");
+                }
+                return result.isSuccess();
+            }
+            case DEPOSIT: {
+                Account account = accounts.get(random.nextInt(accounts.size()));
+                deposits.submit(account, Money.ofThebe(random.nextLong(10_00, 5_000_00)), "Load test deposit").join();
+                return true;
+            }
+            case TRANSFER: {
+                Account from = chequeAccounts.get(random.nextInt(chequeAccounts.size()));
+                Account to = accounts.get(random.nextInt(accounts.size()));
+                if (from == to) {
+                    return false;
+                }
+                try {
+                    transfers.transfer(from, to, Money.ofThebe(random.nextLong(1_00, 500_00)), "Load test transfer");
+                    return true;
+                } catch (IllegalArgumentException e) {
+                    // Insufficient funds
+                    return false;
+                }
+            }
+            case HISTORY: {
+                String customerId = customerIds.get(random.nextInt(customerIds.size()));
+                LocalDate today = LocalDate.now();
+                TransactionHistoryQuery.Filter filter =
+                    new TransactionHistoryQuery.Filter(customerId, null, today.minusDays(30), today, null);
+                history.fetchPage(filter, TransactionHistoryQuery.Cursor.START, TransactionHistoryQuery.DEFAULT_PAGE_SIZE);
+                return true;
+            }
+            case OPEN: {
+                String customerId = customerIds.get(random.nextInt(customerIds.size()));
+                Customer owner = BankRegistry.getInstance().findCustomer(customerId);
+                Account account = new SavingsAccount(accountNumbers.next(BRANCH), owner, BRANCH);
+                pool.inTransaction(connection -> {
+                    PreparedStatement insert = connection.prepare(INSERT_ACCOUNT);
+                    insert.setString(1, account.getAccountNumber());
+                    insert.setString(2, customerId);
+                    insert.setString(3, "Savings");
+                    insert.setString(4, BRANCH);
+                    insert.setLong(5, 0);
+                    return insert.executeUpdate();
+                });
+                BankRegistry.getInstance().registerAccount(account);
+                return true;
+            }
+            default:
+                throw new IllegalArgumentException("Unknown operation " + operation);
+        }
+    }
+
+    private int countSeededCustomers() throws SQLException {
+        try (ConnectionPool.PooledConnection connection = pool.acquireReader()) {
+            PreparedStatement statement = connection.prepare("SELECT COUNT(*) FROM customers WHERE customer_id LIKE 'LT%'");
+            try (ResultSet rs = statement.executeQuery()) {
+                return rs.next() ? rs.getInt(1) : 0;
+            }
+        }
+    }
+
+    // Every other customer is a company; each has a well-funded cheque account and a savings account
+    private void seed() throws SQLException {
+        // One hash for every load-test user keeps seeding fast; logins still pay the full cost
+        String passwordHash = new PasswordHasher().hash(PASSWORD.toCharArray());
+        pool.inTransaction(connection -> {
+            PreparedStatement customer = connection.prepare(INSERT_CUSTOMER);
+            PreparedStatement account = connection.prepare(INSERT_ACCOUNT);
+            PreparedStatement user = connection.prepare(INSERT_USER);
+            for (int i = 0; i < SEED_CUSTOMERS; i++) {
+                String customerId = String.format("LT%06d", i);
+                boolean company = i % 2 == 1;
+                customer.setString(1, customerId);
+                customer.setString(2, company ? "Company" : "Individual");
+                customer.setString(3, company ? null : "Load");
+                customer.setString(4, company ? null : "Tester " + i);
+                customer.setString(5, company ? "Load Test Holdings " + i : null);
+                customer.setString(6, company ? "LT-REG-" + i : null);
+                customer.setString(7, "Plot " + i + ", Gaborone");
+                customer.setString(8, company ? null : "Load Test Employer");
+                customer.addBatch();
+
+                addAccount(account, customerId, "Cheque", Money.ofThebe(100_000_00));
+                addAccount(account, customerId, "Savings", Money.ofThebe(1_000_00));
+
+                user.setString(1, userIdFor(i));
+                user.setString(2, passwordHash);
+                user.setString(3, customerId);
+                user.addBatch();
+            }
+            customer.executeBatch();
+            account.executeBatch();
+            user.executeBatch();
+            return null;
+        });
+    }
+
+    private void addAccount(PreparedStatement insert, String customerId, String type, Money balance)
+            throws SQLException {
+        insert.setString(1, accountNumbers.next(BRANCH));
+        insert.setString(2, customerId);
+        insert.setString(3, type);
+        insert.setString(4, BRANCH);
+        insert.setLong(5, balance.getThebe());
+        insert.addBatch();
+    }
+
+    // Loads every customer into the registry and keeps the load-test branch's accounts for the workload
+    private void loadAccounts() throws SQLException {
+        RegistryLoader.initialize(pool);
+        Set<String> owners = new TreeSet<>();
+        for (Account account : BankRegistry.getInstance().getAccountsByBranch(BRANCH)) {
+            accounts.add(account);
+            if (account instanceof ChequeAccount) {
+                chequeAccounts.add(account);
+            }
+            owners.add(customerIdOf(account));
+        }
+        customerIds.addAll(owners);
+        if (chequeAccounts.isEmpty()) {
+            throw new IllegalStateException("No load-test accounts found");
+        }
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1e6;
+    }
+
+    private static String customerIdOf(Account account) {
+        return BankRegistry.getInstance().getCustomerId(account.getOwner());
+    }
+
+    private static String userIdFor(int customer) {
+        return String.format("lt%06d", customer);
+    }
+
+    private static Operation[] expand(Map<Operation, Integer> mix) {
+        List<Operation> weighted = new ArrayList<>();
+        for (Map.Entry<Operation, Integer> entry : mix.entrySet()) {
+            for (int i = 0; i < entry.getValue(); i++) {
+                weighted.add(entry.getKey());
+            }
+        }
+        return weighted.toArray(new Operation[0]);
+    }
+
+    private static final class Stats {
+        private final Histogram latency = new Histogram();
+        private final LongAdder rejected = new LongAdder();
+        private final LongAdder failed = new LongAdder();
+    }
+}
@@ -0,0 +1,272 @@
+package banking.loadtest;
+
+import banking.database.ConnectionPool;
+import banking.database.QueryPlanAudit;
+import banking.database.SchemaMigrations;
+import banking.database.TransactionHistoryQuery;
+import banking.metrics.Histogram;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the transaction history queries with and without the indexes the schema
+ * migrations add.
+ *
+ * A new database is migrated, its transactions indexes are set aside, and it is seeded with
+ * a synthetic ledger: customers with a cheque and a savings account each, and transactions
+ * spread evenly over the last two years. Each case then runs through
+ * {@link TransactionHistoryQuery}, so the SQL timed is the SQL the dashboard and the history
+ * screen issue, for random customers. The indexes are then rebuilt and the same cases run
+ * again, and the query plan audit is run on the result. The queries need the migrated
+ * columns, so the tables are migrated first and only the indexes are left out.
+ *
+ * Usage: java banking.loadtest.QueryBenchmark new-database.db [transactions] [repetitions]
+ */
+public class QueryBenchmark {
+
+    public static final long DEFAULT_TRANSACTIONS = 10_000_000;
+    public static final int TRANSACTIONS_PER_CUSTOMER = 500;
+    public static final int COMMIT_EVERY = 100_000;
+
+    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    private static final String[] TYPES = {"Deposit", "Deposit", "Withdrawal", "Transfer In", "Transfer Out", "Interest"};
+
+    private static final String INSERT_CUSTOMER =
+        "INSERT INTO customers (customer_id, customer_type, first_name, last_name, address) " +
+        "VALUES (?, 'Individual', 'Query', ?, 'Gaborone')";
+    private static final String INSERT_ACCOUNT =
+        "INSERT INTO accounts (account_number, customer_id, account_type, branch, balance_thebe, balance) " +
+        "VALUES (?, ?, ?, 'Main', 0, 0)";
+    private static final String INSERT_TRANSACTION =
+        "INSERT INTO transactions (transaction_date, account_number, customer_id, transaction_type, description, " +
+        "amount_thebe, amount, balance_after_thebe, balance_after) " +
+        "VALUES (?1, ?2, ?3, ?4, 'Query benchmark', ?5, ?5 / 100.0, NULL, NULL)";
+
+    private final ConnectionPool pool;
+    private final TransactionHistoryQuery history;
+    private final int customers;
+    private final LocalDate today = LocalDate.now();
+
+    public QueryBenchmark(ConnectionPool pool, int customers) {
+        this.pool = pool;
+        this.history = new TransactionHistoryQuery(pool);
+        this.customers = customers;
+    }
+
+    public static void main(String[] args) {
+        if (args.length < 1) {
+            System.err.println("Usage: java banking.loadtest.QueryBenchmark <new database file> [transactions] [repetitions]");
+            System.exit(2);
+        }
+        int status;
+        try {
+            Path file = Paths.get(args[0]);
+            if (Files.exists(file)) {
+                throw new IllegalArgumentException(file + " already exists; the benchmark needs a new database");
+            }
+            long transactions = args.length > 1 ? Long.parseLong(args[1]) : DEFAULT_TRANSACTIONS;
+            int repetitions = args.length > 2 ? Integer.parseInt(args[2]) : 20;
+            int customers = (int) Math.max(1, transactions / TRANSACTIONS_PER_CUSTOMER);
+
+            try (ConnectionPool pool = new ConnectionPool("jdbc:sqlite:" + file, 1)) {
+                QueryBenchmark benchmark = new QueryBenchmark(pool, customers);
+                SchemaMigrations.createBaseTables(pool);
+                SchemaMigrations.migrate(pool);
+                List<String> indexes = benchmark.dropIndexes();
+                long start = System.nanoTime();
+                benchmark.seed(transactions);
+                System.out.printf("Seeded %,d transactions for %,d customers in %.1f s%n", transactions, customers,
+                    (System.nanoTime() - start) / 1e9);
+
+                Map<String, Histogram> before = benchmark.measure(repetitions);
+
+                start = System.nanoTime();
+                benchmark.createIndexes(indexes);
+                System.out.printf("Indexes built in %.1f s; the plan audit finds %d full scans%n",
+                    (System.nanoTime() - start) / 1e9, QueryPlanAudit.findFullScans(pool).size());
+                Map<String, Histogram> after = benchmark.measure(repetitions);
+
+                printReport(repetitions, before, after);
+            }
+            status = 0;
+        } catch (Exception e) {
+            System.err.println("Query benchmark failed: " + e.getMessage());
+            e.printStackTrace();
+            status = 1;
+        }
+        System.exit(status);
+    }
+
+    // Drops the migrations' indexes on transactions and returns the statements that rebuild them
+    public List<String> dropIndexes() throws SQLException {
+        return pool.inTransaction(connection -> {
+            List<String> indexes = new ArrayList<>();
+            List<String> names = new ArrayList<>();
+            try (Statement statement = connection.getConnection().createStatement();
+                 ResultSet rs = statement.executeQuery("SELECT name, sql FROM sqlite_master " +
+                     "WHERE type = 'index' AND tbl_name = 'transactions' AND sql IS NOT NULL")) {
+                while (rs.next()) {
+                    names.add(rs.getString(1));
+                    indexes.add(rs.getString(2));
+                }
+            }
+            try (Statement statement = connection.getConnection().createStatement()) {
+                for (String name : names) {
+                    statement.execute("DROP INDEX " + name);
+                }
+            }
+            return indexes;
+        });
+    }
+
+    public void createIndexes(List<String> indexes) throws SQLException {
+        pool.inTransaction(connection -> {
+            try (Statement statement = connection.getConnection().createStatement()) {
+                for (String sql : indexes) {
+                    statement.execute(sql);
+                }
+                statement.execute("PRAGMA optimize");
+            }
+            return null;
+        });
+    }
+
+    // Oldest first, so transaction ids rise with the date as they do in a live database
+    public void seed(long transactions) throws SQLException {
+        pool.inTransaction(connection -> {
+            PreparedStatement customer = connection.prepare(INSERT_CUSTOMER);
+            PreparedStatement account = connection.prepare(INSERT_ACCOUNT);
+            for (int i = 0; i < customers; i++) {
+                customer.setString(1, customerId(i));
+                customer.setString(2, "Customer " + i);
+                customer.addBatch();
+                for (String type : new String[] {"Cheque", "Savings"}) {
+                    account.setString(1, accountNumber(i, type));
+                    account.setString(2, customerId(i));
+                    account.setString(3, type);
+                    account.addBatch();
+                }
+            }
+            customer.executeBatch();
+            account.executeBatch();
+            return null;
+        });
+
+        SplittableRandom random = new SplittableRandom(42);
+        LocalDateTime first = today.minusYears(2).atStartOfDay();
+        long spanSeconds = TimeUnit.DAYS.toSeconds(730);
+        for (long done = 0; done < transactions; ) {
+            long from = done;
+            long to = Math.min(transactions, done + COMMIT_EVERY);
+            pool.inTransaction(connection -> {
+                PreparedStatement insert = connection.prepare(INSERT_TRANSACTION);
+                for (long i = from; i < to; i++) {
+                    int owner = random.nextInt(customers);
+                    insert.setString(1, first.plusSeconds(i * spanSeconds / transactions).format(DATE_FORMAT));
+                    insert.setString(2, accountNumber(owner, random.nextBoolean() ? "Cheque" : "Savings"));
+                    insert.setString(3, customerId(owner));
+                    insert.setString(4, TYPES[random.nextInt(TYPES.length)]);
+                    insert.setLong(5, 100 + random.nextInt(100_000));
+                    insert.addBatch();
+                }
+                insert.executeBatch();
+                return null;
+            });
+            done = to;
+        }
+    }
+
+    // Each case runs once untimed to warm the statement cache, then the given number of times
+    public Map<String, Histogram> measure(int repetitions) throws SQLException {
+        Map<String, Histogram> results = new LinkedHashMap<>();
+        SplittableRandom random = new SplittableRandom(7);
+        for (int i = 0; i <= repetitions; i++) {
+            int owner = random.nextInt(customers);
+            String customerId = customerId(owner);
+            String account = accountNumber(owner, "Cheque");
+            TransactionHistoryQuery.Filter lastMonth =
+                new TransactionHistoryQuery.Filter(customerId, account, today.minusDays(30), today, null);
+            TransactionHistoryQuery.Filter everyFilter =
+                new TransactionHistoryQuery.Filter(customerId, account, today.minusYears(1), today, "Deposit");
+            boolean timed = i > 0;
+
+            time(results, timed, "recent 10", () -> history.fetchRecent(customerId, 10));
+            time(results, timed, "account, 30 days", () ->
+                history.fetchPage(lastMonth, TransactionHistoryQuery.Cursor.START, 100));
+            time(results, timed, "all filters, page 1", () ->
+                history.fetchPage(everyFilter, TransactionHistoryQuery.Cursor.START, 20));
+            TransactionHistoryQuery.Cursor next =
+                history.fetchPage(everyFilter, TransactionHistoryQuery.Cursor.START, 20).getNext();
+            if (next != null) {
+                time(results, timed, "all filters, page 2", () -> history.fetchPage(everyFilter, next, 20));
+            }
+            time(results, timed, "deposit summary", () -> history.summarize(
+                new TransactionHistoryQuery.Filter(customerId, null, today.minusYears(1), today, "Deposit")));
+        }
+        return results;
+    }
+
+    private static void time(Map<String, Histogram> results, boolean timed, String name, Query query)
+            throws SQLException {
+        long start = System.nanoTime();
+        query.run();
+        long elapsed = System.nanoTime() - start;
+        if (timed) {
+            results.computeIfAbsent(name, k -> new Histogram()).record(elapsed);
+        }
+    }
+
+    private static void printReport(int repetitions, Map<String, Histogram> before, Map<String, Histogram> after) {
+        System.out.println();
+        System.out.printf("%d runs per case, ms%n", repetitions);
+        System.out.printf("%-22s %12s %12s %12s %12s %9s%n", "case", "before p50", "before p99",
+            "after p50", "after p99", "speedup");
+        List<String> cases = new ArrayList<>(before.keySet());
+        for (String name : after.keySet()) {
+            if (!cases.contains(name)) {
+                cases.add(name);
+            }
+        }
+        for (String name : cases) {
+            Histogram was = before.getOrDefault(name, new Histogram());
+            Histogram now = after.getOrDefault(name, new Histogram());
+            double wasMedian = millis(was.getPercentile(50));
+            double nowMedian = millis(now.getPercentile(50));
+            System.out.printf("%-22s %12.3f %12.3f %12.3f %12.3f %8.0fx%n", name, wasMedian,
+                millis(was.getPercentile(99)), nowMedian, millis(now.getPercentile(99)),
+                nowMedian == 0 ? 0 : wasMedian / nowMedian);
+        }
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+
+    private static String customerId(int index) {
+        return String.format("QB%07d", index);
+    }
+
+    private static String accountNumber(int index, String type) {
+        return String.format("QB-%s-%07d", type.substring(0, 3).toUpperCase(), index);
+    }
+
+    @FunctionalInterface
+    private interface Query {
+        void run() throws SQLException;
+    }
+}
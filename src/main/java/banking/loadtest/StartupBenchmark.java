@@ -0,0 +1,203 @@
+package banking.loadtest;
+
+import banking.database.ConnectionPool;
+import banking.database.SchemaMigrations;
+import banking.security.PasswordHasher;
+import banking.startup.StartupPipeline;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Measures cold start of the database layer, one fresh JVM per run.
+ *
+ * Each run starts a child JVM that runs the {@link StartupPipeline} headlessly and reports
+ * how long after JVM start the database was ready, along with the time spent in each stage.
+ * Two cases are measured: a new database, which the pipeline has to seed, and an existing
+ * one, which it only has to check. Anything after the run count is passed to the child JVMs,
+ * so class data sharing can be compared with and without an archive, e.g.
+ *
+ * <pre>
+ * java banking.loadtest.StartupBenchmark 10 -XX:SharedArchiveFile=banking.jsa
+ * </pre>
+ *
+ * Usage: java banking.loadtest.StartupBenchmark [runs] [JVM options for the child runs...]
+ */
+public class StartupBenchmark {
+
+    public static final int SAMPLE_CUSTOMERS = 200;
+
+    private static final String CHILD = "--child";
+    private static final String RESULT_PREFIX = "startup ";
+
+    public static void main(String[] args) {
+        if (args.length == 2 && CHILD.equals(args[0])) {
+            runChild(args[1]);
+            return;
+        }
+        int status;
+        try {
+            int runs = args.length > 0 ? Integer.parseInt(args[0]) : 10;
+            List<String> jvmOptions = args.length > 1 ? Arrays.asList(args).subList(1, args.length) : Collections.emptyList();
+
+            Path directory = Files.createTempDirectory("startup-benchmark");
+            Path existing = directory.resolve("existing.db");
+            // Seeds the shared database so every measured run of that case finds it populated
+            runJvm(jvmOptions, existing);
+
+            Map<String, List<Double>> newDatabase = new LinkedHashMap<>();
+            Map<String, List<Double>> existingDatabase = new LinkedHashMap<>();
+            for (int i = 0; i < runs; i++) {
+                addAll(newDatabase, runJvm(jvmOptions, directory.resolve("new-" + i + ".db")));
+                addAll(existingDatabase, runJvm(jvmOptions, existing));
+            }
+            System.out.printf("Startup over %d runs per case, ms (median / min / max)%s%n", runs,
+                jvmOptions.isEmpty() ? "" : " with " + String.join(" ", jvmOptions));
+            printCase("New database", newDatabase);
+            printCase("Existing database", existingDatabase);
+            deleteDirectory(directory);
+            status = 0;
+        } catch (Exception e) {
+            System.err.println("Startup benchmark failed: " + e.getMessage());
+            e.printStackTrace();
+            status = 1;
+        }
+        System.exit(status);
+    }
+
+    // One measured start; prints the result line the parent reads
+    private static void runChild(String databaseFile) {
+        int status;
+        try {
+            StartupPipeline startup = StartupPipeline.start("jdbc:sqlite:" + databaseFile,
+                Paths.get(databaseFile + ".ledger"), StartupBenchmark::seed);
+            startup.ready().join();
+            long uptime = ManagementFactory.getRuntimeMXBean().getUptime();
+
+            StringBuilder line = new StringBuilder(RESULT_PREFIX).append("ready=").append(uptime);
+            for (Map.Entry<String, Double> stage : startup.getStageTimesMillis().entrySet()) {
+                line.append(' ').append(stage.getKey()).append('=')
+                    .append(String.format(Locale.ROOT, "%.3f", stage.getValue()));
+            }
+            System.out.println(line);
+            status = 0;
+        } catch (Exception e) {
+            System.err.println("Startup failed: " + e.getMessage());
+            e.printStackTrace();
+            status = 1;
+        }
+        // The database services run on threads of their own; nothing needs shutting down cleanly here
+        System.exit(status);
+    }
+
+    private static Map<String, Double> runJvm(List<String> jvmOptions, Path databaseFile) throws IOException, InterruptedException {
+        List<String> command = new ArrayList<>();
+        command.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+        command.addAll(jvmOptions);
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add(StartupBenchmark.class.getName());
+        command.add(CHILD);
+        command.add(databaseFile.toString());
+
+        Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+        Map<String, Double> result = null;
+        List<String> output = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.startsWith(RESULT_PREFIX)) {
+                    result = parse(line.substring(RESULT_PREFIX.length()));
+                } else {
+                    output.add(line);
+                }
+            }
+        }
+        if (process.waitFor() != 0 || result == null) {
+            throw new IllegalStateException("Child run failed:\n" + String.join("\n", output));
+        }
+        return result;
+    }
+
+    private static Map<String, Double> parse(String line) {
+        Map<String, Double> values = new LinkedHashMap<>();
+        for (String field : line.trim().split(" ")) {
+            int equals = field.indexOf('=');
+            values.put(field.substring(0, equals), Double.parseDouble(field.substring(equals + 1)));
+        }
+        return values;
+    }
+
+    private static void addAll(Map<String, List<Double>> samples, Map<String, Double> run) {
+        for (Map.Entry<String, Double> entry : run.entrySet()) {
+            samples.computeIfAbsent(entry.getKey(), k -> new ArrayList<>()).add(entry.getValue());
+        }
+    }
+
+    private static void printCase(String name, Map<String, List<Double>> samples) {
+        System.out.println(name);
+        for (Map.Entry<String, List<Double>> entry : samples.entrySet()) {
+            List<Double> values = new ArrayList<>(entry.getValue());
+            Collections.sort(values);
+            System.out.printf(Locale.ROOT, "  %-18s %9.1f %9.1f %9.1f%n", entry.getKey(),
+                values.get(values.size() / 2), values.get(0), values.get(values.size() - 1));
+        }
+    }
+
+    private static void deleteDirectory(Path directory) throws IOException {
+        try (Stream<Path> paths = Files.walk(directory)) {
+            for (Path path : (Iterable<Path>) paths.sorted(Comparator.reverseOrder())::iterator) {
+                Files.delete(path);
+            }
+        }
+    }
+
+    // Sample customers with a cheque account and a login each, standing in for the application's sample data
+    private static void seed(ConnectionPool pool) throws Exception {
+        SchemaMigrations.createBaseTables(pool);
+        String passwordHash = new PasswordHasher().hash("startup".toCharArray());
+        pool.inTransaction(connection -> {
+            PreparedStatement customer = connection.prepare(
+                "INSERT INTO customers (customer_id, customer_type, first_name, last_name, address) " +
+                "VALUES (?, 'Individual', 'Startup', ?, 'Gaborone')");
+            PreparedStatement account = connection.prepare(
+                "INSERT INTO accounts (account_number, customer_id, account_type, branch, balance) " +
+                "VALUES (?, ?, 'Cheque', 'Main', 1000)");
+            PreparedStatement user = connection.prepare(
+                "INSERT INTO users (user_id, password, role, customer_id) VALUES (?, ?, 'Customer', ?)");
+            for (int i = 0; i < SAMPLE_CUSTOMERS; i++) {
+                String customerId = String.format("SB%06d", i);
+                customer.setString(1, customerId);
+                customer.setString(2, "Customer " + i);
+                customer.addBatch();
+                account.setString(1, String.format("SB-CHQ-%06d", i));
+                account.setString(2, customerId);
+                account.addBatch();
+                user.setString(1, "startup" + i);
+                user.setString(2, passwordHash);
+                user.setString(3, customerId);
+                user.addBatch();
+            }
+            customer.executeBatch();
+            account.executeBatch();
+            user.executeBatch();
+            return null;
+        });
+    }
+}
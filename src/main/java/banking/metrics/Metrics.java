@@ -0,0 +1,193 @@
+package banking.metrics;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Process-wide counters, timers and value distributions for the hot paths.
+ *
+ * Metrics are named by a family (e.g. "dao", "view_load", "job") and an operation within it
+ * (e.g. "TransactionHistoryQuery.fetchPage"). Call sites look a metric up once, keep it in a
+ * static final field and record into it:
+ *
+ * <pre>
+ * private static final Metrics.Timer FETCH = Metrics.timer("dao", "TransactionHistoryQuery.fetchPage");
+ *
+ * long start = FETCH.start();
+ * try { ... } finally { FETCH.stop(start); }
+ * </pre>
+ *
+ * Recording is off by default. In that mode every call is a single volatile read and a
+ * branch: timers do not read the clock and nothing is allocated. {@link Mode#METRICS}
+ * aggregates in memory for {@link PrometheusExporter}; {@link Mode#JFR} also emits an
+ * {@link OperationEvent} per timed operation for Flight Recorder.
+ *
+ * Configured from system properties by {@link #configureFromSystemProperties}:
+ * banking.metrics=off|on|jfr and banking.metrics.port (default 9464).
+ */
+public final class Metrics {
+
+    public static final int DEFAULT_PORT = 9464;
+
+    public enum Mode { OFF, METRICS, JFR }
+
+    private static final Map<String, Metric> METRICS = new ConcurrentSkipListMap<>();
+
+    private static volatile boolean enabled;
+    private static volatile boolean jfr;
+    private static PrometheusExporter exporter;
+
+    private Metrics() { }
+
+    public static Timer timer(String family, String operation) {
+        return (Timer) METRICS.computeIfAbsent(key(family, operation), k -> new Timer(family, operation));
+    }
+
+    public static Counter counter(String family, String operation) {
+        return (Counter) METRICS.computeIfAbsent(key(family, operation), k -> new Counter(family, operation));
+    }
+
+    public static Distribution distribution(String family, String operation) {
+        return (Distribution) METRICS.computeIfAbsent(key(family, operation), k -> new Distribution(family, operation));
+    }
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    public static Mode getMode() {
+        return !enabled ? Mode.OFF : jfr ? Mode.JFR : Mode.METRICS;
+    }
+
+    public static void setMode(Mode mode) {
+        jfr = mode == Mode.JFR;
+        enabled = mode != Mode.OFF;
+    }
+
+    // Sets the mode from banking.metrics and serves /metrics when recording is on
+    public static synchronized void configureFromSystemProperties() throws IOException {
+        String setting = System.getProperty("banking.metrics", "off").trim().toLowerCase();
+        switch (setting) {
+            case "on":
+            case "metrics":
+                setMode(Mode.METRICS);
+                break;
+            case "jfr":
+                setMode(Mode.JFR);
+                break;
+            default:
+                setMode(Mode.OFF);
+                return;
+        }
+        if (exporter == null) {
+            int port = Integer.getInteger("banking.metrics.port", DEFAULT_PORT);
+            exporter = PrometheusExporter.start(port);
+        }
+    }
+
+    public static synchronized void shutdown() {
+        setMode(Mode.OFF);
+        if (exporter != null) {
+            exporter.close();
+            exporter = null;
+        }
+    }
+
+    // Every registered metric, sorted by family and then operation
+    static Iterable<Metric> all() {
+        return METRICS.values();
+    }
+
+    private static String key(String family, String operation) {
+        return family + '\u0000' + operation;
+    }
+
+    abstract static class Metric {
+        final String family;
+        final String operation;
+
+        Metric(String family, String operation) {
+            this.family = family;
+            this.operation = operation;
+        }
+    }
+
+    public static final class Counter extends Metric {
+        final LongAdder count = new LongAdder();
+
+        Counter(String family, String operation) {
+            super(family, operation);
+        }
+
+        public void increment() {
+            if (enabled) {
+                count.increment();
+            }
+        }
+
+        public void add(long amount) {
+            if (enabled) {
+                count.add(amount);
+            }
+        }
+
+        public long get() {
+            return count.sum();
+        }
+    }
+
+    // Durations in nanoseconds
+    public static final class Timer extends Metric {
+        final Histogram nanos = new Histogram();
+
+        Timer(String family, String operation) {
+            super(family, operation);
+        }
+
+        // A start time for stop(), or 0 when recording is off
+        public long start() {
+            return enabled ? System.nanoTime() : 0;
+        }
+
+        public void stop(long start) {
+            if (start != 0) {
+                record(System.nanoTime() - start);
+            }
+        }
+
+        public void record(long elapsedNanos) {
+            if (!enabled) {
+                return;
+            }
+            nanos.record(elapsedNanos);
+            if (jfr) {
+                OperationEvent.emit(family, operation, elapsedNanos);
+            }
+        }
+
+        public Histogram getHistogram() {
+            return nanos;
+        }
+    }
+
+    // Sizes and other non-time values
+    public static final class Distribution extends Metric {
+        final Histogram values = new Histogram();
+
+        Distribution(String family, String operation) {
+            super(family, operation);
+        }
+
+        public void record(long value) {
+            if (enabled) {
+                values.record(value);
+            }
+        }
+
+        public Histogram getHistogram() {
+            return values;
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package banking.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * Flight Recorder event for one timed operation, emitted by {@link Metrics.Timer} in
+ * {@link Metrics.Mode#JFR}. Custom events are enabled by default, so any recording (e.g.
+ * -XX:StartFlightRecording) captures them.
+ */
+@Name("banking.Operation")
+@Label("Banking Operation")
+@Category("Banking")
+@Description("A timed DAO call, view load or batch job")
+@StackTrace(false)
+class OperationEvent extends Event {
+
+    @Label("Family")
+    String family;
+
+    @Label("Operation")
+    String operation;
+
+    @Label("Elapsed")
+    @Timespan(Timespan.NANOSECONDS)
+    long elapsed;
+
+    static void emit(String family, String operation, long elapsedNanos) {
+        OperationEvent event = new OperationEvent();
+        if (event.shouldCommit()) {
+            event.family = family;
+            event.operation = operation;
+            event.elapsed = elapsedNanos;
+            event.commit();
+        }
+    }
+}
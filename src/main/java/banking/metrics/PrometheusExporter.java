@@ -0,0 +1,127 @@
+package banking.metrics;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Serves every registered metric at /metrics in the Prometheus text format, on the loopback
+ * interface only.
+ *
+ * Timers are exported as summaries in seconds (banking_&lt;family&gt;_seconds), distributions
+ * as summaries of their raw values and counters as banking_&lt;family&gt;_total, each labelled
+ * with the operation. Quantiles are computed from the histograms when scraped, so
+ * recording stays cheap.
+ */
+public class PrometheusExporter implements AutoCloseable {
+
+    private static final double[] QUANTILES = {0.5, 0.9, 0.99, 0.999};
+    private static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+
+    private PrometheusExporter(HttpServer server, ExecutorService executor) {
+        this.server = server;
+        this.executor = executor;
+    }
+
+    public static PrometheusExporter start(int port) throws IOException {
+        HttpServer server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "metrics-http");
+            thread.setDaemon(true);
+            return thread;
+        });
+        server.setExecutor(executor);
+        server.createContext("/metrics", PrometheusExporter::handle);
+        server.start();
+        return new PrometheusExporter(server, executor);
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    // The current values of all metrics in the text exposition format
+    public static String scrape() {
+        StringBuilder out = new StringBuilder(4096);
+        String lastFamily = null;
+        for (Metrics.Metric metric : Metrics.all()) {
+            String name = nameOf(metric);
+            if (!name.equals(lastFamily)) {
+                out.append("# TYPE ").append(name).append(metric instanceof Metrics.Counter ? " counter\n" : " summary\n");
+                lastFamily = name;
+            }
+            String label = "operation=\"" + escape(metric.operation) + "\"";
+            if (metric instanceof Metrics.Counter) {
+                sample(out, name, label, ((Metrics.Counter) metric).get());
+            } else if (metric instanceof Metrics.Timer) {
+                summary(out, name, label, ((Metrics.Timer) metric).getHistogram(), 1e-9);
+            } else {
+                summary(out, name, label, ((Metrics.Distribution) metric).getHistogram(), 1);
+            }
+        }
+        return out.toString();
+    }
+
+    private static void handle(HttpExchange exchange) throws IOException {
+        try {
+            if (!"GET".equals(exchange.getRequestMethod())) {
+                exchange.sendResponseHeaders(405, -1);
+                return;
+            }
+            byte[] body = scrape().getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", CONTENT_TYPE);
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream response = exchange.getResponseBody()) {
+                response.write(body);
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private static void summary(StringBuilder out, String name, String label, Histogram histogram, double scale) {
+        for (double quantile : QUANTILES) {
+            sample(out, name, label + ",quantile=\"" + quantile + "\"", histogram.getPercentile(quantile * 100) * scale);
+        }
+        sample(out, name + "_sum", label, histogram.getSum() * scale);
+        sample(out, name + "_count", label, histogram.getCount());
+    }
+
+    private static void sample(StringBuilder out, String name, String labels, double value) {
+        out.append(name).append('{').append(labels).append("} ")
+            .append(String.format(Locale.ROOT, "%.9g", value)).append('\n');
+    }
+
+    private static void sample(StringBuilder out, String name, String labels, long value) {
+        out.append(name).append('{').append(labels).append("} ").append(value).append('\n');
+    }
+
+    private static String nameOf(Metrics.Metric metric) {
+        String base = "banking_" + metric.family.replaceAll("[^a-zA-Z0-9_]", "_");
+        if (metric instanceof Metrics.Counter) {
+            return base + "_total";
+        }
+        return metric instanceof Metrics.Timer ? base + "_seconds" : base;
+    }
+
+    private static String escape(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+}
@@ -2,15 +2,20 @@ package main.java.banking.model;
 
 public abstract class Account {
     protected String accountNumber;
-    protected double balance;
+    protected Money balance;
     protected String branch;
     protected Customer owner;
     
     public Account(String accountNumber, Customer owner, String branch) {
+        this(accountNumber, owner, branch, Money.ZERO);
+    }
+    
+    // Subclasses check their opening rules before calling this, so a rejected account never reaches its owner
+    protected Account(String accountNumber, Customer owner, String branch, Money balance) {
         this.accountNumber = accountNumber;
         this.owner = owner;
         this.branch = branch;
-        this.balance = 0.0;
+        this.balance = balance;
         
         // Automatically add this account to customer's accounts
         if (owner != null) {
@@ -20,26 +25,39 @@ public abstract class Account {
     
     // Getters
     public String getAccountNumber() { return accountNumber; }
-    public double getBalance() { return balance; }
+    public synchronized Money getBalance() { return balance; }
     public String getBranch() { return branch; }
     public Customer getOwner() { return owner; }
     
     // Business logic methods
+    // Balance changes lock on the account itself, so accounts never contend with each other
+    public void deposit(Money amount) {
+        deposit(amount, null);
+    }
+    
     public void deposit(double amount) {
-        if (amount > 0) {
-            balance += amount;
-            System.out.println("Deposited: BWP " + amount + " into account " + accountNumber);
-        }
+        deposit(Money.of(amount));
     }
     
     // Overloaded method with description
+    public synchronized void deposit(Money amount, String description) {
+        if (amount.isPositive()) {
+            balance = balance.plus(amount);
+            AccountEvents.publish(AccountEvent.Type.DEPOSIT, this, amount, description);
+        }
+    }
+    
     public void deposit(double amount, String description) {
-        deposit(amount);
-        System.out.println("Description: " + description);
+        deposit(Money.of(amount), description);
+    }
+    
+    // Used when rebuilding state from a persistent store, not for ordinary postings
+    public synchronized void restoreBalance(Money balance) {
+        this.balance = balance;
     }
     
     public String getAccountInfo() {
-        return "Account: " + accountNumber + ", Balance: BWP " + balance + 
+        return "Account: " + accountNumber + ", Balance: " + getBalance() + 
                ", Branch: " + branch + ", Type: " + this.getClass().getSimpleName();
     }
 }
\ No newline at end of file
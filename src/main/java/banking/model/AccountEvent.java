@@ -0,0 +1,45 @@
+package main.java.banking.model;
+
+/**
+ * Record of a balance change, published to the {@link AccountEventSink} by the account classes.
+ */
+public final class AccountEvent {
+
+    public enum Type { DEPOSIT, WITHDRAWAL, INTEREST }
+
+    private final Type type;
+    private final String accountNumber;
+    private final String branch;
+    private final String accountType;
+    private final Money amount;
+    private final Money balanceAfter;
+    private final String description;
+    private final long timestamp;
+
+    public AccountEvent(Type type, String accountNumber, String branch, String accountType,
+                        Money amount, Money balanceAfter, String description) {
+        this.type = type;
+        this.accountNumber = accountNumber;
+        this.branch = branch;
+        this.accountType = accountType;
+        this.amount = amount;
+        this.balanceAfter = balanceAfter;
+        this.description = description;
+        this.timestamp = System.currentTimeMillis();
+    }
+
+    // Getters
+    public Type getType() { return type; }
+    public String getAccountNumber() { return accountNumber; }
+    public String getBranch() { return branch; }
+    public String getAccountType() { return accountType; }
+    public Money getAmount() { return amount; }
+    public Money getBalanceAfter() { return balanceAfter; }
+    public String getDescription() { return description; }
+    public long getTimestamp() { return timestamp; }
+
+    // Signed effect on the balance: withdrawals are negative
+    public Money getBalanceChange() {
+        return type == Type.WITHDRAWAL ? amount.negate() : amount;
+    }
+}
@@ -0,0 +1,20 @@
+package main.java.banking.model;
+
+/**
+ * Destination for account events; installed process-wide through {@link AccountEvents}.
+ */
+public interface AccountEventSink {
+
+    AccountEventSink NO_OP = new AccountEventSink() {
+        @Override
+        public boolean isEnabled() { return false; }
+
+        @Override
+        public void publish(AccountEvent event) { }
+    };
+
+    boolean isEnabled();
+
+    // Must not block; called while the account's lock is held
+    void publish(AccountEvent event);
+}
@@ -0,0 +1,67 @@
+package main.java.banking.model;
+
+/**
+ * Holds the process-wide {@link AccountEventSink}. It defaults to {@link AccountEventSink#NO_OP};
+ * events are only built when the installed sink is enabled, so a disabled sink adds no
+ * allocation to deposits, withdrawals or interest postings. A {@link BalanceObserver} is
+ * called with the signed change directly and never causes an event to be built.
+ */
+public final class AccountEvents {
+
+    private static volatile AccountEventSink sink = AccountEventSink.NO_OP;
+    private static volatile BalanceObserver observer;
+
+    private AccountEvents() { }
+
+    public static AccountEventSink getSink() {
+        return sink;
+    }
+
+    public static void install(AccountEventSink newSink) {
+        sink = newSink == null ? AccountEventSink.NO_OP : newSink;
+    }
+
+    // Replaces the observer; null removes it
+    public static void observeBalances(BalanceObserver newObserver) {
+        observer = newObserver;
+    }
+
+    // Adds a sink alongside the ones already installed
+    public static synchronized void addSink(AccountEventSink extra) {
+        AccountEventSink current = sink;
+        if (!current.isEnabled()) {
+            install(extra);
+        } else {
+            install(new AccountEventSink() {
+                @Override
+                public boolean isEnabled() {
+                    return current.isEnabled() || extra.isEnabled();
+                }
+
+                @Override
+                public void publish(AccountEvent event) {
+                    if (current.isEnabled()) {
+                        current.publish(event);
+                    }
+                    if (extra.isEnabled()) {
+                        extra.publish(event);
+                    }
+                }
+            });
+        }
+    }
+
+    // Called by the account classes with the account's lock held
+    static void publish(AccountEvent.Type type, Account account, Money amount, String description) {
+        BalanceObserver watching = observer;
+        if (watching != null) {
+            watching.balanceChanged(account,
+                type == AccountEvent.Type.WITHDRAWAL ? -amount.getThebe() : amount.getThebe());
+        }
+        AccountEventSink current = sink;
+        if (current.isEnabled()) {
+            current.publish(new AccountEvent(type, account.accountNumber, account.branch,
+                account.getClass().getSimpleName(), amount, account.balance, description));
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package main.java.banking.model;
+
+/**
+ * Told about every balance change as it happens, without an {@link AccountEvent} being built,
+ * for running totals that stay on while event publishing is off. Installed through
+ * {@link AccountEvents#observeBalances}.
+ */
+public interface BalanceObserver {
+
+    // Must not block or allocate; called while the account's lock is held
+    void balanceChanged(Account account, long changeThebe);
+}
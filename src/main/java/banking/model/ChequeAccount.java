@@ -3,24 +3,36 @@ package main.java.banking.model;
 public class ChequeAccount extends Account implements Withdrawable {
     
     public ChequeAccount(String accountNumber, Customer owner, String branch) {
-        super(accountNumber, owner, branch);
-        
-        // Validate that individual customers are employed
+        super(accountNumber, requireEmployed(owner), branch, Money.ZERO);
+    }
+    
+    private ChequeAccount(String accountNumber, Customer owner, String branch, Money balance) {
+        super(accountNumber, owner, branch, balance);
+    }
+    
+    // Rebuilds a stored account; the owner may have left employment since it was opened
+    public static ChequeAccount restore(String accountNumber, Customer owner, String branch, Money balance) {
+        return new ChequeAccount(accountNumber, owner, branch, balance);
+    }
+    
+    // Validate that individual customers are employed
+    private static Customer requireEmployed(Customer owner) {
         if (owner instanceof IndividualCustomer) {
             IndividualCustomer indCustomer = (IndividualCustomer) owner;
             if (!indCustomer.isEmployed()) {
                 throw new IllegalArgumentException("Individual customers must be employed to open a Cheque account");
             }
         }
+        return owner;
     }
     
     @Override
-    public void withdraw(double amount) {
-        if (amount > 0) {
-            balance -= amount;
-            System.out.println("Withdrawn: BWP " + amount + " from Cheque account " + accountNumber);
+    public synchronized void withdraw(Money amount) {
+        if (amount.isPositive() && !amount.isGreaterThan(balance)) {
+            balance = balance.minus(amount);
+            AccountEvents.publish(AccountEvent.Type.WITHDRAWAL, this, amount, null);
         } else {
-            throw new IllegalArgumentException("Invalid withdrawal amount");
+            throw new IllegalArgumentException("Invalid withdrawal amount or insufficient funds");
         }
     }
 }
\ No newline at end of file
@@ -1,15 +1,19 @@
 package main.java.banking.model;
 
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 public abstract class Customer {
     protected String address;
     protected List<Account> accounts;
+    private final Set<Account> accountSet; // constant-time membership check for openAccount
     
     public Customer(String address) {
         this.address = address;
         this.accounts = new ArrayList<>();
+        this.accountSet = new HashSet<>();
     }
     
     // Getters and setters
@@ -19,8 +23,8 @@ public abstract class Customer {
     public List<Account> getAccounts() { return accounts; }
     
     // Business logic methods
-    public void openAccount(Account account) {
-        if (account != null && !accounts.contains(account)) {
+    public synchronized void openAccount(Account account) {
+        if (account != null && accountSet.add(account)) {
             accounts.add(account);
         }
     }
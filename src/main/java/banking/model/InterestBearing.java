@@ -1,6 +1,6 @@
 package main.java.banking.model;
 
 public interface InterestBearing {
-    double calculateMonthlyInterest();
+    Money calculateMonthlyInterest();
     void applyMonthlyInterest();
 }
\ No newline at end of file
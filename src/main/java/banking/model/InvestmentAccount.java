@@ -1,37 +1,54 @@
 package main.java.banking.model;
 
+import java.math.RoundingMode;
+
 public class InvestmentAccount extends Account implements InterestBearing, Withdrawable {
     public static final double MONTHLY_RATE = 0.05; // 5% as per requirements
-    private static final double MIN_OPENING_BALANCE = 500.0;
+    public static final Money MIN_OPENING_BALANCE = Money.ofThebe(500_00);
+
+    // Exact form of MONTHLY_RATE, in parts per thousand
+    private static final long MONTHLY_RATE_PER_MILLE = 50;
     
-    public InvestmentAccount(String accountNumber, Customer owner, String branch, double initialDeposit) {
-        super(accountNumber, owner, branch);
-        
-        // Enforce minimum opening balance
-        if (initialDeposit >= MIN_OPENING_BALANCE) {
-            this.balance = initialDeposit;
-        } else {
-            throw new IllegalArgumentException("Investment account requires minimum opening balance of BWP " + MIN_OPENING_BALANCE);
+    public InvestmentAccount(String accountNumber, Customer owner, String branch, Money initialDeposit) {
+        super(accountNumber, owner, branch, requireOpeningBalance(initialDeposit));
+    }
+
+    // Rebuilds a stored account; its balance may have fallen below the opening minimum since
+    public static InvestmentAccount restore(String accountNumber, Customer owner, String branch, Money balance) {
+        InvestmentAccount account = new InvestmentAccount(accountNumber, owner, branch, MIN_OPENING_BALANCE);
+        account.restoreBalance(balance);
+        return account;
+    }
+
+    // Enforce minimum opening balance
+    private static Money requireOpeningBalance(Money initialDeposit) {
+        if (initialDeposit.isLessThan(MIN_OPENING_BALANCE)) {
+            throw new IllegalArgumentException("Investment account requires minimum opening balance of " + MIN_OPENING_BALANCE);
         }
+        return initialDeposit;
+    }
+
+    public InvestmentAccount(String accountNumber, Customer owner, String branch, double initialDeposit) {
+        this(accountNumber, owner, branch, Money.of(initialDeposit));
     }
     
     @Override
-    public double calculateMonthlyInterest() {
-        return balance * MONTHLY_RATE;
+    public synchronized Money calculateMonthlyInterest() {
+        return balance.multiply(MONTHLY_RATE_PER_MILLE, 1000, RoundingMode.HALF_EVEN);
     }
     
     @Override
-    public void applyMonthlyInterest() {
-        double interest = calculateMonthlyInterest();
-        balance += interest;
-        System.out.println("Applied monthly interest: BWP " + interest + " to account " + accountNumber);
+    public synchronized void applyMonthlyInterest() {
+        Money interest = calculateMonthlyInterest();
+        balance = balance.plus(interest);
+        AccountEvents.publish(AccountEvent.Type.INTEREST, this, interest, null);
     }
     
     @Override
-    public void withdraw(double amount) {
-        if (amount > 0 && amount <= balance) {
-            balance -= amount;
-            System.out.println("Withdrawn: BWP " + amount + " from Investment account " + accountNumber);
+    public synchronized void withdraw(Money amount) {
+        if (amount.isPositive() && !amount.isGreaterThan(balance)) {
+            balance = balance.minus(amount);
+            AccountEvents.publish(AccountEvent.Type.WITHDRAWAL, this, amount, null);
         } else {
             throw new IllegalArgumentException("Invalid withdrawal amount or insufficient funds");
         }
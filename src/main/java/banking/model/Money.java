@@ -0,0 +1,162 @@
+package main.java.banking.model;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Immutable amount of Botswana Pula held as a whole number of thebe (1 BWP = 100 thebe).
+ * All arithmetic is exact long arithmetic; rounding only happens where a rate is applied,
+ * and the caller always chooses the rounding mode.
+ */
+public final class Money implements Comparable<Money> {
+    public static final Money ZERO = new Money(0);
+    public static final int THEBE_PER_PULA = 100;
+
+    // Whole-pula digits that always fit in a long of thebe (Long.MAX_VALUE is about 9.2e16 pula)
+    private static final int MAX_PULA_DIGITS = 17;
+
+    private final long thebe;
+
+    private Money(long thebe) {
+        this.thebe = thebe;
+    }
+
+    public static Money ofThebe(long thebe) {
+        return thebe == 0 ? ZERO : new Money(thebe);
+    }
+
+    // Converts a pula amount, rounding half-even to the nearest thebe
+    public static Money of(double pula) {
+        if (Double.isNaN(pula) || Double.isInfinite(pula)) {
+            throw new IllegalArgumentException("Invalid amount: " + pula);
+        }
+        return ofThebe(BigDecimal.valueOf(pula).setScale(2, RoundingMode.HALF_EVEN).unscaledValue().longValueExact());
+    }
+
+    /**
+     * Parses user input such as "150" or "150.25". More than two significant decimal places is
+     * rejected rather than rounded, and so is an amount too large to hold; the size is checked
+     * before scaling, so input like "1e999999999" fails fast.
+     */
+    public static Money parse(String text) {
+        if (text == null) {
+            throw new NumberFormatException("Amount is required");
+        }
+        BigDecimal value;
+        try {
+            value = new BigDecimal(text.trim());
+        } catch (NumberFormatException e) {
+            throw new NumberFormatException("Invalid amount: " + text);
+        }
+        if (value.signum() == 0) {
+            return ZERO;
+        }
+        if (value.stripTrailingZeros().scale() > 2) {
+            throw new NumberFormatException("Amount must have at most two decimal places: " + text);
+        }
+        try {
+            if (value.precision() - value.scale() > MAX_PULA_DIGITS) {
+                throw new ArithmeticException();
+            }
+            return ofThebe(value.setScale(2, RoundingMode.UNNECESSARY).unscaledValue().longValueExact());
+        } catch (ArithmeticException e) {
+            throw new NumberFormatException("Amount is too large: " + text);
+        }
+    }
+
+    // Getters
+    public long getThebe() { return thebe; }
+    public double toDouble() { return thebe / (double) THEBE_PER_PULA; }
+
+    public boolean isZero() { return thebe == 0; }
+    public boolean isPositive() { return thebe > 0; }
+    public boolean isNegative() { return thebe < 0; }
+
+    // Arithmetic
+    public Money plus(Money other) {
+        return ofThebe(Math.addExact(thebe, other.thebe));
+    }
+
+    public Money minus(Money other) {
+        return ofThebe(Math.subtractExact(thebe, other.thebe));
+    }
+
+    public Money negate() {
+        return ofThebe(Math.negateExact(thebe));
+    }
+
+    /**
+     * Multiplies by the rate numerator/denominator (e.g. 25/1000 for 2.5%) and rounds the
+     * result to a whole thebe using the given mode.
+     */
+    public Money multiply(long numerator, long denominator, RoundingMode mode) {
+        if (denominator <= 0) {
+            throw new IllegalArgumentException("Denominator must be positive");
+        }
+        return ofThebe(divide(Math.multiplyExact(thebe, numerator), denominator, mode));
+    }
+
+    public boolean isLessThan(Money other) { return thebe < other.thebe; }
+    public boolean isGreaterThan(Money other) { return thebe > other.thebe; }
+
+    @Override
+    public int compareTo(Money other) {
+        return Long.compare(thebe, other.thebe);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        return obj instanceof Money && ((Money) obj).thebe == thebe;
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(thebe);
+    }
+
+    // Formats as "BWP 1,234.56", matching the format used across the UI
+    @Override
+    public String toString() {
+        return String.format("BWP %,.2f", BigDecimal.valueOf(thebe, 2));
+    }
+
+    private static long divide(long value, long divisor, RoundingMode mode) {
+        long quotient = value / divisor;
+        long remainder = value % divisor;
+        if (remainder == 0) {
+            return quotient;
+        }
+
+        int sign = value < 0 ? -1 : 1;
+        // Compared against the distance to the next multiple rather than doubled, which could overflow
+        long below = Math.abs(remainder);
+        long above = divisor - below;
+        boolean roundAway;
+        switch (mode) {
+            case UP:
+                roundAway = true;
+                break;
+            case DOWN:
+                roundAway = false;
+                break;
+            case CEILING:
+                roundAway = sign > 0;
+                break;
+            case FLOOR:
+                roundAway = sign < 0;
+                break;
+            case HALF_UP:
+                roundAway = below >= above;
+                break;
+            case HALF_DOWN:
+                roundAway = below > above;
+                break;
+            case HALF_EVEN:
+                roundAway = below > above || (below == above && (quotient & 1) != 0);
+                break;
+            default:
+                throw new ArithmeticException("Rounding necessary");
+        }
+        return roundAway ? quotient + sign : quotient;
+    }
+}
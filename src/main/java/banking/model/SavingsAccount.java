@@ -1,8 +1,14 @@
 package main.java.banking.model;
 
+import java.math.RoundingMode;
+
 public class SavingsAccount extends Account implements InterestBearing {
     public static final double INDIVIDUAL_RATE = 0.025; // 2.5% as per requirements
     public static final double COMPANY_RATE = 0.075;    // 7.5% as per requirements
+
+    // Exact forms of the rates above, in parts per thousand
+    private static final long INDIVIDUAL_RATE_PER_MILLE = 25;
+    private static final long COMPANY_RATE_PER_MILLE = 75;
     
     public SavingsAccount(String accountNumber, Customer owner, String branch) {
         super(accountNumber, owner, branch);
@@ -10,16 +16,16 @@ public class SavingsAccount extends Account implements InterestBearing {
     
     
     @Override
-    public double calculateMonthlyInterest() {
-        double rate = (owner instanceof IndividualCustomer) ? INDIVIDUAL_RATE : COMPANY_RATE;
-        return balance * rate;
+    public synchronized Money calculateMonthlyInterest() {
+        long rate = (owner instanceof IndividualCustomer) ? INDIVIDUAL_RATE_PER_MILLE : COMPANY_RATE_PER_MILLE;
+        return balance.multiply(rate, 1000, RoundingMode.HALF_EVEN);
     }
     
     @Override
-    public void applyMonthlyInterest() {
-        double interest = calculateMonthlyInterest();
-        balance += interest;
-        System.out.println("Applied monthly interest: BWP " + interest + " to account " + accountNumber);
+    public synchronized void applyMonthlyInterest() {
+        Money interest = calculateMonthlyInterest();
+        balance = balance.plus(interest);
+        AccountEvents.publish(AccountEvent.Type.INTEREST, this, interest, null);
     }
     
 
@@ -1,5 +1,9 @@
 package main.java.banking.model;
 
 public interface Withdrawable {
-    void withdraw(double amount);
-}
\ No newline at end of file
+    void withdraw(Money amount);
+
+    default void withdraw(double amount) {
+        withdraw(Money.of(amount));
+    }
+}
@@ -0,0 +1,315 @@
+package banking.reports;
+
+import banking.database.ConnectionPool;
+import banking.metrics.Metrics;
+import main.java.banking.model.Money;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Generates the clerk reports as CSV files.
+ *
+ * Every report is a single SQL query whose aggregation happens in the database. The rows are
+ * streamed from the result set straight into the output file, so memory use stays the same
+ * however long the period is. The only aggregation on the client is the grand total of the
+ * financial summary, which is folded in the same pass. Output goes to a ".part" file that
+ * is renamed when it is complete, so a cancelled or failed run never leaves a report that
+ * looks finished. Interrupting the calling thread cancels the run.
+ */
+public class ReportEngine {
+
+    private static final int FETCH_SIZE = 1_000;
+    private static final DateTimeFormatter FILE_STAMP = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+
+    private static final Metrics.Timer GENERATE_TIMER =
+        Metrics.timer("job", "ReportEngine.generate");
+    private static final Metrics.Counter ROWS =
+        Metrics.counter("job_rows", "ReportEngine.generate");
+
+    private static final String CUSTOMER_SUMMARY =
+        "SELECT c.customer_id, c.customer_type, " +
+        "COALESCE(c.company_name, c.first_name || ' ' || c.last_name) AS name, " +
+        "(SELECT COUNT(*) FROM accounts a WHERE a.customer_id = c.customer_id) AS account_count, " +
+        "(SELECT COALESCE(SUM(a.balance_thebe), 0) FROM accounts a " +
+        "WHERE a.customer_id = c.customer_id) AS total_balance, " +
+        "(SELECT COUNT(*) FROM transactions t WHERE t.customer_id = c.customer_id " +
+        "AND t.transaction_date >= ? AND t.transaction_date < ?) AS transaction_count " +
+        "FROM customers c ORDER BY c.customer_id";
+
+    private static final String ACCOUNT_ACTIVITY =
+        "SELECT a.account_number, a.customer_id, a.account_type, a.branch, a.balance_thebe, " +
+        "COUNT(t.transaction_id) AS transaction_count, " +
+        "COALESCE(SUM(CASE WHEN t.transaction_type IN ('Deposit', 'Interest', 'Transfer In') " +
+        "THEN t.amount_thebe END), 0) AS credits, " +
+        "COALESCE(SUM(CASE WHEN t.transaction_type IN ('Withdrawal', 'Transfer Out') " +
+        "THEN t.amount_thebe END), 0) AS debits " +
+        "FROM accounts a LEFT JOIN transactions t ON t.account_number = a.account_number " +
+        "AND t.transaction_date >= ? AND t.transaction_date < ? " +
+        "GROUP BY a.account_number ORDER BY a.account_number";
+
+    private static final String TRANSACTION_HISTORY =
+        "SELECT transaction_id, transaction_date, account_number, customer_id, transaction_type, " +
+        "description, amount_thebe, balance_after_thebe FROM transactions " +
+        "WHERE transaction_date >= ? AND transaction_date < ? ORDER BY transaction_date, transaction_id";
+
+    private static final String FINANCIAL_SUMMARY =
+        "SELECT substr(transaction_date, 1, 10) AS day, transaction_type, COUNT(*) AS transaction_count, " +
+        "COALESCE(SUM(amount_thebe), 0) AS total FROM transactions " +
+        "WHERE transaction_date >= ? AND transaction_date < ? GROUP BY day, transaction_type " +
+        "ORDER BY day, transaction_type";
+
+    public enum ReportType {
+        CUSTOMER_SUMMARY("Customer Summary"),
+        ACCOUNT_ACTIVITY("Account Activity"),
+        TRANSACTION_HISTORY("Transaction History"),
+        FINANCIAL_SUMMARY("Financial Summary");
+
+        private final String displayName;
+
+        ReportType(String displayName) {
+            this.displayName = displayName;
+        }
+
+        public String getDisplayName() { return displayName; }
+
+        public static ReportType fromDisplayName(String name) {
+            for (ReportType type : values()) {
+                if (type.displayName.equals(name)) {
+                    return type;
+                }
+            }
+            throw new IllegalArgumentException("Unknown report type: " + name);
+        }
+    }
+
+    private final ConnectionPool pool;
+    private final Path outputDirectory;
+
+    public ReportEngine(ConnectionPool pool, Path outputDirectory) {
+        this.pool = pool;
+        this.outputDirectory = outputDirectory;
+    }
+
+    // Null dates leave that end of the period open; both ends are inclusive
+    public Result generate(ReportType type, LocalDate from, LocalDate to) throws SQLException, IOException {
+        long start = System.nanoTime();
+        Files.createDirectories(outputDirectory);
+        String name = type.name().toLowerCase().replace('_', '-') + "-" + LocalDateTime.now().format(FILE_STAMP);
+        Path target = outputDirectory.resolve(name + ".csv");
+        Path partial = outputDirectory.resolve(name + ".csv.part");
+
+        long rows;
+        try (BufferedWriter out = Files.newBufferedWriter(partial, StandardCharsets.UTF_8)) {
+            rows = write(type, lowerBound(from), upperBound(to), out);
+        } catch (SQLException | IOException | RuntimeException e) {
+            Files.deleteIfExists(partial);
+            throw e;
+        }
+        Files.move(partial, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        long elapsedNanos = System.nanoTime() - start;
+        GENERATE_TIMER.record(elapsedNanos);
+        ROWS.add(rows);
+        return new Result(type, target, rows, elapsedNanos);
+    }
+
+    // The query behind a report; QueryPlanAudit checks these at startup
+    public static String sqlFor(ReportType type) {
+        switch (type) {
+            case CUSTOMER_SUMMARY: return CUSTOMER_SUMMARY;
+            case ACCOUNT_ACTIVITY: return ACCOUNT_ACTIVITY;
+            case TRANSACTION_HISTORY: return TRANSACTION_HISTORY;
+            case FINANCIAL_SUMMARY: return FINANCIAL_SUMMARY;
+            default: throw new IllegalArgumentException("Unsupported report type: " + type);
+        }
+    }
+
+    private long write(ReportType type, String from, String to, BufferedWriter out) throws SQLException, IOException {
+        switch (type) {
+            case CUSTOMER_SUMMARY:
+                return stream(CUSTOMER_SUMMARY, from, to, out,
+                    "Customer ID,Customer Type,Name,Accounts,Total Balance,Transactions In Period",
+                    (rs, line) -> line
+                        .field(rs.getString("customer_id"))
+                        .field(rs.getString("customer_type"))
+                        .field(rs.getString("name"))
+                        .number(rs.getLong("account_count"))
+                        .money(rs.getLong("total_balance"))
+                        .number(rs.getLong("transaction_count")));
+            case ACCOUNT_ACTIVITY:
+                return stream(ACCOUNT_ACTIVITY, from, to, out,
+                    "Account Number,Customer ID,Account Type,Branch,Balance,Transactions,Credits,Debits",
+                    (rs, line) -> line
+                        .field(rs.getString("account_number"))
+                        .field(rs.getString("customer_id"))
+                        .field(rs.getString("account_type"))
+                        .field(rs.getString("branch"))
+                        .money(rs.getLong("balance_thebe"))
+                        .number(rs.getLong("transaction_count"))
+                        .money(rs.getLong("credits"))
+                        .money(rs.getLong("debits")));
+            case TRANSACTION_HISTORY:
+                return stream(TRANSACTION_HISTORY, from, to, out,
+                    "Transaction ID,Date,Account Number,Customer ID,Type,Description,Amount,Balance After",
+                    (rs, line) -> line
+                        .number(rs.getLong("transaction_id"))
+                        .field(rs.getString("transaction_date"))
+                        .field(rs.getString("account_number"))
+                        .field(rs.getString("customer_id"))
+                        .field(rs.getString("transaction_type"))
+                        .field(rs.getString("description"))
+                        .money(rs.getLong("amount_thebe"))
+                        .optionalMoney(rs, "balance_after_thebe"));
+            case FINANCIAL_SUMMARY:
+                return writeFinancialSummary(from, to, out);
+            default:
+                throw new IllegalArgumentException("Unsupported report type: " + type);
+        }
+    }
+
+    private long writeFinancialSummary(String from, String to, BufferedWriter out) throws SQLException, IOException {
+        long[] totals = new long[3];  // credits, debits, transaction count, folded as the rows stream past
+        long rows = stream(FINANCIAL_SUMMARY, from, to, out, "Date,Transaction Type,Transactions,Total",
+            (rs, line) -> {
+                String transactionType = rs.getString("transaction_type");
+                Money total = Money.ofThebe(rs.getLong("total"));
+                long count = rs.getLong("transaction_count");
+                if ("Deposit".equals(transactionType) || "Interest".equals(transactionType)
+                        || "Transfer In".equals(transactionType)) {
+                    totals[0] += total.getThebe();
+                } else if ("Withdrawal".equals(transactionType) || "Transfer Out".equals(transactionType)) {
+                    totals[1] += total.getThebe();
+                }
+                totals[2] += count;
+                line.field(rs.getString("day")).field(transactionType).number(count).money(total);
+            });
+        out.newLine();
+        new Line(out).field("Total credits").field("").field("").money(Money.ofThebe(totals[0])).end();
+        new Line(out).field("Total debits").field("").field("").money(Money.ofThebe(totals[1])).end();
+        new Line(out).field("Net change").field("").field("").money(Money.ofThebe(totals[0] - totals[1])).end();
+        new Line(out).field("Transactions").field("").number(totals[2]).field("").end();
+        return rows;
+    }
+
+    private long stream(String sql, String from, String to, BufferedWriter out, String header, RowFormat format)
+            throws SQLException, IOException {
+        out.write(header);
+        out.newLine();
+        long rows = 0;
+        try (ConnectionPool.PooledConnection connection = pool.acquireReader()) {
+            PreparedStatement statement = connection.prepare(sql);
+            statement.setFetchSize(FETCH_SIZE);
+            statement.setString(1, from);
+            statement.setString(2, to);
+            try (ResultSet rs = statement.executeQuery()) {
+                while (rs.next()) {
+                    Line line = new Line(out);
+                    format.write(rs, line);
+                    line.end();
+                    if (++rows % FETCH_SIZE == 0 && Thread.currentThread().isInterrupted()) {
+                        throw new InterruptedIOException("Report cancelled after " + rows + " rows");
+                    }
+                }
+            }
+        }
+        return rows;
+    }
+
+    private static String lowerBound(LocalDate from) {
+        return from == null ? "" : from.toString();
+    }
+
+    // Everything before the start of the following day, as dates are stored as ISO text
+    private static String upperBound(LocalDate to) {
+        return to == null ? "9999-12-31" : to.plusDays(1).toString();
+    }
+
+    @FunctionalInterface
+    private interface RowFormat {
+        void write(ResultSet rs, Line line) throws SQLException, IOException;
+    }
+
+    // One CSV record; text fields are always quoted
+    private static final class Line {
+        private final BufferedWriter out;
+        private boolean first = true;
+
+        Line(BufferedWriter out) {
+            this.out = out;
+        }
+
+        Line field(String value) throws IOException {
+            separator();
+            if (value != null) {
+                out.write('"');
+                out.write(value.replace("\"", "\"\""));
+                out.write('"');
+            }
+            return this;
+        }
+
+        Line number(long value) throws IOException {
+            separator();
+            out.write(Long.toString(value));
+            return this;
+        }
+
+        // Stored amounts are whole thebe
+        Line money(long thebe) throws IOException {
+            return money(Money.ofThebe(thebe));
+        }
+
+        Line optionalMoney(ResultSet rs, String column) throws SQLException, IOException {
+            long thebe = rs.getLong(column);
+            return rs.wasNull() ? field(null) : money(thebe);
+        }
+
+        Line money(Money value) throws IOException {
+            separator();
+            out.write(BigDecimal.valueOf(value.getThebe(), 2).toPlainString());
+            return this;
+        }
+
+        void end() throws IOException {
+            out.newLine();
+        }
+
+        private void separator() throws IOException {
+            if (!first) {
+                out.write(',');
+            }
+            first = false;
+        }
+    }
+
+    public static final class Result {
+        private final ReportType type;
+        private final Path file;
+        private final long rows;
+        private final long elapsedNanos;
+
+        Result(ReportType type, Path file, long rows, long elapsedNanos) {
+            this.type = type;
+            this.file = file;
+            this.rows = rows;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        public ReportType getType() { return type; }
+        public Path getFile() { return file; }
+        public long getRows() { return rows; }
+        public double getElapsedSeconds() { return elapsedNanos / 1_000_000_000.0; }
+    }
+}
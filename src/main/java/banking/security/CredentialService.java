@@ -0,0 +1,307 @@
+package banking.security;
+
+import banking.database.ConnectionPool;
+import banking.metrics.Metrics;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Checks user IDs and passwords against the users table.
+ *
+ * Attempts are rate limited per source, and a user ID is refused once it has collected too
+ * many failed attempts, before any hashing happens, so guessing passwords cannot tie up the
+ * CPU. Each attempt takes one of the user's slots before it is verified, so parallel guesses
+ * cannot all get in ahead of the first failure; a successful login clears them, so only
+ * failures keep counting and the owner is not locked out by their own logins. User rows are
+ * looked up on the executor the service is given. Password hashes are verified on a small bounded
+ * pool; when it is saturated further attempts are refused rather than queued. User rows are
+ * cached for a short time, including misses, so repeated logins do not hit the database.
+ * Legacy plaintext passwords still work and are replaced by a hash on the first successful
+ * login.
+ */
+public class CredentialService implements AutoCloseable {
+
+    public static final int FAILURES_PER_USER_PER_MINUTE = 5;
+    public static final int ATTEMPTS_PER_SOURCE_PER_MINUTE = 30;
+    public static final long USER_CACHE_TTL_SECONDS = 60;
+    private static final int HASH_QUEUE_CAPACITY = 64;
+
+    private static final String FIND_USER =
+        "SELECT user_id, password, role, customer_id FROM users WHERE user_id = ?";
+    private static final String UPGRADE_PASSWORD =
+        "UPDATE users SET password = ? WHERE user_id = ? AND password = ?";
+
+    private static final Metrics.Timer FIND_USER_TIMER =
+        Metrics.timer("dao", "CredentialService.findUser");
+    private static final Metrics.Timer VERIFY_TIMER =
+        Metrics.timer("auth", "CredentialService.verify");
+
+    private static CredentialService instance;
+
+    private final UserStore store;
+    private final PasswordHasher hasher;
+    private final Executor lookups;
+    private final ExecutorService hashPool;
+    // Set when initialize() created the lookup executor, so close() shuts it down
+    private ExecutorService ownedLookups;
+    private final SlidingWindowRateLimiter userFailures =
+        new SlidingWindowRateLimiter(FAILURES_PER_USER_PER_MINUTE, 1, TimeUnit.MINUTES);
+    private final SlidingWindowRateLimiter sourceLimiter =
+        new SlidingWindowRateLimiter(ATTEMPTS_PER_SOURCE_PER_MINUTE, 1, TimeUnit.MINUTES);
+    private final Map<String, CachedUser> users = new ConcurrentHashMap<>();
+    private final long cacheTtlNanos = TimeUnit.SECONDS.toNanos(USER_CACHE_TTL_SECONDS);
+
+    // Compared against when the user does not exist, so unknown IDs take as long as wrong passwords
+    private volatile String dummyHash;
+
+    public CredentialService(ConnectionPool pool, PasswordHasher hasher, int hashThreads, Executor lookups) {
+        this(new JdbcUserStore(pool), hasher, hashThreads, lookups);
+    }
+
+    public CredentialService(UserStore store, PasswordHasher hasher, int hashThreads, Executor lookups) {
+        this.store = store;
+        this.hasher = hasher;
+        this.lookups = lookups;
+        this.hashPool = new ThreadPoolExecutor(hashThreads, hashThreads, 0, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(HASH_QUEUE_CAPACITY), runnable -> {
+                Thread thread = new Thread(runnable, "password-hashing");
+                thread.setDaemon(true);
+                return thread;
+            }, new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    public static synchronized CredentialService initialize(ConnectionPool pool) {
+        if (instance == null) {
+            int threads = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+            ExecutorService lookups = Executors.newCachedThreadPool(runnable -> {
+                Thread thread = new Thread(runnable, "credential-lookup");
+                thread.setDaemon(true);
+                return thread;
+            });
+            instance = new CredentialService(pool, new PasswordHasher(), threads, lookups);
+            instance.ownedLookups = lookups;
+        }
+        return instance;
+    }
+
+    public static synchronized CredentialService getInstance() {
+        if (instance == null) {
+            throw new IllegalStateException("Credential service has not been initialized");
+        }
+        return instance;
+    }
+
+    /**
+     * Verifies a login. The source identifies where the attempt came from (a terminal or
+     * remote address). The future never blocks the caller and completes on the hashing pool.
+     */
+    public CompletableFuture<AuthResult> authenticate(String userId, char[] password, String source) {
+        if (!sourceLimiter.tryAcquire(source) || !userFailures.tryAcquire(userId)) {
+            return CompletableFuture.completedFuture(AuthResult.THROTTLED);
+        }
+        CompletableFuture<UserRecord> lookup;
+        try {
+            lookup = CompletableFuture.supplyAsync(() -> {
+                try {
+                    return findUser(userId);
+                } catch (SQLException e) {
+                    throw new CompletionException(e);
+                }
+            }, lookups);
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.completedFuture(AuthResult.THROTTLED);
+        }
+        return lookup.thenCompose(user -> {
+            try {
+                return CompletableFuture.supplyAsync(() -> record(userId, verify(user, password)), hashPool);
+            } catch (RejectedExecutionException e) {
+                return CompletableFuture.completedFuture(AuthResult.THROTTLED);
+            }
+        });
+    }
+
+    // Call after a password or role change so the next login reads the new row
+    public void invalidate(String userId) {
+        users.remove(userId);
+    }
+
+    @Override
+    public void close() {
+        hashPool.shutdownNow();
+        if (ownedLookups != null) {
+            ownedLookups.shutdownNow();
+        }
+        synchronized (CredentialService.class) {
+            if (instance == this) {
+                instance = null;
+            }
+        }
+    }
+
+    // The attempt already took a slot; a success gives back that one and every earlier failure
+    private AuthResult record(String userId, AuthResult result) {
+        if (result.isSuccess()) {
+            userFailures.reset(userId);
+        }
+        return result;
+    }
+
+    private AuthResult verify(UserRecord user, char[] password) {
+        long start = VERIFY_TIMER.start();
+        try {
+            if (user == null) {
+                if (dummyHash == null) {
+                    dummyHash = hasher.hash("not a real password".toCharArray());
+                }
+                hasher.verify(password, dummyHash);
+                return AuthResult.INVALID;
+            }
+            if (!hasher.verify(password, user.storedPassword)) {
+                return AuthResult.INVALID;
+            }
+            if (hasher.needsRehash(user.storedPassword)) {
+                upgrade(user, hasher.hash(password));
+            }
+            return AuthResult.success(user);
+        } finally {
+            VERIFY_TIMER.stop(start);
+        }
+    }
+
+    private void upgrade(UserRecord user, String newHash) {
+        try {
+            store.replacePassword(user.userId, user.storedPassword, newHash);
+            invalidate(user.userId);
+        } catch (SQLException e) {
+            // The login still succeeds; the upgrade is retried next time
+            System.err.println("Failed to upgrade password hash for " + user.userId + ": " + e.getMessage());
+        }
+    }
+
+    private UserRecord findUser(String userId) throws SQLException {
+        long start = FIND_USER_TIMER.start();
+        try {
+            long now = System.nanoTime();
+            CachedUser cached = users.get(userId);
+            if (cached != null && now < cached.expiresAt) {
+                return cached.user;
+            }
+            UserRecord user = store.find(userId);
+            users.put(userId, new CachedUser(user, now + cacheTtlNanos));
+            return user;
+        } finally {
+            FIND_USER_TIMER.stop(start);
+        }
+    }
+
+    /**
+     * Where user rows are read from and upgraded hashes written to.
+     */
+    public interface UserStore {
+        // Null if there is no such user
+        UserRecord find(String userId) throws SQLException;
+
+        // Replaces the stored password only if it is still the one the login was checked against
+        void replacePassword(String userId, String expected, String newHash) throws SQLException;
+    }
+
+    private static final class JdbcUserStore implements UserStore {
+        private final ConnectionPool pool;
+
+        JdbcUserStore(ConnectionPool pool) {
+            this.pool = pool;
+        }
+
+        @Override
+        public UserRecord find(String userId) throws SQLException {
+            try (ConnectionPool.PooledConnection connection = pool.acquireReader()) {
+                PreparedStatement statement = connection.prepare(FIND_USER);
+                statement.setString(1, userId);
+                try (ResultSet rs = statement.executeQuery()) {
+                    if (!rs.next()) {
+                        return null;
+                    }
+                    return new UserRecord(rs.getString("user_id"), rs.getString("password"),
+                        rs.getString("role"), rs.getString("customer_id"));
+                }
+            }
+        }
+
+        @Override
+        public void replacePassword(String userId, String expected, String newHash) throws SQLException {
+            try (ConnectionPool.PooledConnection connection = pool.acquireWriter()) {
+                PreparedStatement statement = connection.prepare(UPGRADE_PASSWORD);
+                statement.setString(1, newHash);
+                statement.setString(2, userId);
+                statement.setString(3, expected);
+                statement.executeUpdate();
+            }
+        }
+    }
+
+    private static final class CachedUser {
+        private final UserRecord user;
+        private final long expiresAt;
+
+        CachedUser(UserRecord user, long expiresAt) {
+            this.user = user;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    public static final class UserRecord {
+        private final String userId;
+        private final String storedPassword;
+        private final String role;
+        private final String customerId;
+
+        UserRecord(String userId, String storedPassword, String role, String customerId) {
+            this.userId = userId;
+            this.storedPassword = storedPassword;
+            this.role = role;
+            this.customerId = customerId;
+        }
+
+        public String getUserId() { return userId; }
+        public String getRole() { return role; }
+        public String getCustomerId() { return customerId; }
+    }
+
+    public static final class AuthResult {
+        public enum Status { SUCCESS, INVALID, THROTTLED }
+
+        static final AuthResult INVALID = new AuthResult(Status.INVALID, null);
+        static final AuthResult THROTTLED = new AuthResult(Status.THROTTLED, null);
+
+        private final Status status;
+        private final UserRecord user;
+
+        private AuthResult(Status status, UserRecord user) {
+            this.status = status;
+            this.user = user;
+        }
+
+        static AuthResult success(UserRecord user) {
+            return new AuthResult(Status.SUCCESS, user);
+        }
+
+        public Status getStatus() { return status; }
+        public boolean isSuccess() { return status == Status.SUCCESS; }
+
+        // The authenticated user; null unless the login succeeded
+        public UserRecord getUser() { return user; }
+    }
+}
@@ -0,0 +1,83 @@
+package banking.security;
+
+import javafx.stage.Stage;
+import javafx.stage.Window;
+
+/**
+ * One window's view of its login session.
+ *
+ * The handle keeps only the session token; every query goes through the
+ * {@link SessionRegistry}, so a session that has expired or been logged out elsewhere reads
+ * as logged out here too. Each top-level window gets its own handle, so several users can be
+ * logged in side by side in one process; a dialog shares the handle of the window that owns
+ * it.
+ */
+public final class SessionHandle {
+
+    private static final String WINDOW_PROPERTY = SessionHandle.class.getName();
+
+    private final SessionRegistry registry;
+    private volatile String token;
+
+    public SessionHandle(SessionRegistry registry) {
+        this.registry = registry;
+    }
+
+    // The handle belonging to a window, created on first use; views may be built off the FX thread
+    public static synchronized SessionHandle forWindow(Window window) {
+        while (window instanceof Stage && ((Stage) window).getOwner() != null) {
+            window = ((Stage) window).getOwner();
+        }
+        return (SessionHandle) window.getProperties()
+            .computeIfAbsent(WINDOW_PROPERTY, key -> new SessionHandle(SessionRegistry.getInstance()));
+    }
+
+    public void login(CredentialService.UserRecord user) {
+        clearSession();
+        token = registry.create(user.getUserId(), user.getRole(), user.getCustomerId(), null).getToken();
+    }
+
+    public void clearSession() {
+        registry.invalidate(token);
+        token = null;
+    }
+
+    // The live session, or null when logged out or expired
+    public SessionRegistry.Session getSession() {
+        return registry.get(token);
+    }
+
+    public boolean isLoggedIn() {
+        return getSession() != null;
+    }
+
+    public String getUserId() {
+        SessionRegistry.Session session = getSession();
+        return session == null ? null : session.getUserId();
+    }
+
+    public String getCustomerId() {
+        SessionRegistry.Session session = getSession();
+        return session == null ? null : session.getCustomerId();
+    }
+
+    public String getDisplayName() {
+        SessionRegistry.Session session = getSession();
+        return session == null ? null : session.getDisplayName();
+    }
+
+    public boolean isCustomer() {
+        SessionRegistry.Session session = getSession();
+        return session != null && session.isCustomer();
+    }
+
+    public boolean isClerk() {
+        SessionRegistry.Session session = getSession();
+        return session != null && session.isClerk();
+    }
+
+    public boolean isAdmin() {
+        SessionRegistry.Session session = getSession();
+        return session != null && session.isAdmin();
+    }
+}
@@ -0,0 +1,215 @@
+package banking.security;
+
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * All logged-in sessions in this process, keyed by an unguessable token.
+ *
+ * Many users can be logged in at once, each window or remote client holding its own token.
+ * Lookups are a single concurrent map read, and a session's role is resolved when it is
+ * created, so role checks are constant time. Sessions expire after a period without use.
+ * Expiry is driven by a timer wheel: each session sits in the slot for its deadline, and one
+ * background thread visits one slot per tick. A session used since it was placed is moved to
+ * its new slot instead of expired, so using a session never touches the wheel.
+ */
+public class SessionRegistry implements AutoCloseable {
+
+    public static final long DEFAULT_IDLE_TIMEOUT_MINUTES = 15;
+    private static final long TICK_MILLIS = 1_000;
+    private static final int WHEEL_SLOTS = 1_024;
+
+    private static SessionRegistry instance;
+
+    private final Map<String, Session> sessions = new ConcurrentHashMap<>();
+    private final Slot[] wheel;
+    private final long idleTimeoutNanos;
+    private final long tickNanos = TimeUnit.MILLISECONDS.toNanos(TICK_MILLIS);
+    private final long startNanos = System.nanoTime();
+    private final SecureRandom random = new SecureRandom();
+    private final Thread ticker;
+    private volatile boolean closed;
+
+    // Metrics
+    private final LongAdder created = new LongAdder();
+    private final LongAdder expired = new LongAdder();
+
+    public SessionRegistry(long idleTimeout, TimeUnit unit) {
+        this.idleTimeoutNanos = unit.toNanos(idleTimeout);
+        this.wheel = new Slot[WHEEL_SLOTS];
+        for (int i = 0; i < WHEEL_SLOTS; i++) {
+            wheel[i] = new Slot();
+        }
+        this.ticker = new Thread(this::tick, "session-expiry");
+        ticker.setDaemon(true);
+        ticker.start();
+    }
+
+    public static synchronized SessionRegistry getInstance() {
+        if (instance == null) {
+            instance = new SessionRegistry(DEFAULT_IDLE_TIMEOUT_MINUTES, TimeUnit.MINUTES);
+        }
+        return instance;
+    }
+
+    public Session create(String userId, String role, String customerId, String displayName) {
+        byte[] bytes = new byte[32];
+        random.nextBytes(bytes);
+        String token = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+        Session session = new Session(token, userId, Role.fromName(role), customerId,
+            displayName != null ? displayName : userId, System.nanoTime());
+        sessions.put(token, session);
+        schedule(session, session.lastAccess + idleTimeoutNanos);
+        created.increment();
+        return session;
+    }
+
+    // Returns the live session for a token and marks it as used, or null if unknown or expired
+    public Session get(String token) {
+        if (token == null) {
+            return null;
+        }
+        Session session = sessions.get(token);
+        if (session == null) {
+            return null;
+        }
+        long now = System.nanoTime();
+        if (now - session.lastAccess >= idleTimeoutNanos) {
+            invalidate(token);
+            return null;
+        }
+        session.lastAccess = now;
+        return session;
+    }
+
+    public void invalidate(String token) {
+        if (token != null) {
+            Session session = sessions.remove(token);
+            if (session != null) {
+                wheel[session.slot].sessions.remove(session);
+            }
+        }
+    }
+
+    public int getActiveSessionCount() { return sessions.size(); }
+    public long getSessionsCreated() { return created.sum(); }
+    public long getSessionsExpired() { return expired.sum(); }
+
+    @Override
+    public void close() {
+        closed = true;
+        ticker.interrupt();
+        synchronized (SessionRegistry.class) {
+            if (instance == this) {
+                instance = null;
+            }
+        }
+    }
+
+    private void schedule(Session session, long deadline) {
+        int slot = slotFor(deadline);
+        session.slot = slot;
+        wheel[slot].sessions.add(session);
+    }
+
+    // The slot of the first tick at or after the deadline
+    private int slotFor(long deadline) {
+        long ticks = Math.max(1, (deadline - startNanos + tickNanos - 1) / tickNanos);
+        return (int) (ticks % WHEEL_SLOTS);
+    }
+
+    private void tick() {
+        long tickCount = 0;
+        while (!closed) {
+            tickCount++;
+            long due = startNanos + tickCount * tickNanos;
+            long sleep = due - System.nanoTime();
+            if (sleep > 0) {
+                try {
+                    TimeUnit.NANOSECONDS.sleep(sleep);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+            long now = System.nanoTime();
+            int index = (int) (tickCount % WHEEL_SLOTS);
+            Set<Session> slot = wheel[index].sessions;
+            for (Session session : slot) {
+                if (sessions.get(session.token) != session) {
+                    // Logged out while the wheel was moving it
+                    slot.remove(session);
+                    continue;
+                }
+                long deadline = session.lastAccess + idleTimeoutNanos;
+                if (deadline - now <= 0) {
+                    slot.remove(session);
+                    if (sessions.remove(session.token, session)) {
+                        expired.increment();
+                    }
+                } else if (deadline - now >= tickNanos && slotFor(deadline) != index) {
+                    // Used since it was placed here; a session due in a later turn of the wheel stays put
+                    slot.remove(session);
+                    schedule(session, deadline);
+                }
+            }
+        }
+    }
+
+    // Generic arrays cannot be created, so each slot's set is held in one of these
+    private static final class Slot {
+        private final Set<Session> sessions = ConcurrentHashMap.newKeySet();
+    }
+
+    public enum Role {
+        CUSTOMER, CLERK, ADMIN;
+
+        // Accepts the role names stored in the users table, case-insensitively; null if unknown
+        public static Role fromName(String name) {
+            if (name == null) {
+                return null;
+            }
+            switch (name.trim().toLowerCase().replace(" ", "")) {
+                case "customer": return CUSTOMER;
+                case "clerk":
+                case "bankclerk": return CLERK;
+                case "admin":
+                case "administrator": return ADMIN;
+                default: return null;
+            }
+        }
+    }
+
+    public static final class Session {
+        private final String token;
+        private final String userId;
+        private final Role role;
+        private final String customerId;
+        private final String displayName;
+        private volatile long lastAccess;
+        private volatile int slot;
+
+        Session(String token, String userId, Role role, String customerId, String displayName, long now) {
+            this.token = token;
+            this.userId = userId;
+            this.role = role;
+            this.customerId = customerId;
+            this.displayName = displayName;
+            this.lastAccess = now;
+        }
+
+        public String getToken() { return token; }
+        public String getUserId() { return userId; }
+        public Role getRole() { return role; }
+        public String getCustomerId() { return customerId; }
+        public String getDisplayName() { return displayName; }
+
+        public boolean isCustomer() { return role == Role.CUSTOMER; }
+        public boolean isClerk() { return role == Role.CLERK; }
+        public boolean isAdmin() { return role == Role.ADMIN; }
+    }
+}
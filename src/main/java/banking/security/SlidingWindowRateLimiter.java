@@ -0,0 +1,82 @@
+package banking.security;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Allows at most a fixed number of events per key within a rolling window.
+ *
+ * Uses the sliding-window counter approximation: counts are kept for the current and the
+ * previous fixed window, and the previous count is weighted by how much of it still overlaps
+ * the rolling window. That is two counters per key instead of one timestamp per event.
+ * Keys idle for two windows are dropped from time to time so the map does not grow without
+ * bound.
+ */
+public class SlidingWindowRateLimiter {
+
+    private static final int CLEANUP_EVERY = 1_024;
+
+    private final int limit;
+    private final long windowNanos;
+    private final Map<String, Window> windows = new ConcurrentHashMap<>();
+    private final AtomicLong calls = new AtomicLong();
+
+    public SlidingWindowRateLimiter(int limit, long window, TimeUnit unit) {
+        if (limit < 1) {
+            throw new IllegalArgumentException("Limit must be positive");
+        }
+        this.limit = limit;
+        this.windowNanos = unit.toNanos(window);
+    }
+
+    // Records an event for the key if it is within the limit
+    public boolean tryAcquire(String key) {
+        long now = System.nanoTime();
+        if (calls.incrementAndGet() % CLEANUP_EVERY == 0) {
+            windows.values().removeIf(window -> window.isIdle(now));
+        }
+        Window window = windows.computeIfAbsent(key, k -> new Window(now));
+        return window.tryAcquire(now);
+    }
+
+    public void reset(String key) {
+        windows.remove(key);
+    }
+
+    private final class Window {
+        private long start;
+        private int current;
+        private int previous;
+
+        Window(long now) {
+            this.start = now;
+        }
+
+        synchronized boolean tryAcquire(long now) {
+            roll(now);
+            double overlap = 1.0 - (double) (now - start) / windowNanos;
+            if (previous * overlap + current >= limit) {
+                return false;
+            }
+            current++;
+            return true;
+        }
+
+        synchronized boolean isIdle(long now) {
+            return now - start >= 2 * windowNanos;
+        }
+
+        private void roll(long now) {
+            long elapsed = now - start;
+            if (elapsed < windowNanos) {
+                return;
+            }
+            long windowsPassed = elapsed / windowNanos;
+            previous = windowsPassed == 1 ? current : 0;
+            current = 0;
+            start += windowsPassed * windowNanos;
+        }
+    }
+}
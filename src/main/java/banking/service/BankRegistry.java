@@ -0,0 +1,145 @@
+package banking.service;
+
+import main.java.banking.model.Account;
+import main.java.banking.model.CompanyCustomer;
+import main.java.banking.model.Customer;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory index of the customers and accounts loaded in this process.
+ *
+ * Primary lookups by account number, customer id and company registration number are hash
+ * lookups; accounts are also indexed by branch and by account type (the class simple name,
+ * e.g. "SavingsAccount"). All maps are concurrent, so reads never block. Writes are
+ * serialized on the registry so the indexes stay consistent with each other, and a new
+ * account is published to its branch and type indexes last.
+ */
+public class BankRegistry {
+
+    private static final BankRegistry INSTANCE = new BankRegistry();
+
+    private final Map<String, Account> accountsByNumber = new ConcurrentHashMap<>();
+    private final Map<String, Customer> customersById = new ConcurrentHashMap<>();
+    private final Map<String, Customer> customersByRegistration = new ConcurrentHashMap<>();
+    private final Map<Customer, String> customerIds = new ConcurrentHashMap<>();
+    private final Map<String, Set<Account>> accountsByBranch = new ConcurrentHashMap<>();
+    private final Map<String, Set<Account>> accountsByType = new ConcurrentHashMap<>();
+    private final Map<String, Set<Account>> accountsByCustomer = new ConcurrentHashMap<>();
+
+    public static BankRegistry getInstance() {
+        return INSTANCE;
+    }
+
+    public synchronized void registerCustomer(String customerId, Customer customer) {
+        Customer previous = customersById.put(customerId, customer);
+        if (previous != null && previous != customer) {
+            customerIds.remove(previous);
+        }
+        customerIds.put(customer, customerId);
+        if (customer instanceof CompanyCustomer) {
+            String registration = ((CompanyCustomer) customer).getRegistrationNumber();
+            if (registration != null && !registration.isEmpty()) {
+                customersByRegistration.put(registration, customer);
+            }
+        }
+        for (Account account : customer.getAccounts()) {
+            registerAccount(account);
+        }
+    }
+
+    public synchronized void registerAccount(Account account) {
+        Account previous = accountsByNumber.put(account.getAccountNumber(), account);
+        if (previous != null && previous != account) {
+            unindex(previous);
+        }
+        // The owner's index goes first, so a reader that finds the account by branch or type
+        // can always find it by number and by owner too
+        String customerId = account.getOwner() == null ? null : customerIds.get(account.getOwner());
+        if (customerId != null) {
+            index(accountsByCustomer, customerId, account);
+        }
+        index(accountsByBranch, account.getBranch(), account);
+        index(accountsByType, account.getClass().getSimpleName(), account);
+    }
+
+    public synchronized void removeAccount(String accountNumber) {
+        Account account = accountsByNumber.remove(accountNumber);
+        if (account != null) {
+            unindex(account);
+        }
+    }
+
+    // Lookups
+    public Account findAccount(String accountNumber) {
+        return accountsByNumber.get(accountNumber);
+    }
+
+    public Customer findCustomer(String customerId) {
+        return customersById.get(customerId);
+    }
+
+    public Customer findByRegistrationNumber(String registrationNumber) {
+        return customersByRegistration.get(registrationNumber);
+    }
+
+    public String getCustomerId(Customer customer) {
+        return customerIds.get(customer);
+    }
+
+    public Set<Account> getAccountsByBranch(String branch) {
+        return view(accountsByBranch, branch);
+    }
+
+    public Set<Account> getAccountsByType(String accountType) {
+        return view(accountsByType, accountType);
+    }
+
+    public Set<Account> getAccountsByCustomer(String customerId) {
+        return view(accountsByCustomer, customerId);
+    }
+
+    public Collection<Account> getAccounts() {
+        return Collections.unmodifiableCollection(accountsByNumber.values());
+    }
+
+    public Set<String> getCustomerIds() {
+        return Collections.unmodifiableSet(customersById.keySet());
+    }
+
+    public int getAccountCount() { return accountsByNumber.size(); }
+    public int getCustomerCount() { return customersById.size(); }
+
+    private void unindex(Account account) {
+        remove(accountsByBranch, account.getBranch(), account);
+        remove(accountsByType, account.getClass().getSimpleName(), account);
+        String customerId = account.getOwner() == null ? null : customerIds.get(account.getOwner());
+        if (customerId != null) {
+            remove(accountsByCustomer, customerId, account);
+        }
+    }
+
+    private static void index(Map<String, Set<Account>> index, String key, Account account) {
+        if (key != null) {
+            index.computeIfAbsent(key, k -> ConcurrentHashMap.newKeySet()).add(account);
+        }
+    }
+
+    private static void remove(Map<String, Set<Account>> index, String key, Account account) {
+        if (key != null) {
+            Set<Account> accounts = index.get(key);
+            if (accounts != null) {
+                accounts.remove(account);
+            }
+        }
+    }
+
+    private static Set<Account> view(Map<String, Set<Account>> index, String key) {
+        Set<Account> accounts = key == null ? null : index.get(key);
+        return accounts == null ? Collections.emptySet() : Collections.unmodifiableSet(accounts);
+    }
+}
@@ -0,0 +1,265 @@
+package banking.service;
+
+import main.java.banking.model.Account;
+import main.java.banking.model.BalanceObserver;
+import main.java.banking.model.Money;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Running totals for the clerk dashboard: customer and account counts, plus account counts
+ * and balances per branch and per account type.
+ *
+ * Totals are updated as customers register, accounts open and postings happen (it observes
+ * balance changes, which builds no events), so reading them is constant time. {@link #seed}
+ * sets every total from figures the database aggregated at startup; postings then count for
+ * the accounts loaded at that point and for those reported through {@link #accountOpened},
+ * whose current balance is taken when they are reported. {@link #rebuild} recomputes
+ * everything from a full account list, and {@link #findDiscrepancies} compares the running
+ * totals against such a recompute to catch missed updates; {@link #startConsistencyChecks}
+ * runs that comparison against the registry periodically and logs what it finds.
+ */
+public class BankStatistics implements BalanceObserver {
+
+    public static final long CHECK_INTERVAL_MINUTES = 10;
+
+    private static final BankStatistics INSTANCE = new BankStatistics();
+
+    private final LongAdder customers = new LongAdder();
+    private final LongAdder accounts = new LongAdder();
+    private final LongAdder totalBalance = new LongAdder();
+    private final Map<String, Bucket> byBranch = new ConcurrentHashMap<>();
+    private final Map<String, Bucket> byType = new ConcurrentHashMap<>();
+    private final Set<String> tracked = ConcurrentHashMap.newKeySet();
+    // Bumped by every update, so a check can tell whether one raced with it
+    private final LongAdder updates = new LongAdder();
+    private volatile boolean initialized;
+    private ScheduledExecutorService checker;
+    private List<String> lastProblems = Collections.emptyList();
+
+    public static BankStatistics getInstance() {
+        return INSTANCE;
+    }
+
+    // Replaces all totals with a full recompute
+    public synchronized void rebuild(long customerCount, Collection<? extends Account> allAccounts) {
+        clear();
+        customers.add(customerCount);
+        for (Account account : allAccounts) {
+            accountOpened(account);
+        }
+        initialized = true;
+    }
+
+    /**
+     * Replaces all totals with figures aggregated elsewhere, one entry per branch and account
+     * type. Postings count from now on for the given account numbers, whose balances those
+     * figures must include.
+     */
+    public synchronized void seed(long customerCount, Collection<Totals> totals, Collection<String> accountNumbers) {
+        clear();
+        customers.add(customerCount);
+        for (Totals entry : totals) {
+            long balance = entry.balance.getThebe();
+            accounts.add(entry.accounts);
+            totalBalance.add(balance);
+            bucket(byBranch, entry.branch).add(entry.accounts, balance);
+            bucket(byType, entry.accountType).add(entry.accounts, balance);
+        }
+        tracked.addAll(accountNumbers);
+        initialized = true;
+    }
+
+    public boolean isInitialized() {
+        return initialized;
+    }
+
+    public void customerRegistered() {
+        updates.increment();
+        customers.increment();
+    }
+
+    public void accountOpened(Account account) {
+        long balance;
+        // Events are published under the account's lock, so none can slip in between these two steps
+        synchronized (account) {
+            if (!tracked.add(account.getAccountNumber())) {
+                return;
+            }
+            balance = account.getBalance().getThebe();
+        }
+        updates.increment();
+        accounts.increment();
+        totalBalance.add(balance);
+        bucket(byBranch, account.getBranch()).add(1, balance);
+        bucket(byType, account.getClass().getSimpleName()).add(1, balance);
+    }
+
+    @Override
+    public void balanceChanged(Account account, long changeThebe) {
+        if (!tracked.contains(account.getAccountNumber())) {
+            return;
+        }
+        updates.increment();
+        totalBalance.add(changeThebe);
+        bucket(byBranch, account.getBranch()).add(0, changeThebe);
+        bucket(byType, account.getClass().getSimpleName()).add(0, changeThebe);
+    }
+
+    // Readers
+    public long getCustomerCount() { return customers.sum(); }
+    public long getAccountCount() { return accounts.sum(); }
+    public Money getTotalBalance() { return Money.ofThebe(totalBalance.sum()); }
+
+    public long getAccountCountByBranch(String branch) { return count(byBranch, branch); }
+    public Money getBalanceByBranch(String branch) { return balance(byBranch, branch); }
+    public long getAccountCountByType(String accountType) { return count(byType, accountType); }
+    public Money getBalanceByType(String accountType) { return balance(byType, accountType); }
+
+    public Map<String, Long> getAccountCountsByBranch() { return counts(byBranch); }
+    public Map<String, Long> getAccountCountsByType() { return counts(byType); }
+
+    /**
+     * Recomputes the totals from scratch and lists every figure that differs from the running
+     * totals. An empty list means the incremental updates are consistent.
+     */
+    public List<String> findDiscrepancies(long customerCount, Collection<? extends Account> allAccounts) {
+        BankStatistics expected = new BankStatistics();
+        expected.rebuild(customerCount, allAccounts);
+
+        List<String> problems = new ArrayList<>();
+        compare(problems, "customers", expected.getCustomerCount(), getCustomerCount());
+        compare(problems, "accounts", expected.getAccountCount(), getAccountCount());
+        compare(problems, "total balance (thebe)", expected.totalBalance.sum(), totalBalance.sum());
+        compareBuckets(problems, "branch", expected.byBranch, byBranch);
+        compareBuckets(problems, "type", expected.byType, byType);
+        return problems;
+    }
+
+    /**
+     * {@link #findDiscrepancies} against everything the registry holds. Returns null when an
+     * update landed while the recompute was running, since the two sides then saw different
+     * moments and any difference may be that update rather than a missed one.
+     */
+    public List<String> checkAgainst(BankRegistry registry) {
+        long before = updates.sum();
+        List<String> problems = findDiscrepancies(registry.getCustomerCount(), registry.getAccounts());
+        return updates.sum() == before ? problems : null;
+    }
+
+    // Checks against the registry every interval; a discrepancy is logged once two checks in a row report it
+    public synchronized void startConsistencyChecks(BankRegistry registry, long interval, TimeUnit unit) {
+        if (checker != null) {
+            return;
+        }
+        checker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "statistics-check");
+            thread.setDaemon(true);
+            return thread;
+        });
+        checker.scheduleWithFixedDelay(() -> {
+            List<String> problems = checkAgainst(registry);
+            if (problems == null) {
+                // Busy; the next run tries again
+                return;
+            }
+            List<String> persistent = new ArrayList<>(problems);
+            persistent.retainAll(lastProblems);
+            lastProblems = problems;
+            if (!persistent.isEmpty()) {
+                System.err.println("Dashboard statistics disagree with the registry:\n  "
+                    + String.join("\n  ", persistent));
+            }
+        }, interval, interval, unit);
+    }
+
+    public synchronized void stopConsistencyChecks() {
+        if (checker != null) {
+            checker.shutdownNow();
+            checker = null;
+        }
+    }
+
+    private void clear() {
+        customers.reset();
+        accounts.reset();
+        totalBalance.reset();
+        byBranch.clear();
+        byType.clear();
+        tracked.clear();
+    }
+
+    private static void compareBuckets(List<String> problems, String label,
+                                       Map<String, Bucket> expected, Map<String, Bucket> actual) {
+        Map<String, Bucket> keys = new HashMap<>(expected);
+        keys.putAll(actual);
+        for (String key : keys.keySet()) {
+            Bucket want = expected.getOrDefault(key, new Bucket());
+            Bucket have = actual.getOrDefault(key, new Bucket());
+            compare(problems, label + " " + key + " accounts", want.count.sum(), have.count.sum());
+            compare(problems, label + " " + key + " balance (thebe)", want.balance.sum(), have.balance.sum());
+        }
+    }
+
+    private static void compare(List<String> problems, String what, long expected, long actual) {
+        if (expected != actual) {
+            problems.add(what + ": expected " + expected + " but running total is " + actual);
+        }
+    }
+
+    private static Bucket bucket(Map<String, Bucket> index, String key) {
+        return index.computeIfAbsent(key == null ? "" : key, k -> new Bucket());
+    }
+
+    private static long count(Map<String, Bucket> index, String key) {
+        Bucket bucket = index.get(key);
+        return bucket == null ? 0 : bucket.count.sum();
+    }
+
+    private static Money balance(Map<String, Bucket> index, String key) {
+        Bucket bucket = index.get(key);
+        return Money.ofThebe(bucket == null ? 0 : bucket.balance.sum());
+    }
+
+    private static Map<String, Long> counts(Map<String, Bucket> index) {
+        Map<String, Long> result = new HashMap<>();
+        index.forEach((key, bucket) -> result.put(key, bucket.count.sum()));
+        return Collections.unmodifiableMap(result);
+    }
+
+    // Accounts and their summed balance for one branch and account type (the class simple name)
+    public static final class Totals {
+        private final String branch;
+        private final String accountType;
+        private final long accounts;
+        private final Money balance;
+
+        public Totals(String branch, String accountType, long accounts, Money balance) {
+            this.branch = branch;
+            this.accountType = accountType;
+            this.accounts = accounts;
+            this.balance = balance;
+        }
+    }
+
+    private static final class Bucket {
+        final LongAdder count = new LongAdder();
+        final LongAdder balance = new LongAdder();
+
+        void add(long accounts, long thebe) {
+            count.add(accounts);
+            balance.add(thebe);
+        }
+    }
+}
@@ -0,0 +1,217 @@
+package banking.service;
+
+import banking.ledger.Posting;
+import banking.ledger.PostingType;
+import banking.ledger.TransactionLedger;
+import banking.metrics.Metrics;
+import main.java.banking.model.Account;
+import main.java.banking.model.InterestBearing;
+import main.java.banking.model.Money;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.sql.SQLException;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.IntStream;
+
+/**
+ * Applies month-end interest to every interest-bearing account in parallel.
+ *
+ * Accounts are sorted by account number and cut into fixed-size partitions. Under each
+ * account's lock the interest is appended to the {@link TransactionLedger}, with the period as
+ * the posting's reference, and then applied with applyMonthlyInterest. An account whose
+ * ledger already holds interest for the period is skipped, so the run is idempotent per
+ * account and period: running it again after a crash posts only what is missing. Once a
+ * partition's postings are durable they are handed to the {@link PostingWriter} as one batch;
+ * if that write fails the postings stay in the ledger and are written at the next start.
+ */
+public class MonthEndInterestRun {
+
+    public static final int DEFAULT_PARTITION_SIZE = 1_000;
+    private static final Metrics.Timer RUN_TIMER =
+        Metrics.timer("job", "MonthEndInterestRun.run");
+    private static final Metrics.Counter ACCOUNTS =
+        Metrics.counter("job_rows", "MonthEndInterestRun.run");
+
+    private final ForkJoinPool pool;
+    private final int partitionSize;
+    private final TransactionLedger ledger;
+    private final PostingWriter writer;
+
+    public MonthEndInterestRun(ForkJoinPool pool, int partitionSize, TransactionLedger ledger, PostingWriter writer) {
+        if (partitionSize <= 0) {
+            throw new IllegalArgumentException("Partition size must be positive");
+        }
+        this.pool = pool;
+        this.partitionSize = partitionSize;
+        this.ledger = ledger;
+        this.writer = writer;
+    }
+
+    public MonthEndInterestRun(TransactionLedger ledger, PostingWriter writer) {
+        this(ForkJoinPool.commonPool(), DEFAULT_PARTITION_SIZE, ledger, writer);
+    }
+
+    public Result run(YearMonth period, Collection<? extends Account> accounts) throws IOException, InterruptedException {
+        List<Account> book = new ArrayList<>();
+        for (Account account : accounts) {
+            if (account instanceof InterestBearing) {
+                book.add(account);
+            }
+        }
+        book.sort(Comparator.comparing(Account::getAccountNumber));
+
+        int reference = reference(period);
+        int partitions = (book.size() + partitionSize - 1) / partitionSize;
+        Totals totals = new Totals();
+
+        long start = System.nanoTime();
+        try {
+            pool.submit(() -> IntStream.range(0, partitions).parallel()
+                .forEach(partition -> {
+                    int from = partition * partitionSize;
+                    int to = Math.min(from + partitionSize, book.size());
+                    runPartition(book.subList(from, to), reference, totals);
+                })).get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof UncheckedIOException) {
+                throw ((UncheckedIOException) cause).getCause();
+            }
+            throw new IllegalStateException("Month-end interest run failed", cause);
+        }
+        long elapsedNanos = System.nanoTime() - start;
+        RUN_TIMER.record(elapsedNanos);
+        ACCOUNTS.add(totals.posted.get());
+
+        return new Result(period, totals.posted.get(), totals.alreadyPosted.get(), totals.unwritten.get(),
+            Money.ofThebe(totals.interest.get()), elapsedNanos);
+    }
+
+    // The ledger reference for interest of a period, e.g. 202604
+    public static int reference(YearMonth period) {
+        return period.getYear() * 100 + period.getMonthValue();
+    }
+
+    private void runPartition(List<Account> partition, int reference, Totals totals) {
+        List<InterestPosting> postings = new ArrayList<>(partition.size());
+        for (Account account : partition) {
+            synchronized (account) {
+                if (ledger.hasReference(account.getAccountNumber(), PostingType.INTEREST, reference)) {
+                    totals.alreadyPosted.incrementAndGet();
+                    continue;
+                }
+                InterestBearing interestBearing = (InterestBearing) account;
+                Money interest = interestBearing.calculateMonthlyInterest();
+                if (!interest.isPositive()) {
+                    continue;
+                }
+                Posting posting;
+                try {
+                    posting = ledger.append(account, PostingType.INTEREST, interest, reference);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                // Holding the lock, this applies exactly the interest just calculated
+                interestBearing.applyMonthlyInterest();
+                postings.add(new InterestPosting(account, posting, account.getBalance()));
+            }
+        }
+        if (postings.isEmpty()) {
+            return;
+        }
+
+        try {
+            ledger.awaitDurable(postings.get(postings.size() - 1).getPosting().getSequence());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for interest postings to be committed", e);
+        }
+        try {
+            writer.writeBatch(postings);
+        } catch (SQLException e) {
+            totals.unwritten.addAndGet(postings.size());
+            System.err.println("Could not write " + postings.size() + " interest postings to the database; "
+                + "they are in the ledger and will be written at the next start: " + e.getMessage());
+        }
+        for (InterestPosting posting : postings) {
+            totals.posted.incrementAndGet();
+            totals.interest.addAndGet(posting.getAmount().getThebe());
+        }
+    }
+
+    // Persists one partition's postings once they are durable in the ledger; called concurrently from pool threads
+    public interface PostingWriter {
+        void writeBatch(List<InterestPosting> postings) throws SQLException;
+    }
+
+    public static final class InterestPosting {
+        private final Account account;
+        private final Posting posting;
+        private final Money balanceAfter;
+
+        public InterestPosting(Account account, Posting posting, Money balanceAfter) {
+            this.account = account;
+            this.posting = posting;
+            this.balanceAfter = balanceAfter;
+        }
+
+        public Account getAccount() { return account; }
+        public Posting getPosting() { return posting; }
+        public Money getAmount() { return posting.getAmount(); }
+        public Money getBalanceAfter() { return balanceAfter; }
+    }
+
+    private static final class Totals {
+        private final AtomicInteger posted = new AtomicInteger();
+        private final AtomicInteger alreadyPosted = new AtomicInteger();
+        private final AtomicInteger unwritten = new AtomicInteger();
+        private final AtomicLong interest = new AtomicLong();
+    }
+
+    public static final class Result {
+        private final YearMonth period;
+        private final int accountsPosted;
+        private final int alreadyPosted;
+        private final int unwritten;
+        private final Money totalInterest;
+        private final long elapsedNanos;
+
+        Result(YearMonth period, int accountsPosted, int alreadyPosted, int unwritten, Money totalInterest,
+               long elapsedNanos) {
+            this.period = period;
+            this.accountsPosted = accountsPosted;
+            this.alreadyPosted = alreadyPosted;
+            this.unwritten = unwritten;
+            this.totalInterest = totalInterest;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        public YearMonth getPeriod() { return period; }
+        public int getAccountsPosted() { return accountsPosted; }
+        // Accounts skipped because an earlier run had already posted their interest for the period
+        public int getAlreadyPosted() { return alreadyPosted; }
+        // Postings that are in the ledger but could not be written to the database yet
+        public int getUnwritten() { return unwritten; }
+        public Money getTotalInterest() { return totalInterest; }
+        public long getElapsedMillis() { return elapsedNanos / 1_000_000; }
+
+        public double getAccountsPerSecond() {
+            return elapsedNanos == 0 ? 0 : accountsPosted * 1_000_000_000.0 / elapsedNanos;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s: %d accounts, %s interest in %d ms (%.0f accounts/s, %d already posted, %d not yet written)",
+                period, accountsPosted, totalInterest, getElapsedMillis(), getAccountsPerSecond(), alreadyPosted, unwritten);
+        }
+    }
+}
@@ -0,0 +1,176 @@
+package banking.service;
+
+import banking.ledger.Posting;
+import banking.ledger.PostingType;
+import banking.ledger.TransactionLedger;
+import banking.metrics.Metrics;
+import main.java.banking.model.Account;
+import main.java.banking.model.Money;
+import main.java.banking.model.Withdrawable;
+
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Moves money between accounts atomically.
+ *
+ * A transfer is one or more legs, each debiting a withdrawable account and crediting another.
+ * Every account involved is locked in account-number order, so two transfers touching the
+ * same accounts can never deadlock. While the locks are held the legs are checked for funds in
+ * order, appended to the {@link TransactionLedger} as one group and applied in memory; a
+ * rejected transfer leaves every balance unchanged. No I/O waits happen under the locks: once
+ * they are released the engine waits for the group to be durable and hands it to the
+ * {@link TransferWriter}. A failed write does not undo the transfer, which the ledger already
+ * holds; it is logged and startup recovery writes it to the database.
+ */
+public class TransferEngine {
+
+    private static final Metrics.Timer WRITE_TIMER =
+        Metrics.timer("dao", "TransferWriter.writeTransfer");
+
+    private final TransactionLedger ledger;
+    private final TransferWriter writer;
+
+    // Metrics
+    private final LongAdder failedWrites = new LongAdder();
+
+    public TransferEngine(TransactionLedger ledger, TransferWriter writer) {
+        this.ledger = ledger;
+        this.writer = writer;
+    }
+
+    public void transfer(Account from, Account to, Money amount, String description)
+            throws IOException, InterruptedException {
+        execute(Collections.singletonList(new Leg(from, to, amount)), description);
+    }
+
+    // Applies all legs or none of them; returns once they are durable
+    public void execute(List<Leg> legs, String description) throws IOException, InterruptedException {
+        if (legs.isEmpty()) {
+            throw new IllegalArgumentException("A transfer needs at least one leg");
+        }
+        Map<String, Account> involved = new TreeMap<>();
+        for (Leg leg : legs) {
+            leg.validate();
+            addAccount(involved, leg.from);
+            addAccount(involved, leg.to);
+        }
+        List<Account> lockOrder = new ArrayList<>(involved.values());
+        Applied applied = lockAndRun(lockOrder, 0, () -> apply(legs, lockOrder, description));
+
+        ledger.awaitDurable(applied.postings.get(applied.postings.size() - 1).getSequence());
+        long start = WRITE_TIMER.start();
+        try {
+            writer.writeTransfer(legs, applied.postings, applied.balancesAfter);
+        } catch (SQLException e) {
+            failedWrites.increment();
+            System.err.println("Could not write a transfer to the database; it is in the ledger and will be "
+                + "written at the next start: " + e.getMessage());
+        } finally {
+            WRITE_TIMER.stop(start);
+        }
+    }
+
+    // Transfers that are in the ledger but could not be written to the database
+    public long getFailedWrites() { return failedWrites.sum(); }
+
+    private Applied apply(List<Leg> legs, List<Account> accounts, String description) throws IOException {
+        // Nothing else can change these balances while we hold their locks
+        Map<String, Money> balances = new HashMap<>();
+        for (Account account : accounts) {
+            balances.put(account.getAccountNumber(), account.getBalance());
+        }
+        List<TransactionLedger.Entry> entries = new ArrayList<>(legs.size() * 2);
+        for (Leg leg : legs) {
+            Money fromBalance = balances.get(leg.from.getAccountNumber());
+            if (leg.amount.isGreaterThan(fromBalance)) {
+                throw new IllegalArgumentException("Insufficient funds in account " + leg.from.getAccountNumber());
+            }
+            balances.put(leg.from.getAccountNumber(), fromBalance.minus(leg.amount));
+            balances.merge(leg.to.getAccountNumber(), leg.amount, Money::plus);
+            entries.add(new TransactionLedger.Entry(leg.from, PostingType.TRANSFER_OUT, leg.amount, 0));
+            entries.add(new TransactionLedger.Entry(leg.to, PostingType.TRANSFER_IN, leg.amount, 0));
+        }
+
+        List<Posting> postings = ledger.appendAll(entries);
+        for (Leg leg : legs) {
+            ((Withdrawable) leg.from).withdraw(leg.amount);
+            leg.to.deposit(leg.amount, description != null ? description : "Transfer from " + leg.from.getAccountNumber());
+        }
+        return new Applied(postings, Collections.unmodifiableMap(balances));
+    }
+
+    private static void addAccount(Map<String, Account> involved, Account account) {
+        Account existing = involved.putIfAbsent(account.getAccountNumber(), account);
+        if (existing != null && existing != account) {
+            throw new IllegalArgumentException("Two different accounts share number " + account.getAccountNumber());
+        }
+    }
+
+    private static <T> T lockAndRun(List<Account> accounts, int index, LockedWork<T> work) throws IOException {
+        if (index == accounts.size()) {
+            return work.run();
+        }
+        synchronized (accounts.get(index)) {
+            return lockAndRun(accounts, index + 1, work);
+        }
+    }
+
+    @FunctionalInterface
+    private interface LockedWork<T> {
+        T run() throws IOException;
+    }
+
+    private static final class Applied {
+        private final List<Posting> postings;
+        private final Map<String, Money> balancesAfter;
+
+        Applied(List<Posting> postings, Map<String, Money> balancesAfter) {
+            this.postings = postings;
+            this.balancesAfter = balancesAfter;
+        }
+    }
+
+    /**
+     * Persists a transfer once it is durable in the ledger. The postings hold each leg's debit
+     * and then its credit, in leg order.
+     */
+    public interface TransferWriter {
+        void writeTransfer(List<Leg> legs, List<Posting> postings, Map<String, Money> balancesAfter) throws SQLException;
+    }
+
+    public static final class Leg {
+        private final Account from;
+        private final Account to;
+        private final Money amount;
+
+        public Leg(Account from, Account to, Money amount) {
+            this.from = from;
+            this.to = to;
+            this.amount = amount;
+        }
+
+        public Account getFrom() { return from; }
+        public Account getTo() { return to; }
+        public Money getAmount() { return amount; }
+
+        private void validate() {
+            if (!amount.isPositive()) {
+                throw new IllegalArgumentException("Transfer amount must be positive");
+            }
+            if (from.getAccountNumber().equals(to.getAccountNumber())) {
+                throw new IllegalArgumentException("Cannot transfer to the same account");
+            }
+            if (!(from instanceof Withdrawable)) {
+                throw new IllegalArgumentException("Withdrawals are not allowed from " + from.getClass().getSimpleName());
+            }
+        }
+    }
+}
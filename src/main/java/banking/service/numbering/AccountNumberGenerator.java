@@ -0,0 +1,12 @@
+package banking.service.numbering;
+
+/**
+ * Source of new account numbers. Implementations must be safe to call from any thread and
+ * must never return the same number twice.
+ */
+public interface AccountNumberGenerator {
+
+    String PREFIX = "ACC";
+
+    String next(String branch);
+}
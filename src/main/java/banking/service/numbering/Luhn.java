@@ -0,0 +1,53 @@
+package banking.service.numbering;
+
+/**
+ * Luhn (mod 10) check digits, so mistyped account numbers are rejected before any lookup.
+ */
+public final class Luhn {
+
+    private Luhn() { }
+
+    public static int checkDigit(CharSequence digits) {
+        int sum = 0;
+        boolean doubleIt = true;
+        for (int i = digits.length() - 1; i >= 0; i--) {
+            int digit = digits.charAt(i) - '0';
+            if (digit < 0 || digit > 9) {
+                throw new IllegalArgumentException("Not a digit: " + digits.charAt(i));
+            }
+            if (doubleIt) {
+                digit *= 2;
+                if (digit > 9) {
+                    digit -= 9;
+                }
+            }
+            sum += digit;
+            doubleIt = !doubleIt;
+        }
+        return (10 - sum % 10) % 10;
+    }
+
+    // True when the last digit is the correct check digit for the ones before it
+    public static boolean isValid(CharSequence digitsWithCheck) {
+        int length = digitsWithCheck.length();
+        if (length < 2) {
+            return false;
+        }
+        char last = digitsWithCheck.charAt(length - 1);
+        return last - '0' == checkDigit(digitsWithCheck.subSequence(0, length - 1));
+    }
+
+    // Validates an account number such as "ACC1234567890" by its numeric part
+    public static boolean isValidAccountNumber(String accountNumber) {
+        if (accountNumber == null || !accountNumber.startsWith(AccountNumberGenerator.PREFIX)) {
+            return false;
+        }
+        String digits = accountNumber.substring(AccountNumberGenerator.PREFIX.length());
+        for (int i = 0; i < digits.length(); i++) {
+            if (!Character.isDigit(digits.charAt(i))) {
+                return false;
+            }
+        }
+        return isValid(digits);
+    }
+}
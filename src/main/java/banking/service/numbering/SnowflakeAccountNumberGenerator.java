@@ -0,0 +1,85 @@
+package banking.service.numbering;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Snowflake-style generator: 41 bits of milliseconds since {@link #EPOCH}, 12 bits of
+ * per-millisecond sequence and 10 bits of node id, followed by a Luhn check digit.
+ *
+ * The time and sequence are packed into one AtomicLong that only ever moves forward, so
+ * numbers are unique and increasing without locks. If more than 4096 numbers are requested
+ * in one millisecond the generator borrows from the next millisecond instead of waiting.
+ * The node id keeps numbers from different processes apart, so every process that opens
+ * accounts alongside others must be given its own with -Dbanking.node.id; {@link #MAX_NODE_ID}
+ * is reserved for the load generator. Only the single-process desktop application falls back
+ * to a default node id when none is given.
+ */
+public class SnowflakeAccountNumberGenerator implements AccountNumberGenerator {
+
+    public static final long EPOCH = 1704067200000L; // 2024-01-01T00:00:00Z
+    public static final int MAX_NODE_ID = (1 << 10) - 1;
+    public static final String NODE_ID_PROPERTY = "banking.node.id";
+
+    private static final int SEQUENCE_BITS = 12;
+    private static final int NODE_BITS = 10;
+
+    private static SnowflakeAccountNumberGenerator instance;
+
+    private final long nodeId;
+    private final AtomicLong lastState = new AtomicLong();
+
+    public SnowflakeAccountNumberGenerator(int nodeId) {
+        if (nodeId < 0 || nodeId > MAX_NODE_ID) {
+            throw new IllegalArgumentException("Node id must be between 0 and " + MAX_NODE_ID);
+        }
+        this.nodeId = nodeId;
+    }
+
+    // Creates the process-wide generator from the configured node id, or the default when none is set
+    public static synchronized SnowflakeAccountNumberGenerator initializeFromSystemProperties(int defaultNodeId) {
+        if (instance == null) {
+            String value = System.getProperty(NODE_ID_PROPERTY);
+            if (value == null || value.trim().isEmpty()) {
+                System.out.println("No -D" + NODE_ID_PROPERTY + " given; issuing account numbers as node "
+                    + defaultNodeId);
+                instance = new SnowflakeAccountNumberGenerator(defaultNodeId);
+            } else {
+                instance = fromSystemProperties();
+            }
+        }
+        return instance;
+    }
+
+    public static synchronized SnowflakeAccountNumberGenerator getInstance() {
+        if (instance == null) {
+            throw new IllegalStateException("Account number generator has not been initialized");
+        }
+        return instance;
+    }
+
+    // A generator for the node id in -Dbanking.node.id; there is no default, as a shared id could repeat numbers
+    public static SnowflakeAccountNumberGenerator fromSystemProperties() {
+        String value = System.getProperty(NODE_ID_PROPERTY);
+        if (value == null || value.trim().isEmpty()) {
+            throw new IllegalStateException("No node id configured; start with -D" + NODE_ID_PROPERTY
+                + "=<0 to " + (MAX_NODE_ID - 1) + ">, unique to this process");
+        }
+        try {
+            return new SnowflakeAccountNumberGenerator(Integer.parseInt(value.trim()));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalStateException("Invalid " + NODE_ID_PROPERTY + " \"" + value + "\": " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public String next(String branch) {
+        String id = Long.toString(nextId());
+        return PREFIX + id + Luhn.checkDigit(id);
+    }
+
+    public long nextId() {
+        long now = (System.currentTimeMillis() - EPOCH) << SEQUENCE_BITS;
+        long state = lastState.updateAndGet(last -> Math.max(now, last + 1));
+        return (state << NODE_BITS) | nodeId;
+    }
+}
@@ -0,0 +1,200 @@
+package banking.startup;
+
+import banking.database.ConnectionPool;
+import banking.database.DailyBalanceSnapshots;
+import banking.database.DepositBatcher;
+import banking.database.LedgerRecovery;
+import banking.database.QueryPlanAudit;
+import banking.database.RegistryLoader;
+import banking.database.SchemaMigrations;
+import banking.database.StatisticsLoader;
+import banking.ledger.TransactionLedger;
+import banking.metrics.Metrics;
+import banking.security.CredentialService;
+import banking.service.BankRegistry;
+import banking.service.BankStatistics;
+import main.java.banking.model.AccountEvents;
+
+import java.nio.file.Path;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Brings up the database and the services that use it on a background thread, so the login
+ * screen can render straight away.
+ *
+ * SQLite allows one writer at a time, so the schema stages run in order: load the driver and
+ * open the pool, seed sample data if there are no customers yet, create any missing base
+ * tables and apply migrations. The query plan audit, the registry load and the services that
+ * depend on the database then start in parallel. Once the registry is loaded the ledger is
+ * opened, any postings a crash kept out of the database are written, and the accounts take
+ * their balances from the ledger. The dashboard statistics are then seeded from the database
+ * and start following balance changes; only then can the deposit batcher post new ones.
+ * {@link #ready()} completes with the pool
+ * once all of them have finished, or fails with the first error. Stage timings are kept for
+ * the startup report and recorded under the "startup" metrics family.
+ */
+public final class StartupPipeline {
+
+    private static final String DRIVER = "org.sqlite.JDBC";
+
+    // Fills a database that has no customers yet
+    @FunctionalInterface
+    public interface Seeder {
+        void seed(ConnectionPool pool) throws Exception;
+    }
+
+    private final String url;
+    private final Path ledgerDirectory;
+    private final Seeder seeder;
+    private final Map<String, Long> stageNanos = new LinkedHashMap<>();
+    private final CompletableFuture<ConnectionPool> ready = new CompletableFuture<>();
+    private volatile boolean seeded;
+
+    private StartupPipeline(String url, Path ledgerDirectory, Seeder seeder) {
+        this.url = url;
+        this.ledgerDirectory = ledgerDirectory;
+        this.seeder = seeder;
+    }
+
+    // Starts the pipeline and returns at once
+    public static StartupPipeline start(String url, Path ledgerDirectory, Seeder seeder) {
+        StartupPipeline pipeline = new StartupPipeline(url, ledgerDirectory, seeder);
+        Thread thread = new Thread(pipeline::run, "database-startup");
+        thread.setDaemon(true);
+        thread.start();
+        return pipeline;
+    }
+
+    public CompletableFuture<ConnectionPool> ready() {
+        return ready;
+    }
+
+    // Whether this start found an empty database and seeded it
+    public boolean wasSeeded() {
+        return seeded;
+    }
+
+    // Milliseconds spent in each finished stage, in the order the stages finished
+    public Map<String, Double> getStageTimesMillis() {
+        Map<String, Double> times = new LinkedHashMap<>();
+        synchronized (stageNanos) {
+            for (Map.Entry<String, Long> entry : stageNanos.entrySet()) {
+                times.put(entry.getKey(), entry.getValue() / 1_000_000.0);
+            }
+        }
+        return times;
+    }
+
+    private void run() {
+        try (ExecutorService parallel = Executors.newVirtualThreadPerTaskExecutor()) {
+            stage("driver", this::loadDriver);
+            ConnectionPool pool = stage("pool", () -> ConnectionPool.initialize(url));
+            seeded = stage("seed", () -> seedIfEmpty(pool));
+            stage("migrations", () -> {
+                SchemaMigrations.createBaseTables(pool);
+                return SchemaMigrations.migrate(pool);
+            });
+
+            // Nothing below changes the schema, so these can overlap
+            CompletableFuture.allOf(
+                inParallel(parallel, "query_plan_audit", () -> {
+                    QueryPlanAudit.verify(pool);
+                    return null;
+                }),
+                inParallel(parallel, "registry", () -> RegistryLoader.initialize(pool))
+                    .thenCompose(loaded -> inParallel(parallel, "ledger", () -> openLedger(pool)))
+                    .thenCompose(opened -> inParallel(parallel, "statistics", () -> startStatistics(pool)))
+                    .thenCompose(counted -> inParallel(parallel, "deposits",
+                        () -> DepositBatcher.initialize(pool, TransactionLedger.getInstance()))),
+                inParallel(parallel, "snapshots", () -> DailyBalanceSnapshots.initialize(pool)),
+                inParallel(parallel, "credentials", () -> CredentialService.initialize(pool))
+            ).join();
+            ready.complete(pool);
+        } catch (CompletionException e) {
+            ready.completeExceptionally(e.getCause() != null ? e.getCause() : e);
+        } catch (Throwable e) {
+            ready.completeExceptionally(e);
+        }
+    }
+
+    private Class<?> loadDriver() {
+        try {
+            return Class.forName(DRIVER);
+        } catch (ClassNotFoundException e) {
+            throw new IllegalStateException("SQLite JDBC driver not found. Please ensure the driver is in the classpath.", e);
+        }
+    }
+
+    private TransactionLedger openLedger(ConnectionPool pool) throws Exception {
+        TransactionLedger ledger = TransactionLedger.initialize(ledgerDirectory);
+        LedgerRecovery.recover(pool, ledger);
+        ledger.restoreBalances(BankRegistry.getInstance().getAccounts());
+        return ledger;
+    }
+
+    // Nothing posts before the deposit batcher starts, so the seeded totals and the balances agree
+    private long startStatistics(ConnectionPool pool) throws SQLException {
+        BankStatistics statistics = BankStatistics.getInstance();
+        long accounts = StatisticsLoader.seed(pool, statistics, BankRegistry.getInstance());
+        AccountEvents.observeBalances(statistics);
+        statistics.startConsistencyChecks(BankRegistry.getInstance(), BankStatistics.CHECK_INTERVAL_MINUTES,
+            TimeUnit.MINUTES);
+        return accounts;
+    }
+
+    // Checking first means an existing database never pays for seeding
+    private boolean seedIfEmpty(ConnectionPool pool) throws Exception {
+        if (hasCustomers(pool)) {
+            return false;
+        }
+        seeder.seed(pool);
+        return true;
+    }
+
+    private static boolean hasCustomers(ConnectionPool pool) throws SQLException {
+        try (ConnectionPool.PooledConnection connection = pool.acquireReader()) {
+            PreparedStatement table = connection.prepare(
+                "SELECT 1 FROM sqlite_master WHERE type = 'table' AND name = 'customers'");
+            try (ResultSet rs = table.executeQuery()) {
+                if (!rs.next()) {
+                    return false;
+                }
+            }
+            PreparedStatement any = connection.prepare("SELECT EXISTS (SELECT 1 FROM customers)");
+            try (ResultSet rs = any.executeQuery()) {
+                return rs.next() && rs.getBoolean(1);
+            }
+        }
+    }
+
+    private CompletableFuture<Void> inParallel(ExecutorService executor, String name, Callable<?> work) {
+        return CompletableFuture.runAsync(() -> {
+            try {
+                stage(name, work);
+            } catch (Exception e) {
+                throw new CompletionException(e);
+            }
+        }, executor);
+    }
+
+    private <T> T stage(String name, Callable<T> work) throws Exception {
+        long start = System.nanoTime();
+        T result = work.call();
+        long elapsed = System.nanoTime() - start;
+        synchronized (stageNanos) {
+            stageNanos.put(name, elapsed);
+        }
+        Metrics.timer("startup", name).record(elapsed);
+        return result;
+    }
+}
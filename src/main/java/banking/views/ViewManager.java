@@ -0,0 +1,191 @@
+package banking.views;
+
+import banking.metrics.Metrics;
+import javafx.fxml.FXMLLoader;
+import javafx.scene.Parent;
+import javafx.scene.Scene;
+import javafx.stage.Stage;
+import javafx.stage.Window;
+
+import java.io.IOException;
+import java.net.URL;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Loads each FXML view once and keeps its root and controller for reuse.
+ *
+ * Views can be preloaded on a background thread: FXMLLoader may build a node graph off the
+ * FX thread as long as the nodes are not yet part of a showing scene. Showing a view after
+ * that is a scene swap. Controllers implementing {@link Resettable} are reset every time their
+ * view is shown, including the first, so anything that depends on who is logged in belongs in
+ * reset() rather than initialize(). A view that fails to load is not cached and is retried
+ * the next time it is asked for.
+ *
+ * A view manager serves one window, and its views and controllers belong to that window
+ * alone; another window gets a view manager of its own. Controllers implementing
+ * {@link WindowBound} are told the window once, when their view is loaded.
+ */
+public class ViewManager implements AutoCloseable {
+
+    public interface Resettable {
+        // Called on the FX thread just before the view is shown
+        void reset();
+    }
+
+    public interface WindowBound {
+        // Called once, after the view is loaded and before it is first reset, possibly off the FX thread
+        void attach(Window window);
+    }
+
+    private final Class<?> resourceBase;
+    private final Window window;
+    private final Map<String, CompletableFuture<View>> views = new ConcurrentHashMap<>();
+    private final ExecutorService preloader = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "view-preload");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // FXML files are resolved relative to the given class, as with Class.getResource
+    public ViewManager(Class<?> resourceBase, Window window) {
+        this.resourceBase = resourceBase;
+        this.window = window;
+    }
+
+    // Starts loading the views in the background; the future completes when all have finished
+    public CompletableFuture<Void> preload(String... fxmlFiles) {
+        CompletableFuture<?>[] loads = new CompletableFuture<?>[fxmlFiles.length];
+        for (int i = 0; i < fxmlFiles.length; i++) {
+            String fxml = fxmlFiles[i];
+            CompletableFuture<View> created = new CompletableFuture<>();
+            CompletableFuture<View> existing = views.putIfAbsent(fxml, created);
+            if (existing != null) {
+                loads[i] = existing;
+            } else {
+                loads[i] = created;
+                preloader.execute(() -> loadInto(fxml, created));
+            }
+        }
+        return CompletableFuture.allOf(loads);
+    }
+
+    /**
+     * The view, reset and ready to show. Waits if it is still preloading and loads it on the
+     * calling thread if it was never preloaded. Must be called on the FX thread.
+     */
+    public View show(String fxml) throws IOException {
+        CompletableFuture<View> future = views.get(fxml);
+        if (future == null) {
+            CompletableFuture<View> created = new CompletableFuture<>();
+            future = views.putIfAbsent(fxml, created);
+            if (future == null) {
+                future = created;
+                loadInto(fxml, created);
+            }
+        }
+
+        View view;
+        try {
+            view = future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IOException("Failed to load " + fxml, e.getCause());
+        }
+        if (view.controller instanceof Resettable) {
+            ((Resettable) view.controller).reset();
+        }
+        return view;
+    }
+
+    // Load time in milliseconds of every view loaded so far, by file name
+    public Map<String, Double> getLoadTimesMillis() {
+        Map<String, Double> times = new TreeMap<>();
+        for (Map.Entry<String, CompletableFuture<View>> entry : views.entrySet()) {
+            View view = entry.getValue().getNow(null);
+            if (view != null) {
+                times.put(entry.getKey(), view.loadNanos / 1_000_000.0);
+            }
+        }
+        return times;
+    }
+
+    @Override
+    public void close() {
+        preloader.shutdownNow();
+    }
+
+    private void loadInto(String fxml, CompletableFuture<View> future) {
+        try {
+            future.complete(load(fxml));
+        } catch (Throwable e) {
+            views.remove(fxml, future);
+            future.completeExceptionally(e);
+        }
+    }
+
+    private View load(String fxml) throws IOException {
+        URL resource = resourceBase.getResource(fxml);
+        if (resource == null) {
+            throw new IOException("View not found: " + fxml);
+        }
+        Metrics.Timer timer = Metrics.timer("view_load", fxml);
+        long start = System.nanoTime();
+        FXMLLoader loader = new FXMLLoader(resource);
+        Parent root = loader.load();
+        long elapsed = System.nanoTime() - start;
+        timer.record(elapsed);
+        Object controller = loader.getController();
+        if (controller instanceof WindowBound) {
+            ((WindowBound) controller).attach(window);
+        }
+        return new View(root, controller, elapsed);
+    }
+
+    public static final class View {
+        private final Parent root;
+        private final Object controller;
+        private final long loadNanos;
+        // Created on first show and only touched on the FX thread
+        private Scene scene;
+        private Stage dialog;
+
+        View(Parent root, Object controller, long loadNanos) {
+            this.root = root;
+            this.controller = controller;
+            this.loadNanos = loadNanos;
+        }
+
+        public Parent getRoot() { return root; }
+        public long getLoadNanos() { return loadNanos; }
+
+        @SuppressWarnings("unchecked")
+        public <T> T getController() { return (T) controller; }
+
+        // The view's scene; the size only applies the first time
+        public Scene getScene(double width, double height) {
+            if (scene == null) {
+                scene = new Scene(root, width, height);
+            }
+            return scene;
+        }
+
+        // A window of its own for the view, created on first use and reused after it is closed
+        public Stage getDialog(Window owner, String title, double width, double height) {
+            if (dialog == null) {
+                dialog = new Stage();
+                dialog.setTitle(title);
+                dialog.setScene(getScene(width, height));
+                dialog.initOwner(owner);
+            }
+            return dialog;
+        }
+    }
+}
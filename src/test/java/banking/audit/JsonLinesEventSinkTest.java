@@ -0,0 +1,140 @@
+package banking.audit;
+
+import main.java.banking.model.Account;
+import main.java.banking.model.AccountEvent;
+import main.java.banking.model.AccountEvents;
+import main.java.banking.model.ChequeAccount;
+import main.java.banking.model.CompanyCustomer;
+import main.java.banking.model.Money;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.api.Test;
+
+import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class JsonLinesEventSinkTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void closeDrainsEveryPublishedEventAsOneJsonLine() throws Exception {
+        StringWriter out = new StringWriter();
+        JsonLinesEventSink sink = new JsonLinesEventSink(out, 32);
+        for (int i = 1; i <= 20; i++) {
+            sink.publish(event(AccountEvent.Type.DEPOSIT, "ACC-" + i, i * 100, i * 1000, null));
+        }
+        sink.publish(event(AccountEvent.Type.WITHDRAWAL, "ACC-\"x\"", 5, 95, "Line\nbreak \\ slash"));
+        sink.close();
+
+        assertFalse(sink.isEnabled());
+        assertEquals(0, sink.getDroppedCount());
+        List<String> lines = Arrays.asList(out.toString().split("\n"));
+        assertEquals(21, lines.size());
+        assertTrue(lines.get(0).matches(
+            "\\{\"ts\":\\d+,\"type\":\"DEPOSIT\",\"account\":\"ACC-1\",\"amountThebe\":100,\"balanceThebe\":1000}"),
+            lines.get(0));
+        assertTrue(lines.get(lines.size() - 1).endsWith(
+            ",\"type\":\"WITHDRAWAL\",\"account\":\"ACC-\\\"x\\\"\",\"amountThebe\":5,\"balanceThebe\":95,"
+                + "\"description\":\"Line\\u000abreak \\\\ slash\"}"),
+            lines.get(lines.size() - 1));
+    }
+
+    @Test
+    void eventsPublishedWhileTheRingIsFullAreDroppedAndCounted() throws Exception {
+        CountDownLatch writing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        StringWriter written = new StringWriter();
+        Writer stalled = new Writer() {
+            @Override
+            public void write(char[] chars, int offset, int length) {
+                written.write(chars, offset, length);
+            }
+
+            @Override
+            public void flush() {
+                if (written.getBuffer().length() == 0) {
+                    return;
+                }
+                writing.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+        JsonLinesEventSink sink = new JsonLinesEventSink(stalled, 4);
+        try {
+            sink.publish(event(AccountEvent.Type.DEPOSIT, "ACC-0", 1, 1, null));
+            // The writer thread takes the first event, finds the ring empty and blocks in flush
+            assertTrue(writing.await(5, TimeUnit.SECONDS));
+            for (int i = 1; i <= 10; i++) {
+                sink.publish(event(AccountEvent.Type.DEPOSIT, "ACC-" + i, 1, 1, null));
+            }
+            assertEquals(6, sink.getDroppedCount());
+        } finally {
+            release.countDown();
+            sink.close();
+        }
+
+        String[] lines = written.toString().split("\n");
+        assertEquals(5, lines.length);
+        for (int i = 0; i < lines.length; i++) {
+            assertTrue(lines[i].contains("\"account\":\"ACC-" + i + "\""), lines[i]);
+        }
+    }
+
+    @Test
+    void installFromSystemPropertiesAppendsAccountEventsToTheNamedFile() throws Exception {
+        Path file = directory.resolve("audit.jsonl");
+        String previous = System.getProperty(JsonLinesEventSink.FILE_PROPERTY);
+        System.clearProperty(JsonLinesEventSink.FILE_PROPERTY);
+        try {
+            assertNull(JsonLinesEventSink.installFromSystemProperties());
+            assertFalse(AccountEvents.getSink().isEnabled());
+
+            System.setProperty(JsonLinesEventSink.FILE_PROPERTY, file.toString());
+            JsonLinesEventSink sink = JsonLinesEventSink.installFromSystemProperties();
+            Account account = new ChequeAccount("ACC-1", new CompanyCustomer("Gaborone", "Acme", "REG-1"), "Main");
+            account.deposit(Money.ofThebe(25_00), "Counter deposit");
+            account.deposit(Money.ofThebe(5_00), "Counter deposit");
+            sink.close();
+
+            List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+            assertEquals(2, lines.size());
+            assertTrue(lines.get(1).endsWith(",\"type\":\"DEPOSIT\",\"account\":\"ACC-1\",\"amountThebe\":500,"
+                + "\"balanceThebe\":3000,\"description\":\"Counter deposit\"}"), lines.get(1));
+            assertEquals(0, sink.getDroppedCount());
+        } finally {
+            AccountEvents.install(null);
+            if (previous == null) {
+                System.clearProperty(JsonLinesEventSink.FILE_PROPERTY);
+            } else {
+                System.setProperty(JsonLinesEventSink.FILE_PROPERTY, previous);
+            }
+        }
+    }
+
+    private static AccountEvent event(AccountEvent.Type type, String accountNumber, long amount, long balance,
+                                      String description) {
+        return new AccountEvent(type, accountNumber, "Main", "ChequeAccount", Money.ofThebe(amount),
+            Money.ofThebe(balance), description);
+    }
+}
@@ -0,0 +1,114 @@
+package banking.database;
+
+import banking.ledger.TransactionLedger;
+import main.java.banking.model.Account;
+import main.java.banking.model.ChequeAccount;
+import main.java.banking.model.CompanyCustomer;
+import main.java.banking.model.Money;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DepositBatcherTest {
+
+    @TempDir
+    Path directory;
+
+    private final List<Long> written = new CopyOnWriteArrayList<>();
+
+    @Test
+    void depositsToOneAccountDoNotWaitForAnotherAccountsLock() throws Exception {
+        Account busy = newAccount("ACC-1");
+        Account idle = newAccount("ACC-2");
+        try (TransactionLedger ledger = TransactionLedger.open(directory);
+             DepositBatcher batcher = new DepositBatcher(this::record, ledger, 16, 16, 1)) {
+            CompletableFuture<Money> blocked;
+            synchronized (busy) {
+                blocked = CompletableFuture.supplyAsync(() -> submit(batcher, busy, 5_00)).thenCompose(f -> f);
+                // Waits on ACC-1's lock, inside the batcher, until the block ends
+                Thread.sleep(100);
+                assertEquals(Money.ofThebe(7_00), batcher.submit(idle, Money.ofThebe(7_00), "Counter deposit")
+                    .get(5, TimeUnit.SECONDS));
+                assertFalse(blocked.isDone());
+            }
+            assertEquals(Money.ofThebe(5_00), blocked.get(5, TimeUnit.SECONDS));
+        }
+        assertEquals(2, written.size());
+    }
+
+    @Test
+    void closingTheLedgerUnderAPendingBatchNeitherHangsNorLeaksCapacity() throws Exception {
+        Account account = newAccount("ACC-1");
+        // A long group commit delay, so the deposit is still waiting to be durable at close
+        TransactionLedger ledger = TransactionLedger.open(directory, TimeUnit.MINUTES.toMillis(10));
+        try (DepositBatcher batcher = new DepositBatcher(this::record, ledger, 1, 16, 1)) {
+            CompletableFuture<Money> pending = batcher.submit(account, Money.ofThebe(5_00), "Counter deposit");
+            Thread.sleep(50);
+            assertFalse(pending.isDone());
+
+            ledger.close();
+            // The ledger's final flush made the deposit durable, so the batch is written
+            assertEquals(Money.ofThebe(5_00), pending.get(5, TimeUnit.SECONDS));
+            assertEquals(1, written.size());
+
+            // Capacity is one, so this would wait out the submit timeout had the first permit leaked
+            long start = System.nanoTime();
+            assertThrows(IllegalStateException.class,
+                () -> batcher.submit(account, Money.ofThebe(1_00), "Counter deposit"));
+            assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(5));
+        }
+    }
+
+    @Test
+    void aFailedDatabaseWriteStillCompletesTheDurableDepositsAndTheWriterCarriesOn() throws Exception {
+        Account account = newAccount("ACC-1");
+        boolean[] failNext = {true};
+        DepositBatcher.BatchWriter flaky = batch -> {
+            if (failNext[0]) {
+                failNext[0] = false;
+                throw new IllegalStateException("database is locked");
+            }
+            return record(batch);
+        };
+        try (TransactionLedger ledger = TransactionLedger.open(directory);
+             DepositBatcher batcher = new DepositBatcher(flaky, ledger, 1, 16, 1)) {
+            // In the ledger, so recovery writes it at the next start
+            assertEquals(Money.ofThebe(5_00),
+                batcher.submit(account, Money.ofThebe(5_00), "Counter deposit").get(5, TimeUnit.SECONDS));
+            assertEquals(1, batcher.getFailedWrites());
+
+            assertEquals(Money.ofThebe(6_00),
+                batcher.submit(account, Money.ofThebe(1_00), "Counter deposit").get(5, TimeUnit.SECONDS));
+        }
+        assertEquals(1, written.size());
+    }
+
+    private int record(List<DepositBatcher.PendingDeposit> batch) {
+        for (DepositBatcher.PendingDeposit deposit : batch) {
+            written.add(deposit.getPosting().getSequence());
+        }
+        return 0;
+    }
+
+    private static CompletableFuture<Money> submit(DepositBatcher batcher, Account account, long thebe) {
+        try {
+            return batcher.submit(account, Money.ofThebe(thebe), "Counter deposit");
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static Account newAccount(String accountNumber) {
+        return new ChequeAccount(accountNumber, new CompanyCustomer("Gaborone", "Acme", "REG-1"), "Main");
+    }
+}
@@ -0,0 +1,77 @@
+package banking.database;
+
+import banking.ledger.Posting;
+import banking.ledger.PostingType;
+import banking.ledger.TransactionLedger;
+import banking.service.TransferEngine;
+import main.java.banking.model.Account;
+import main.java.banking.model.ChequeAccount;
+import main.java.banking.model.CompanyCustomer;
+import main.java.banking.model.Customer;
+import main.java.banking.model.Money;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class JdbcTransferWriterTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void multiLegTransfersGetTheRunningBalanceRecoveryWouldWrite() throws Exception {
+        Customer owner = new CompanyCustomer("Gaborone", "Acme", "REG-1");
+        Account a = newAccount("ACC-A", owner, 100_00);
+        Account b = newAccount("ACC-B", owner, 50_00);
+        Account c = newAccount("ACC-C", owner, 0);
+
+        List<Posting> written = new ArrayList<>();
+        List<Money> live = new ArrayList<>();
+        Map<Long, Money> recovered = new HashMap<>();
+        try (TransactionLedger ledger = TransactionLedger.open(directory)) {
+            TransferEngine engine = new TransferEngine(ledger, (legs, postings, balancesAfter) -> {
+                written.addAll(postings);
+                live.addAll(JdbcTransferWriter.runningBalances(postings, balancesAfter));
+            });
+            engine.execute(List.of(
+                new TransferEngine.Leg(a, b, Money.ofThebe(30_00)),
+                new TransferEngine.Leg(b, c, Money.ofThebe(60_00)),
+                new TransferEngine.Leg(a, c, Money.ofThebe(10_00))), null);
+
+            ledger.replay((posting, balanceAfter) -> recovered.put(posting.getSequence(), balanceAfter));
+        }
+
+        assertEquals(6, written.size());
+        for (int i = 0; i < written.size(); i++) {
+            assertEquals(recovered.get(written.get(i).getSequence()), live.get(i), written.get(i).toString());
+        }
+        // a: 100 -> 70 -> 60; b: 50 -> 80 -> 20; c: 0 -> 60 -> 70
+        assertEquals(Money.ofThebe(70_00), live.get(0));
+        assertEquals(Money.ofThebe(80_00), live.get(1));
+        assertEquals(Money.ofThebe(20_00), live.get(2));
+        assertEquals(Money.ofThebe(60_00), live.get(3));
+        assertEquals(Money.ofThebe(60_00), live.get(4));
+        assertEquals(Money.ofThebe(70_00), live.get(5));
+    }
+
+    @Test
+    void transferRowsRecordTheirDirection() {
+        assertEquals("Transfer Out", LedgerRows.transactionType(
+            new Posting(1, 0, "ACC-A", PostingType.TRANSFER_OUT, Money.ofThebe(1), 0)));
+        assertEquals("Transfer In", LedgerRows.transactionType(
+            new Posting(2, 0, "ACC-B", PostingType.TRANSFER_IN, Money.ofThebe(1), 0)));
+    }
+
+    private static Account newAccount(String number, Customer owner, long thebe) {
+        Account account = new ChequeAccount(number, owner, "Main");
+        account.restoreBalance(Money.ofThebe(thebe));
+        return account;
+    }
+}
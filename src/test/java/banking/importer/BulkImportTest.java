@@ -0,0 +1,42 @@
+package banking.importer;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class BulkImportTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void aResumedRunKeepsTheRejectionsOfCommittedLines() throws Exception {
+        Path report = directory.resolve("errors.csv");
+        Files.write(report, List.of(
+            "line,reason",
+            "3,\"missing owner\"",
+            "7,\"bad type\"",
+            "12,\"negative balance\"",
+            "15,\"missing branch\""), StandardCharsets.UTF_8);
+
+        assertEquals(2, BulkImport.keepRejectionsThrough(report, 11));
+        assertEquals(List.of("line,reason", "3,\"missing owner\"", "7,\"bad type\""),
+            Files.readAllLines(report, StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void aRejectionOnTheLastCommittedLineIsKept() throws Exception {
+        Path report = directory.resolve("errors.csv");
+        Files.write(report, List.of("line,reason", "12,\"negative balance\""), StandardCharsets.UTF_8);
+
+        assertEquals(1, BulkImport.keepRejectionsThrough(report, 12));
+        assertEquals(List.of("line,reason", "12,\"negative balance\""),
+            Files.readAllLines(report, StandardCharsets.UTF_8));
+    }
+}
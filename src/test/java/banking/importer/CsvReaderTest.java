@@ -0,0 +1,45 @@
+package banking.importer;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.StringReader;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class CsvReaderTest {
+
+    @Test
+    void plainFieldsAreSplitOnCommasAndTrimmed() {
+        assertFields(CsvReader.parse("Neo , Molefe,  Main "), "Neo", "Molefe", "Main");
+    }
+
+    @Test
+    void quotedFieldsKeepTheirCommasAndEscapedQuotes() {
+        assertFields(CsvReader.parse("\"Plot 1, Gaborone\",\"Kgalagadi \"\"KT\"\" Traders\",\"\""),
+            "Plot 1, Gaborone", "Kgalagadi \"KT\" Traders", "");
+    }
+
+    @Test
+    void emptyFieldsAreKept() {
+        assertFields(CsvReader.parse("a,,b,"), "a", "", "b", "");
+        assertFields(CsvReader.parse(""), "");
+    }
+
+    @Test
+    void blankLinesAreSkippedButCounted() throws Exception {
+        try (CsvReader reader = new CsvReader(new BufferedReader(new StringReader("a,b\n\n   \nc,d\n")))) {
+            assertFields(reader.next(), "a", "b");
+            assertEquals(1, reader.getLineNumber());
+            assertFields(reader.next(), "c", "d");
+            assertEquals(4, reader.getLineNumber());
+            assertNull(reader.next());
+        }
+    }
+
+    private static void assertFields(String[] actual, String... expected) {
+        assertEquals(String.join("|", expected), String.join("|", actual));
+        assertEquals(expected.length, actual.length);
+    }
+}
@@ -0,0 +1,261 @@
+package banking.ledger;
+
+import main.java.banking.model.Account;
+import main.java.banking.model.ChequeAccount;
+import main.java.banking.model.CompanyCustomer;
+import main.java.banking.model.Money;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TransactionLedgerTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void reopeningReplaysBalancesIntoTheAccounts() throws Exception {
+        Account account = newAccount("ACC-1", 50_00);
+        try (TransactionLedger ledger = TransactionLedger.open(directory)) {
+            post(ledger, account, PostingType.DEPOSIT, 25_00);
+            post(ledger, account, PostingType.WITHDRAWAL, 10_00);
+        }
+
+        Account reloaded = newAccount("ACC-1", 0);
+        Account unknown = newAccount("ACC-2", 7_00);
+        try (TransactionLedger ledger = TransactionLedger.open(directory)) {
+            // The opening balance, the deposit and the withdrawal
+            assertEquals(3, ledger.getLastSequence());
+            assertEquals(1, ledger.restoreBalances(Arrays.asList(reloaded, unknown)));
+            assertEquals(Money.ofThebe(65_00), reloaded.getBalance());
+            assertEquals(Money.ofThebe(7_00), unknown.getBalance());
+        }
+    }
+
+    @Test
+    void durablePostingsSurviveAProcessThatNeverClosedTheLedger() throws Exception {
+        Account account = newAccount("ACC-1", 0);
+        TransactionLedger ledger = TransactionLedger.open(directory);
+        try {
+            long last = 0;
+            for (int i = 0; i < 100; i++) {
+                last = append(ledger, account, PostingType.DEPOSIT, 1_00).getSequence();
+            }
+            ledger.awaitDurable(last);
+
+            // What a crash right now would leave on disk
+            Path crashed = copyOf(directory);
+            try (TransactionLedger recovered = TransactionLedger.open(crashed)) {
+                assertEquals(last, recovered.getLastSequence());
+                assertEquals(Money.ofThebe(100_00), recovered.getBalance("ACC-1"));
+            }
+        } finally {
+            ledger.close();
+        }
+    }
+
+    @Test
+    void aTornRecordDropsTheRestOfItsGroup() throws Exception {
+        Account from = newAccount("ACC-1", 100_00);
+        Account to = newAccount("ACC-2", 0);
+        try (TransactionLedger ledger = TransactionLedger.open(directory)) {
+            post(ledger, from, PostingType.DEPOSIT, 1_00);
+            synchronized (from) {
+                synchronized (to) {
+                    // Out, opening for ACC-2, in: sequences 3 to 5
+                    ledger.appendAll(Arrays.asList(
+                        new TransactionLedger.Entry(from, PostingType.TRANSFER_OUT, Money.ofThebe(30_00), 0),
+                        new TransactionLedger.Entry(to, PostingType.TRANSFER_IN, Money.ofThebe(30_00), 0)));
+                }
+            }
+        }
+        corrupt(5);
+
+        try (TransactionLedger ledger = TransactionLedger.open(directory)) {
+            assertEquals(2, ledger.getLastSequence());
+            assertEquals(Money.ofThebe(101_00), ledger.getBalance("ACC-1"));
+            assertFalse(ledger.hasAccount("ACC-2"));
+        }
+    }
+
+    @Test
+    void recordsPastACrashAreNeverReplayedAfterNewOnes() throws Exception {
+        Account account = newAccount("ACC-1", 0);
+        try (TransactionLedger ledger = TransactionLedger.open(directory)) {
+            for (int i = 0; i < 8; i++) {
+                post(ledger, account, PostingType.DEPOSIT, 1_00);
+            }
+        }
+        // Sequence 4 was torn; 5 to 9 are intact but came after it
+        corrupt(4);
+
+        try (TransactionLedger ledger = TransactionLedger.open(directory)) {
+            assertEquals(3, ledger.getLastSequence());
+            for (int i = 0; i < 6; i++) {
+                post(ledger, account, PostingType.DEPOSIT, 10_00);
+            }
+        }
+
+        try (TransactionLedger ledger = TransactionLedger.open(directory)) {
+            assertEquals(9, ledger.getLastSequence());
+            assertEquals(Money.ofThebe(2_00 + 60_00), ledger.getBalance("ACC-1"));
+        }
+    }
+
+    @Test
+    void closeMakesPendingPostingsDurableBeforeReleasingWaiters() throws Exception {
+        Account account = newAccount("ACC-1", 0);
+        // A long group commit delay, so only close() can make the posting durable in time
+        TransactionLedger ledger = TransactionLedger.open(directory, TimeUnit.MINUTES.toMillis(10));
+        long sequence = append(ledger, account, PostingType.DEPOSIT, 5_00).getSequence();
+        CompletableFuture<Void> waiter = CompletableFuture.runAsync(() -> {
+            try {
+                ledger.awaitDurable(sequence);
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+
+        ledger.close();
+        waiter.get(10, TimeUnit.SECONDS);
+        assertEquals(sequence, ledger.getDurableSequence());
+        assertThrows(IllegalStateException.class, () -> append(ledger, account, PostingType.DEPOSIT, 1_00));
+
+        try (TransactionLedger reopened = TransactionLedger.open(directory)) {
+            assertEquals(Money.ofThebe(5_00), reopened.getBalance("ACC-1"));
+        }
+    }
+
+    @Test
+    void postingsNeedTheAccountLockAndValidAmounts() throws Exception {
+        Account account = newAccount("ACC-1", 0);
+        try (TransactionLedger ledger = TransactionLedger.open(directory)) {
+            assertThrows(IllegalStateException.class,
+                () -> ledger.append(account, PostingType.DEPOSIT, Money.ofThebe(1_00), 0));
+            assertThrows(IllegalArgumentException.class, () -> append(ledger, account, PostingType.DEPOSIT, 0));
+            assertEquals(0, ledger.getLastSequence());
+        }
+    }
+
+    @Test
+    void aDirectoryCanOnlyBeOpenedByOneLedgerAtATime() throws Exception {
+        try (TransactionLedger ledger = TransactionLedger.open(directory)) {
+            IOException e = assertThrows(IOException.class, () -> TransactionLedger.open(directory));
+            assertTrue(e.getMessage().contains("already open"), e.getMessage());
+            // The failed open left the first ledger working
+            post(ledger, newAccount("ACC-1", 0), PostingType.DEPOSIT, 1_00);
+        }
+        try (TransactionLedger reopened = TransactionLedger.open(directory)) {
+            assertEquals(2, reopened.getLastSequence());
+        }
+    }
+
+    @Test
+    void aCheckpointRetiresTheSegmentsItCoversAndReopeningStartsFromIt() throws Exception {
+        Account account = newAccount("ACC-1", 5_00);
+        long total = TransactionLedger.RECORDS_PER_SEGMENT + 100;
+        try (TransactionLedger ledger = TransactionLedger.open(directory)) {
+            synchronized (account) {
+                ledger.append(account, PostingType.INTEREST, Money.ofThebe(1), 202610);
+                // The opening posting and the interest posting come first
+                for (long sequence = 3; sequence <= total; ) {
+                    List<TransactionLedger.Entry> group = new ArrayList<>();
+                    for (int i = 0; i < 1_000 && sequence <= total; i++, sequence++) {
+                        group.add(new TransactionLedger.Entry(account, PostingType.DEPOSIT, Money.ofThebe(1), 0));
+                    }
+                    ledger.appendAll(group);
+                }
+            }
+            ledger.awaitDurable(total);
+
+            // Only whole segments are retired, so the tail past the last one stays
+            assertEquals(TransactionLedger.RECORDS_PER_SEGMENT, ledger.checkpoint(total));
+            assertFalse(Files.exists(directory.resolve("ledger-00000000.seg")));
+            List<Long> replayed = new ArrayList<>();
+            ledger.replay((posting, balanceAfter) -> {
+                replayed.add(posting.getSequence());
+                assertEquals(Money.ofThebe(5_00 + posting.getSequence() - 1), balanceAfter);
+            });
+            assertEquals(100, replayed.size());
+            assertEquals(TransactionLedger.RECORDS_PER_SEGMENT + 1, (long) replayed.get(0));
+        }
+
+        try (TransactionLedger ledger = TransactionLedger.open(directory)) {
+            assertEquals(total, ledger.getLastSequence());
+            assertEquals(TransactionLedger.RECORDS_PER_SEGMENT, ledger.getCheckpointSequence());
+            assertEquals(Money.ofThebe(5_00 + total - 1), ledger.getBalance("ACC-1"));
+            assertTrue(ledger.hasReference("ACC-1", PostingType.INTEREST, 202610));
+            post(ledger, account, PostingType.DEPOSIT, 1_00);
+        }
+        try (TransactionLedger ledger = TransactionLedger.open(directory)) {
+            assertEquals(total + 1, ledger.getLastSequence());
+            assertEquals(Money.ofThebe(5_00 + total - 1 + 1_00), ledger.getBalance("ACC-1"));
+        }
+    }
+
+    @Test
+    void aCheckpointBeforeTheFirstWholeSegmentChangesNothing() throws Exception {
+        Account account = newAccount("ACC-1", 0);
+        try (TransactionLedger ledger = TransactionLedger.open(directory)) {
+            post(ledger, account, PostingType.DEPOSIT, 1_00);
+            assertEquals(0, ledger.checkpoint(ledger.getDurableSequence()));
+            assertTrue(Files.exists(directory.resolve("ledger-00000000.seg")));
+        }
+    }
+
+    private static Account newAccount(String accountNumber, long thebe) {
+        Account account = new ChequeAccount(accountNumber, new CompanyCustomer("Gaborone", "Acme", "REG-1"), "Main");
+        account.restoreBalance(Money.ofThebe(thebe));
+        return account;
+    }
+
+    private static Posting append(TransactionLedger ledger, Account account, PostingType type, long thebe)
+            throws IOException {
+        synchronized (account) {
+            return ledger.append(account, type, Money.ofThebe(thebe), 0);
+        }
+    }
+
+    private static void post(TransactionLedger ledger, Account account, PostingType type, long thebe)
+            throws IOException, InterruptedException {
+        ledger.awaitDurable(append(ledger, account, type, thebe).getSequence());
+    }
+
+    // Flips a byte in the amount of the record, as a write cut off by a power failure could
+    private void corrupt(long sequence) throws IOException {
+        try (RandomAccessFile file = new RandomAccessFile(directory.resolve("ledger-00000000.seg").toFile(), "rw")) {
+            long offset = (sequence - 1) * TransactionLedger.RECORD_SIZE + 16;
+            file.seek(offset);
+            int value = file.read();
+            file.seek(offset);
+            file.write(value ^ 0xFF);
+        }
+    }
+
+    private Path copyOf(Path source) throws IOException {
+        Path target = Files.createDirectory(source.resolveSibling(source.getFileName() + "-crashed"));
+        try (Stream<Path> files = Files.list(source)) {
+            List<Path> segments = files.toList();
+            for (Path segment : segments) {
+                Files.copy(segment, target.resolve(segment.getFileName()));
+            }
+        }
+        assertTrue(Files.exists(target.resolve("ledger-00000000.seg")));
+        return target;
+    }
+}
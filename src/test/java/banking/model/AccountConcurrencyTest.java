@@ -0,0 +1,123 @@
+package main.java.banking.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AccountConcurrencyTest {
+
+    private static final int THREADS = 8;
+    private static final int OPERATIONS = 20_000;
+
+    @Test
+    void concurrentDepositsAreNotLost() throws Exception {
+        ChequeAccount account = newChequeAccount();
+
+        runConcurrently(thread -> {
+            for (int i = 0; i < OPERATIONS; i++) {
+                account.deposit(Money.ofThebe(1));
+            }
+        });
+
+        assertEquals(Money.ofThebe((long) THREADS * OPERATIONS), account.getBalance());
+    }
+
+    @Test
+    void interleavedDepositsAndWithdrawalsLeaveTheOpeningBalance() throws Exception {
+        ChequeAccount account = newChequeAccount();
+        account.deposit(Money.ofThebe(1_000_00));
+
+        runConcurrently(thread -> {
+            for (int i = 0; i < OPERATIONS; i++) {
+                if ((i + thread) % 2 == 0) {
+                    account.deposit(Money.ofThebe(7));
+                } else {
+                    account.withdraw(Money.ofThebe(7));
+                }
+            }
+        });
+
+        assertEquals(Money.ofThebe(1_000_00), account.getBalance());
+    }
+
+    @Test
+    void competingWithdrawalsNeverOverdraw() throws Exception {
+        ChequeAccount account = newChequeAccount();
+        account.deposit(Money.ofThebe(5_000));
+        AtomicInteger succeeded = new AtomicInteger();
+        AtomicInteger refused = new AtomicInteger();
+
+        runConcurrently(thread -> {
+            for (int i = 0; i < 1_000; i++) {
+                try {
+                    account.withdraw(Money.ofThebe(1));
+                    succeeded.incrementAndGet();
+                } catch (IllegalArgumentException e) {
+                    refused.incrementAndGet();
+                }
+            }
+        });
+
+        assertEquals(5_000, succeeded.get());
+        assertEquals(THREADS * 1_000 - 5_000, refused.get());
+        assertEquals(Money.ZERO, account.getBalance());
+    }
+
+    @Test
+    void interestIsAppliedToTheBalanceAtThatMoment() throws Exception {
+        SavingsAccount account = new SavingsAccount("SAV-1", new CompanyCustomer("Gaborone", "Acme", "REG-1"), "Main");
+
+        runConcurrently(thread -> {
+            for (int i = 0; i < OPERATIONS; i++) {
+                account.deposit(Money.ofThebe(100));
+            }
+        });
+        account.applyMonthlyInterest();
+
+        // 7.5% company rate on every deposit made before the interest posting
+        long deposited = (long) THREADS * OPERATIONS * 100;
+        assertEquals(Money.ofThebe(deposited + deposited * 75 / 1000), account.getBalance());
+    }
+
+    private static ChequeAccount newChequeAccount() {
+        return new ChequeAccount("CHQ-1", new CompanyCustomer("Gaborone", "Acme", "REG-1"), "Main");
+    }
+
+    private interface Worker {
+        void run(int thread);
+    }
+
+    // Starts every worker at once, so they contend for the account from the first operation
+    private static void runConcurrently(Worker worker) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        try {
+            for (int t = 0; t < THREADS; t++) {
+                int thread = t;
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    worker.run(thread);
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+            assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+        }
+    }
+}
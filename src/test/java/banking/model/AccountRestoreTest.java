@@ -0,0 +1,34 @@
+package main.java.banking.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Date;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AccountRestoreTest {
+
+    @Test
+    void aRejectedAccountIsNotAddedToItsOwner() {
+        IndividualCustomer unemployed = new IndividualCustomer("Plot 1, Gaborone", "Neo", "Molefe", new Date());
+
+        assertThrows(IllegalArgumentException.class, () -> new ChequeAccount("ACC-CHQ", unemployed, "Main"));
+        assertThrows(IllegalArgumentException.class,
+            () -> new InvestmentAccount("ACC-INV", unemployed, "Main", Money.ofThebe(1_00)));
+        assertTrue(unemployed.getAccounts().isEmpty());
+    }
+
+    @Test
+    void storedAccountsAreRestoredWithoutTheOpeningRules() {
+        IndividualCustomer unemployed = new IndividualCustomer("Plot 1, Gaborone", "Neo", "Molefe", new Date());
+
+        ChequeAccount cheque = ChequeAccount.restore("ACC-CHQ", unemployed, "Main", Money.ofThebe(12_34));
+        InvestmentAccount investment = InvestmentAccount.restore("ACC-INV", unemployed, "Main", Money.ofThebe(1_00));
+
+        assertEquals(Money.ofThebe(12_34), cheque.getBalance());
+        assertEquals(Money.ofThebe(1_00), investment.getBalance());
+        assertEquals(2, unemployed.getAccounts().size());
+    }
+}
@@ -0,0 +1,183 @@
+package main.java.banking.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.RoundingMode;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MoneyTest {
+
+    @Test
+    void parseAcceptsWholeAndTwoPlaceAmounts() {
+        assertEquals(15_000, Money.parse("150").getThebe());
+        assertEquals(15_025, Money.parse("150.25").getThebe());
+        assertEquals(15_020, Money.parse("150.2").getThebe());
+        assertEquals(-1_050, Money.parse("-10.50").getThebe());
+        assertEquals(15_000, Money.parse("  150.00  ").getThebe());
+        assertEquals(100_000, Money.parse("1e3").getThebe());
+    }
+
+    @Test
+    void parseAcceptsTrailingZerosBeyondTwoPlaces() {
+        assertEquals(100, Money.parse("1.000").getThebe());
+        assertEquals(150, Money.parse("1.50000").getThebe());
+    }
+
+    @Test
+    void parseRejectsAThirdSignificantDecimalPlaceInsteadOfRounding() {
+        assertThrows(NumberFormatException.class, () -> Money.parse("1.005"));
+        assertThrows(NumberFormatException.class, () -> Money.parse("0.001"));
+        assertThrows(NumberFormatException.class, () -> Money.parse("-2.999"));
+    }
+
+    @Test
+    void parseTreatsNegativeZeroAsZero() {
+        assertSame(Money.ZERO, Money.parse("-0"));
+        assertSame(Money.ZERO, Money.parse("-0.00"));
+        assertSame(Money.ZERO, Money.parse("0E-10"));
+    }
+
+    @Test
+    void parseRejectsMalformedInput() {
+        assertThrows(NumberFormatException.class, () -> Money.parse(null));
+        assertThrows(NumberFormatException.class, () -> Money.parse(""));
+        assertThrows(NumberFormatException.class, () -> Money.parse("   "));
+        assertThrows(NumberFormatException.class, () -> Money.parse("12,50"));
+        assertThrows(NumberFormatException.class, () -> Money.parse("BWP 10"));
+        assertThrows(NumberFormatException.class, () -> Money.parse("NaN"));
+    }
+
+    @Test
+    void parseAcceptsTheLargestAmountThatFits() {
+        assertEquals(Long.MAX_VALUE, Money.parse("92233720368547758.07").getThebe());
+        assertEquals(-Long.MAX_VALUE, Money.parse("-92233720368547758.07").getThebe());
+    }
+
+    @Test
+    void parseRejectsAmountsThatOverflow() {
+        NumberFormatException e = assertThrows(NumberFormatException.class, () -> Money.parse("92233720368547758.08"));
+        assertTrue(e.getMessage().contains("too large"), e.getMessage());
+        assertThrows(NumberFormatException.class, () -> Money.parse("100000000000000000"));
+        assertThrows(NumberFormatException.class, () -> Money.parse("-92233720368547758.09"));
+    }
+
+    @Test
+    void parseRejectsHugeExponentsWithoutExpandingThem() {
+        assertThrows(NumberFormatException.class, () -> Money.parse("1e999999999"));
+        assertThrows(NumberFormatException.class, () -> Money.parse("1e-999999999"));
+    }
+
+    @Test
+    void ofDoubleRoundsHalfEvenToTheNearestThebe() {
+        assertEquals(1_000, Money.of(10.0).getThebe());
+        assertEquals(1_000, Money.of(10.005).getThebe());
+        assertEquals(1_002, Money.of(10.015).getThebe());
+        assertEquals(1_002, Money.of(10.025).getThebe());
+        assertEquals(-1_002, Money.of(-10.025).getThebe());
+        assertEquals(30, Money.of(0.1 + 0.2).getThebe());
+    }
+
+    @Test
+    void ofDoubleRejectsNonFiniteAndOversizedValues() {
+        assertThrows(IllegalArgumentException.class, () -> Money.of(Double.NaN));
+        assertThrows(IllegalArgumentException.class, () -> Money.of(Double.POSITIVE_INFINITY));
+        assertThrows(IllegalArgumentException.class, () -> Money.of(Double.NEGATIVE_INFINITY));
+        assertThrows(ArithmeticException.class, () -> Money.of(1e300));
+    }
+
+    @Test
+    void toDoubleRoundTripsThroughOf() {
+        for (long thebe : new long[] {0, 1, 99, 10_001, 123_456_789, -4_550}) {
+            Money money = Money.ofThebe(thebe);
+            assertEquals(money, Money.of(money.toDouble()));
+        }
+        assertEquals(12.34, Money.ofThebe(1_234).toDouble(), 0);
+    }
+
+    @Test
+    void arithmeticIsExact() {
+        Money a = Money.ofThebe(10);
+        Money b = Money.ofThebe(20);
+        assertEquals(Money.ofThebe(30), a.plus(b));
+        assertEquals(Money.ofThebe(-10), a.minus(b));
+        assertEquals(Money.ofThebe(-10), a.negate());
+        assertSame(Money.ZERO, a.minus(a));
+    }
+
+    @Test
+    void arithmeticThrowsOnOverflow() {
+        Money max = Money.ofThebe(Long.MAX_VALUE);
+        Money min = Money.ofThebe(Long.MIN_VALUE);
+        assertThrows(ArithmeticException.class, () -> max.plus(Money.ofThebe(1)));
+        assertThrows(ArithmeticException.class, () -> min.minus(Money.ofThebe(1)));
+        assertThrows(ArithmeticException.class, min::negate);
+        assertThrows(ArithmeticException.class, () -> max.multiply(2, 1, RoundingMode.HALF_EVEN));
+    }
+
+    @Test
+    void multiplyRoundsWithTheGivenMode() {
+        // 2.5% of 1.01 is 0.02525 pula = 2.525 thebe
+        Money amount = Money.ofThebe(101);
+        assertEquals(3, amount.multiply(25, 1000, RoundingMode.HALF_EVEN).getThebe());
+        assertEquals(3, amount.multiply(25, 1000, RoundingMode.HALF_UP).getThebe());
+        assertEquals(3, amount.multiply(25, 1000, RoundingMode.UP).getThebe());
+        assertEquals(2, amount.multiply(25, 1000, RoundingMode.DOWN).getThebe());
+        assertEquals(2, amount.multiply(25, 1000, RoundingMode.FLOOR).getThebe());
+        assertEquals(3, amount.multiply(25, 1000, RoundingMode.CEILING).getThebe());
+    }
+
+    @Test
+    void multiplyBreaksExactHalvesByMode() {
+        // 5% of 0.50 and 0.70 pula: exactly 2.5 and 3.5 thebe
+        assertEquals(2, Money.ofThebe(50).multiply(5, 100, RoundingMode.HALF_EVEN).getThebe());
+        assertEquals(4, Money.ofThebe(70).multiply(5, 100, RoundingMode.HALF_EVEN).getThebe());
+        assertEquals(3, Money.ofThebe(50).multiply(5, 100, RoundingMode.HALF_UP).getThebe());
+        assertEquals(2, Money.ofThebe(50).multiply(5, 100, RoundingMode.HALF_DOWN).getThebe());
+    }
+
+    @Test
+    void multiplyRoundsNegativeAmountsSymmetrically() {
+        Money amount = Money.ofThebe(-50);
+        assertEquals(-2, amount.multiply(5, 100, RoundingMode.HALF_EVEN).getThebe());
+        assertEquals(-3, amount.multiply(5, 100, RoundingMode.HALF_UP).getThebe());
+        assertEquals(-3, amount.multiply(5, 100, RoundingMode.FLOOR).getThebe());
+        assertEquals(-2, amount.multiply(5, 100, RoundingMode.CEILING).getThebe());
+    }
+
+    @Test
+    void multiplyHandlesDenominatorsNearLongMax() {
+        // Doubling the remainder here would overflow a long
+        long divisor = Long.MAX_VALUE - 1;
+        assertEquals(0, Money.ofThebe(Long.MAX_VALUE / 2 - 1).multiply(1, divisor, RoundingMode.HALF_UP).getThebe());
+        assertEquals(1, Money.ofThebe(Long.MAX_VALUE / 2).multiply(1, divisor, RoundingMode.HALF_UP).getThebe());
+        assertEquals(1, Money.ofThebe(Long.MAX_VALUE - 2).multiply(1, divisor, RoundingMode.HALF_UP).getThebe());
+    }
+
+    @Test
+    void multiplyRejectsUnnecessaryRoundingAndBadDenominators() {
+        assertThrows(ArithmeticException.class, () -> Money.ofThebe(101).multiply(25, 1000, RoundingMode.UNNECESSARY));
+        assertEquals(10, Money.ofThebe(100).multiply(1, 10, RoundingMode.UNNECESSARY).getThebe());
+        assertThrows(IllegalArgumentException.class, () -> Money.ofThebe(100).multiply(1, 0, RoundingMode.HALF_EVEN));
+        assertThrows(IllegalArgumentException.class, () -> Money.ofThebe(100).multiply(1, -10, RoundingMode.HALF_EVEN));
+    }
+
+    @Test
+    void comparisonsAndEquality() {
+        Money small = Money.ofThebe(100);
+        Money large = Money.ofThebe(200);
+        assertTrue(small.isLessThan(large));
+        assertTrue(large.isGreaterThan(small));
+        assertFalse(small.isGreaterThan(small));
+        assertTrue(small.compareTo(large) < 0);
+        assertEquals(Money.ofThebe(100), small);
+        assertEquals(Money.ofThebe(100).hashCode(), small.hashCode());
+        assertTrue(Money.ofThebe(-1).isNegative());
+        assertTrue(Money.ofThebe(1).isPositive());
+        assertTrue(Money.ofThebe(0).isZero());
+    }
+}
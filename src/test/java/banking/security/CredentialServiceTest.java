@@ -0,0 +1,170 @@
+package banking.security;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CredentialServiceTest {
+
+    private final PasswordHasher hasher = new PasswordHasher(1_000);
+    private final InMemoryUserStore store = new InMemoryUserStore();
+    private final ExecutorService lookups = Executors.newFixedThreadPool(4);
+    private final CredentialService service = new CredentialService(store, hasher, 1, lookups);
+
+    @AfterEach
+    void shutDown() {
+        service.close();
+        lookups.shutdownNow();
+    }
+
+    @Test
+    void aLegacyPlaintextPasswordIsReplacedByAHashOnTheFirstLogin() throws Exception {
+        store.add("clerk1", "password123");
+
+        CredentialService.AuthResult first = login("clerk1", "password123", "till-1");
+
+        assertTrue(first.isSuccess());
+        assertEquals("clerk1", first.getUser().getUserId());
+        String stored = store.passwords.get("clerk1");
+        assertTrue(PasswordHasher.isHashed(stored), stored);
+        assertTrue(hasher.verify("password123".toCharArray(), stored));
+        assertFalse(hasher.needsRehash(stored));
+
+        // The cached row was dropped, so the next login reads the hash and leaves it alone
+        assertTrue(login("clerk1", "password123", "till-1").isSuccess());
+        assertEquals(stored, store.passwords.get("clerk1"));
+        assertEquals(1, store.replacements.get());
+    }
+
+    @Test
+    void aWrongPasswordNeitherSucceedsNorUpgradesTheLegacyPassword() throws Exception {
+        store.add("clerk1", "password123");
+
+        CredentialService.AuthResult result = login("clerk1", "wrong", "till-1");
+
+        assertEquals(CredentialService.AuthResult.Status.INVALID, result.getStatus());
+        assertNull(result.getUser());
+        assertEquals("password123", store.passwords.get("clerk1"));
+        assertEquals(0, store.replacements.get());
+    }
+
+    @Test
+    void successfulLoginsDoNotCountAgainstTheUser() throws Exception {
+        store.add("clerk1", hasher.hash("secret".toCharArray()));
+
+        for (int i = 0; i < CredentialService.FAILURES_PER_USER_PER_MINUTE * 2; i++) {
+            assertTrue(login("clerk1", "secret", "till-" + i).isSuccess(), "login " + i);
+        }
+    }
+
+    @Test
+    void failuresLockTheUserOutAndASuccessClearsThem() throws Exception {
+        store.add("clerk1", hasher.hash("secret".toCharArray()));
+        int failures = CredentialService.FAILURES_PER_USER_PER_MINUTE;
+
+        for (int i = 0; i < failures - 1; i++) {
+            assertEquals(CredentialService.AuthResult.Status.INVALID, login("clerk1", "guess" + i, "till-" + i).getStatus());
+        }
+        assertTrue(login("clerk1", "secret", "till-a").isSuccess());
+
+        // The success cleared the earlier failures, so a full set is needed before the lockout
+        for (int i = 0; i < failures; i++) {
+            assertEquals(CredentialService.AuthResult.Status.INVALID, login("clerk1", "guess" + i, "till-" + i).getStatus());
+        }
+        assertEquals(CredentialService.AuthResult.Status.THROTTLED, login("clerk1", "secret", "till-b").getStatus());
+        assertTrue(login("clerk2", "anything", "till-b").getStatus() != CredentialService.AuthResult.Status.THROTTLED);
+    }
+
+    @Test
+    void parallelGuessesCannotAllGetInBeforeTheFirstFailureCounts() throws Exception {
+        store.add("clerk1", hasher.hash("secret".toCharArray()));
+        // Every lookup waits until all the guesses have been made, so none has failed yet
+        CountDownLatch allSubmitted = new CountDownLatch(1);
+        store.gate = allSubmitted;
+        int guesses = CredentialService.FAILURES_PER_USER_PER_MINUTE * 4;
+
+        List<CompletableFuture<CredentialService.AuthResult>> results = new ArrayList<>();
+        ExecutorService attackers = Executors.newFixedThreadPool(8);
+        try {
+            List<CompletableFuture<CompletableFuture<CredentialService.AuthResult>>> submitted = new ArrayList<>();
+            for (int i = 0; i < guesses; i++) {
+                String guess = "guess" + i;
+                String source = "till-" + i;
+                submitted.add(CompletableFuture.supplyAsync(
+                    () -> service.authenticate("clerk1", guess.toCharArray(), source), attackers));
+            }
+            for (CompletableFuture<CompletableFuture<CredentialService.AuthResult>> attempt : submitted) {
+                results.add(attempt.get(10, TimeUnit.SECONDS));
+            }
+        } finally {
+            allSubmitted.countDown();
+            attackers.shutdown();
+        }
+
+        int invalid = 0;
+        int throttled = 0;
+        for (CompletableFuture<CredentialService.AuthResult> result : results) {
+            CredentialService.AuthResult.Status status = result.get(10, TimeUnit.SECONDS).getStatus();
+            if (status == CredentialService.AuthResult.Status.INVALID) {
+                invalid++;
+            } else if (status == CredentialService.AuthResult.Status.THROTTLED) {
+                throttled++;
+            }
+        }
+        assertEquals(CredentialService.FAILURES_PER_USER_PER_MINUTE, invalid);
+        assertEquals(guesses - invalid, throttled);
+        // The owner is locked out too until the window passes
+        assertEquals(CredentialService.AuthResult.Status.THROTTLED, login("clerk1", "secret", "till-x").getStatus());
+    }
+
+    private CredentialService.AuthResult login(String userId, String password, String source) throws Exception {
+        return service.authenticate(userId, password.toCharArray(), source).get(10, TimeUnit.SECONDS);
+    }
+
+    private static final class InMemoryUserStore implements CredentialService.UserStore {
+        private final Map<String, String> passwords = new ConcurrentHashMap<>();
+        private final AtomicInteger replacements = new AtomicInteger();
+        private volatile CountDownLatch gate;
+
+        void add(String userId, String password) {
+            passwords.put(userId, password);
+        }
+
+        @Override
+        public CredentialService.UserRecord find(String userId) throws SQLException {
+            if (gate != null) {
+                try {
+                    gate.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new SQLException("Interrupted", e);
+                }
+            }
+            String password = passwords.get(userId);
+            return password == null ? null : new CredentialService.UserRecord(userId, password, "Clerk", null);
+        }
+
+        @Override
+        public void replacePassword(String userId, String expected, String newHash) {
+            if (passwords.replace(userId, expected, newHash)) {
+                replacements.incrementAndGet();
+            }
+        }
+    }
+}
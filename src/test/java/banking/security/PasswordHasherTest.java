@@ -0,0 +1,54 @@
+package banking.security;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PasswordHasherTest {
+
+    private final PasswordHasher hasher = new PasswordHasher(1_000);
+
+    @Test
+    void aHashVerifiesOnlyTheSamePassword() {
+        String stored = hasher.hash("correct horse".toCharArray());
+
+        assertTrue(stored.startsWith("pbkdf2-sha256$1000$"), stored);
+        assertTrue(PasswordHasher.isHashed(stored));
+        assertTrue(hasher.verify("correct horse".toCharArray(), stored));
+        assertFalse(hasher.verify("correct horsE".toCharArray(), stored));
+        assertFalse(hasher.verify("".toCharArray(), stored));
+        assertFalse(hasher.needsRehash(stored));
+    }
+
+    @Test
+    void theSamePasswordIsSaltedDifferentlyEachTime() {
+        assertNotEquals(hasher.hash("secret".toCharArray()), hasher.hash("secret".toCharArray()));
+    }
+
+    @Test
+    void legacyPlaintextPasswordsStillVerifyAndAlwaysNeedARehash() {
+        assertFalse(PasswordHasher.isHashed("password123"));
+        assertTrue(hasher.verify("password123".toCharArray(), "password123"));
+        assertFalse(hasher.verify("password124".toCharArray(), "password123"));
+        assertFalse(hasher.verify("password123".toCharArray(), null));
+        assertTrue(hasher.needsRehash("password123"));
+    }
+
+    @Test
+    void hashesMadeWithFewerIterationsNeedARehash() {
+        String weaker = new PasswordHasher(500).hash("secret".toCharArray());
+
+        assertTrue(hasher.verify("secret".toCharArray(), weaker));
+        assertTrue(hasher.needsRehash(weaker));
+        assertFalse(new PasswordHasher(500).needsRehash(hasher.hash("secret".toCharArray())));
+    }
+
+    @Test
+    void malformedHashesNeverVerify() {
+        assertFalse(hasher.verify("secret".toCharArray(), "pbkdf2-sha256$1000$not base64"));
+        assertFalse(hasher.verify("secret".toCharArray(), "pbkdf2-sha256$many$AAAA$AAAA"));
+        assertTrue(hasher.needsRehash("pbkdf2-sha256$many$AAAA$AAAA"));
+    }
+}
@@ -0,0 +1,48 @@
+package banking.security;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SlidingWindowRateLimiterTest {
+
+    @Test
+    void eventsBeyondTheLimitAreRefusedUntilTheKeyIsReset() {
+        SlidingWindowRateLimiter limiter = new SlidingWindowRateLimiter(3, 1, TimeUnit.HOURS);
+        for (int i = 0; i < 3; i++) {
+            assertTrue(limiter.tryAcquire("alice"));
+        }
+
+        assertFalse(limiter.tryAcquire("alice"));
+
+        limiter.reset("alice");
+        assertTrue(limiter.tryAcquire("alice"));
+    }
+
+    @Test
+    void eachKeyHasItsOwnLimit() {
+        SlidingWindowRateLimiter limiter = new SlidingWindowRateLimiter(2, 1, TimeUnit.HOURS);
+        limiter.tryAcquire("alice");
+        limiter.tryAcquire("alice");
+
+        assertFalse(limiter.tryAcquire("alice"));
+        assertTrue(limiter.tryAcquire("bob"));
+        assertTrue(limiter.tryAcquire("bob"));
+        assertFalse(limiter.tryAcquire("bob"));
+    }
+
+    @Test
+    void theLimitRecoversAsTheWindowSlidesPast() throws InterruptedException {
+        SlidingWindowRateLimiter limiter = new SlidingWindowRateLimiter(2, 50, TimeUnit.MILLISECONDS);
+        limiter.tryAcquire("alice");
+        limiter.tryAcquire("alice");
+        assertFalse(limiter.tryAcquire("alice"));
+
+        // Two windows later nothing from the full one still overlaps
+        Thread.sleep(120);
+        assertTrue(limiter.tryAcquire("alice"));
+    }
+}
@@ -0,0 +1,122 @@
+package banking.service;
+
+import main.java.banking.model.Account;
+import main.java.banking.model.ChequeAccount;
+import main.java.banking.model.CompanyCustomer;
+import main.java.banking.model.Customer;
+import main.java.banking.model.SavingsAccount;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BankRegistryTest {
+
+    private static final int WRITERS = 8;
+    private static final int READERS = 4;
+    private static final int CUSTOMERS_PER_WRITER = 500;
+    private static final String[] BRANCHES = {"Main", "Airport", "Mall"};
+
+    @Test
+    void concurrentRegistrationKeepsEveryIndexConsistent() throws Exception {
+        BankRegistry registry = new BankRegistry();
+        AtomicBoolean writing = new AtomicBoolean(true);
+        ExecutorService executor = Executors.newFixedThreadPool(WRITERS + READERS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> writers = new ArrayList<>();
+        List<Future<?>> readers = new ArrayList<>();
+        try {
+            for (int w = 0; w < WRITERS; w++) {
+                int writer = w;
+                writers.add(executor.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < CUSTOMERS_PER_WRITER; i++) {
+                        String customerId = "C" + writer + "-" + i;
+                        Customer customer = new CompanyCustomer("Gaborone", "Company " + customerId, "REG-" + customerId);
+                        String branch = BRANCHES[i % BRANCHES.length];
+                        new SavingsAccount("SAV-" + customerId, customer, branch);
+                        registry.registerCustomer(customerId, customer);
+                        // Accounts opened after the customer is registered go through registerAccount
+                        registry.registerAccount(new ChequeAccount("CHQ-" + customerId, customer, branch));
+                    }
+                    return null;
+                }));
+            }
+            for (int r = 0; r < READERS; r++) {
+                readers.add(executor.submit(() -> {
+                    start.await();
+                    while (writing.get()) {
+                        for (Account account : registry.getAccountsByType("ChequeAccount")) {
+                            // Anything visible in an index must also be visible by number and by owner
+                            assertSame(account, registry.findAccount(account.getAccountNumber()));
+                            String customerId = registry.getCustomerId(account.getOwner());
+                            assertTrue(registry.getAccountsByCustomer(customerId).contains(account));
+                        }
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : writers) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+            writing.set(false);
+            for (Future<?> future : readers) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+            assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+        }
+
+        int customers = WRITERS * CUSTOMERS_PER_WRITER;
+        assertEquals(customers, registry.getCustomerCount());
+        assertEquals(customers * 2, registry.getAccountCount());
+        assertEquals(customers, registry.getAccountsByType("SavingsAccount").size());
+        assertEquals(customers, registry.getAccountsByType("ChequeAccount").size());
+        int byBranch = 0;
+        for (String branch : BRANCHES) {
+            byBranch += registry.getAccountsByBranch(branch).size();
+        }
+        assertEquals(customers * 2, byBranch);
+        for (String customerId : registry.getCustomerIds()) {
+            Set<Account> accounts = registry.getAccountsByCustomer(customerId);
+            assertEquals(2, accounts.size(), customerId);
+            assertSame(registry.findCustomer(customerId), registry.findByRegistrationNumber("REG-" + customerId));
+        }
+    }
+
+    @Test
+    void reRegisteringAnAccountNumberReplacesTheOldAccountInEveryIndex() {
+        BankRegistry registry = new BankRegistry();
+        Customer customer = new CompanyCustomer("Gaborone", "Acme", "REG-1");
+        registry.registerCustomer("C1", customer);
+        Account old = new SavingsAccount("ACC1", customer, "Main");
+        registry.registerAccount(old);
+
+        Account replacement = new ChequeAccount("ACC1", customer, "Airport");
+        registry.registerAccount(replacement);
+
+        assertSame(replacement, registry.findAccount("ACC1"));
+        assertTrue(registry.getAccountsByBranch("Main").isEmpty());
+        assertTrue(registry.getAccountsByType("SavingsAccount").isEmpty());
+        assertEquals(Set.of(replacement), registry.getAccountsByBranch("Airport"));
+        assertEquals(Set.of(replacement), registry.getAccountsByCustomer("C1"));
+
+        registry.removeAccount("ACC1");
+        assertNull(registry.findAccount("ACC1"));
+        assertTrue(registry.getAccountsByCustomer("C1").isEmpty());
+    }
+}
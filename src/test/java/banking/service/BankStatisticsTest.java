@@ -0,0 +1,119 @@
+package banking.service;
+
+import main.java.banking.model.Account;
+import main.java.banking.model.AccountEvents;
+import main.java.banking.model.ChequeAccount;
+import main.java.banking.model.CompanyCustomer;
+import main.java.banking.model.Customer;
+import main.java.banking.model.Money;
+import main.java.banking.model.SavingsAccount;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BankStatisticsTest {
+
+    private final BankStatistics statistics = new BankStatistics();
+
+    @AfterEach
+    void stopObserving() {
+        AccountEvents.observeBalances(null);
+    }
+
+    @Test
+    void seedingFillsEveryBranchAndTypeFromTheAggregates() {
+        statistics.seed(3, Arrays.asList(
+            new BankStatistics.Totals("Main", "SavingsAccount", 2, Money.ofThebe(150_00)),
+            new BankStatistics.Totals("Main", "ChequeAccount", 1, Money.ofThebe(40_00)),
+            new BankStatistics.Totals("Airport", "SavingsAccount", 4, Money.ofThebe(10_00))),
+            Collections.emptyList());
+
+        assertTrue(statistics.isInitialized());
+        assertEquals(3, statistics.getCustomerCount());
+        assertEquals(7, statistics.getAccountCount());
+        assertEquals(Money.ofThebe(200_00), statistics.getTotalBalance());
+        assertEquals(3, statistics.getAccountCountByBranch("Main"));
+        assertEquals(Money.ofThebe(190_00), statistics.getBalanceByBranch("Main"));
+        assertEquals(4, statistics.getAccountCountByBranch("Airport"));
+        assertEquals(6, statistics.getAccountCountByType("SavingsAccount"));
+        assertEquals(Money.ofThebe(160_00), statistics.getBalanceByType("SavingsAccount"));
+        assertEquals(Money.ofThebe(40_00), statistics.getBalanceByType("ChequeAccount"));
+    }
+
+    @Test
+    void observedPostingsMoveOnlyTrackedAccountsWithNoEventSinkInstalled() {
+        Customer owner = new CompanyCustomer("Gaborone", "Acme", "REG-1");
+        ChequeAccount tracked = new ChequeAccount("ACC-1", owner, "Main");
+        Account untracked = new SavingsAccount("ACC-2", owner, "Main");
+        statistics.seed(1, Collections.singletonList(
+            new BankStatistics.Totals("Main", "ChequeAccount", 1, Money.ZERO)),
+            Collections.singletonList("ACC-1"));
+        AccountEvents.observeBalances(statistics);
+
+        tracked.deposit(Money.ofThebe(50_00));
+        tracked.withdraw(Money.ofThebe(20_00));
+        untracked.deposit(Money.ofThebe(99_00));
+
+        assertFalse(AccountEvents.getSink().isEnabled());
+        assertEquals(Money.ofThebe(30_00), statistics.getTotalBalance());
+        assertEquals(Money.ofThebe(30_00), statistics.getBalanceByBranch("Main"));
+        assertEquals(Money.ofThebe(30_00), statistics.getBalanceByType("ChequeAccount"));
+        assertEquals(Money.ZERO, statistics.getBalanceByType("SavingsAccount"));
+    }
+
+    @Test
+    void anAccountOpenedAfterSeedingCountsItsOpeningDepositOnce() {
+        BankRegistry registry = new BankRegistry();
+        Customer owner = new CompanyCustomer("Gaborone", "Acme", "REG-1");
+        Account existing = new SavingsAccount("ACC-1", owner, "Main");
+        existing.restoreBalance(Money.ofThebe(10_00));
+        registry.registerCustomer("C1", owner);
+        statistics.seed(1, Collections.singletonList(
+            new BankStatistics.Totals("Main", "SavingsAccount", 1, Money.ofThebe(10_00))),
+            Collections.singletonList("ACC-1"));
+        AccountEvents.observeBalances(statistics);
+
+        // As account opening does it: deposit, register, then report
+        Account opened = new ChequeAccount("ACC-2", owner, "Airport");
+        opened.deposit(Money.ofThebe(25_00));
+        registry.registerAccount(opened);
+        statistics.accountOpened(opened);
+        opened.deposit(Money.ofThebe(5_00));
+        existing.deposit(Money.ofThebe(1_00));
+
+        assertEquals(2, statistics.getAccountCount());
+        assertEquals(Money.ofThebe(41_00), statistics.getTotalBalance());
+        assertEquals(Money.ofThebe(30_00), statistics.getBalanceByBranch("Airport"));
+        assertEquals(Collections.emptyList(), statistics.checkAgainst(registry));
+    }
+
+    @Test
+    void checkingAgainstTheRegistryReportsEveryFigureThatDrifted() {
+        BankRegistry registry = new BankRegistry();
+        Customer owner = new CompanyCustomer("Gaborone", "Acme", "REG-1");
+        new SavingsAccount("ACC-1", owner, "Main").restoreBalance(Money.ofThebe(10_00));
+        registry.registerCustomer("C1", owner);
+        // Seeded as if the account were at another branch with a stale balance
+        statistics.seed(1, Collections.singletonList(
+            new BankStatistics.Totals("Mall", "SavingsAccount", 1, Money.ofThebe(8_00))),
+            Collections.singletonList("ACC-1"));
+
+        List<String> problems = statistics.checkAgainst(registry);
+
+        assertEquals(Arrays.asList(
+            "total balance (thebe): expected 1000 but running total is 800"),
+            problems.subList(0, 1));
+        assertTrue(problems.contains("branch Main accounts: expected 1 but running total is 0"), problems.toString());
+        assertTrue(problems.contains("branch Mall balance (thebe): expected 0 but running total is 800"),
+            problems.toString());
+        assertTrue(problems.contains("type SavingsAccount balance (thebe): expected 1000 but running total is 800"),
+            problems.toString());
+    }
+}
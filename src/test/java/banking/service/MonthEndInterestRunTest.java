@@ -0,0 +1,117 @@
+package banking.service;
+
+import banking.ledger.TransactionLedger;
+import main.java.banking.model.Account;
+import main.java.banking.model.ChequeAccount;
+import main.java.banking.model.CompanyCustomer;
+import main.java.banking.model.Customer;
+import main.java.banking.model.Money;
+import main.java.banking.model.SavingsAccount;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.api.Test;
+
+import java.math.RoundingMode;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class MonthEndInterestRunTest {
+
+    private static final YearMonth PERIOD = YearMonth.of(2026, 9);
+    private static final int ACCOUNTS = 250;
+
+    @TempDir
+    Path directory;
+
+    private final List<MonthEndInterestRun.InterestPosting> written = Collections.synchronizedList(new ArrayList<>());
+
+    @Test
+    void runningTwiceForAPeriodPostsInterestOnce() throws Exception {
+        List<Account> accounts = newAccounts();
+        try (TransactionLedger ledger = TransactionLedger.open(directory)) {
+            MonthEndInterestRun run = newRun(ledger, written::addAll);
+
+            MonthEndInterestRun.Result first = run.run(PERIOD, accounts);
+            MonthEndInterestRun.Result second = run.run(PERIOD, accounts);
+
+            assertEquals(ACCOUNTS, first.getAccountsPosted());
+            assertEquals(0, second.getAccountsPosted());
+            assertEquals(ACCOUNTS, second.getAlreadyPosted());
+            assertEquals(ACCOUNTS, written.size());
+            assertBalancesAfterOneInterestPosting(accounts);
+            // The next period is a fresh posting
+            assertEquals(ACCOUNTS, run.run(PERIOD.plusMonths(1), accounts).getAccountsPosted());
+        }
+    }
+
+    @Test
+    void aRunInterruptedPartWayOnlyPostsTheRestWhenRestarted() throws Exception {
+        List<Account> accounts = newAccounts();
+        try (TransactionLedger ledger = TransactionLedger.open(directory)) {
+            // Stands in for a run that died after the first 100 savings accounts
+            newRun(ledger, written::addAll).run(PERIOD, accounts.subList(0, 200));
+        }
+
+        // After a restart the accounts are reloaded and take their balances from the ledger
+        List<Account> reloaded = newAccounts();
+        try (TransactionLedger ledger = TransactionLedger.open(directory)) {
+            ledger.restoreBalances(reloaded);
+            MonthEndInterestRun.Result resumed = newRun(ledger, written::addAll).run(PERIOD, reloaded);
+
+            assertEquals(ACCOUNTS - 100, resumed.getAccountsPosted());
+            assertEquals(100, resumed.getAlreadyPosted());
+            assertEquals(ACCOUNTS, written.size());
+            assertBalancesAfterOneInterestPosting(reloaded);
+        }
+    }
+
+    @Test
+    void aFailedDatabaseWriteStillCountsAsPosted() throws Exception {
+        List<Account> accounts = newAccounts();
+        try (TransactionLedger ledger = TransactionLedger.open(directory)) {
+            MonthEndInterestRun failing = newRun(ledger, postings -> {
+                throw new SQLException("database is locked");
+            });
+            MonthEndInterestRun.Result result = failing.run(PERIOD, accounts);
+
+            assertEquals(ACCOUNTS, result.getAccountsPosted());
+            assertEquals(ACCOUNTS, result.getUnwritten());
+            // The postings are in the ledger, so running again must not post them a second time
+            assertEquals(ACCOUNTS, newRun(ledger, written::addAll).run(PERIOD, accounts).getAlreadyPosted());
+            assertBalancesAfterOneInterestPosting(accounts);
+        }
+    }
+
+    private static MonthEndInterestRun newRun(TransactionLedger ledger, MonthEndInterestRun.PostingWriter writer) {
+        // Small partitions so the accounts are spread over several pool threads
+        return new MonthEndInterestRun(ForkJoinPool.commonPool(), 16, ledger, writer);
+    }
+
+    // Savings accounts holding 1,000.00 to 1,249.00 at the company rate, plus cheque accounts that earn nothing
+    private static List<Account> newAccounts() {
+        Customer owner = new CompanyCustomer("Gaborone", "Acme", "REG-1");
+        List<Account> accounts = new ArrayList<>();
+        for (int i = 0; i < ACCOUNTS; i++) {
+            Account savings = new SavingsAccount(String.format("SAV-%04d", i), owner, "Main");
+            savings.restoreBalance(Money.ofThebe(1_000_00 + i * 100));
+            accounts.add(savings);
+            accounts.add(new ChequeAccount(String.format("CHQ-%04d", i), owner, "Main"));
+        }
+        return accounts;
+    }
+
+    private static void assertBalancesAfterOneInterestPosting(List<Account> accounts) {
+        for (int i = 0; i < ACCOUNTS; i++) {
+            long opening = 1_000_00 + i * 100;
+            long expected = opening + Money.ofThebe(opening).multiply(75, 1000, RoundingMode.HALF_EVEN).getThebe();
+            assertEquals(Money.ofThebe(expected), accounts.get(i * 2).getBalance(), accounts.get(i * 2).getAccountNumber());
+            assertEquals(Money.ZERO, accounts.get(i * 2 + 1).getBalance());
+        }
+    }
+}
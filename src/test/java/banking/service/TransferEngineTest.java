@@ -0,0 +1,182 @@
+package banking.service;
+
+import banking.ledger.Posting;
+import banking.ledger.PostingType;
+import banking.ledger.TransactionLedger;
+import main.java.banking.model.Account;
+import main.java.banking.model.ChequeAccount;
+import main.java.banking.model.CompanyCustomer;
+import main.java.banking.model.Customer;
+import main.java.banking.model.Money;
+import main.java.banking.model.SavingsAccount;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TransferEngineTest {
+
+    private static final int ACCOUNTS = 20;
+    private static final int THREADS = 8;
+    private static final int TRANSFERS_PER_THREAD = 2_000;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void randomConcurrentTransfersConserveMoney() throws Exception {
+        Random seeds = new Random(20261017L);
+        List<Account> accounts = newAccounts(seeds);
+        long total = sum(accounts);
+        AtomicLong writtenDebits = new AtomicLong();
+        AtomicLong writtenCredits = new AtomicLong();
+        AtomicInteger completed = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+
+        try (TransactionLedger ledger = TransactionLedger.open(directory)) {
+            TransferEngine engine = new TransferEngine(ledger, (legs, postings, balancesAfter) -> {
+                assertEquals(legs.size() * 2, postings.size());
+                for (Posting posting : postings) {
+                    (posting.getType() == PostingType.TRANSFER_OUT ? writtenDebits : writtenCredits)
+                        .addAndGet(posting.getAmount().getThebe());
+                }
+            });
+
+            ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<?>> futures = new ArrayList<>();
+            try {
+                for (int t = 0; t < THREADS; t++) {
+                    long seed = seeds.nextLong();
+                    futures.add(executor.submit(() -> {
+                        Random random = new Random(seed);
+                        start.await();
+                        for (int i = 0; i < TRANSFERS_PER_THREAD; i++) {
+                            try {
+                                engine.execute(randomLegs(random, accounts), null);
+                                completed.incrementAndGet();
+                            } catch (IllegalArgumentException e) {
+                                // Insufficient funds, a savings account as the source, or a leg to itself
+                                rejected.incrementAndGet();
+                            }
+                        }
+                        return null;
+                    }));
+                }
+                start.countDown();
+                for (Future<?> future : futures) {
+                    // A lock-ordering bug would show up here as a timeout
+                    future.get(60, TimeUnit.SECONDS);
+                }
+            } finally {
+                executor.shutdownNow();
+                assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+            }
+
+            assertTrue(completed.get() > 0, "no transfer went through");
+            assertTrue(rejected.get() > 0, "no transfer was rejected");
+            assertEquals(total, sum(accounts));
+            assertEquals(writtenDebits.get(), writtenCredits.get());
+            for (Account account : accounts) {
+                assertFalse(account.getBalance().isNegative(), account.getAccountNumber());
+                assertEquals(account.getBalance(), ledger.getBalance(account.getAccountNumber()), account.getAccountNumber());
+            }
+        }
+
+        // Replaying the ledger gives the same balances
+        List<Account> reloaded = newAccounts(new Random(20261017L));
+        try (TransactionLedger ledger = TransactionLedger.open(directory)) {
+            ledger.restoreBalances(reloaded);
+        }
+        for (int i = 0; i < ACCOUNTS; i++) {
+            assertEquals(accounts.get(i).getBalance(), reloaded.get(i).getBalance(), accounts.get(i).getAccountNumber());
+        }
+    }
+
+    @Test
+    void aRejectedLegCancelsTheWholeTransfer() throws Exception {
+        List<Account> accounts = newAccounts(new Random(1));
+        Account a = accounts.get(0);
+        Account b = accounts.get(1);
+        Money aBefore = a.getBalance();
+        Money bBefore = b.getBalance();
+        try (TransactionLedger ledger = TransactionLedger.open(directory)) {
+            TransferEngine engine = new TransferEngine(ledger, (legs, postings, balancesAfter) -> { });
+            List<TransferEngine.Leg> legs = List.of(
+                new TransferEngine.Leg(a, b, Money.ofThebe(1)),
+                new TransferEngine.Leg(b, a, bBefore.plus(Money.ofThebe(2))));
+
+            assertThrows(IllegalArgumentException.class, () -> engine.execute(legs, null));
+            assertEquals(aBefore, a.getBalance());
+            assertEquals(bBefore, b.getBalance());
+            assertEquals(0, ledger.getLastSequence());
+        }
+    }
+
+    @Test
+    void aFailedDatabaseWriteKeepsTheTransfer() throws Exception {
+        List<Account> accounts = newAccounts(new Random(2));
+        Account a = accounts.get(0);
+        Account b = accounts.get(1);
+        Money moved = Money.ofThebe(1_00);
+        Money aAfter = a.getBalance().minus(moved);
+        try (TransactionLedger ledger = TransactionLedger.open(directory)) {
+            TransferEngine engine = new TransferEngine(ledger, (legs, postings, balancesAfter) -> {
+                throw new SQLException("database is locked");
+            });
+            engine.transfer(a, b, moved, null);
+
+            assertEquals(aAfter, a.getBalance());
+            assertEquals(aAfter, ledger.getBalance(a.getAccountNumber()));
+            assertEquals(1, engine.getFailedWrites());
+        }
+    }
+
+    // Every fifth account is a savings account, which can receive but not send
+    private static List<Account> newAccounts(Random random) {
+        Customer owner = new CompanyCustomer("Gaborone", "Acme", "REG-1");
+        List<Account> accounts = new ArrayList<>();
+        for (int i = 0; i < ACCOUNTS; i++) {
+            String number = String.format("ACC-%02d", i);
+            Account account = i % 5 == 4 ? new SavingsAccount(number, owner, "Main") : new ChequeAccount(number, owner, "Main");
+            account.restoreBalance(Money.ofThebe(random.nextInt(1_000_00)));
+            accounts.add(account);
+        }
+        return accounts;
+    }
+
+    private static List<TransferEngine.Leg> randomLegs(Random random, List<Account> accounts) {
+        List<TransferEngine.Leg> legs = new ArrayList<>();
+        int count = 1 + random.nextInt(3);
+        for (int i = 0; i < count; i++) {
+            Account from = accounts.get(random.nextInt(accounts.size()));
+            Account to = accounts.get(random.nextInt(accounts.size()));
+            legs.add(new TransferEngine.Leg(from, to, Money.ofThebe(1 + random.nextInt(200_00))));
+        }
+        return legs;
+    }
+
+    private static long sum(List<Account> accounts) {
+        long total = 0;
+        for (Account account : accounts) {
+            total += account.getBalance().getThebe();
+        }
+        return total;
+    }
+}
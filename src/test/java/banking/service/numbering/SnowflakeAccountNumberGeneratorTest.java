@@ -0,0 +1,93 @@
+package banking.service.numbering;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SnowflakeAccountNumberGeneratorTest {
+
+    private static final int THREADS = 8;
+    private static final int NUMBERS_PER_THREAD = 50_000;
+
+    @Test
+    void numbersAreUniqueAcrossThreadsAndNodes() throws Exception {
+        // Two nodes drawing at full speed, well past 4096 numbers per millisecond
+        SnowflakeAccountNumberGenerator first = new SnowflakeAccountNumberGenerator(1);
+        SnowflakeAccountNumberGenerator second = new SnowflakeAccountNumberGenerator(2);
+        Set<String> issued = ConcurrentHashMap.newKeySet();
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        try {
+            for (int t = 0; t < THREADS; t++) {
+                AccountNumberGenerator generator = t % 2 == 0 ? first : second;
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    String previous = null;
+                    for (int i = 0; i < NUMBERS_PER_THREAD; i++) {
+                        String number = generator.next("Main");
+                        assertTrue(issued.add(number), "Issued twice: " + number);
+                        assertTrue(Luhn.isValidAccountNumber(number), number);
+                        // Each thread sees its node's numbers increase
+                        if (previous != null) {
+                            assertTrue(idOf(number) > idOf(previous), previous + " then " + number);
+                        }
+                        previous = number;
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+            assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+        }
+        assertEquals(THREADS * NUMBERS_PER_THREAD, issued.size());
+    }
+
+    @Test
+    void nodeIdIsRequiredAndValidated() {
+        String saved = System.getProperty(SnowflakeAccountNumberGenerator.NODE_ID_PROPERTY);
+        try {
+            System.clearProperty(SnowflakeAccountNumberGenerator.NODE_ID_PROPERTY);
+            assertThrows(IllegalStateException.class, SnowflakeAccountNumberGenerator::fromSystemProperties);
+
+            System.setProperty(SnowflakeAccountNumberGenerator.NODE_ID_PROPERTY, "node-7");
+            assertThrows(IllegalStateException.class, SnowflakeAccountNumberGenerator::fromSystemProperties);
+
+            System.setProperty(SnowflakeAccountNumberGenerator.NODE_ID_PROPERTY, "1024");
+            assertThrows(IllegalStateException.class, SnowflakeAccountNumberGenerator::fromSystemProperties);
+
+            System.setProperty(SnowflakeAccountNumberGenerator.NODE_ID_PROPERTY, " 7 ");
+            long id = idOf(SnowflakeAccountNumberGenerator.fromSystemProperties().next("Main"));
+            assertEquals(7, id & SnowflakeAccountNumberGenerator.MAX_NODE_ID);
+        } finally {
+            if (saved == null) {
+                System.clearProperty(SnowflakeAccountNumberGenerator.NODE_ID_PROPERTY);
+            } else {
+                System.setProperty(SnowflakeAccountNumberGenerator.NODE_ID_PROPERTY, saved);
+            }
+        }
+    }
+
+    // The id between the prefix and the check digit
+    private static long idOf(String accountNumber) {
+        return Long.parseLong(accountNumber.substring(AccountNumberGenerator.PREFIX.length(), accountNumber.length() - 1));
+    }
+}